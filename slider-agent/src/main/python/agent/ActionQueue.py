@@ -41,7 +41,11 @@ installScriptHash = -1
 
 class ActionQueue(threading.Thread):
   """ Action Queue for the agent. We pick one command at a time from the queue
-  and execute it
+  and execute it.
+  Status commands have a queue and a worker thread of their own, so that
+  they are not held up behind a long running execution command (or the
+  other way round); execution commands are still run one at a time, in
+  the order they were received.
   """
 
   STATUS_COMMAND = 'STATUS_COMMAND'
@@ -52,6 +56,8 @@ class ActionQueue(threading.Thread):
   FAILED_STATUS = 'FAILED'
 
   STORE_APPLIED_CONFIG = 'record_config'
+  # how often the status command worker checks whether to stop
+  STATUS_WORKER_POLL_SEC = 1
   AUTO_RESTART = 'auto_restart'
   
   docker_mode = False
@@ -62,6 +68,9 @@ class ActionQueue(threading.Thread):
     self.queueOutAgentToggleLogger = agentToggleLogger
     self.queueInAgentToggleLogger = AgentToggleLogger("info")
     self.commandQueue = Queue.Queue()
+    self.statusCommandQueue = Queue.Queue()
+    self.statusWorker = None
+    self.statusWorkerLock = threading.Lock()
     self.commandStatuses = CommandStatusDict(callback_action=
     self.status_update_callback)
     self.config = config
@@ -91,10 +100,32 @@ class ActionQueue(threading.Thread):
       self.queueInAgentToggleLogger.log(message)
       self.queueInAgentToggleLogger.adjustLogLevelAtEnd(command['commandType'])
       logger.debug(pprint.pformat(command))
-      self.commandQueue.put(command)
+      if command['commandType'] == self.STATUS_COMMAND:
+        self.startStatusWorker()
+        self.statusCommandQueue.put(command)
+      else:
+        self.commandQueue.put(command)
+
+  def startStatusWorker(self):
+    with self.statusWorkerLock:
+      if self.statusWorker is None:
+        self.statusWorker = threading.Thread(target=self.runStatusCommands,
+                                             name="StatusCommandWorker")
+        self.statusWorker.daemon = True
+        self.statusWorker.start()
+
+  def runStatusCommands(self):
+    while not self.stopped():
+      try:
+        command = self.statusCommandQueue.get(True,
+                                              self.STATUS_WORKER_POLL_SEC)
+      except Queue.Empty:
+        continue
+      self.process_command(command)
+    logger.info("Status command worker stopped.")
 
   def empty(self):
-    return self.commandQueue.empty()
+    return self.commandQueue.empty() and self.statusCommandQueue.empty()
 
 
   def run(self):
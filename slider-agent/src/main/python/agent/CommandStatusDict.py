@@ -70,7 +70,9 @@ class CommandStatusDict():
     with self.lock: # Synchronized
       resultReports = []
       resultComponentStatus = []
-      for key, item in self.current_state.items():
+      # in task order, so that the last report is of the latest command
+      for key, item in sorted(self.current_state.items(),
+                              key=lambda entry: entry[0]):
         command = item[0]
         report = item[1]
         logger.debug("report inside generate report is: " + str(report))
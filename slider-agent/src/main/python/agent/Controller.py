@@ -79,6 +79,7 @@ class Controller(threading.Thread):
     self.cachedconnect = None
     self.range = range
     self.hasMappedComponents = True
+    self.deltaHeartbeat = False
     # Event is used for synchronizing heartbeat iterations (to make possible
     # manual wait() interruption between heartbeats )
     self.heartbeat_wait_event = threading.Event()
@@ -94,6 +95,8 @@ class Controller(threading.Thread):
     self.autoRestartTrackingSince = 0
     self.terminateAgent = False
     self.stopCommand = None
+    # commands sent by the AM to run once the current command finishes
+    self.pipelinedCommands = []
     self.appGracefulStopQueued = False
     self.appGracefulStopTriggered = False
     self.tags = ""
@@ -177,9 +180,17 @@ class Controller(threading.Thread):
           self.isRegistered = False
           self.repeatRegistration = False
           return regResp
+        if regResp.get('response') == 'RETRY':
+          # the AM is busy with other registrations
+          backoff = int(regResp.get('backoffInterval', 0)) / 1000.0
+          logger.info("Registration deferred by the server, retrying in %s"
+                      " seconds" % backoff)
+          time.sleep(backoff)
+          continue
         logger.info("Registered with the server with " + pprint.pformat(regResp))
         print("Registered with the server")
         self.responseId = int(regResp['responseId'])
+        self.deltaHeartbeat = regResp.get('deltaHeartbeat', False)
         self.isRegistered = True
         if ('statusCommands' in regResp.keys()) and (not regResp['statusCommands'] == None):
           logger.info("Got status commands on registration " + pprint.pformat(
@@ -223,6 +234,10 @@ class Controller(threading.Thread):
       self.actionQueue.put(commands)
     pass
 
+  # commands which the AM may send other commands along with
+  PIPELINE_HEADS = ['INSTALL', 'UPGRADE']
+  RUN_AFTER_FAILURE = 'run_after_failure'
+
   # For testing purposes
   DEBUG_HEARTBEAT_RETRIES = 0
   DEBUG_SUCCESSFULL_HEARTBEATS = 0
@@ -293,6 +308,10 @@ class Controller(threading.Thread):
     certVerifFailed = False
 
     self.processDebugCommandForHeartbeat()
+    # a fresh registration always starts with a full heartbeat
+    self.heartbeat.setDeltaMode(self.deltaHeartbeat)
+    # the AM forgets pipelined commands when the agent registers
+    self.pipelinedCommands = []
 
     while not self.DEBUG_STOP_HEARTBEATING:
 
@@ -311,6 +330,7 @@ class Controller(threading.Thread):
             self.heartbeat.build(commandResult,
                                  self.responseId, self.hasMappedComponents))
           self.updateStateBasedOnResult(commandResult)
+          self.releasePipelinedCommands(commandResult)
           logger.debug("Sending request: " + data)
           pass
         else:
@@ -358,11 +378,18 @@ class Controller(threading.Thread):
           self.restartAgent()
         else:
           self.responseId = serverId
+          if response.get('fullHeartbeatRequired', False):
+            logger.info("Server requested a full heartbeat")
+            self.heartbeat.resetBaseline()
+          else:
+            self.heartbeat.acknowledge()
 
         commandSentFromAM = False
         if 'executionCommands' in response.keys():
-          self.updateStateBasedOnCommand(response['executionCommands'])
-          self.addToQueue(response['executionCommands'])
+          executionCommands = self.holdPipelinedCommands(
+            response['executionCommands'])
+          self.updateStateBasedOnCommand(executionCommands)
+          self.addToQueue(executionCommands)
           commandSentFromAM = True
           pass
         if 'statusCommands' in response.keys() and len(response['statusCommands']) > 0:
@@ -434,7 +461,9 @@ class Controller(threading.Thread):
           self.heartBeatRetryCount = 0
           self.readAMDataFromRegistry()
           return
-        self.cachedconnect = None # Previous connection is broken now
+        # Previous connection is broken now; the next request reconnects
+        if self.cachedconnect is not None:
+          self.cachedconnect.reset()
         retry = True
       finally:
         # Sleep for some time
@@ -458,6 +487,44 @@ class Controller(threading.Thread):
     pass
 
 
+  def holdPipelinedCommands(self, commands):
+    """
+    The AM may send the commands which follow an INSTALL or UPGRADE in the
+    same response. Only the first command is run now; the rest are held
+    back until it has finished, as the component state tracks one command
+    at a time. Returns the commands to run now.
+    """
+    if len(commands) > 1 and \
+        commands[0]['roleCommand'] in Controller.PIPELINE_HEADS:
+      self.pipelinedCommands = commands[1:]
+      logger.info("Holding %d command(s) until %s completes",
+                  len(self.pipelinedCommands), commands[0]['roleCommand'])
+      return commands[:1]
+    return commands
+
+  def releasePipelinedCommands(self, commandResult):
+    """
+    Once the command in progress has finished, queue the commands held back
+    behind it; they are discarded if it failed, unless the AM marked them
+    to run regardless.
+    """
+    if not self.pipelinedCommands or "commandStatus" not in commandResult:
+      return
+    status = commandResult["commandStatus"]
+    if status == ActionQueue.IN_PROGRESS_STATUS:
+      return
+    commands = self.pipelinedCommands
+    self.pipelinedCommands = []
+    if status == ActionQueue.FAILED_STATUS:
+      params = commands[0].get('commandParams') or {}
+      if params.get(Controller.RUN_AFTER_FAILURE) != 'true':
+        logger.info("Discarding %d pipelined command(s) after a failure",
+                    len(commands))
+        return
+    logger.info("Queueing %d pipelined command(s)", len(commands))
+    self.updateStateBasedOnCommand(commands)
+    self.addToQueue(commands)
+
   def updateStateBasedOnCommand(self, commands, createStatus=True):
     # A STOP command is paired with the START command to provide agents the
     # capability to gracefully stop the app if possible. The STOP command needs
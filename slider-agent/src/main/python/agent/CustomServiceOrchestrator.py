@@ -55,6 +55,9 @@ class CustomServiceOrchestrator():
     self.controller = controller
     self.tmp_dir = config.getResolvedPath(AgentConfig.APP_TASK_DIR)
     self.python_executor = PythonExecutor(self.tmp_dir, config, agentToggleLogger)
+    # status commands run alongside execution commands, so they need an
+    # executor of their own
+    self.status_executor = PythonExecutor(self.tmp_dir, config, agentToggleLogger)
     self.status_commands_stdout = os.path.realpath(posixpath.join(self.tmp_dir,
                                                                   'status_command_stdout.txt'))
     self.status_commands_stderr = os.path.realpath(posixpath.join(self.tmp_dir,
@@ -139,6 +142,9 @@ class CustomServiceOrchestrator():
 
       # Executing hooks and script
       ret = None
+      executor = self.python_executor
+      if command.get('commandType') == 'STATUS_COMMAND':
+        executor = self.status_executor
       for py_file, current_base_dir in filtered_py_file_list:
         script_params = [command_name, json_path, current_base_dir]
         python_paths = [os.path.realpath(posixpath.join(self.config.getWorkRootPath(),
@@ -150,12 +156,12 @@ class CustomServiceOrchestrator():
         else:
           environment_vars = [("PYTHONPATH", ";".join(python_paths))]
 
-        ret = self.python_executor.run_file(py_file, script_params,
-                                            tmpoutfile, tmperrfile, timeout,
-                                            tmpstrucoutfile,
-                                            logger_level,
-                                            override_output_files,
-                                            environment_vars)
+        ret = executor.run_file(py_file, script_params,
+                                tmpoutfile, tmperrfile, timeout,
+                                tmpstrucoutfile,
+                                logger_level,
+                                override_output_files,
+                                environment_vars)
         # Next run_file() invocations should always append to current output
         override_output_files = False
         if ret[Constants.EXIT_CODE] != 0:
@@ -18,6 +18,7 @@ See the License for the specific language governing permissions and
 limitations under the License.
 '''
 
+import hashlib
 import json
 import logging
 import time
@@ -30,12 +31,46 @@ import AgentConfig
 
 logger = logging.getLogger()
 
+# fields which a delta heartbeat omits when unchanged since the baseline,
+# unless the heartbeat carries command reports
+DELTA_FIELDS = ['nodeStatus', 'package', 'fqdn']
+CONFIGURATIONS_KEY = 'configurations:'
+
 class Heartbeat:
   def __init__(self, actionQueue, config=None, agentToggleLogger=None):
     self.actionQueue = actionQueue
     self.config = config
     self.reports = []
     self.agentToggleLogger = agentToggleLogger
+    self.deltaMode = False
+    self.resetBaseline()
+
+  def setDeltaMode(self, enabled):
+    """
+    Enable or disable delta heartbeats, as advertised by the server when the
+    agent registers. Either way the baseline is discarded, so the next
+    heartbeat is a full one.
+    """
+    self.deltaMode = enabled
+    self.resetBaseline()
+
+  def resetBaseline(self):
+    """
+    Discard the baseline acknowledged by the server; the next heartbeat
+    is a full one.
+    """
+    self.acked = None
+    self.pending = {}
+
+  def acknowledge(self):
+    """
+    The server has processed the last heartbeat built, so what it carried
+    becomes the baseline for the following delta heartbeats.
+    """
+    if self.acked is None:
+      self.acked = {}
+    self.acked.update(self.pending)
+    self.pending = {}
 
   def build(self, commandResult, id='-1',
             componentsMapped=False):
@@ -97,6 +132,9 @@ class Heartbeat:
       if len(componentStatuses) > 0:
         heartbeat['componentStatus'] = componentStatuses
 
+    if self.deltaMode:
+      self.applyBaseline(heartbeat)
+
     self.agentToggleLogger.log(
                  "Sending heartbeat with response id: " + str(id) + " and "
                  "timestamp: " + str(timestamp) +
@@ -106,6 +144,36 @@ class Heartbeat:
 
     return heartbeat
 
+  def applyBaseline(self, heartbeat):
+    """
+    Record what the heartbeat carries as pending acknowledgement and, once
+    the server has acknowledged a baseline, strip out what it already holds.
+    Command reports are always sent in full, along with the fields the server
+    needs to process them. Configurations are always accompanied by their
+    digest; in a delta heartbeat they are left out if the server already
+    acknowledged configurations with that digest.
+    """
+    delta = self.acked is not None
+    if delta:
+      heartbeat['delta'] = True
+    hasReports = 'reports' in heartbeat and len(heartbeat['reports']) > 0
+    for field in DELTA_FIELDS:
+      if field in heartbeat:
+        value = heartbeat[field]
+        self.pending[field] = value
+        if delta and not hasReports and self.acked.get(field) == value:
+          del heartbeat[field]
+    if 'componentStatus' in heartbeat:
+      for componentStatus in heartbeat['componentStatus']:
+        if 'configurations' in componentStatus:
+          digest = hashlib.md5(json.dumps(componentStatus['configurations'],
+                                          sort_keys=True)).hexdigest()
+          componentStatus['configurationsDigest'] = digest
+          key = CONFIGURATIONS_KEY + str(componentStatus.get('componentName'))
+          self.pending[key] = digest
+          if delta and self.acked.get(key) == digest:
+            del componentStatus['configurations']
+
 
 def main(argv=None):
   actionQueue = ActionQueue(AgentConfig.getConfig())
@@ -39,6 +39,7 @@ class NetUtil:
     """
     logger.info("Connecting to the following url " + url);
 
+    ca_connection = None
     try:
       parsedurl = urlparse(url)
 
@@ -65,6 +66,9 @@ class NetUtil:
     except Exception, e:
       logger.info("Failed to connect to " + str(url) + " due to " + str(e))
       return False
+    finally:
+      if ca_connection is not None:
+        ca_connection.close()
 
   def try_to_connect(self, server_url, max_retries, logger = None):
     """Try to connect to a given url, sleeping for CONNECT_SERVER_RETRY_INTERVAL_SEC seconds
@@ -26,6 +26,7 @@ import subprocess
 import json
 import pprint
 import traceback
+import zlib
 import hostname
 
 logger = logging.getLogger()
@@ -37,10 +38,10 @@ GEN_AGENT_KEY="openssl req -new -newkey rsa:1024 -nodes -keyout %(keysdir)s/%(ho
 
 class VerifiedHTTPSConnection(httplib.HTTPSConnection):
   """ Connecting using ssl wrapped sockets """
-  def __init__(self, host, port=None, config=None):
+  def __init__(self, host, port=None, config=None, two_way_ssl_required=False):
     httplib.HTTPSConnection.__init__(self, host, port=port)
     self.config=config
-    self.two_way_ssl_required=False
+    self.two_way_ssl_required=two_way_ssl_required
 
   def connect(self):
 
@@ -96,43 +97,113 @@ class VerifiedHTTPSConnection(httplib.HTTPSConnection):
     return sock
 
 class CachedHTTPSConnection:
-  """ Caches a ssl socket and uses a single https connection to the server. """
+  """ Caches a ssl socket and uses a single https connection to the server.
+
+  The connection is kept alive between requests, so the SSL handshake is
+  only repeated when the connection is lost. A request which fails on a
+  connection that has already been used (for example, one which the server
+  closed after its idle timeout) is retried once on a new connection.
+  Whether the server needs two-way SSL is remembered across reconnects.
+
+  Responses are requested gzipped; once the server has answered with a
+  gzipped response, larger request bodies are gzipped too.
+  """
+
+  # smallest request body worth compressing
+  GZIP_MIN_SIZE = 1024
+  # wbits for zlib to read and write the gzip format
+  GZIP_WBITS = 16 + zlib.MAX_WBITS
   
   def __init__(self, config):
     self.connected = False;
     self.config = config
     self.server = config.get('server', 'hostname')
     self.port = config.get('server', 'secured_port')
+    self.two_way_ssl_required = False
+    # counters of SSL handshakes and of requests sent; for diagnostics
+    self.handshakes = 0
+    self.requests = 0
+    self.requests_on_connection = 0
+    self.server_gzip = False
+    self.bytes_sent = 0
+    self.bytes_received = 0
     self.connect()
   
   def connect(self):
     if  not self.connected:
-      self.httpsconn = VerifiedHTTPSConnection(self.server, self.port, self.config)
+      self.httpsconn = VerifiedHTTPSConnection(self.server, self.port,
+                                               self.config,
+                                               self.two_way_ssl_required)
+      self.handshakes += 1
+      self.requests_on_connection = 0
       self.httpsconn.connect()
+      self.two_way_ssl_required = self.httpsconn.two_way_ssl_required
       self.connected = True
     # possible exceptions are caught and processed in Controller
 
 
   
   def forceClear(self):
-    self.httpsconn = VerifiedHTTPSConnection(self.server, self.port, self.config)
+    self.reset()
     self.connect()
+
+  def reset(self):
+    """ Close the current connection; the next request opens a new one """
+    if self.connected:
+      try:
+        self.httpsconn.close()
+      except Exception:
+        pass
+    self.connected = False
     
   def request(self, req): 
     self.connect()
     try:
-      self.httpsconn.request(req.get_method(), req.get_full_url(), 
-                                  req.get_data(), req.headers)
-      response = self.httpsconn.getresponse()
-      readResponse = response.read()
+      readResponse = self.send(req)
     except Exception as ex:
-      # This exception is caught later in Controller
-      logger.debug("Error in sending/receving data from the server " +
-                   traceback.format_exc())
-      logger.info("Encountered communication error. Details: " + repr(ex))
-      self.connected = False
-      raise IOError("Error occured during connecting to the server: " + str(ex))
+      if self.requests_on_connection == 0:
+        self.fail(ex)
+      # a kept-alive connection may have been closed by the server
+      logger.debug("Request failed on a reused connection, reconnecting: " +
+                   repr(ex))
+      self.reset()
+      try:
+        self.connect()
+        readResponse = self.send(req)
+      except Exception as ex:
+        self.fail(ex)
+    self.requests += 1
+    self.requests_on_connection += 1
     return readResponse
+
+  def send(self, req):
+    headers = dict(req.headers)
+    headers['Accept-Encoding'] = 'gzip'
+    data = req.get_data()
+    if self.server_gzip and data is not None \
+        and len(data) >= self.GZIP_MIN_SIZE:
+      compressor = zlib.compressobj(6, zlib.DEFLATED, self.GZIP_WBITS)
+      data = compressor.compress(data) + compressor.flush()
+      headers['Content-Encoding'] = 'gzip'
+    self.httpsconn.request(req.get_method(), req.get_full_url(),
+                           data, headers)
+    response = self.httpsconn.getresponse()
+    body = response.read()
+    if data is not None:
+      self.bytes_sent += len(data)
+    self.bytes_received += len(body)
+    if response.getheader('Content-Encoding', '') == 'gzip':
+      self.server_gzip = True
+      body = zlib.decompress(body, self.GZIP_WBITS)
+    return body
+
+  def fail(self, ex):
+    # This exception is caught later in Controller
+    logger.debug("Error in sending/receving data from the server " +
+                 traceback.format_exc())
+    logger.info("Encountered communication error. Details: " + repr(ex))
+    self.reset()
+    raise IOError("Error occured during connecting to the server: " + str(ex))
   
 class CertificateManager():
   def __init__(self, config):
@@ -184,6 +184,47 @@ class TestActionQueue(TestCase):
     self.assertEqual(report['componentStatus'][0]["clusterName"], "c1")
     self.assertTrue(requestComponentStatus_mock.called)
 
+  @patch.object(ActionQueue, "execute_status_command")
+  @patch.object(ActionQueue, "execute_command")
+  @patch.object(CustomServiceOrchestrator, "__init__")
+  def test_status_commands_run_alongside_execution(self,
+                                                   CustomServiceOrchestrator_mock,
+                                                   execute_command_mock,
+                                                   execute_status_command_mock):
+    CustomServiceOrchestrator_mock.return_value = None
+    dummy_controller = MagicMock()
+    actionQueue = ActionQueue(AgentConfig("", ""), dummy_controller,
+                              self.agentToggleLogger)
+    executing = threading.Event()
+    statusDone = threading.Event()
+
+    def slow_execute(command):
+      executing.set()
+      statusDone.wait(10)
+    execute_command_mock.side_effect = slow_execute
+    execute_status_command_mock.side_effect = lambda command: statusDone.set()
+
+    actionQueue.put([self.datanode_install_command])
+    self.assertFalse(actionQueue.commandQueue.empty())
+    self.assertTrue(actionQueue.statusCommandQueue.empty())
+    executor = Thread(target=actionQueue.process_command,
+                      args=(actionQueue.commandQueue.get(),))
+    executor.start()
+    try:
+      executing.wait(10)
+      self.assertTrue(executing.isSet())
+      # the status command is not held up by the running install
+      actionQueue.put([self.status_command])
+      statusDone.wait(10)
+      self.assertTrue(statusDone.isSet())
+      execute_status_command_mock.assert_called_once_with(self.status_command)
+    finally:
+      statusDone.set()
+      executor.join(10)
+      actionQueue.stop()
+      actionQueue.statusWorker.join(10)
+    self.assertFalse(actionQueue.statusWorker.isAlive())
+
   @patch.object(ActionQueue, "status_update_callback")
   @patch.object(CustomServiceOrchestrator, "runCommand")
   @patch.object(ActionQueue, "execute_command")
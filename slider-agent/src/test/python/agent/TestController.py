@@ -106,6 +106,26 @@ class TestController(unittest.TestCase):
 
     sys.stdout = sys.__stdout__
 
+
+  @patch("json.dumps")
+  @patch("time.sleep")
+  @patch("pprint.pformat")
+  def test_registerWithServerBackoff(self, pformatMock, sleepMock, dumpsMock):
+    self.controller.register = MagicMock()
+    dumpsMock.return_value = "request"
+    self.controller.sendRequest = MagicMock()
+    self.controller.sendRequest.side_effect = [
+      '{"response":"RETRY", "backoffInterval":2500, "responseId":0}',
+      '{"response":"OK", "responseId":1}']
+    self.controller.isRegistered = False
+
+    self.assertEqual({"response":"OK", "responseId":1},
+                     self.controller.registerWithServer())
+    self.assertEqual(2, self.controller.sendRequest.call_count)
+    sleepMock.assert_called_once_with(2.5)
+    self.assertTrue(self.controller.isRegistered)
+    self.assertEqual(1, self.controller.responseId)
+
     self.controller.sendRequest = Controller.Controller.sendRequest
 
 
@@ -850,6 +870,66 @@ class TestController(unittest.TestCase):
     self.assertEqual(State.STARTING, self.controller.componentActualState)
     self.assertEqual(State.STARTED, self.controller.componentExpectedState)
 
+  def test_pipelinedCommands(self):
+    actionQueue = MagicMock()
+    self.controller.actionQueue = actionQueue
+    install = {
+      u'roleCommand': u'INSTALL',
+      "configurations": {"global": {"app_root": "/dummy/app/root"}}
+    }
+    start = {
+      u'roleCommand': u'START',
+      "clusterName": "c1",
+      "commandParams": {"script": "scripts/start.py"},
+      "role": "HBASE_MASTER",
+      "configurations": {"global": {"a": "b"}},
+      "hostLevelParams": {},
+      "serviceName": "HBASE"
+    }
+    stop = {u'roleCommand': u'STOP'}
+
+    # a single command, or one that is not a pipeline head, is not held
+    self.assertEqual([start, stop],
+                     self.controller.holdPipelinedCommands([start, stop]))
+    self.assertEqual([], self.controller.pipelinedCommands)
+
+    commands = self.controller.holdPipelinedCommands([install, start, stop])
+    self.assertEqual([install], commands)
+    self.assertEqual([start, stop], self.controller.pipelinedCommands)
+    self.controller.updateStateBasedOnCommand(commands)
+
+    # nothing is released while the install is in progress
+    self.controller.releasePipelinedCommands({})
+    self.controller.releasePipelinedCommands({"commandStatus": "IN_PROGRESS"})
+    self.assertFalse(actionQueue.put.called)
+
+    self.controller.updateStateBasedOnResult({"commandStatus": "COMPLETED"})
+    self.controller.releasePipelinedCommands({"commandStatus": "COMPLETED"})
+    self.assertEqual([], self.controller.pipelinedCommands)
+    actionQueue.put.assert_called_once_with([start])
+    self.assertEqual(stop, self.controller.stopCommand)
+    self.assertEqual(State.STARTING, self.controller.componentActualState)
+    self.assertEqual(State.STARTED, self.controller.componentExpectedState)
+
+    # a failed install discards the start
+    actionQueue.reset_mock()
+    self.controller.holdPipelinedCommands([install, start])
+    self.controller.releasePipelinedCommands({"commandStatus": "FAILED"})
+    self.assertEqual([], self.controller.pipelinedCommands)
+    self.assertFalse(actionQueue.put.called)
+
+    # unless the command is marked to run regardless
+    upgradeStop = {
+      u'roleCommand': u'UPGRADE_STOP',
+      "commandParams": {"run_after_failure": "true"},
+      "configurations": {"global": {}}
+    }
+    self.controller.holdPipelinedCommands([{u'roleCommand': u'UPGRADE'},
+                                           upgradeStop])
+    self.controller.releasePipelinedCommands({"commandStatus": "FAILED"})
+    actionQueue.put.assert_called_once_with([upgradeStop])
+    self.assertEqual(State.STOPPING, self.controller.componentActualState)
+
   @patch("pprint.pformat")
   @patch("time.sleep")
   @patch("json.loads")
@@ -254,6 +254,65 @@ class TestHeartbeat(TestCase):
     self.assertEquals(hb, expected)
     self.assertEquals(commandResult, {'commandStatus': 'COMPLETED'})
 
+  @patch.object(ActionQueue, "result")
+  def test_build_delta(self, result_mock):
+    config = AgentConfig("", "")
+    config.set('agent', 'prefix', 'tmp')
+    dummy_controller = MagicMock()
+    actionQueue = ActionQueue(config, dummy_controller, self.agentToggleLogger)
+
+    def config_status():
+      return {
+        'reports': [],
+        'componentStatus': [{'componentName': 'HBASE_MASTER',
+                             'roleCommand': 'GET_CONFIG',
+                             'status': 'STARTED',
+                             'configurations': {'hbase-site': {'a': 'b'}},
+                             'reportResult': True}]
+      }
+    result_mock.side_effect = lambda: config_status()
+    heartbeat = Heartbeat(actionQueue, config, self.agentToggleLogger)
+    heartbeat.setDeltaMode(True)
+
+    # until a baseline is acknowledged, heartbeats are full
+    hb = heartbeat.build({}, 1)
+    self.assertFalse('delta' in hb)
+    self.assertTrue('fqdn' in hb)
+    status = hb['componentStatus'][0]
+    self.assertEquals({'hbase-site': {'a': 'b'}}, status['configurations'])
+    digest = status['configurationsDigest']
+    hb = heartbeat.build({}, 1)
+    self.assertFalse('delta' in hb)
+
+    # once acknowledged, unchanged fields and configurations are omitted
+    heartbeat.acknowledge()
+    hb = heartbeat.build({}, 2)
+    self.assertTrue(hb['delta'])
+    self.assertFalse('fqdn' in hb)
+    self.assertFalse('package' in hb)
+    self.assertFalse('nodeStatus' in hb)
+    status = hb['componentStatus'][0]
+    self.assertFalse('configurations' in status)
+    self.assertEquals(digest, status['configurationsDigest'])
+
+    # changed configurations are sent in full
+    heartbeat.acknowledge()
+    changed = config_status()
+    changed['componentStatus'][0]['configurations'] = {'hbase-site': {'a': 'c'}}
+    result_mock.side_effect = lambda: changed
+    hb = heartbeat.build({}, 3)
+    self.assertTrue(hb['delta'])
+    status = hb['componentStatus'][0]
+    self.assertEquals({'hbase-site': {'a': 'c'}}, status['configurations'])
+    self.assertNotEquals(digest, status['configurationsDigest'])
+
+    # a reset baseline forces a full heartbeat
+    heartbeat.resetBaseline()
+    result_mock.side_effect = lambda: config_status()
+    hb = heartbeat.build({}, 4)
+    self.assertFalse('delta' in hb)
+    self.assertTrue('fqdn' in hb)
+    self.assertTrue('configurations' in hb['componentStatus'][0])
 
 
 if __name__ == "__main__":
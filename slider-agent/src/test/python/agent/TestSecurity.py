@@ -0,0 +1,128 @@
+#!/usr/bin/env python
+
+'''
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+'''
+
+from agent import security
+from mock.mock import MagicMock, patch
+import unittest
+import urllib2
+import zlib
+
+class TestSecurity(unittest.TestCase):
+
+  def createConnection(self, connMock):
+    config = MagicMock()
+    config.get.return_value = "8441"
+    return security.CachedHTTPSConnection(config)
+
+  def request(self):
+    return urllib2.Request("https://host:8441/ws", "{}",
+                           {'Content-Type': 'application/json'})
+
+  @patch.object(security, "VerifiedHTTPSConnection")
+  def test_connection_reused(self, connMock):
+    conn = MagicMock()
+    conn.two_way_ssl_required = False
+    conn.getresponse.return_value.read.return_value = "ok"
+    connMock.return_value = conn
+
+    cached = self.createConnection(connMock)
+    for i in range(100):
+      self.assertEqual("ok", cached.request(self.request()))
+    self.assertEqual(1, cached.handshakes)
+    self.assertEqual(100, cached.requests)
+    self.assertEqual(1, connMock.call_count)
+
+  @patch.object(security, "VerifiedHTTPSConnection")
+  def test_stale_connection_retried_once(self, connMock):
+    stale = MagicMock()
+    stale.two_way_ssl_required = True
+    stale.getresponse.return_value.read.return_value = "first"
+    fresh = MagicMock()
+    fresh.two_way_ssl_required = True
+    fresh.getresponse.return_value.read.return_value = "second"
+    connMock.side_effect = [stale, fresh]
+
+    cached = self.createConnection(connMock)
+    self.assertEqual("first", cached.request(self.request()))
+    # the server closes the idle connection
+    stale.request.side_effect = IOError("connection reset")
+    self.assertEqual("second", cached.request(self.request()))
+    self.assertEqual(2, cached.handshakes)
+    self.assertTrue(stale.close.called)
+    # the two-way SSL mode learned on the first connection is kept
+    self.assertEqual(True, connMock.call_args[0][3])
+
+  @patch.object(security, "VerifiedHTTPSConnection")
+  def test_new_connection_not_retried(self, connMock):
+    conn = MagicMock()
+    conn.two_way_ssl_required = False
+    conn.request.side_effect = IOError("connection refused")
+    connMock.return_value = conn
+
+    cached = self.createConnection(connMock)
+    self.assertRaises(IOError, cached.request, self.request())
+    self.assertEqual(1, cached.handshakes)
+    self.assertFalse(cached.connected)
+    # the next request reconnects
+    conn.request.side_effect = None
+    conn.getresponse.return_value.read.return_value = "ok"
+    self.assertEqual("ok", cached.request(self.request()))
+    self.assertEqual(2, cached.handshakes)
+
+  @patch.object(security, "VerifiedHTTPSConnection")
+  def test_gzip_negotiated(self, connMock):
+    conn = MagicMock()
+    conn.two_way_ssl_required = False
+    connMock.return_value = conn
+    response = conn.getresponse.return_value
+    response.read.return_value = "plain"
+    response.getheader.return_value = ""
+
+    cached = self.createConnection(connMock)
+    body = "{" + "\"key\": \"value\", " * 200 + "}"
+    req = urllib2.Request("https://host:8441/ws", body,
+                          {'Content-Type': 'application/json'})
+    # an older server: nothing is compressed
+    self.assertEqual("plain", cached.request(req))
+    args = conn.request.call_args[0]
+    self.assertEqual(body, args[2])
+    self.assertEqual('gzip', args[3]['Accept-Encoding'])
+    self.assertFalse('Content-Encoding' in args[3])
+
+    # the server answers with gzip, so later requests are compressed
+    compressor = zlib.compressobj(6, zlib.DEFLATED, 16 + zlib.MAX_WBITS)
+    response.read.return_value = compressor.compress("unzipped") + \
+                                 compressor.flush()
+    response.getheader.return_value = "gzip"
+    self.assertEqual("unzipped", cached.request(req))
+    self.assertTrue(cached.server_gzip)
+    cached.request(self.request())
+    args = conn.request.call_args[0]
+    # small requests are sent as they are
+    self.assertFalse('Content-Encoding' in args[3])
+    cached.request(req)
+    args = conn.request.call_args[0]
+    self.assertEqual('gzip', args[3]['Content-Encoding'])
+    self.assertEqual(body, zlib.decompress(args[2], 16 + zlib.MAX_WBITS))
+    self.assertTrue(len(args[2]) < len(body))
+
+
+if __name__ == "__main__":
+  unittest.main()
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.common.SliderXmlConfKeys;
+import org.apache.slider.server.appmaster.SliderAppMaster;
+import org.apache.slider.server.appmaster.actions.ActionScheduler;
+import org.apache.slider.server.appmaster.actions.AsyncAction;
+import org.apache.slider.server.appmaster.actions.DelayQueueActionScheduler;
+import org.apache.slider.server.appmaster.actions.QueueAccess;
+import org.apache.slider.server.appmaster.actions.TimingWheelActionScheduler;
+import org.apache.slider.server.appmaster.state.AppState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the {@link DelayQueueActionScheduler} with the
+ * {@link TimingWheelActionScheduler} for the schedule-then-cancel
+ * pattern of renewing and timeout actions: {@link #ACTIONS} actions
+ * are scheduled and then all cancelled before any become due.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class ActionSchedulerBenchmark {
+
+  public static final int ACTIONS = 10000;
+
+  @Param({SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_DELAYQUEUE,
+      SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL})
+  public String scheduler;
+
+  private ActionScheduler actionScheduler;
+  private List<AsyncAction> actions;
+
+  @Setup
+  public void setup() {
+    if (SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL.equals(
+        scheduler)) {
+      actionScheduler = new TimingWheelActionScheduler(
+          SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_TICK,
+          TimeUnit.MILLISECONDS,
+          SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_SIZE);
+    } else {
+      actionScheduler =
+          new DelayQueueActionScheduler(new DelayQueue<AsyncAction>());
+    }
+    // delays of 1-2 hours: none fall due during the run
+    actions = new ArrayList<>(ACTIONS);
+    for (int i = 0; i < ACTIONS; i++) {
+      actions.add(new NoopAction("action-" + i,
+          TimeUnit.HOURS.toMillis(1) + i * 360));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ACTIONS)
+  public int scheduleAndCancel() {
+    for (AsyncAction action : actions) {
+      actionScheduler.add(action);
+    }
+    int size = actionScheduler.size();
+    for (AsyncAction action : actions) {
+      actionScheduler.remove(action);
+    }
+    return size;
+  }
+
+  private static class NoopAction extends AsyncAction {
+
+    NoopAction(String name, long delayMillis) {
+      super(name, delayMillis);
+    }
+
+    @Override
+    public void execute(SliderAppMaster appMaster,
+        QueueAccess queueService,
+        AppState appState) throws Exception {
+    }
+  }
+}
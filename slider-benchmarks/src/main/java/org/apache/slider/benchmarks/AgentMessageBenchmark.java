@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.server.appmaster.web.rest.agent.AgentCommandType;
+import org.apache.slider.server.appmaster.web.rest.agent.AgentObjectMapperProvider;
+import org.apache.slider.server.appmaster.web.rest.agent.ExecutionCommand;
+import org.apache.slider.server.appmaster.web.rest.agent.HeartBeatResponse;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmark the marshalling of a heartbeat response carrying an execution
+ * command with a full set of configurations, as sent to an agent starting
+ * a component; plain and gzipped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class AgentMessageBenchmark {
+
+  public static final int CONFIGURATIONS = 5;
+  public static final int OPTIONS = 100;
+
+  private final ObjectMapper mapper =
+      AgentObjectMapperProvider.createObjectMapper();
+  private final ByteArrayOutputStream buffer =
+      new ByteArrayOutputStream(64 * 1024);
+
+  private HeartBeatResponse response;
+
+  @Setup
+  public void setup() throws Exception {
+    ExecutionCommand command =
+        new ExecutionCommand(AgentCommandType.EXECUTION_COMMAND);
+    command.setCommandId("role0-1");
+    command.setRole("role0");
+    command.setRoleCommand("START");
+    command.setClusterName("benchmark");
+    Map<String, Map<String, String>> configurations = new HashMap<>();
+    for (int c = 0; c < CONFIGURATIONS; c++) {
+      Map<String, String> config = new HashMap<>();
+      for (int i = 0; i < OPTIONS; i++) {
+        config.put("site.config" + c + ".option." + i,
+            "${AGENT_WORK_ROOT}/app/install/value-" + i);
+      }
+      configurations.put("config" + c, config);
+    }
+    command.setConfigurations(configurations);
+    response = new HeartBeatResponse();
+    response.setResponseId(1);
+    response.addExecutionCommand(command);
+  }
+
+  @Benchmark
+  public int plain() throws IOException {
+    buffer.reset();
+    mapper.writeValue(buffer, response);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public int gzipped() throws IOException {
+    buffer.reset();
+    // the mapper closes the stream, which finishes the compression
+    mapper.writeValue(new GZIPOutputStream(buffer), response);
+    return buffer.size();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.ContainerState;
+import org.apache.hadoop.yarn.api.records.ContainerStatus;
+import org.apache.slider.server.appmaster.model.mock.MockAppState;
+import org.apache.slider.server.appmaster.model.mock.MockRoles;
+import org.apache.slider.server.appmaster.model.mock.MockYarnEngine;
+import org.apache.slider.server.appmaster.model.simulator.AllocationStormSimulator;
+import org.apache.slider.server.appmaster.model.simulator.SimulationConfig;
+import org.apache.slider.server.appmaster.operations.AbstractRMOperation;
+import org.apache.slider.server.appmaster.state.AppState;
+import org.apache.slider.server.appmaster.state.ContainerAssignment;
+import org.apache.slider.server.appmaster.state.RoleInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark {@link AppState#onContainersAllocated(List, List, List)} and
+ * {@link AppState#onCompletedNode(ContainerStatus)} with batches of
+ * containers from the mock YARN engine.
+ * <p>
+ * Each invocation processes a batch of {@link #CONTAINERS}; the
+ * reported time is per container. The app state is flexed up and down
+ * between invocations, outside the measured code.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class AppStateBenchmark {
+
+  public static final int CONTAINERS = 1000;
+
+  /**
+   * An app state with no containers, on a mock cluster with room for
+   * all of them.
+   */
+  public abstract static class AppStateHolder {
+    MockAppState appState;
+    MockYarnEngine engine;
+
+    @Setup(Level.Trial)
+    public void createAppState() throws Exception {
+      SimulationConfig config = new SimulationConfig();
+      config.setClusterSize(64);
+      config.setContainersPerNode(32);
+      config.setDesiredRole0(0);
+      config.setDesiredRole1(0);
+      config.setDesiredRole2(0);
+      AllocationStormSimulator simulator = new AllocationStormSimulator(config);
+      simulator.init();
+      appState = simulator.getAppState();
+      engine = simulator.getEngine();
+    }
+
+    /**
+     * Flex role 0 and have the engine allocate the requested containers
+     * @param desired desired count
+     * @return the allocated containers
+     */
+    List<Container> flexAndAllocate(int desired) throws Exception {
+      appState.lookupRoleStatus(MockRoles.ROLE0).setDesired(desired);
+      List<AbstractRMOperation> ops = appState.reviewRequestAndReleaseNodes();
+      return engine.execute(ops);
+    }
+
+    /**
+     * Start all assigned containers
+     * @param assignments assignments
+     */
+    void start(List<ContainerAssignment> assignments) {
+      for (ContainerAssignment assigned : assignments) {
+        Container container = assigned.container;
+        RoleInstance instance = new RoleInstance(container);
+        instance.roleId = assigned.role.getPriority();
+        instance.role = assigned.role.getName();
+        appState.containerStartSubmitted(container, instance);
+        appState.onNodeManagerContainerStarted(container.getId());
+      }
+    }
+
+    /**
+     * Flex down to zero and have the engine release the containers
+     * @return the completion events for all the released containers
+     */
+    List<ContainerStatus> flexDown() throws Exception {
+      appState.lookupRoleStatus(MockRoles.ROLE0).setDesired(0);
+      List<AbstractRMOperation> ops = appState.reviewRequestAndReleaseNodes();
+      List<ContainerId> released = new ArrayList<>(CONTAINERS);
+      engine.execute(ops, released);
+      List<ContainerStatus> statuses = new ArrayList<>(released.size());
+      for (ContainerId id : released) {
+        statuses.add(ContainerStatus.newInstance(id,
+            ContainerState.COMPLETE, "released", 0));
+      }
+      return statuses;
+    }
+
+    void complete(List<ContainerStatus> statuses) {
+      for (ContainerStatus status : statuses) {
+        appState.onCompletedNode(status);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Allocation extends AppStateHolder {
+    List<Container> allocated;
+    List<ContainerAssignment> assignments;
+    List<AbstractRMOperation> operations;
+
+    @Setup(Level.Invocation)
+    public void allocate() throws Exception {
+      allocated = flexAndAllocate(CONTAINERS);
+      assignments = new ArrayList<>(CONTAINERS);
+      operations = new ArrayList<>();
+    }
+
+    @TearDown(Level.Invocation)
+    public void release() throws Exception {
+      start(assignments);
+      complete(flexDown());
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Completion extends AppStateHolder {
+    List<ContainerStatus> statuses;
+
+    @Setup(Level.Invocation)
+    public void startAndRelease() throws Exception {
+      List<ContainerAssignment> assignments = new ArrayList<>(CONTAINERS);
+      appState.onContainersAllocated(flexAndAllocate(CONTAINERS),
+          assignments, new ArrayList<AbstractRMOperation>());
+      start(assignments);
+      statuses = flexDown();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CONTAINERS)
+  public List<ContainerAssignment> onContainersAllocated(Allocation state)
+      throws Exception {
+    state.appState.onContainersAllocated(state.allocated, state.assignments,
+        state.operations);
+    return state.assignments;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CONTAINERS)
+  public void onCompletedNode(Completion state, Blackhole blackhole) {
+    for (ContainerStatus status : state.statuses) {
+      blackhole.consume(state.appState.onCompletedNode(status));
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+/**
+ * Options shared by the benchmarks.
+ * <p>
+ * Every benchmark runs one fork of five one-second warmup and five
+ * one-second measurement iterations, with a fixed heap, which
+ * is enough for stable numbers on a laptop while keeping a full run
+ * within a few minutes. The forks log only warnings and errors.
+ */
+public final class BenchmarkOptions {
+
+  private BenchmarkOptions() {
+  }
+
+  public static final int FORKS = 1;
+  public static final int WARMUP_ITERATIONS = 5;
+  public static final int MEASUREMENT_ITERATIONS = 5;
+
+  public static final String JVM_HEAP = "-Xmx1024m";
+  public static final String LOG4J_CONFIGURATION =
+      "-Dlog4j.configuration=benchmark-log4j.properties";
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.common.tools.TokenResolver;
+import org.apache.slider.core.registry.docstore.ConfigUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark the token substitution of {@link ConfigUtils} on a
+ * configuration of {@link #properties} entries, where every entry of the
+ * template and of the configuration references another property.
+ * <p>
+ * The {@code legacy} benchmarks are the substitution algorithms which
+ * {@link TokenResolver} replaced: one regular expression replacement per
+ * token per value, and the fixpoint iteration over all
+ * {@code ${@//site/type/name}} references.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class ConfigUtilsBenchmark {
+
+  private static final String SITE_REFERENCE = "${@//site/%s/%s}";
+
+  @Param({"50", "200", "5000"})
+  public int properties;
+
+  private Map<String, String> config;
+  private Map<String, String> env;
+  private String template;
+  private Map<String, Map<String, String>> siteConfigs;
+
+  @Setup
+  public void setup() {
+    config = new HashMap<>(properties);
+    env = new HashMap<>(properties);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < properties; i++) {
+      String key = "site.property." + i;
+      String ref = "site.property." + ((i * 7) % properties);
+      env.put(key, "/var/lib/app/value-" + i);
+      config.put(key, "${" + ref + "}/data");
+      sb.append("<property><name>").append(key)
+        .append("</name><value>${").append(ref)
+        .append("}</value></property>\n")
+        .append("# {{").append(ref).append("}}\n");
+    }
+    template = sb.toString();
+
+    // two configurations; every odd property refers to an even one
+    siteConfigs = new HashMap<>();
+    Map<String, String> core = new HashMap<>();
+    Map<String, String> hbase = new HashMap<>();
+    siteConfigs.put("core-site", core);
+    siteConfigs.put("hbase-site", hbase);
+    for (int i = 0; i < properties; i++) {
+      Map<String, String> site = i % 2 == 0 ? core : hbase;
+      String key = "property." + i;
+      if (i % 2 == 0) {
+        site.put(key, "host-" + i + ".example.org");
+      } else {
+        site.put(key, String.format(SITE_REFERENCE, "core-site",
+            "property." + ((i * 7) % properties & ~1)) + ":" + i);
+      }
+    }
+  }
+
+  @Benchmark
+  public String replaceProps() {
+    return ConfigUtils.replaceProps(env, template);
+  }
+
+  @Benchmark
+  public Map<String, String> replacePropsInConfig() {
+    return ConfigUtils.replacePropsInConfig(config, env);
+  }
+
+  @Benchmark
+  public Map<String, Map<String, String>> dereferenceSiteReferences() {
+    Map<String, Map<String, String>> configs = copy(siteConfigs);
+    TokenResolver resolver = TokenResolver.forSiteReferences(configs);
+    for (Map<String, String> bucket : configs.values()) {
+      for (Map.Entry<String, String> entry : bucket.entrySet()) {
+        entry.setValue(resolver.resolve(entry.getValue()));
+      }
+    }
+    return configs;
+  }
+
+  @Benchmark
+  public String legacyReplaceProps() {
+    Map<String, String> tokens = new HashMap<>();
+    for (Map.Entry<String, String> entry : env.entrySet()) {
+      tokens.put("${" + entry.getKey() + "}", entry.getValue());
+      tokens.put("{{" + entry.getKey() + "}}", entry.getValue());
+    }
+    String value = template;
+    for (Map.Entry<String, String> token : tokens.entrySet()) {
+      value = value.replaceAll(Pattern.quote(token.getKey()),
+          Matcher.quoteReplacement(token.getValue()));
+    }
+    return value;
+  }
+
+  @Benchmark
+  public Map<String, String> legacyReplacePropsInConfig() {
+    Map<String, String> tokens = new HashMap<>();
+    for (Map.Entry<String, String> entry : env.entrySet()) {
+      tokens.put("${" + entry.getKey() + "}", entry.getValue());
+    }
+    Map<String, String> newConfig = new HashMap<>();
+    for (Map.Entry<String, String> entry : config.entrySet()) {
+      String value = entry.getValue();
+      for (Map.Entry<String, String> token : tokens.entrySet()) {
+        value = value.replaceAll(Pattern.quote(token.getKey()),
+            Matcher.quoteReplacement(token.getValue()));
+      }
+      newConfig.put(entry.getKey(), value);
+    }
+    return newConfig;
+  }
+
+  @Benchmark
+  public Map<String, Map<String, String>> legacyDereferenceSiteReferences() {
+    Map<String, Map<String, String>> configs = copy(siteConfigs);
+    Map<String, String> allConfigs = new HashMap<>();
+    for (Map.Entry<String, Map<String, String>> bucket : configs.entrySet()) {
+      for (Map.Entry<String, String> entry : bucket.getValue().entrySet()) {
+        allConfigs.put(String.format(SITE_REFERENCE, bucket.getKey(),
+            entry.getKey()), entry.getValue());
+      }
+    }
+    boolean finished = false;
+    while (!finished) {
+      finished = true;
+      for (Map.Entry<String, String> entry : allConfigs.entrySet()) {
+        String configValue = entry.getValue();
+        for (Map.Entry<String, String> lookUp : allConfigs.entrySet()) {
+          if (lookUp.getValue().contains(TokenResolver.SITE_REFERENCE_PREFIX)) {
+            continue;
+          }
+          if (configValue.contains(lookUp.getKey())) {
+            configValue = configValue.replace(lookUp.getKey(), lookUp.getValue());
+          }
+        }
+        if (!configValue.equals(entry.getValue())) {
+          finished = false;
+          allConfigs.put(entry.getKey(), configValue);
+        }
+      }
+    }
+    for (Map.Entry<String, Map<String, String>> bucket : configs.entrySet()) {
+      for (Map.Entry<String, String> entry : bucket.getValue().entrySet()) {
+        String configValue = entry.getValue();
+        for (Map.Entry<String, String> lookUp : allConfigs.entrySet()) {
+          if (lookUp.getValue().contains(TokenResolver.SITE_REFERENCE_PREFIX)) {
+            continue;
+          }
+          if (configValue.contains(lookUp.getKey())) {
+            configValue = configValue.replace(lookUp.getKey(), lookUp.getValue());
+          }
+        }
+        entry.setValue(configValue);
+      }
+    }
+    return configs;
+  }
+
+  private static Map<String, Map<String, String>> copy(
+      Map<String, Map<String, String>> configs) {
+    Map<String, Map<String, String>> result = new HashMap<>();
+    for (Map.Entry<String, Map<String, String>> bucket : configs.entrySet()) {
+      result.put(bucket.getKey(), new HashMap<>(bucket.getValue()));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.api.ClusterDescription;
+import org.apache.slider.core.conf.ConfTree;
+import org.apache.slider.core.persist.ConfTreeSerDeser;
+import org.apache.slider.core.persist.JsonSerDeser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the JSON marshalling of a {@link ClusterDescription} and a
+ * {@link ConfTree} through {@link JsonSerDeser}, as done for every status
+ * request. The cluster description is also marshalled via
+ * {@link ClusterDescription#toJsonString()}, which creates a new mapper
+ * per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class JsonSerDeserBenchmark {
+
+  public static final int ROLES = 5;
+  public static final int INSTANCES_PER_ROLE = 100;
+  public static final int OPTIONS = 50;
+
+  private final JsonSerDeser<ClusterDescription> clusterSerDeser =
+      new JsonSerDeser<>(ClusterDescription.class);
+  private final ConfTreeSerDeser confTreeSerDeser = new ConfTreeSerDeser();
+
+  private ClusterDescription clusterDescription;
+  private String clusterDescriptionJson;
+  private ConfTree confTree;
+  private String confTreeJson;
+
+  @Setup
+  public void setup() throws Exception {
+    clusterDescription = new ClusterDescription();
+    clusterDescription.name = "benchmark";
+    confTree = new ConfTree();
+    for (int i = 0; i < OPTIONS; i++) {
+      clusterDescription.setOption("site.global.option." + i, "value-" + i);
+      clusterDescription.setInfo("info." + i, "value-" + i);
+      confTree.global.put("site.global.option." + i, "value-" + i);
+    }
+    for (int r = 0; r < ROLES; r++) {
+      String role = "role" + r;
+      Map<String, String> component = new HashMap<>();
+      List<String> instances = new ArrayList<>(INSTANCES_PER_ROLE);
+      Map<String, Integer> stats = new HashMap<>();
+      for (int i = 0; i < OPTIONS; i++) {
+        clusterDescription.setRoleOpt(role, "role.option." + i, i);
+        component.put("role.option." + i, Integer.toString(i));
+        stats.put("statistic." + i, i);
+      }
+      for (int i = 0; i < INSTANCES_PER_ROLE; i++) {
+        instances.add(String.format(
+            "container_1450000000000_0001_01_%06d", r * INSTANCES_PER_ROLE + i));
+      }
+      clusterDescription.instances.put(role, instances);
+      clusterDescription.statistics.put(role, stats);
+      confTree.components.put(role, component);
+    }
+    clusterDescriptionJson = clusterSerDeser.toJson(clusterDescription);
+    confTreeJson = confTreeSerDeser.toJson(confTree);
+  }
+
+  @Benchmark
+  public String clusterDescriptionToJson() throws Exception {
+    return clusterSerDeser.toJson(clusterDescription);
+  }
+
+  @Benchmark
+  public String clusterDescriptionToJsonString() throws Exception {
+    return clusterDescription.toJsonString();
+  }
+
+  @Benchmark
+  public ClusterDescription clusterDescriptionFromJson() throws Exception {
+    return clusterSerDeser.fromJson(clusterDescriptionJson);
+  }
+
+  @Benchmark
+  public String confTreeToJson() throws Exception {
+    return confTreeSerDeser.toJson(confTree);
+  }
+
+  @Benchmark
+  public ConfTree confTreeFromJson() throws Exception {
+    return confTreeSerDeser.fromJson(confTreeJson);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.apache.slider.server.appmaster.model.mock.MockFactory;
+import org.apache.slider.server.appmaster.model.mock.MockResource;
+import org.apache.slider.server.appmaster.state.NodeInstance;
+import org.apache.slider.server.appmaster.state.OutstandingRequest;
+import org.apache.slider.server.appmaster.state.OutstandingRequestTracker;
+import org.apache.slider.server.appmaster.state.RoleStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the matching of allocated containers to outstanding requests
+ * in the {@link OutstandingRequestTracker}, for placed and open requests,
+ * and the periodic escalation check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class OutstandingRequestTrackerBenchmark {
+
+  public static final int REQUESTS = 5000;
+
+  /**
+   * A tracker with {@link #REQUESTS} outstanding requests of role 0,
+   * and the containers to satisfy them.
+   * Open requests are interleaved with requests of another role,
+   * which are not satisfied.
+   */
+  @State(Scope.Thread)
+  public static class Requests {
+    final RoleStatus role0 = new RoleStatus(MockFactory.PROVIDER_ROLE0);
+    final RoleStatus role2 = new RoleStatus(MockFactory.PROVIDER_ROLE2);
+    final Resource resource = new MockResource(1, 1);
+
+    OutstandingRequestTracker tracker;
+    List<OutstandingRequest> requests;
+    List<Container> containers;
+
+    void create(boolean placed) {
+      tracker = new OutstandingRequestTracker();
+      requests = new ArrayList<>(REQUESTS);
+      containers = new ArrayList<>(REQUESTS);
+      for (int i = 0; i < REQUESTS; i++) {
+        NodeInstance node = placed ? new NodeInstance("host-" + i, 3) : null;
+        OutstandingRequest request = tracker.newRequest(node, role0.getKey());
+        request.buildContainerRequest(resource, role0, 0);
+        requests.add(request);
+        containers.add(MockFactory.instance.newContainer(
+            request.getIssuedRequest(), hostname(request)));
+        if (!placed) {
+          tracker.newRequest(null, role2.getKey())
+              .buildContainerRequest(resource, role2, 0);
+        }
+      }
+    }
+
+    String hostname(OutstandingRequest request) {
+      return request.hostname != null ? request.hostname : "host";
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class PlacedRequests extends Requests {
+    @Setup(Level.Invocation)
+    public void setup() {
+      create(true);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class OpenRequests extends Requests {
+    @Setup(Level.Invocation)
+    public void setup() {
+      create(false);
+    }
+  }
+
+  /**
+   * Placed requests which are never satisfied, for escalation checks
+   * with nothing due.
+   */
+  @State(Scope.Thread)
+  public static class PendingRequests extends Requests {
+    @Setup(Level.Trial)
+    public void setup() {
+      create(true);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public void allocatePlaced(PlacedRequests state, Blackhole blackhole) {
+    for (int i = 0; i < REQUESTS; i++) {
+      OutstandingRequest request = state.requests.get(i);
+      blackhole.consume(state.tracker.onContainerAllocated(request.roleId,
+          request.hostname, state.containers.get(i)));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public void allocateOpen(OpenRequests state, Blackhole blackhole) {
+    for (int i = 0; i < REQUESTS; i++) {
+      OutstandingRequest request = state.requests.get(i);
+      blackhole.consume(state.tracker.onContainerAllocated(request.roleId,
+          "host", state.containers.get(i)));
+    }
+  }
+
+  @Benchmark
+  public Object escalationCheck(PendingRequests state) {
+    return state.tracker.escalateOutstandingRequests(0);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.api.proto.Messages;
+import org.apache.slider.api.proto.RestTypeMarshalling;
+import org.apache.slider.api.types.ComponentInformation;
+import org.apache.slider.api.types.ContainerInformation;
+import org.apache.slider.api.types.NodeEntryInformation;
+import org.apache.slider.api.types.NodeInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the protobuf marshalling of the container, node and
+ * component information returned over IPC by {@link RestTypeMarshalling},
+ * including the conversion to and from the wire format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class RestTypeMarshallingBenchmark {
+
+  public static final int ROLES = 3;
+  public static final int NODES = 100;
+
+  @Param({"100", "1000"})
+  public int containers;
+
+  private List<ContainerInformation> containerInfo;
+  private byte[] containersWire;
+  private List<NodeInformation> nodeInfo;
+  private List<byte[]> nodesWire;
+  private ComponentInformation componentInfo;
+
+  @Setup
+  public void setup() {
+    containerInfo = new ArrayList<>(containers);
+    for (int i = 0; i < containers; i++) {
+      ContainerInformation info = new ContainerInformation();
+      info.containerId = String.format("container_1450000000000_0001_01_%06d", i);
+      info.component = "role" + (i % ROLES);
+      info.appVersion = "1.0";
+      info.createTime = 1450000000000L + i;
+      info.startTime = info.createTime + 1000;
+      info.state = 3;
+      info.released = false;
+      info.host = String.format("%08x", i % NODES);
+      info.hostURL = "http://" + info.host + ":8042/";
+      info.placement = "Placed";
+      info.output = new String[] {"output line 1", "output line 2"};
+      containerInfo.add(info);
+    }
+    containersWire = marshallContainers().toByteArray();
+
+    nodeInfo = new ArrayList<>(NODES);
+    nodesWire = new ArrayList<>(NODES);
+    for (int i = 0; i < NODES; i++) {
+      NodeInformation info = new NodeInformation();
+      info.hostname = String.format("%08x", i);
+      info.state = "RUNNING";
+      info.labels = "";
+      info.rackName = "/default-rack";
+      info.httpAddress = "http://" + info.hostname + ":8042/";
+      info.healthReport = "";
+      info.lastUpdated = 1450000000000L;
+      for (int r = 0; r < ROLES; r++) {
+        NodeEntryInformation entry = new NodeEntryInformation();
+        entry.priority = r;
+        entry.live = containers / NODES / ROLES;
+        entry.lastUsed = 1450000000000L;
+        info.entries.put("role" + r, entry);
+      }
+      nodeInfo.add(info);
+      nodesWire.add(RestTypeMarshalling.marshall(info).toByteArray());
+    }
+
+    componentInfo = new ComponentInformation();
+    componentInfo.name = "role0";
+    componentInfo.desired = containers;
+    componentInfo.actual = containers;
+    componentInfo.containers = new ArrayList<>(containers);
+    for (ContainerInformation info : containerInfo) {
+      componentInfo.containers.add(info.containerId);
+    }
+  }
+
+  private Messages.GetLiveContainersResponseProto marshallContainers() {
+    Messages.GetLiveContainersResponseProto.Builder builder =
+        Messages.GetLiveContainersResponseProto.newBuilder();
+    for (ContainerInformation info : containerInfo) {
+      builder.addNames(info.containerId);
+      builder.addContainers(RestTypeMarshalling.marshall(info));
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public byte[] marshallContainerList() {
+    return marshallContainers().toByteArray();
+  }
+
+  @Benchmark
+  public List<ContainerInformation> unmarshallContainerList() throws Exception {
+    return RestTypeMarshalling.unmarshall(
+        Messages.GetLiveContainersResponseProto.parseFrom(containersWire));
+  }
+
+  @Benchmark
+  public void marshallNodes(Blackhole blackhole) {
+    for (NodeInformation info : nodeInfo) {
+      blackhole.consume(RestTypeMarshalling.marshall(info).toByteArray());
+    }
+  }
+
+  @Benchmark
+  public void unmarshallNodes(Blackhole blackhole) throws Exception {
+    for (byte[] wire : nodesWire) {
+      blackhole.consume(RestTypeMarshalling.unmarshall(
+          Messages.NodeInformationProto.parseFrom(wire)));
+    }
+  }
+
+  @Benchmark
+  public ComponentInformation componentRoundTrip() throws Exception {
+    byte[] wire = RestTypeMarshalling.marshall(componentInfo).toByteArray();
+    return RestTypeMarshalling.unmarshall(
+        Messages.ComponentInformationProto.parseFrom(wire));
+  }
+}
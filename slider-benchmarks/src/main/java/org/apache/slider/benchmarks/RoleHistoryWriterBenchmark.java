@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.benchmarks;
+
+import org.apache.slider.server.appmaster.model.mock.MockFactory;
+import org.apache.slider.server.appmaster.model.mock.MockRoleHistory;
+import org.apache.slider.server.appmaster.state.NodeInstance;
+import org.apache.slider.server.appmaster.state.RoleHistory;
+import org.apache.slider.server.avro.LoadedRoleHistory;
+import org.apache.slider.server.avro.RoleHistoryWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the saving and loading of a role history through the
+ * {@link RoleHistoryWriter}, with an entry for every role on every node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = BenchmarkOptions.WARMUP_ITERATIONS)
+@Measurement(iterations = BenchmarkOptions.MEASUREMENT_ITERATIONS)
+@Fork(value = BenchmarkOptions.FORKS,
+    jvmArgsAppend = {BenchmarkOptions.JVM_HEAP,
+        BenchmarkOptions.LOG4J_CONFIGURATION})
+public class RoleHistoryWriterBenchmark {
+
+  @Param({"100", "1000"})
+  public int nodes;
+
+  private final RoleHistoryWriter writer = new RoleHistoryWriter();
+  private RoleHistory history;
+  private byte[] saved;
+  private long savetime;
+
+  @Setup
+  public void setup() throws Exception {
+    history = new MockRoleHistory(MockFactory.ROLES);
+    long time = 0x10000;
+    for (int i = 0; i < nodes; i++) {
+      NodeInstance instance =
+          history.getOrCreateNodeInstance(String.format("%08x", i));
+      for (int role = 0; role < MockFactory.ROLE_COUNT; role++) {
+        instance.getOrCreate(role).setLastUsed(time++);
+      }
+    }
+    saved = write();
+  }
+
+  private byte[] write() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(nodes * 1024);
+    writer.write(out, history, ++savetime);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] writeHistory() throws Exception {
+    return write();
+  }
+
+  @Benchmark
+  public LoadedRoleHistory readHistory() throws Exception {
+    return writer.read(new ByteArrayInputStream(saved));
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.slider.api;
 
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.NodeInformation;
@@ -164,4 +165,19 @@ public interface SliderApplicationApi {
    * @throws IOException
    */
   ApplicationLivenessInformation getApplicationLiveness() throws IOException;
+
+  /**
+   * Watch for container and component changes.
+   * <p>
+   * Start with a token of -1, which returns a reset; on a reset, re-read
+   * the containers and components, then watch again from the
+   * token of the last response.
+   * @param resumeToken token from the previous watch
+   * @param timeout time in millis to wait for a change. Implementations
+   * may return before this, including when there are no changes
+   * @return the changes since the token
+   * @throws IOException on any failure
+   */
+  ApplicationStateChanges watch(long resumeToken, long timeout)
+      throws IOException;
 }
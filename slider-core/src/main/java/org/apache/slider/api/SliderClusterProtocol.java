@@ -176,4 +176,15 @@ public interface SliderClusterProtocol extends VersionedProtocol {
 
   Messages.GetCertificateStoreResponseProto getClientCertificateStore(Messages.GetCertificateStoreRequestProto request)
       throws IOException;
+
+  /**
+   * Get the container and component events since a resume token,
+   * as JSON-serialized {@code ApplicationStateChanges}.
+   * This does not wait for events.
+   * @param request request
+   * @return the changes
+   * @throws IOException on any failure
+   */
+  Messages.WrappedJsonProto watchApplicationState(Messages.WatchApplicationStateRequestProto request)
+      throws IOException;
 }
@@ -5989,6 +5989,24 @@ public final class Messages {
 
   public interface GetJSONClusterStatusRequestProtoOrBuilder
       extends com.google.protobuf.MessageOrBuilder {
+
+    // optional int64 sinceVersion = 1;
+    /**
+     * <code>optional int64 sinceVersion = 1;</code>
+     *
+     * <pre>
+     * version of the status the caller already holds
+     * </pre>
+     */
+    boolean hasSinceVersion();
+    /**
+     * <code>optional int64 sinceVersion = 1;</code>
+     *
+     * <pre>
+     * version of the status the caller already holds
+     * </pre>
+     */
+    long getSinceVersion();
   }
   /**
    * Protobuf type {@code org.apache.slider.api.GetJSONClusterStatusRequestProto}
@@ -6028,6 +6046,7 @@ public final class Messages {
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       initFields();
+      int mutable_bitField0_ = 0;
       com.google.protobuf.UnknownFieldSet.Builder unknownFields =
           com.google.protobuf.UnknownFieldSet.newBuilder();
       try {
@@ -6045,6 +6064,11 @@ public final class Messages {
               }
               break;
             }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              sinceVersion_ = input.readInt64();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -6084,7 +6108,33 @@ public final class Messages {
       return PARSER;
     }
 
+    private int bitField0_;
+    // optional int64 sinceVersion = 1;
+    public static final int SINCEVERSION_FIELD_NUMBER = 1;
+    private long sinceVersion_;
+    /**
+     * <code>optional int64 sinceVersion = 1;</code>
+     *
+     * <pre>
+     * version of the status the caller already holds
+     * </pre>
+     */
+    public boolean hasSinceVersion() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional int64 sinceVersion = 1;</code>
+     *
+     * <pre>
+     * version of the status the caller already holds
+     * </pre>
+     */
+    public long getSinceVersion() {
+      return sinceVersion_;
+    }
+
     private void initFields() {
+      sinceVersion_ = 0L;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -6098,6 +6148,9 @@ public final class Messages {
     public void writeTo(com.google.protobuf.CodedOutputStream output)
                         throws java.io.IOException {
       getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, sinceVersion_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -6107,6 +6160,10 @@ public final class Messages {
       if (size != -1) return size;
 
       size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(1, sinceVersion_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -6130,6 +6187,11 @@ public final class Messages {
       org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto other = (org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto) obj;
 
       boolean result = true;
+      result = result && (hasSinceVersion() == other.hasSinceVersion());
+      if (hasSinceVersion()) {
+        result = result && (getSinceVersion()
+            == other.getSinceVersion());
+      }
       result = result &&
           getUnknownFields().equals(other.getUnknownFields());
       return result;
@@ -6143,6 +6205,10 @@ public final class Messages {
       }
       int hash = 41;
       hash = (19 * hash) + getDescriptorForType().hashCode();
+      if (hasSinceVersion()) {
+        hash = (37 * hash) + SINCEVERSION_FIELD_NUMBER;
+        hash = (53 * hash) + hashLong(getSinceVersion());
+      }
       hash = (29 * hash) + getUnknownFields().hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -6257,6 +6323,8 @@ public final class Messages {
 
       public Builder clear() {
         super.clear();
+        sinceVersion_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
         return this;
       }
 
@@ -6283,6 +6351,13 @@ public final class Messages {
 
       public org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto buildPartial() {
         org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto result = new org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.sinceVersion_ = sinceVersion_;
+        result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
@@ -6298,6 +6373,9 @@ public final class Messages {
 
       public Builder mergeFrom(org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto other) {
         if (other == org.apache.slider.api.proto.Messages.GetJSONClusterStatusRequestProto.getDefaultInstance()) return this;
+        if (other.hasSinceVersion()) {
+          setSinceVersion(other.getSinceVersion());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -6323,6 +6401,56 @@ public final class Messages {
         }
         return this;
       }
+      private int bitField0_;
+
+      // optional int64 sinceVersion = 1;
+      private long sinceVersion_ ;
+      /**
+       * <code>optional int64 sinceVersion = 1;</code>
+       *
+       * <pre>
+       * version of the status the caller already holds
+       * </pre>
+       */
+      public boolean hasSinceVersion() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional int64 sinceVersion = 1;</code>
+       *
+       * <pre>
+       * version of the status the caller already holds
+       * </pre>
+       */
+      public long getSinceVersion() {
+        return sinceVersion_;
+      }
+      /**
+       * <code>optional int64 sinceVersion = 1;</code>
+       *
+       * <pre>
+       * version of the status the caller already holds
+       * </pre>
+       */
+      public Builder setSinceVersion(long value) {
+        bitField0_ |= 0x00000001;
+        sinceVersion_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int64 sinceVersion = 1;</code>
+       *
+       * <pre>
+       * version of the status the caller already holds
+       * </pre>
+       */
+      public Builder clearSinceVersion() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        sinceVersion_ = 0L;
+        onChanged();
+        return this;
+      }
 
       // @@protoc_insertion_point(builder_scope:org.apache.slider.api.GetJSONClusterStatusRequestProto)
     }
@@ -6352,6 +6480,42 @@ public final class Messages {
      */
     com.google.protobuf.ByteString
         getClusterSpecBytes();
+
+    // optional int64 version = 2;
+    /**
+     * <code>optional int64 version = 2;</code>
+     *
+     * <pre>
+     * version of the status
+     * </pre>
+     */
+    boolean hasVersion();
+    /**
+     * <code>optional int64 version = 2;</code>
+     *
+     * <pre>
+     * version of the status
+     * </pre>
+     */
+    long getVersion();
+
+    // optional bool unchanged = 3;
+    /**
+     * <code>optional bool unchanged = 3;</code>
+     *
+     * <pre>
+     * the status is unchanged since the requested version; clusterSpec is empty
+     * </pre>
+     */
+    boolean hasUnchanged();
+    /**
+     * <code>optional bool unchanged = 3;</code>
+     *
+     * <pre>
+     * the status is unchanged since the requested version; clusterSpec is empty
+     * </pre>
+     */
+    boolean getUnchanged();
   }
   /**
    * Protobuf type {@code org.apache.slider.api.GetJSONClusterStatusResponseProto}
@@ -6414,6 +6578,16 @@ public final class Messages {
               clusterSpec_ = input.readBytes();
               break;
             }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              version_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              unchanged_ = input.readBool();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -6497,8 +6671,58 @@ public final class Messages {
       }
     }
 
+    // optional int64 version = 2;
+    public static final int VERSION_FIELD_NUMBER = 2;
+    private long version_;
+    /**
+     * <code>optional int64 version = 2;</code>
+     *
+     * <pre>
+     * version of the status
+     * </pre>
+     */
+    public boolean hasVersion() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional int64 version = 2;</code>
+     *
+     * <pre>
+     * version of the status
+     * </pre>
+     */
+    public long getVersion() {
+      return version_;
+    }
+
+    // optional bool unchanged = 3;
+    public static final int UNCHANGED_FIELD_NUMBER = 3;
+    private boolean unchanged_;
+    /**
+     * <code>optional bool unchanged = 3;</code>
+     *
+     * <pre>
+     * the status is unchanged since the requested version; clusterSpec is empty
+     * </pre>
+     */
+    public boolean hasUnchanged() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bool unchanged = 3;</code>
+     *
+     * <pre>
+     * the status is unchanged since the requested version; clusterSpec is empty
+     * </pre>
+     */
+    public boolean getUnchanged() {
+      return unchanged_;
+    }
+
     private void initFields() {
       clusterSpec_ = "";
+      version_ = 0L;
+      unchanged_ = false;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -6519,6 +6743,12 @@ public final class Messages {
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         output.writeBytes(1, getClusterSpecBytes());
       }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, version_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBool(3, unchanged_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -6532,6 +6762,14 @@ public final class Messages {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(1, getClusterSpecBytes());
       }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(2, version_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(3, unchanged_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -6560,6 +6798,16 @@ public final class Messages {
         result = result && getClusterSpec()
             .equals(other.getClusterSpec());
       }
+      result = result && (hasVersion() == other.hasVersion());
+      if (hasVersion()) {
+        result = result && (getVersion()
+            == other.getVersion());
+      }
+      result = result && (hasUnchanged() == other.hasUnchanged());
+      if (hasUnchanged()) {
+        result = result && (getUnchanged()
+            == other.getUnchanged());
+      }
       result = result &&
           getUnknownFields().equals(other.getUnknownFields());
       return result;
@@ -6577,6 +6825,14 @@ public final class Messages {
         hash = (37 * hash) + CLUSTERSPEC_FIELD_NUMBER;
         hash = (53 * hash) + getClusterSpec().hashCode();
       }
+      if (hasVersion()) {
+        hash = (37 * hash) + VERSION_FIELD_NUMBER;
+        hash = (53 * hash) + hashLong(getVersion());
+      }
+      if (hasUnchanged()) {
+        hash = (37 * hash) + UNCHANGED_FIELD_NUMBER;
+        hash = (53 * hash) + hashBoolean(getUnchanged());
+      }
       hash = (29 * hash) + getUnknownFields().hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -6693,6 +6949,10 @@ public final class Messages {
         super.clear();
         clusterSpec_ = "";
         bitField0_ = (bitField0_ & ~0x00000001);
+        version_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        unchanged_ = false;
+        bitField0_ = (bitField0_ & ~0x00000004);
         return this;
       }
 
@@ -6725,6 +6985,14 @@ public final class Messages {
           to_bitField0_ |= 0x00000001;
         }
         result.clusterSpec_ = clusterSpec_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.version_ = version_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.unchanged_ = unchanged_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -6746,6 +7014,12 @@ public final class Messages {
           clusterSpec_ = other.clusterSpec_;
           onChanged();
         }
+        if (other.hasVersion()) {
+          setVersion(other.getVersion());
+        }
+        if (other.hasUnchanged()) {
+          setUnchanged(other.getUnchanged());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -6851,6 +7125,104 @@ public final class Messages {
         return this;
       }
 
+      // optional int64 version = 2;
+      private long version_ ;
+      /**
+       * <code>optional int64 version = 2;</code>
+       *
+       * <pre>
+       * version of the status
+       * </pre>
+       */
+      public boolean hasVersion() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional int64 version = 2;</code>
+       *
+       * <pre>
+       * version of the status
+       * </pre>
+       */
+      public long getVersion() {
+        return version_;
+      }
+      /**
+       * <code>optional int64 version = 2;</code>
+       *
+       * <pre>
+       * version of the status
+       * </pre>
+       */
+      public Builder setVersion(long value) {
+        bitField0_ |= 0x00000002;
+        version_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int64 version = 2;</code>
+       *
+       * <pre>
+       * version of the status
+       * </pre>
+       */
+      public Builder clearVersion() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        version_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // optional bool unchanged = 3;
+      private boolean unchanged_ ;
+      /**
+       * <code>optional bool unchanged = 3;</code>
+       *
+       * <pre>
+       * the status is unchanged since the requested version; clusterSpec is empty
+       * </pre>
+       */
+      public boolean hasUnchanged() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional bool unchanged = 3;</code>
+       *
+       * <pre>
+       * the status is unchanged since the requested version; clusterSpec is empty
+       * </pre>
+       */
+      public boolean getUnchanged() {
+        return unchanged_;
+      }
+      /**
+       * <code>optional bool unchanged = 3;</code>
+       *
+       * <pre>
+       * the status is unchanged since the requested version; clusterSpec is empty
+       * </pre>
+       */
+      public Builder setUnchanged(boolean value) {
+        bitField0_ |= 0x00000004;
+        unchanged_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool unchanged = 3;</code>
+       *
+       * <pre>
+       * the status is unchanged since the requested version; clusterSpec is empty
+       * </pre>
+       */
+      public Builder clearUnchanged() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        unchanged_ = false;
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.apache.slider.api.GetJSONClusterStatusResponseProto)
     }
 
@@ -35222,37 +35594,503 @@ public final class Messages {
     // @@protoc_insertion_point(class_scope:org.apache.slider.api.GetLiveNodeRequestProto)
   }
 
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_RoleInstanceState_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_RoleInstanceState_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_StopClusterRequestProto_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_StopClusterRequestProto_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_StopClusterResponseProto_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_StopClusterResponseProto_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_UpgradeContainersRequestProto_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_UpgradeContainersRequestProto_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_UpgradeContainersResponseProto_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_UpgradeContainersResponseProto_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_apache_slider_api_FlexClusterRequestProto_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_apache_slider_api_FlexClusterRequestProto_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
+  public interface WatchApplicationStateRequestProtoOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+
+    // optional int64 resumeToken = 1;
+    /**
+     * <code>optional int64 resumeToken = 1;</code>
+     *
+     * <pre>
+     * token of the last event the caller has seen
+     * </pre>
+     */
+    boolean hasResumeToken();
+    /**
+     * <code>optional int64 resumeToken = 1;</code>
+     *
+     * <pre>
+     * token of the last event the caller has seen
+     * </pre>
+     */
+    long getResumeToken();
+  }
+  /**
+   * Protobuf type {@code org.apache.slider.api.WatchApplicationStateRequestProto}
+   */
+  public static final class WatchApplicationStateRequestProto extends
+      com.google.protobuf.GeneratedMessage
+      implements WatchApplicationStateRequestProtoOrBuilder {
+    // Use WatchApplicationStateRequestProto.newBuilder() to construct.
+    private WatchApplicationStateRequestProto(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private WatchApplicationStateRequestProto(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final WatchApplicationStateRequestProto defaultInstance;
+    public static WatchApplicationStateRequestProto getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public WatchApplicationStateRequestProto getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private WatchApplicationStateRequestProto(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              resumeToken_ = input.readInt64();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.apache.slider.api.proto.Messages.internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.apache.slider.api.proto.Messages.internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.class, org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<WatchApplicationStateRequestProto> PARSER =
+        new com.google.protobuf.AbstractParser<WatchApplicationStateRequestProto>() {
+      public WatchApplicationStateRequestProto parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new WatchApplicationStateRequestProto(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<WatchApplicationStateRequestProto> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    // optional int64 resumeToken = 1;
+    public static final int SINCEVERSION_FIELD_NUMBER = 1;
+    private long resumeToken_;
+    /**
+     * <code>optional int64 resumeToken = 1;</code>
+     *
+     * <pre>
+     * token of the last event the caller has seen
+     * </pre>
+     */
+    public boolean hasResumeToken() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional int64 resumeToken = 1;</code>
+     *
+     * <pre>
+     * token of the last event the caller has seen
+     * </pre>
+     */
+    public long getResumeToken() {
+      return resumeToken_;
+    }
+
+    private void initFields() {
+      resumeToken_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, resumeToken_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(1, resumeToken_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto)) {
+        return super.equals(obj);
+      }
+      org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto other = (org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto) obj;
+
+      boolean result = true;
+      result = result && (hasResumeToken() == other.hasResumeToken());
+      if (hasResumeToken()) {
+        result = result && (getResumeToken()
+            == other.getResumeToken());
+      }
+      result = result &&
+          getUnknownFields().equals(other.getUnknownFields());
+      return result;
+    }
+
+    private int memoizedHashCode = 0;
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptorForType().hashCode();
+      if (hasResumeToken()) {
+        hash = (37 * hash) + SINCEVERSION_FIELD_NUMBER;
+        hash = (53 * hash) + hashLong(getResumeToken());
+      }
+      hash = (29 * hash) + getUnknownFields().hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.apache.slider.api.WatchApplicationStateRequestProto}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProtoOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.apache.slider.api.proto.Messages.internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.apache.slider.api.proto.Messages.internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.class, org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.Builder.class);
+      }
+
+      // Construct using org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        resumeToken_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.apache.slider.api.proto.Messages.internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor;
+      }
+
+      public org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto getDefaultInstanceForType() {
+        return org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.getDefaultInstance();
+      }
+
+      public org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto build() {
+        org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto buildPartial() {
+        org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto result = new org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.resumeToken_ = resumeToken_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto) {
+          return mergeFrom((org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto other) {
+        if (other == org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.getDefaultInstance()) return this;
+        if (other.hasResumeToken()) {
+          setResumeToken(other.getResumeToken());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      // optional int64 resumeToken = 1;
+      private long resumeToken_ ;
+      /**
+       * <code>optional int64 resumeToken = 1;</code>
+       *
+       * <pre>
+       * token of the last event the caller has seen
+       * </pre>
+       */
+      public boolean hasResumeToken() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional int64 resumeToken = 1;</code>
+       *
+       * <pre>
+       * token of the last event the caller has seen
+       * </pre>
+       */
+      public long getResumeToken() {
+        return resumeToken_;
+      }
+      /**
+       * <code>optional int64 resumeToken = 1;</code>
+       *
+       * <pre>
+       * token of the last event the caller has seen
+       * </pre>
+       */
+      public Builder setResumeToken(long value) {
+        bitField0_ |= 0x00000001;
+        resumeToken_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int64 resumeToken = 1;</code>
+       *
+       * <pre>
+       * token of the last event the caller has seen
+       * </pre>
+       */
+      public Builder clearResumeToken() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        resumeToken_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.apache.slider.api.WatchApplicationStateRequestProto)
+    }
+
+    static {
+      defaultInstance = new WatchApplicationStateRequestProto(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.apache.slider.api.WatchApplicationStateRequestProto)
+  }
+
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_RoleInstanceState_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_RoleInstanceState_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_StopClusterRequestProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_StopClusterRequestProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_StopClusterResponseProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_StopClusterResponseProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_UpgradeContainersRequestProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_UpgradeContainersRequestProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_UpgradeContainersResponseProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_UpgradeContainersResponseProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_FlexClusterRequestProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_FlexClusterRequestProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
     internal_static_org_apache_slider_api_FlexClusterResponseProto_descriptor;
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
@@ -35477,6 +36315,11 @@ public final class Messages {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_org_apache_slider_api_GetLiveNodeRequestProto_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -35502,95 +36345,98 @@ public final class Messages {
       "component\030\003 \003(\t\" \n\036UpgradeContainersResp" +
       "onseProto\".\n\027FlexClusterRequestProto\022\023\n\013" +
       "clusterSpec\030\001 \002(\t\",\n\030FlexClusterResponse" +
-      "Proto\022\020\n\010response\030\001 \002(\010\"\"\n GetJSONCluste" +
-      "rStatusRequestProto\"8\n!GetJSONClusterSta" +
-      "tusResponseProto\022\023\n\013clusterSpec\030\001 \002(\t\"/\n" +
-      "\037ListNodeUUIDsByRoleRequestProto\022\014\n\004role",
-      "\030\001 \002(\t\"0\n ListNodeUUIDsByRoleResponsePro" +
-      "to\022\014\n\004uuid\030\001 \003(\t\"#\n\023GetNodeRequestProto\022" +
-      "\014\n\004uuid\030\001 \002(\t\"U\n\024GetNodeResponseProto\022=\n" +
-      "\013clusterNode\030\001 \002(\0132(.org.apache.slider.a" +
-      "pi.RoleInstanceState\"+\n\033GetClusterNodesR" +
-      "equestProto\022\014\n\004uuid\030\001 \003(\t\"]\n\034GetClusterN" +
-      "odesResponseProto\022=\n\013clusterNode\030\001 \003(\0132(" +
-      ".org.apache.slider.api.RoleInstanceState" +
-      "\" \n\020EchoRequestProto\022\014\n\004text\030\001 \002(\t\"!\n\021Ec" +
-      "hoResponseProto\022\014\n\004text\030\001 \002(\t\"\'\n\031KillCon",
-      "tainerRequestProto\022\n\n\002id\030\001 \002(\t\"-\n\032KillCo" +
-      "ntainerResponseProto\022\017\n\007success\030\001 \002(\010\"D\n" +
-      "\025AMSuicideRequestProto\022\014\n\004text\030\001 \002(\t\022\016\n\006" +
-      "signal\030\002 \002(\005\022\r\n\005delay\030\003 \002(\005\"\030\n\026AMSuicide" +
-      "ResponseProto\"#\n!GetInstanceDefinitionRe" +
-      "questProto\"^\n\"GetInstanceDefinitionRespo" +
-      "nseProto\022\020\n\010internal\030\001 \002(\t\022\021\n\tresources\030" +
-      "\002 \002(\t\022\023\n\013application\030\003 \002(\t\"@\n\030ResourceIn" +
-      "formationProto\022\016\n\006memory\030\001 \001(\005\022\024\n\014virtua" +
-      "lCores\030\002 \001(\005\"\340\001\n#ApplicationLivenessInfo",
-      "rmationProto\022\034\n\024allRequestsSatisfied\030\001 \001" +
-      "(\010\022\033\n\023requestsOutstanding\030\002 \001(\005\022\026\n\016activ" +
-      "eRequests\030\003 \001(\005\022\032\n\022lastAllocationTime\030\004 " +
-      "\001(\003\022J\n\021availableResource\030\005 \001(\0132/.org.apa" +
-      "che.slider.api.ResourceInformationProto\"" +
-      "\256\003\n\031ComponentInformationProto\022\014\n\004name\030\001 " +
-      "\001(\t\022\020\n\010priority\030\002 \001(\005\022\017\n\007desired\030\003 \001(\005\022\016" +
-      "\n\006actual\030\004 \001(\005\022\021\n\treleasing\030\005 \001(\005\022\021\n\treq" +
-      "uested\030\006 \001(\005\022\016\n\006failed\030\007 \001(\005\022\017\n\007started\030" +
-      "\010 \001(\005\022\023\n\013startFailed\030\t \001(\005\022\021\n\tcompleted\030",
-      "\n \001(\005\022\026\n\016totalRequested\030\013 \001(\005\022\026\n\016failure" +
-      "Message\030\014 \001(\t\022\027\n\017placementPolicy\030\r \001(\005\022\022" +
-      "\n\ncontainers\030\016 \003(\t\022\026\n\016failedRecently\030\017 \001" +
-      "(\005\022\022\n\nnodeFailed\030\020 \001(\005\022\021\n\tpreempted\030\021 \001(" +
-      "\005\022%\n\035pendingAntiAffineRequestCount\030\022 \001(\005" +
-      "\022\036\n\026isAARequestOutstanding\030\023 \001(\010\"\261\002\n\031Con" +
-      "tainerInformationProto\022\023\n\013containerId\030\001 " +
-      "\001(\t\022\021\n\tcomponent\030\002 \001(\t\022\020\n\010released\030\003 \001(\010" +
-      "\022\r\n\005state\030\004 \001(\005\022\020\n\010exitCode\030\005 \001(\005\022\023\n\013dia" +
-      "gnostics\030\006 \001(\t\022\022\n\ncreateTime\030\007 \001(\003\022\021\n\tst",
-      "artTime\030\010 \001(\003\022\016\n\006output\030\t \003(\t\022\014\n\004host\030\n " +
-      "\001(\t\022\017\n\007hostURL\030\013 \001(\t\022\021\n\tplacement\030\014 \001(\t\022" +
-      "\022\n\nappVersion\030\r \001(\t\022\017\n\007logLink\030\016 \001(\t\022\026\n\016" +
-      "completionTime\030\017 \001(\003\"N\n\024PingInformationP" +
-      "roto\022\014\n\004text\030\001 \001(\t\022\014\n\004verb\030\002 \001(\t\022\014\n\004body" +
-      "\030\003 \001(\t\022\014\n\004time\030\004 \001(\003\"\343\001\n\031NodeEntryInform" +
-      "ationProto\022\020\n\010priority\030\001 \002(\005\022\021\n\trequeste" +
-      "d\030\002 \002(\005\022\020\n\010starting\030\003 \002(\005\022\023\n\013startFailed" +
-      "\030\004 \002(\005\022\016\n\006failed\030\005 \002(\005\022\026\n\016failedRecently" +
-      "\030\006 \002(\005\022\021\n\tpreempted\030\007 \002(\005\022\014\n\004live\030\010 \002(\005\022",
-      "\021\n\treleasing\030\t \002(\005\022\020\n\010lastUsed\030\n \002(\003\022\014\n\004" +
-      "name\030\013 \002(\t\"\334\001\n\024NodeInformationProto\022\020\n\010h" +
-      "ostname\030\001 \002(\t\022\r\n\005state\030\002 \002(\t\022\023\n\013httpAddr" +
-      "ess\030\003 \002(\t\022\020\n\010rackName\030\004 \002(\t\022\016\n\006labels\030\005 " +
-      "\002(\t\022\024\n\014healthReport\030\006 \002(\t\022\023\n\013lastUpdated" +
-      "\030\007 \002(\003\022A\n\007entries\030\010 \003(\01320.org.apache.sli" +
-      "der.api.NodeEntryInformationProto\"\026\n\024Get" +
-      "ModelRequestProto\"\035\n\033GetModelDesiredRequ" +
-      "estProto\"$\n\"GetModelDesiredAppconfReques" +
-      "tProto\"&\n$GetModelDesiredResourcesReques",
-      "tProto\"%\n#GetModelResolvedAppconfRequest" +
-      "Proto\"\'\n%GetModelResolvedResourcesReques" +
-      "tProto\"#\n!GetModelLiveResourcesRequestPr" +
-      "oto\"\037\n\035GetLiveContainersRequestProto\"u\n\036" +
-      "GetLiveContainersResponseProto\022\r\n\005names\030" +
-      "\001 \003(\t\022D\n\ncontainers\030\002 \003(\01320.org.apache.s" +
-      "lider.api.ContainerInformationProto\"3\n\034G" +
-      "etLiveContainerRequestProto\022\023\n\013container" +
-      "Id\030\001 \002(\t\"\037\n\035GetLiveComponentsRequestProt" +
-      "o\"u\n\036GetLiveComponentsResponseProto\022\r\n\005n",
-      "ames\030\001 \003(\t\022D\n\ncomponents\030\002 \003(\01320.org.apa" +
-      "che.slider.api.ComponentInformationProto" +
-      "\",\n\034GetLiveComponentRequestProto\022\014\n\004name" +
-      "\030\001 \002(\t\"$\n\"GetApplicationLivenessRequestP" +
-      "roto\"\023\n\021EmptyPayloadProto\" \n\020WrappedJson" +
-      "Proto\022\014\n\004json\030\001 \002(\t\"h\n\037GetCertificateSto" +
-      "reRequestProto\022\020\n\010hostname\030\001 \001(\t\022\023\n\013requ" +
-      "esterId\030\002 \002(\t\022\020\n\010password\030\003 \002(\t\022\014\n\004type\030" +
-      "\004 \002(\t\"1\n GetCertificateStoreResponseProt" +
-      "o\022\r\n\005store\030\001 \002(\014\"\032\n\030GetLiveNodesRequestP",
-      "roto\"W\n\031GetLiveNodesResponseProto\022:\n\005nod" +
-      "es\030\001 \003(\0132+.org.apache.slider.api.NodeInf" +
-      "ormationProto\"\'\n\027GetLiveNodeRequestProto" +
-      "\022\014\n\004name\030\001 \002(\tB-\n\033org.apache.slider.api." +
-      "protoB\010Messages\210\001\001\240\001\001"
+      "Proto\022\020\n\010response\030\001 \002(\010\"8\n GetJSONCluste" +
+      "rStatusRequestProto\022\024\n\014sinceVersion\030\001 \001(" +
+      "\003\"\\\n!GetJSONClusterStatusResponseProto\022\023" +
+      "\n\013clusterSpec\030\001 \002(\t\022\017\n\007version\030\002 \001(\003\022\021\n\t",
+      "unchanged\030\003 \001(\010\"/\n\037ListNodeUUIDsByRoleRe" +
+      "questProto\022\014\n\004role\030\001 \002(\t\"0\n ListNodeUUID" +
+      "sByRoleResponseProto\022\014\n\004uuid\030\001 \003(\t\"#\n\023Ge" +
+      "tNodeRequestProto\022\014\n\004uuid\030\001 \002(\t\"U\n\024GetNo" +
+      "deResponseProto\022=\n\013clusterNode\030\001 \002(\0132(.o" +
+      "rg.apache.slider.api.RoleInstanceState\"+" +
+      "\n\033GetClusterNodesRequestProto\022\014\n\004uuid\030\001 " +
+      "\003(\t\"]\n\034GetClusterNodesResponseProto\022=\n\013c" +
+      "lusterNode\030\001 \003(\0132(.org.apache.slider.api" +
+      ".RoleInstanceState\" \n\020EchoRequestProto\022\014",
+      "\n\004text\030\001 \002(\t\"!\n\021EchoResponseProto\022\014\n\004tex" +
+      "t\030\001 \002(\t\"\'\n\031KillContainerRequestProto\022\n\n\002" +
+      "id\030\001 \002(\t\"-\n\032KillContainerResponseProto\022\017" +
+      "\n\007success\030\001 \002(\010\"D\n\025AMSuicideRequestProto" +
+      "\022\014\n\004text\030\001 \002(\t\022\016\n\006signal\030\002 \002(\005\022\r\n\005delay\030" +
+      "\003 \002(\005\"\030\n\026AMSuicideResponseProto\"#\n!GetIn" +
+      "stanceDefinitionRequestProto\"^\n\"GetInsta" +
+      "nceDefinitionResponseProto\022\020\n\010internal\030\001" +
+      " \002(\t\022\021\n\tresources\030\002 \002(\t\022\023\n\013application\030\003" +
+      " \002(\t\"@\n\030ResourceInformationProto\022\016\n\006memo",
+      "ry\030\001 \001(\005\022\024\n\014virtualCores\030\002 \001(\005\"\340\001\n#Appli" +
+      "cationLivenessInformationProto\022\034\n\024allReq" +
+      "uestsSatisfied\030\001 \001(\010\022\033\n\023requestsOutstand" +
+      "ing\030\002 \001(\005\022\026\n\016activeRequests\030\003 \001(\005\022\032\n\022las" +
+      "tAllocationTime\030\004 \001(\003\022J\n\021availableResour" +
+      "ce\030\005 \001(\0132/.org.apache.slider.api.Resourc" +
+      "eInformationProto\"\256\003\n\031ComponentInformati" +
+      "onProto\022\014\n\004name\030\001 \001(\t\022\020\n\010priority\030\002 \001(\005\022" +
+      "\017\n\007desired\030\003 \001(\005\022\016\n\006actual\030\004 \001(\005\022\021\n\trele" +
+      "asing\030\005 \001(\005\022\021\n\trequested\030\006 \001(\005\022\016\n\006failed",
+      "\030\007 \001(\005\022\017\n\007started\030\010 \001(\005\022\023\n\013startFailed\030\t" +
+      " \001(\005\022\021\n\tcompleted\030\n \001(\005\022\026\n\016totalRequeste" +
+      "d\030\013 \001(\005\022\026\n\016failureMessage\030\014 \001(\t\022\027\n\017place" +
+      "mentPolicy\030\r \001(\005\022\022\n\ncontainers\030\016 \003(\t\022\026\n\016" +
+      "failedRecently\030\017 \001(\005\022\022\n\nnodeFailed\030\020 \001(\005" +
+      "\022\021\n\tpreempted\030\021 \001(\005\022%\n\035pendingAntiAffine" +
+      "RequestCount\030\022 \001(\005\022\036\n\026isAARequestOutstan" +
+      "ding\030\023 \001(\010\"\261\002\n\031ContainerInformationProto" +
+      "\022\023\n\013containerId\030\001 \001(\t\022\021\n\tcomponent\030\002 \001(\t" +
+      "\022\020\n\010released\030\003 \001(\010\022\r\n\005state\030\004 \001(\005\022\020\n\010exi",
+      "tCode\030\005 \001(\005\022\023\n\013diagnostics\030\006 \001(\t\022\022\n\ncrea" +
+      "teTime\030\007 \001(\003\022\021\n\tstartTime\030\010 \001(\003\022\016\n\006outpu" +
+      "t\030\t \003(\t\022\014\n\004host\030\n \001(\t\022\017\n\007hostURL\030\013 \001(\t\022\021" +
+      "\n\tplacement\030\014 \001(\t\022\022\n\nappVersion\030\r \001(\t\022\017\n" +
+      "\007logLink\030\016 \001(\t\022\026\n\016completionTime\030\017 \001(\003\"N" +
+      "\n\024PingInformationProto\022\014\n\004text\030\001 \001(\t\022\014\n\004" +
+      "verb\030\002 \001(\t\022\014\n\004body\030\003 \001(\t\022\014\n\004time\030\004 \001(\003\"\343" +
+      "\001\n\031NodeEntryInformationProto\022\020\n\010priority" +
+      "\030\001 \002(\005\022\021\n\trequested\030\002 \002(\005\022\020\n\010starting\030\003 " +
+      "\002(\005\022\023\n\013startFailed\030\004 \002(\005\022\016\n\006failed\030\005 \002(\005",
+      "\022\026\n\016failedRecently\030\006 \002(\005\022\021\n\tpreempted\030\007 " +
+      "\002(\005\022\014\n\004live\030\010 \002(\005\022\021\n\treleasing\030\t \002(\005\022\020\n\010" +
+      "lastUsed\030\n \002(\003\022\014\n\004name\030\013 \002(\t\"\334\001\n\024NodeInf" +
+      "ormationProto\022\020\n\010hostname\030\001 \002(\t\022\r\n\005state" +
+      "\030\002 \002(\t\022\023\n\013httpAddress\030\003 \002(\t\022\020\n\010rackName\030" +
+      "\004 \002(\t\022\016\n\006labels\030\005 \002(\t\022\024\n\014healthReport\030\006 " +
+      "\002(\t\022\023\n\013lastUpdated\030\007 \002(\003\022A\n\007entries\030\010 \003(" +
+      "\01320.org.apache.slider.api.NodeEntryInfor" +
+      "mationProto\"\026\n\024GetModelRequestProto\"\035\n\033G" +
+      "etModelDesiredRequestProto\"$\n\"GetModelDe",
+      "siredAppconfRequestProto\"&\n$GetModelDesi" +
+      "redResourcesRequestProto\"%\n#GetModelReso" +
+      "lvedAppconfRequestProto\"\'\n%GetModelResol" +
+      "vedResourcesRequestProto\"#\n!GetModelLive" +
+      "ResourcesRequestProto\"\037\n\035GetLiveContaine" +
+      "rsRequestProto\"u\n\036GetLiveContainersRespo" +
+      "nseProto\022\r\n\005names\030\001 \003(\t\022D\n\ncontainers\030\002 " +
+      "\003(\01320.org.apache.slider.api.ContainerInf" +
+      "ormationProto\"3\n\034GetLiveContainerRequest" +
+      "Proto\022\023\n\013containerId\030\001 \002(\t\"\037\n\035GetLiveCom",
+      "ponentsRequestProto\"u\n\036GetLiveComponents" +
+      "ResponseProto\022\r\n\005names\030\001 \003(\t\022D\n\ncomponen" +
+      "ts\030\002 \003(\01320.org.apache.slider.api.Compone" +
+      "ntInformationProto\",\n\034GetLiveComponentRe" +
+      "questProto\022\014\n\004name\030\001 \002(\t\"$\n\"GetApplicati" +
+      "onLivenessRequestProto\"\023\n\021EmptyPayloadPr" +
+      "oto\" \n\020WrappedJsonProto\022\014\n\004json\030\001 \002(\t\"h\n" +
+      "\037GetCertificateStoreRequestProto\022\020\n\010host" +
+      "name\030\001 \001(\t\022\023\n\013requesterId\030\002 \002(\t\022\020\n\010passw" +
+      "ord\030\003 \002(\t\022\014\n\004type\030\004 \002(\t\"1\n GetCertificat",
+      "eStoreResponseProto\022\r\n\005store\030\001 \002(\014\"\032\n\030Ge" +
+      "tLiveNodesRequestProto\"W\n\031GetLiveNodesRe" +
+      "sponseProto\022:\n\005nodes\030\001 \003(\0132+.org.apache." +
+      "slider.api.NodeInformationProto\"\'\n\027GetLi" +
+      "veNodeRequestProto\022\014\n\004name\030\001 \002(\t\"8\n!Watc" +
+      "hApplicationStateRequestProto\022\023\n\013resumeT" +
+      "oken\030\001 \001(\003B-\n\033org.apache.slider.api.prot" +
+      "oB\010Messages\210\001\001\240\001\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -35644,13 +36490,13 @@ public final class Messages {
           internal_static_org_apache_slider_api_GetJSONClusterStatusRequestProto_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_org_apache_slider_api_GetJSONClusterStatusRequestProto_descriptor,
-              new java.lang.String[] { });
+              new java.lang.String[] { "SinceVersion", });
           internal_static_org_apache_slider_api_GetJSONClusterStatusResponseProto_descriptor =
             getDescriptor().getMessageTypes().get(8);
           internal_static_org_apache_slider_api_GetJSONClusterStatusResponseProto_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_org_apache_slider_api_GetJSONClusterStatusResponseProto_descriptor,
-              new java.lang.String[] { "ClusterSpec", });
+              new java.lang.String[] { "ClusterSpec", "Version", "Unchanged", });
           internal_static_org_apache_slider_api_ListNodeUUIDsByRoleRequestProto_descriptor =
             getDescriptor().getMessageTypes().get(9);
           internal_static_org_apache_slider_api_ListNodeUUIDsByRoleRequestProto_fieldAccessorTable = new
@@ -35903,6 +36749,12 @@ public final class Messages {
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_org_apache_slider_api_GetLiveNodeRequestProto_descriptor,
               new java.lang.String[] { "Name", });
+          internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor =
+            getDescriptor().getMessageTypes().get(51);
+          internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_org_apache_slider_api_WatchApplicationStateRequestProto_descriptor,
+              new java.lang.String[] { "ResumeToken", });
           return null;
         }
       };
@@ -310,6 +310,18 @@ public final class SliderClusterAPI {
           org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto request,
           com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto> done);
 
+      /**
+       * <code>rpc watchApplicationState(.org.apache.slider.api.WatchApplicationStateRequestProto) returns (.org.apache.slider.api.WrappedJsonProto);</code>
+       *
+       * <pre>
+       * ApplicationStateChanges watch(), without waiting
+       * </pre>
+       */
+      public abstract void watchApplicationState(
+          com.google.protobuf.RpcController controller,
+          org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request,
+          com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.WrappedJsonProto> done);
+
     }
 
     public static com.google.protobuf.Service newReflectiveService(
@@ -523,6 +535,14 @@ public final class SliderClusterAPI {
           impl.getClientCertificateStore(controller, request, done);
         }
 
+        @java.lang.Override
+        public  void watchApplicationState(
+            com.google.protobuf.RpcController controller,
+            org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request,
+            com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.WrappedJsonProto> done) {
+          impl.watchApplicationState(controller, request, done);
+        }
+
       };
     }
 
@@ -597,6 +617,8 @@ public final class SliderClusterAPI {
               return impl.getLiveResources(controller, (org.apache.slider.api.proto.Messages.EmptyPayloadProto)request);
             case 25:
               return impl.getClientCertificateStore(controller, (org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto)request);
+            case 26:
+              return impl.watchApplicationState(controller, (org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto)request);
             default:
               throw new java.lang.AssertionError("Can't get here.");
           }
@@ -663,6 +685,8 @@ public final class SliderClusterAPI {
               return org.apache.slider.api.proto.Messages.EmptyPayloadProto.getDefaultInstance();
             case 25:
               return org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto.getDefaultInstance();
+            case 26:
+              return org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.getDefaultInstance();
             default:
               throw new java.lang.AssertionError("Can't get here.");
           }
@@ -729,6 +753,8 @@ public final class SliderClusterAPI {
               return org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance();
             case 25:
               return org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto.getDefaultInstance();
+            case 26:
+              return org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance();
             default:
               throw new java.lang.AssertionError("Can't get here.");
           }
@@ -1026,6 +1052,18 @@ public final class SliderClusterAPI {
         org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto request,
         com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto> done);
 
+    /**
+     * <code>rpc watchApplicationState(.org.apache.slider.api.WatchApplicationStateRequestProto) returns (.org.apache.slider.api.WrappedJsonProto);</code>
+     *
+     * <pre>
+     * ApplicationStateChanges watch(), without waiting
+     * </pre>
+     */
+    public abstract void watchApplicationState(
+        com.google.protobuf.RpcController controller,
+        org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request,
+        com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.WrappedJsonProto> done);
+
     public static final
         com.google.protobuf.Descriptors.ServiceDescriptor
         getDescriptor() {
@@ -1178,6 +1216,11 @@ public final class SliderClusterAPI {
             com.google.protobuf.RpcUtil.<org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto>specializeCallback(
               done));
           return;
+        case 26:
+          this.watchApplicationState(controller, (org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto)request,
+            com.google.protobuf.RpcUtil.<org.apache.slider.api.proto.Messages.WrappedJsonProto>specializeCallback(
+              done));
+          return;
         default:
           throw new java.lang.AssertionError("Can't get here.");
       }
@@ -1244,6 +1287,8 @@ public final class SliderClusterAPI {
           return org.apache.slider.api.proto.Messages.EmptyPayloadProto.getDefaultInstance();
         case 25:
           return org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto.getDefaultInstance();
+        case 26:
+          return org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto.getDefaultInstance();
         default:
           throw new java.lang.AssertionError("Can't get here.");
       }
@@ -1310,6 +1355,8 @@ public final class SliderClusterAPI {
           return org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance();
         case 25:
           return org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto.getDefaultInstance();
+        case 26:
+          return org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance();
         default:
           throw new java.lang.AssertionError("Can't get here.");
       }
@@ -1720,6 +1767,21 @@ public final class SliderClusterAPI {
             org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto.class,
             org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto.getDefaultInstance()));
       }
+
+      public  void watchApplicationState(
+          com.google.protobuf.RpcController controller,
+          org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request,
+          com.google.protobuf.RpcCallback<org.apache.slider.api.proto.Messages.WrappedJsonProto> done) {
+        channel.callMethod(
+          getDescriptor().getMethods().get(26),
+          controller,
+          request,
+          org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance(),
+          com.google.protobuf.RpcUtil.generalizeCallback(
+            done,
+            org.apache.slider.api.proto.Messages.WrappedJsonProto.class,
+            org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance()));
+      }
     }
 
     public static BlockingInterface newBlockingStub(
@@ -1857,6 +1919,11 @@ public final class SliderClusterAPI {
           com.google.protobuf.RpcController controller,
           org.apache.slider.api.proto.Messages.GetCertificateStoreRequestProto request)
           throws com.google.protobuf.ServiceException;
+
+      public org.apache.slider.api.proto.Messages.WrappedJsonProto watchApplicationState(
+          com.google.protobuf.RpcController controller,
+          org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request)
+          throws com.google.protobuf.ServiceException;
     }
 
     private static final class BlockingStub implements BlockingInterface {
@@ -2177,6 +2244,17 @@ public final class SliderClusterAPI {
           org.apache.slider.api.proto.Messages.GetCertificateStoreResponseProto.getDefaultInstance());
       }
 
+      public org.apache.slider.api.proto.Messages.WrappedJsonProto watchApplicationState(
+          com.google.protobuf.RpcController controller,
+          org.apache.slider.api.proto.Messages.WatchApplicationStateRequestProto request)
+          throws com.google.protobuf.ServiceException {
+        return (org.apache.slider.api.proto.Messages.WrappedJsonProto) channel.callBlockingMethod(
+          getDescriptor().getMethods().get(26),
+          controller,
+          request,
+          org.apache.slider.api.proto.Messages.WrappedJsonProto.getDefaultInstance());
+      }
+
     }
 
     // @@protoc_insertion_point(class_scope:org.apache.slider.api.SliderClusterProtocolPB)
@@ -2193,7 +2271,7 @@ public final class SliderClusterAPI {
     java.lang.String[] descriptorData = {
       "\n\033SliderClusterProtocol.proto\022\025org.apach" +
       "e.slider.api\032\033SliderClusterMessages.prot" +
-      "o2\245\030\n\027SliderClusterProtocolPB\022n\n\013stopClu" +
+      "o2\241\031\n\027SliderClusterProtocolPB\022n\n\013stopClu" +
       "ster\022..org.apache.slider.api.StopCluster" +
       "RequestProto\032/.org.apache.slider.api.Sto" +
       "pClusterResponseProto\022\200\001\n\021upgradeContain" +
@@ -2270,9 +2348,12 @@ public final class SliderClusterAPI {
       "dJsonProto\022\214\001\n\031getClientCertificateStore" +
       "\0226.org.apache.slider.api.GetCertificateS" +
       "toreRequestProto\0327.org.apache.slider.api" +
-      ".GetCertificateStoreResponseProtoB5\n\033org",
-      ".apache.slider.api.protoB\020SliderClusterA" +
-      "PI\210\001\001\240\001\001"
+      ".GetCertificateStoreResponseProto\022z\n\025wat",
+      "chApplicationState\0228.org.apache.slider.a" +
+      "pi.WatchApplicationStateRequestProto\032\'.o" +
+      "rg.apache.slider.api.WrappedJsonProtoB5\n" +
+      "\033org.apache.slider.api.protoB\020SliderClus" +
+      "terAPI\210\001\001\240\001\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.api.types;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The response to a watch of the application state: the events since
+ * the resume token supplied by the caller, and the token to pass in
+ * on the next watch.
+ * <p>
+ * If <code>reset</code> is set, the events since the caller's token
+ * are no longer available (or the token came from a different AM
+ * instance); the caller must re-read the containers and components
+ * before watching again from the new token.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class ApplicationStateChanges {
+
+  /** token to resume watching from */
+  public long resumeToken;
+
+  /** flag set if the caller must resynchronize */
+  public boolean reset;
+
+  /** events in order of occurrence */
+  public List<ApplicationStateEvent> events =
+      new ArrayList<ApplicationStateEvent>();
+
+  @Override
+  public String toString() {
+    final StringBuilder sb =
+        new StringBuilder("ApplicationStateChanges{");
+    sb.append("resumeToken=").append(resumeToken);
+    sb.append(", reset=").append(reset);
+    sb.append(", events=").append(events.size());
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.api.types;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * A change in the live state of an application, as returned by a watch.
+ * <p>
+ * Container events carry the container; component events carry the
+ * updated component information.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class ApplicationStateEvent {
+
+  /** A container has started and is now live */
+  public static final String CONTAINER_ADDED = "container.added";
+
+  /** A live container has completed, failed or been released */
+  public static final String CONTAINER_REMOVED = "container.removed";
+
+  /** The desired or actual state of a component has changed */
+  public static final String COMPONENT_UPDATED = "component.updated";
+
+  /** sequence number; the resume token of a watch */
+  public long sequence;
+
+  /** time of the event */
+  public long timestamp;
+
+  /** type of the event */
+  public String type;
+
+  /** name of the component */
+  public String component;
+
+  /** container, for container events */
+  public ContainerInformation container;
+
+  /** component information, for component events */
+  public ComponentInformation componentInformation;
+
+  public ApplicationStateEvent() {
+  }
+
+  public ApplicationStateEvent(String type, String component) {
+    this.type = type;
+    this.component = component;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb =
+        new StringBuilder("ApplicationStateEvent{");
+    sb.append("sequence=").append(sequence);
+    sb.append(", timestamp=").append(timestamp);
+    sb.append(", type='").append(type).append('\'');
+    sb.append(", component='").append(component).append('\'');
+    if (container != null) {
+      sb.append(", container=").append(container.containerId);
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+}
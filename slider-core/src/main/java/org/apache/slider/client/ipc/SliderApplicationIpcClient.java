@@ -21,6 +21,7 @@ package org.apache.slider.client.ipc;
 import com.google.common.base.Preconditions;
 import org.apache.slider.api.SliderClusterProtocol;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.NodeInformation;
@@ -36,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Map;
 
 /**
@@ -50,6 +52,11 @@ public class SliderApplicationIpcClient implements SliderApplicationApi {
   private static final Logger log =
       LoggerFactory.getLogger(SliderApplicationIpcClient.class);
 
+  /**
+   * Interval in millis between polls of the AM in a watch: {@value}
+   */
+  public static final long WATCH_POLL_INTERVAL = 1000;
+
   private final SliderClusterOperations operations;
 
   public SliderApplicationIpcClient(SliderClusterOperations operations) {
@@ -238,6 +245,33 @@ public class SliderApplicationIpcClient implements SliderApplicationApi {
     }
   }
 
+  /**
+   * The AM does not hold IPC calls open, so this polls it every
+   * {@link #WATCH_POLL_INTERVAL} millis until there are changes
+   * or the timeout expires.
+   */
+  @Override
+  public ApplicationStateChanges watch(long resumeToken, long timeout)
+      throws IOException {
+    try {
+      long deadline = System.currentTimeMillis() + timeout;
+      ApplicationStateChanges changes =
+          operations.watchApplicationState(resumeToken);
+      long remaining = deadline - System.currentTimeMillis();
+      while (!changes.reset && changes.events.isEmpty() && remaining > 0) {
+        Thread.sleep(Math.min(WATCH_POLL_INTERVAL, remaining));
+        changes = operations.watchApplicationState(resumeToken);
+        remaining = deadline - System.currentTimeMillis();
+      }
+      return changes;
+    } catch (InterruptedException e) {
+      throw (InterruptedIOException)
+          new InterruptedIOException(e.toString()).initCause(e);
+    } catch (IOException e) {
+      throw convert(e);
+    }
+  }
+
   @Override
   public String toString() {
     return "IPC implementation of SliderApplicationApi bonded to " + operations;
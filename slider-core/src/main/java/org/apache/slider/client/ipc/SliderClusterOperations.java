@@ -31,6 +31,7 @@ import org.apache.slider.api.proto.Messages;
 
 import static org.apache.slider.api.proto.RestTypeMarshalling.*;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.NodeInformation;
@@ -45,6 +46,7 @@ import org.apache.slider.core.exceptions.NoSuchNodeException;
 import org.apache.slider.core.exceptions.SliderException;
 import org.apache.slider.core.exceptions.WaitTimeoutException;
 import org.apache.slider.core.persist.ConfTreeSerDeser;
+import org.apache.slider.core.persist.JsonSerDeser;
 import org.apache.slider.server.services.security.SecurityStore;
 import org.apache.slider.server.services.security.SignCertResponse;
 import org.codehaus.jackson.JsonParseException;
@@ -152,6 +154,23 @@ public class SliderClusterOperations {
     }
   }
 
+  /**
+   * Get the JSON cluster status only if it has changed since the
+   * version the caller already holds. If it has not, the response
+   * has <code>unchanged</code> set and an empty cluster spec.
+   * @param sinceVersion version from a previous response
+   * @return the response, whose <code>version</code> is to be passed
+   * in on the next call
+   */
+  public Messages.GetJSONClusterStatusResponseProto getJSONClusterStatus(
+      long sinceVersion) throws YarnException, IOException {
+    Messages.GetJSONClusterStatusRequestProto req =
+      Messages.GetJSONClusterStatusRequestProto.newBuilder()
+                                               .setSinceVersion(sinceVersion)
+                                               .build();
+    return appMaster.getJSONClusterStatus(req);
+  }
+
   /**
    * Get the AM instance definition.
    * <p>
@@ -509,6 +528,23 @@ public class SliderClusterOperations {
     return unmarshall(proto);
   }
 
+  /**
+   * Get the container and component events since a resume token.
+   * The AM returns immediately, even if there are no events.
+   * @param resumeToken token from a previous call; -1 for a reset
+   * @return the changes
+   * @throws IOException on any failure
+   */
+  public ApplicationStateChanges watchApplicationState(long resumeToken)
+      throws IOException {
+    Messages.WrappedJsonProto wire = appMaster.watchApplicationState(
+        Messages.WatchApplicationStateRequestProto.newBuilder()
+                                                  .setResumeToken(resumeToken)
+                                                  .build());
+    return new JsonSerDeser<ApplicationStateChanges>(
+        ApplicationStateChanges.class).fromJson(wire.getJson());
+  }
+
   public byte[] getClientCertificateStore(String hostname, String clientId,
       String password, String type) throws IOException {
     Messages.GetCertificateStoreRequestProto.Builder
@@ -28,6 +28,7 @@ import com.sun.jersey.api.representation.Form;
 import org.apache.commons.lang.StringUtils;
 import org.apache.slider.api.types.ApplicationDiagnostics;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.SliderApplicationApi;
@@ -329,4 +330,13 @@ public class SliderApplicationApiRestClient extends BaseRestClient
     return getApplicationResource(LIVE_DIAGNOSTICS,
         ApplicationDiagnostics.class);
   }
+
+  @Override
+  public ApplicationStateChanges watch(long resumeToken, long timeout)
+      throws IOException {
+    WebResource resource = applicationResource(LIVE_WATCH)
+        .queryParam("token", Long.toString(resumeToken))
+        .queryParam("timeout", Long.toString(timeout));
+    return exec(HttpVerb.GET, resource, ApplicationStateChanges.class);
+  }
 }
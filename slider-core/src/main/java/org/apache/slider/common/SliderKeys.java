@@ -148,6 +148,22 @@ public interface SliderKeys extends SliderXmlConfKeys {
    */
   String HISTORY_FILENAME_GLOB_PATTERN = HISTORY_FILENAME_PREFIX +"*."+
                                     HISTORY_FILENAME_SUFFIX;
+
+  String HISTORY_DELTA_SUFFIX = "delta";
+
+  /**
+   * Filename pattern of a role history delta: the creation time of the
+   * snapshot it applies to, then its sequence number within that snapshot.
+   * As with the snapshots, later deltas sort after earlier ones.
+   */
+  String HISTORY_DELTA_CREATION_PATTERN = HISTORY_FILENAME_PREFIX +"%016x-%08x."+
+                                    HISTORY_DELTA_SUFFIX;
+
+  /**
+   * The glob pattern used to locate role history deltas
+   */
+  String HISTORY_DELTA_GLOB_PATTERN = HISTORY_FILENAME_PREFIX +"*."+
+                                    HISTORY_DELTA_SUFFIX;
   /**
    * XML resource listing the standard Slider providers
    * {@value}
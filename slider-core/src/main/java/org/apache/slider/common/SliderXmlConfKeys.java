@@ -176,6 +176,123 @@ public interface SliderXmlConfKeys {
 
   String KEY_AM_LAUNCH_ENV = "slider.am.launch.env";
 
+  /**
+   * Flag to enable coalescing of redundant actions in the AM
+   * action queue: {@value}
+   */
+  String KEY_AM_ACTION_QUEUE_COALESCING = "slider.am.action.queue.coalescing";
+  boolean DEFAULT_AM_ACTION_QUEUE_COALESCING = true;
+
+  /**
+   * Maximum number of actions taken off the AM action queue
+   * in one batch: {@value}
+   */
+  String KEY_AM_ACTION_QUEUE_BATCH_SIZE = "slider.am.action.queue.batch.size";
+  int DEFAULT_AM_ACTION_QUEUE_BATCH_SIZE = 64;
+
+  /**
+   * Scheduler for delayed and renewing actions in the AM: {@value}.
+   * One of {@link #AM_ACTION_QUEUE_SCHEDULER_DELAYQUEUE} or
+   * {@link #AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL}
+   */
+  String KEY_AM_ACTION_QUEUE_SCHEDULER = "slider.am.action.queue.scheduler";
+  String AM_ACTION_QUEUE_SCHEDULER_DELAYQUEUE = "delayqueue";
+  String AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL = "timingwheel";
+
+  /**
+   * Tick of the timing wheel scheduler in milliseconds: {@value}
+   */
+  String KEY_AM_ACTION_QUEUE_TIMINGWHEEL_TICK =
+      "slider.am.action.queue.timingwheel.tick";
+  long DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_TICK = 50;
+
+  /**
+   * Number of buckets in the timing wheel scheduler: {@value}
+   */
+  String KEY_AM_ACTION_QUEUE_TIMINGWHEEL_SIZE =
+      "slider.am.action.queue.timingwheel.size";
+  int DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_SIZE = 512;
+
+  /**
+   * Flag to save the role history as a log of deltas against a periodically
+   * compacted snapshot, rather than a full snapshot on every save: {@value}
+   */
+  String KEY_AM_HISTORY_DELTA_LOG = "slider.am.history.delta.log";
+  boolean DEFAULT_AM_HISTORY_DELTA_LOG = false;
+
+  /**
+   * Number of role history deltas written before they are compacted
+   * into a new snapshot: {@value}
+   */
+  String KEY_AM_HISTORY_COMPACTION_INTERVAL =
+      "slider.am.history.compaction.interval";
+  int DEFAULT_AM_HISTORY_COMPACTION_INTERVAL = 32;
+
+  /**
+   * Number of threads used to rebuild the AM state from the containers
+   * of a previous attempt: {@value}
+   */
+  String KEY_AM_RESTART_REBUILD_THREADS = "slider.am.restart.rebuild.threads";
+  int DEFAULT_AM_RESTART_REBUILD_THREADS = 4;
+
+  /**
+   * Flag to enable coalescing of the operations sent to the RM
+   * in one batch: {@value}
+   */
+  String KEY_AM_RM_OPERATIONS_COALESCING = "slider.am.rm.operations.coalescing";
+  boolean DEFAULT_AM_RM_OPERATIONS_COALESCING = true;
+
+  /**
+   * Number of threads preparing container launch contexts in the AM: {@value}
+   */
+  String KEY_AM_LAUNCHER_THREADS = "slider.am.launcher.threads";
+  int DEFAULT_AM_LAUNCHER_THREADS = 8;
+
+  /**
+   * Number of container launches which may be queued for the launcher
+   * threads; further launches are retried later from the action
+   * queue: {@value}
+   */
+  String KEY_AM_LAUNCHER_QUEUE_SIZE = "slider.am.launcher.queue.size";
+  int DEFAULT_AM_LAUNCHER_QUEUE_SIZE = 512;
+
+  /**
+   * Maximum number of container launches prepared concurrently for
+   * a single NodeManager; 0 means no limit: {@value}
+   */
+  String KEY_AM_LAUNCHER_MAX_PER_NODE = "slider.am.launcher.max.per.node";
+  int DEFAULT_AM_LAUNCHER_MAX_PER_NODE = 4;
+
+  /**
+   * Age in milliseconds after which the serialized cluster status is
+   * rebuilt even if the application state has not changed: {@value}
+   */
+  String KEY_AM_STATUS_MAX_AGE = "slider.am.status.max.age";
+  long DEFAULT_AM_STATUS_MAX_AGE = 10000;
+
+  /**
+   * Number of container and component events the AM retains for
+   * watchers of the application state. A watcher which falls further
+   * behind than this has to re-read the state: {@value}
+   */
+  String KEY_AM_WATCH_JOURNAL_SIZE = "slider.am.watch.journal.size";
+  int DEFAULT_AM_WATCH_JOURNAL_SIZE = 1000;
+
+  /**
+   * Maximum number of watchers of the application state which may be
+   * waiting for a change at the same time, each holding a web server
+   * thread. Further watches return at once, as IPC watches do: {@value}
+   */
+  String KEY_AM_WATCH_MAX_WAITERS = "slider.am.watch.max.waiters";
+  int DEFAULT_AM_WATCH_MAX_WAITERS = 8;
+
+  /**
+   * Local directory in which the client saves the parsed metainfo of
+   * application packages, so that an unchanged package is not read and
+   * parsed again on every invocation. Unset to disable: {@value}
+   */
+  String KEY_CLIENT_METAINFO_CACHE_DIR = "slider.client.metainfo.cache.dir";
+
   /**
    * From {@code DFSConfigKeys.DFS_NAMENODE_KERBEROS_PRINCIPAL_KEY}
    */
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.common.tools;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the tokens in strings in a single scan of each string.
+ * <p>
+ * Tokens are {@code ${name}} and, optionally, {@code {{name}}}; each is
+ * looked up by its full text, so {@code ${@//site/type/name}} references
+ * are simply tokens with a long name. The values of tokens are resolved
+ * in turn; tokens which are unknown, or which cannot be resolved because
+ * they refer back to themselves, are left in place.
+ * <p>
+ * The resolution of each token is cached, so an instance must only be
+ * used while the lookup is unchanged. Instances are not thread safe.
+ */
+public class TokenResolver {
+
+  /**
+   * Prefix of a reference to another site property: {@value}
+   */
+  public static final String SITE_REFERENCE_PREFIX = "${@//site/";
+
+  /**
+   * Lookup of a token
+   */
+  public interface Lookup {
+
+    /**
+     * Get the value of a token
+     * @param token the full text of the token, e.g. {@code ${name}}
+     * @return the value or null if the token is not known
+     */
+    String lookup(String token);
+  }
+
+  /**
+   * Result of a token which cannot be resolved
+   */
+  private static final String UNRESOLVED = new String("unresolved");
+
+  private final Lookup lookup;
+  private final boolean doubleBraces;
+  private final String unresolvedMarker;
+  private final Map<String, String> resolved = new HashMap<>();
+  private final Set<String> resolving = new HashSet<>();
+  private boolean cycleFound;
+
+  /**
+   * Create a resolver of {@code ${name}} and {@code {{name}}} tokens
+   * @param tokens map of token text to value
+   */
+  public TokenResolver(final Map<String, String> tokens) {
+    this(new Lookup() {
+      @Override
+      public String lookup(String token) {
+        return tokens.get(token);
+      }
+    }, true, null);
+  }
+
+  /**
+   * Create a resolver
+   * @param lookup lookup of the tokens
+   * @param doubleBraces should {@code {{name}}} tokens be resolved?
+   * @param unresolvedMarker if not null, a token whose resolved value
+   * still contains this text is treated as unresolved and left in place.
+   */
+  public TokenResolver(Lookup lookup,
+      boolean doubleBraces,
+      String unresolvedMarker) {
+    this.lookup = lookup;
+    this.doubleBraces = doubleBraces;
+    this.unresolvedMarker = unresolvedMarker;
+  }
+
+  /**
+   * Create a resolver of {@code ${@//site/type/name}} references
+   * between configurations. A reference is only replaced once
+   * the referenced value has no references of its own left.
+   * @param configurations map of configuration type to properties
+   * @return a resolver
+   */
+  public static TokenResolver forSiteReferences(
+      Map<String, Map<String, String>> configurations) {
+    final Map<String, String> references = new HashMap<>();
+    for (Map.Entry<String, Map<String, String>> config : configurations.entrySet()) {
+      String prefix = SITE_REFERENCE_PREFIX + config.getKey() + "/";
+      for (Map.Entry<String, String> entry : config.getValue().entrySet()) {
+        references.put(prefix + entry.getKey() + "}", entry.getValue());
+      }
+    }
+    return new TokenResolver(new Lookup() {
+      @Override
+      public String lookup(String token) {
+        return references.get(token);
+      }
+    }, false, SITE_REFERENCE_PREFIX);
+  }
+
+  /**
+   * Resolve all {@code ${name}} and {@code {{name}}} tokens in a string
+   * @param value string to resolve
+   * @param tokens map of token text to value
+   * @return the resolved string
+   */
+  public static String resolve(String value, Map<String, String> tokens) {
+    return new TokenResolver(tokens).resolve(value);
+  }
+
+  /**
+   * Resolve the tokens in a string
+   * @param value string; may be null
+   * @return the resolved string; the same instance if there were no tokens
+   * to replace.
+   */
+  public String resolve(String value) {
+    if (value == null) {
+      return null;
+    }
+    cycleFound = false;
+    return substitute(value);
+  }
+
+  /**
+   * Scan a string, replacing the tokens
+   * @param value string
+   * @return the new string, or the same string if there was nothing to
+   * replace. If a token in a cycle was found {@link #cycleFound} is set.
+   */
+  private String substitute(String value) {
+    StringBuilder builder = null;
+    int copied = 0;
+    int length = value.length();
+    int start = 0;
+    while (start < length - 1) {
+      char c = value.charAt(start);
+      String close;
+      if (c == '$' && value.charAt(start + 1) == '{') {
+        close = "}";
+      } else if (doubleBraces && c == '{' && value.charAt(start + 1) == '{') {
+        close = "}}";
+      } else {
+        start++;
+        continue;
+      }
+      int end = value.indexOf(close, start + 2);
+      if (end < 0) {
+        // unterminated: leave the opening characters as they are and
+        // keep scanning, as a token of the other kind may still follow
+        start += 2;
+        continue;
+      }
+      int nested = nextTokenStart(value, start + 2, end);
+      if (nested >= 0) {
+        // the token contains the start of another; resolve that first
+        start = nested;
+        continue;
+      }
+      end += close.length();
+      String token = value.substring(start, end);
+      String replacement = resolveToken(token);
+      if (replacement == UNRESOLVED) {
+        cycleFound = true;
+      } else if (replacement != null) {
+        if (builder == null) {
+          builder = new StringBuilder(length + 16);
+        }
+        builder.append(value, copied, start).append(replacement);
+        copied = end;
+      }
+      start = end;
+    }
+    if (builder == null) {
+      return value;
+    }
+    builder.append(value, copied, length);
+    return builder.toString();
+  }
+
+  /**
+   * Find the start of a token within a range
+   * @param value string
+   * @param from start of the range
+   * @param to end of the range (exclusive)
+   * @return the position of the token or -1
+   */
+  private int nextTokenStart(String value, int from, int to) {
+    for (int i = from; i < to - 1; i++) {
+      char c = value.charAt(i);
+      char next = value.charAt(i + 1);
+      if (next == '{' && (c == '$' || (doubleBraces && c == '{'))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Resolve a token
+   * @param token token text
+   * @return the resolved value, null if the token cannot be replaced, or
+   * {@link #UNRESOLVED} if it is part of a cycle.
+   */
+  private String resolveToken(String token) {
+    if (resolved.containsKey(token)) {
+      return resolved.get(token);
+    }
+    if (resolving.contains(token)) {
+      return UNRESOLVED;
+    }
+    String raw = lookup.lookup(token);
+    if (raw == null) {
+      resolved.put(token, null);
+      return null;
+    }
+    boolean outerCycle = cycleFound;
+    cycleFound = false;
+    resolving.add(token);
+    String result;
+    try {
+      result = substitute(raw);
+    } finally {
+      resolving.remove(token);
+    }
+    if (cycleFound) {
+      result = UNRESOLVED;
+    } else if (unresolvedMarker != null && result.contains(unresolvedMarker)) {
+      result = null;
+    }
+    cycleFound = outerCycle || cycleFound;
+    resolved.put(token, result);
+    return result;
+  }
+}
@@ -19,49 +19,65 @@ package org.apache.slider.core.registry.docstore;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.slider.common.tools.SliderFileSystem;
+import org.apache.slider.common.tools.TokenResolver;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ConfigUtils {
   public static final String TEMPLATE_FILE = "template.file";
 
+  /**
+   * Replace the {@code ${name}} and {@code {{name}}} references to
+   * the entries of a configuration in some content
+   * @param config configuration
+   * @param content content
+   * @return the content with the references replaced
+   */
   public static String replaceProps(Map<String, String> config, String content) {
-    Map<String, String> tokens = new HashMap<>();
-    for (Entry<String, String> entry : config.entrySet()) {
-      tokens.put("${" + entry.getKey() + "}", entry.getValue());
-      tokens.put("{{" + entry.getKey() + "}}", entry.getValue());
-    }
-    String value = content;
-    for (Map.Entry<String,String> token : tokens.entrySet()) {
-      value = value.replaceAll(Pattern.quote(token.getKey()),
-          Matcher.quoteReplacement(token.getValue()));
-    }
-    return value;
+    return new TokenResolver(new PropertyLookup(config), true, null)
+        .resolve(content);
   }
 
+  /**
+   * Replace the {@code ${name}} references to environment variables
+   * in the values of a configuration
+   * @param config configuration
+   * @param env environment
+   * @return a new configuration
+   */
   public static Map<String, String> replacePropsInConfig(
       Map<String, String> config, Map<String, String> env) {
-    Map<String, String> tokens = new HashMap<>();
-    for (Entry<String, String> entry : env.entrySet()) {
-      tokens.put("${" + entry.getKey() + "}", entry.getValue());
-    }
-    Map<String, String> newConfig = new HashMap<>();
+    TokenResolver resolver =
+        new TokenResolver(new PropertyLookup(env), false, null);
+    Map<String, String> newConfig = new HashMap<>(config.size());
     for (Entry<String, String> entry : config.entrySet()) {
-      String value = entry.getValue();
-      for (Map.Entry<String,String> token : tokens.entrySet()) {
-        value = value.replaceAll(Pattern.quote(token.getKey()),
-            Matcher.quoteReplacement(token.getValue()));
-      }
-      newConfig.put(entry.getKey(), entry.getValue());
+      newConfig.put(entry.getKey(), resolver.resolve(entry.getValue()));
     }
     return newConfig;
   }
 
+  /**
+   * Lookup of {@code ${name}} and {@code {{name}}} tokens in a map
+   * keyed by name
+   */
+  private static class PropertyLookup implements TokenResolver.Lookup {
+    private final Map<String, String> properties;
+
+    private PropertyLookup(Map<String, String> properties) {
+      this.properties = properties;
+    }
+
+    @Override
+    public String lookup(String token) {
+      // both forms open with two characters
+      int close = token.startsWith("{{") ? 2 : 1;
+      return properties.get(token.substring(2, token.length() - close));
+    }
+  }
+
   public static void prepConfigForTemplateOutputter(ConfigFormat configFormat,
       Map<String, String> config, SliderFileSystem fileSystem,
       String clusterName, String fileName) throws IOException {
@@ -30,6 +30,7 @@ import org.apache.slider.api.RoleKeys;
 import org.apache.slider.common.SliderKeys;
 import org.apache.slider.common.tools.SliderFileSystem;
 import org.apache.slider.common.tools.SliderUtils;
+import org.apache.slider.common.tools.TokenResolver;
 import org.apache.slider.core.conf.AggregateConf;
 import org.apache.slider.core.conf.ConfTreeOperations;
 import org.apache.slider.core.conf.MapOperations;
@@ -45,7 +46,6 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * this is a factoring out of methods handy for providers. It's bonded to a log at
@@ -283,17 +283,16 @@ public class ProviderUtils implements RoleKeys {
                                    Map<String,String> tokenMap) {
     String prefix = OptionKeys.SITE_XML_PREFIX +
                     (!configName.isEmpty() ? configName + "." : "");
+    TokenResolver resolver =
+        tokenMap != null ? new TokenResolver(tokenMap) : null;
     for (Map.Entry<String, String> entry : options.entrySet()) {
       String key = entry.getKey();
       if (key.startsWith(prefix)) {
         String envName = key.substring(prefix.length());
         if (!envName.isEmpty()) {
           String value = entry.getValue();
-          if (tokenMap != null) {
-            for (Map.Entry<String,String> token : tokenMap.entrySet()) {
-              value = value.replaceAll(Pattern.quote(token.getKey()),
-                                       token.getValue());
-            }
+          if (resolver != null) {
+            value = resolver.resolve(value);
           }
           sitexml.put(envName, value);
         }
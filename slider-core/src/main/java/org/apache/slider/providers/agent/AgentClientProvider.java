@@ -33,6 +33,7 @@ import org.apache.slider.api.InternalKeys;
 import org.apache.slider.api.ResourceKeys;
 import org.apache.slider.client.ClientUtils;
 import org.apache.slider.common.SliderKeys;
+import org.apache.slider.common.SliderXmlConfKeys;
 import org.apache.slider.common.tools.SliderFileSystem;
 import org.apache.slider.common.tools.SliderUtils;
 import org.apache.slider.core.conf.AggregateConf;
@@ -94,9 +95,14 @@ public class AgentClientProvider extends AbstractClientProvider
       = "Not a valid app package. Could not read metainfo.";
 
   protected Map<String, Metainfo> metaInfoMap = new ConcurrentHashMap<String, Metainfo>();
+  private final MetainfoCache metainfoCache;
 
   protected AgentClientProvider(Configuration conf) {
     super(conf);
+    String cacheDir = conf == null ? null
+        : conf.getTrimmed(SliderXmlConfKeys.KEY_CLIENT_METAINFO_CACHE_DIR);
+    metainfoCache = new MetainfoCache(
+        SliderUtils.isSet(cacheDir) ? new File(cacheDir) : null);
   }
 
   @Override
@@ -669,7 +675,7 @@ public class AgentClientProvider extends AbstractClientProvider
     Metainfo metaInfo = metaInfoMap.get(appDef);
     if (fs != null && metaInfo == null) {
       try {
-        metaInfo = AgentUtils.getApplicationMetainfo(fs, appDef, false);
+        metaInfo = metainfoCache.getApplicationMetainfo(fs, appDef, false);
         metaInfoMap.put(appDef, metaInfo);
       } catch (IOException ioe) {
         // Ignore missing metainfo file for now
@@ -99,9 +99,60 @@ public interface AgentKeys {
   String HEARTBEAT_MONITOR_INTERVAL = "heartbeat.monitor.interval";
   String HEARTBEAT_LOST_INTERVAL = "heartbeat.lost.interval";
   int DEFAULT_HEARTBEAT_LOST_INTERVAL = 2 * 60 * 60 * 1000; // 2 hours
+  String HEARTBEAT_DELTA_ENABLED = "heartbeat.delta.enabled";
+  /**
+   * Send the commands which follow on from the one issued (START after
+   * INSTALL, STOP after UPGRADE) in the same heartbeat response, for the
+   * agent to run without waiting for the AM.
+   */
+  String COMMAND_BATCHING_ENABLED = "command.batching.enabled";
+  /** Command parameter: run a pipelined command even if the one before failed */
+  String RUN_AFTER_FAILURE = "run_after_failure";
+  /**
+   * Number of threads processing agent registrations after they have been
+   * acknowledged; 0 processes them synchronously, without admission control
+   */
+  String REGISTRATION_THREADS = "registration.threads";
+  int DEFAULT_REGISTRATION_THREADS = 0;
+  /** Number of registrations which may be in progress before agents are turned away */
+  String REGISTRATION_QUEUE_SIZE = "registration.queue.size";
+  int DEFAULT_REGISTRATION_QUEUE_SIZE = 500;
+  /** Base interval in milliseconds which turned away agents wait before retrying */
+  String REGISTRATION_BACKOFF_INTERVAL = "registration.backoff.interval";
+  int DEFAULT_REGISTRATION_BACKOFF_INTERVAL = 5000;
   String AGENT_INSTANCE_DEBUG_DATA = "agent.instance.debug.data";
   String AGENT_OUT_FILE = "slider-agent.out";
   String KEY_AGENT_TWO_WAY_SSL_ENABLED = "ssl.server.client.auth";
+  /**
+   * Tuning of the agent REST endpoint; read from the AM component options
+   */
+  String KEY_AGENT_THREADPOOL_SIZE_MAX = "agent.threadpool.size.max";
+  int DEFAULT_AGENT_THREADPOOL_SIZE_MAX = 25;
+  String KEY_AGENT_THREADPOOL_SIZE_MIN = "agent.threadpool.size.min";
+  int DEFAULT_AGENT_THREADPOOL_SIZE_MIN = 2;
+  String KEY_AGENT_CONNECTOR_ACCEPTORS = "agent.connector.acceptors";
+  int DEFAULT_AGENT_CONNECTOR_ACCEPTORS = 2;
+  /** Connection backlog; 0 uses the OS default */
+  String KEY_AGENT_CONNECTOR_ACCEPT_QUEUE_SIZE =
+      "agent.connector.accept.queue.size";
+  int DEFAULT_AGENT_CONNECTOR_ACCEPT_QUEUE_SIZE = 0;
+  /**
+   * How long an idle keep-alive connection is held open, in milliseconds.
+   * This should be well above the heartbeat interval of the agents so that
+   * they can reuse their connection rather than handshake on every call.
+   */
+  String KEY_AGENT_CONNECTOR_MAX_IDLE_TIME = "agent.connector.max.idle.time";
+  int DEFAULT_AGENT_CONNECTOR_MAX_IDLE_TIME = 200000;
+  /**
+   * Should the agent endpoint gzip responses for agents which accept it,
+   * and accept gzipped requests?
+   */
+  String KEY_AGENT_REST_GZIP_ENABLED = "agent.rest.gzip.enabled";
+  boolean DEFAULT_AGENT_REST_GZIP_ENABLED = true;
+  /** Number of cached SSL sessions for resumption; -1 for the JVM default */
+  String KEY_AGENT_SSL_SESSION_CACHE_SIZE = "agent.ssl.session.cache.size";
+  /** Lifetime of cached SSL sessions in seconds; -1 for the JVM default */
+  String KEY_AGENT_SSL_SESSION_TIMEOUT = "agent.ssl.session.timeout";
   String INFRA_RUN_SECURITY_DIR = "infra/run/security/";
   String CERT_FILE_LOCALIZATION_PATH = INFRA_RUN_SECURITY_DIR + "ca.crt";
   String KEY_CONTAINER_LAUNCH_DELAY = "container.launch.delay.sec";
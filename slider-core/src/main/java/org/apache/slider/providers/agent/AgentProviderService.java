@@ -52,6 +52,7 @@ import org.apache.slider.common.SliderKeys;
 import org.apache.slider.common.SliderXmlConfKeys;
 import org.apache.slider.common.tools.SliderFileSystem;
 import org.apache.slider.common.tools.SliderUtils;
+import org.apache.slider.common.tools.TokenResolver;
 import org.apache.slider.core.conf.AggregateConf;
 import org.apache.slider.core.conf.ConfTreeOperations;
 import org.apache.slider.core.conf.MapOperations;
@@ -93,6 +94,7 @@ import org.apache.slider.providers.agent.application.metadata.Package;
 import org.apache.slider.providers.agent.application.metadata.PropertyInfo;
 import org.apache.slider.server.appmaster.actions.ProviderReportedContainerLoss;
 import org.apache.slider.server.appmaster.actions.RegisterComponentInstance;
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
 import org.apache.slider.server.appmaster.state.ContainerPriority;
 import org.apache.slider.server.appmaster.state.RoleInstance;
 import org.apache.slider.server.appmaster.state.StateAccessForProviders;
@@ -125,18 +127,21 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import static org.apache.slider.api.RoleKeys.ROLE_PREFIX;
@@ -164,22 +169,31 @@ public class AgentProviderService extends AbstractProviderService implements
   private static final String COMPONENT_TAG = "component";
   private static final String APPLICATION_TAG = "application";
   private static final String COMPONENT_DATA_TAG = "ComponentInstanceData";
-  private static final String SHARED_PORT_TAG = "SHARED";
   private static final String PER_CONTAINER_TAG = "{PER_CONTAINER}";
   private static final int MAX_LOG_ENTRIES = 40;
+  /**
+   * Number of lock stripes in the maps of per-container state.
+   * Updates for different containers rarely contend; reads never lock.
+   */
+  private static final int CONTAINER_STATE_SHARDS = 64;
   private static final int DEFAULT_HEARTBEAT_MONITOR_INTERVAL = 60 * 1000;
 
   private final Object syncLock = new Object();
   private final ComponentTagProvider tags = new ComponentTagProvider();
   private int heartbeatMonitorInterval = 0;
   private int heartbeatLostInterval = 0;
+  private boolean deltaHeartbeats = false;
+  private boolean commandBatching = false;
   private AgentClientProvider clientProvider;
   private AtomicInteger taskId = new AtomicInteger(0);
   private volatile Map<String, MetainfoHolder> metaInfoMap = new HashMap<>();
+  private final MetainfoCache metainfoCache = new MetainfoCache();
   private SliderFileSystem fileSystem = null;
   private Map<String, DefaultConfig> defaultConfigs = null;
   private ComponentCommandOrder commandOrder = new ComponentCommandOrder();
-  private HeartbeatMonitor monitor;
+  private volatile HeartbeatMonitor monitor;
+  private volatile AgentRegistrationPipeline registrations;
+  private MetricsAndMonitoring metricsAndMonitoring;
   private Boolean canAnyMasterPublish = null;
   private AgentLaunchParameter agentLaunchParameter = null;
   private String clusterName = null;
@@ -188,30 +202,34 @@ public class AgentProviderService extends AbstractProviderService implements
   private boolean appStopInitiated;
 
   private final Map<String, ComponentInstanceState> componentStatuses =
-      new ConcurrentHashMap<String, ComponentInstanceState>();
-  private final Map<String, Map<String, String>> componentInstanceData =
-      new ConcurrentHashMap<String, Map<String, String>>();
-  private final Map<String, Map<String, List<ExportEntry>>> exportGroups =
+      newContainerStateMap();
+  private final ConcurrentMap<String, ContainerRecord> containerRecords =
+      newContainerStateMap();
+  private final ConcurrentMap<String, Map<String, List<ExportEntry>>> exportGroups =
       new ConcurrentHashMap<String, Map<String, List<ExportEntry>>>();
-  private final Map<String, Map<String, String>> allocatedPorts =
-      new ConcurrentHashMap<String, Map<String, String>>();
+  private final Map<String, String> sharedPorts =
+      new ConcurrentHashMap<String, String>();
   private final Map<String, Metainfo> packageMetainfo = 
       new ConcurrentHashMap<String, Metainfo>();
 
-  private final Map<String, ExportEntry> logFolderExports =
-      Collections.synchronizedMap(new LinkedHashMap<String, ExportEntry>(MAX_LOG_ENTRIES, 0.75f, false) {
-        protected boolean removeEldestEntry(Map.Entry eldest) {
-          return size() > MAX_LOG_ENTRIES;
-        }
-      });
-  private final Map<String, ExportEntry> workFolderExports =
-      Collections.synchronizedMap(new LinkedHashMap<String, ExportEntry>(MAX_LOG_ENTRIES, 0.75f, false) {
-        protected boolean removeEldestEntry(Map.Entry eldest) {
-          return size() > MAX_LOG_ENTRIES;
-        }
-      });
-  private final Map<String, Set<String>> containerExportsMap =
-      new HashMap<String, Set<String>>();
+  private final FolderExports logFolderExports = new FolderExports();
+  private final FolderExports workFolderExports = new FolderExports();
+  private final Map<String, CommandConfigurationTemplate> commandConfigTemplates =
+      new ConcurrentHashMap<String, CommandConfigurationTemplate>();
+
+  /**
+   * Incremented whenever a shared allocated port is set or removed;
+   * command configuration templates are only valid for one version.
+   */
+  private final AtomicLong sharedPortsVersion = new AtomicLong();
+
+  /**
+   * Values of the role host tokens, built at
+   * {@link #roleHostTokensVersion} of the app state
+   */
+  private Map<String, String> roleHostTokens;
+  private long roleHostTokensVersion;
+  private final Object roleHostTokensLock = new Object();
 
   private static class MetainfoHolder {
     Metainfo metaInfo;
@@ -224,6 +242,58 @@ public class AgentProviderService extends AbstractProviderService implements
     }
   }
 
+  /**
+   * The state held for a single container, other than its
+   * {@link ComponentInstanceState}, which is held by container label.
+   * All of it is released together when the container completes.
+   */
+  static class ContainerRecord {
+    /** Ports allocated by the agent in the container */
+    final Map<String, String> allocatedPorts =
+        new ConcurrentHashMap<String, String>();
+    /** Component instance data published for the container */
+    final Map<String, String> instanceData =
+        new ConcurrentHashMap<String, String>();
+    /** The "group:name" keys of the exports the container contributed to */
+    final Set<String> exports =
+        Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  }
+
+  /**
+   * The log or work folders of the most recent {@link #MAX_LOG_ENTRIES}
+   * containers. These are still published once their container has
+   * completed, so are kept apart from the container records.
+   */
+  private static class FolderExports {
+    private final ConcurrentMap<String, ExportEntry> entries =
+        newContainerStateMap();
+    private final Queue<String> order = new ConcurrentLinkedQueue<String>();
+
+    void put(String containerId, ExportEntry entry) {
+      if (entries.put(containerId, entry) == null) {
+        order.add(containerId);
+        // each new container evicts at most the eldest one
+        if (entries.size() > MAX_LOG_ENTRIES) {
+          String eldest = order.poll();
+          if (eldest != null) {
+            entries.remove(eldest);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a map for state held per container (or per container label).
+   * Every heartbeat and container completion goes through these maps,
+   * so they are striped to let many agents be handled in parallel.
+   * @param <V> value type
+   * @return an empty map
+   */
+  private static <V> ConcurrentMap<String, V> newContainerStateMap() {
+    return new ConcurrentHashMap<String, V>(128, 0.75f, CONTAINER_STATE_SHARDS);
+  }
+
   /**
    * Create an instance of AgentProviderService
    */
@@ -316,7 +386,14 @@ public class AgentProviderService extends AbstractProviderService implements
         metaInfoHolder = metaInfoMap.get(mapKey);
         if (metaInfoHolder == null) {
           readAndSetHeartbeatMonitoringInterval(instanceDefinition);
+          setDeltaHeartbeats(instanceDefinition.getAppConfOperations().
+              getGlobalOptions().getOptionBool(
+                  AgentKeys.HEARTBEAT_DELTA_ENABLED, false));
+          setCommandBatching(instanceDefinition.getAppConfOperations().
+              getGlobalOptions().getOptionBool(
+                  AgentKeys.COMMAND_BATCHING_ENABLED, false));
           initializeAgentDebugCommands(instanceDefinition);
+          initializeRegistrationPipeline(instanceDefinition);
 
           Metainfo metaInfo = getApplicationMetainfo(fileSystem, appDef, false);
           log.info("Master package metainfo: {}", metaInfo.toString());
@@ -347,9 +424,12 @@ public class AgentProviderService extends AbstractProviderService implements
           Map<String, DefaultConfig> defaultConfigs =
               initializeDefaultConfigs(fileSystem, appDef, metaInfo);
           metaInfoMap.put(mapKey, new MetainfoHolder(metaInfo, defaultConfigs));
-          monitor = new HeartbeatMonitor(this, getHeartbeatMonitorInterval(),
-              getHeartbeatLostInterval());
-          monitor.start();
+          if (monitor == null) {
+            monitor = new HeartbeatMonitor(this, getHeartbeatMonitorInterval(),
+                getHeartbeatLostInterval());
+            monitor.start();
+            registerMonitorMetrics();
+          }
 
           // build a map from component to metainfo
           String addonAppDefString = instanceDefinition.getAppConfOperations()
@@ -654,7 +734,7 @@ public class AgentProviderService extends AbstractProviderService implements
         pkgStatuses.toString());
     
     // initialize the component instance state
-    getComponentStatuses().put(label,
+    addComponentStatus(label,
                                new ComponentInstanceState(
                                    roleGroup,
                                    container.getId(),
@@ -961,9 +1041,9 @@ public class AgentProviderService extends AbstractProviderService implements
         String roleName = role.name;
         String roleGroup = role.group;
         String label = getContainerLabel(container, roleName, roleGroup);
-        log.info("Rebuilding in-memory: container {} in role {} in cluster {}",
-                 container.getId(), roleName, applicationId);
-        getComponentStatuses().put(label,
+        log.debug("Rebuilding in-memory: container {} in role {} in cluster {}",
+                  container.getId(), roleName, applicationId);
+        addComponentStatus(label,
             new ComponentInstanceState(roleGroup, container.getId(),
                                        applicationId));
       } else {
@@ -971,6 +1051,8 @@ public class AgentProviderService extends AbstractProviderService implements
                  container.getId(), applicationId);
       }
     }
+    log.info("Rebuilt in-memory state of {} containers in cluster {}",
+             liveContainers.size(), applicationId);
   }
 
   @Override
@@ -992,39 +1074,35 @@ public class AgentProviderService extends AbstractProviderService implements
     String label = registration.getLabel();
     String pkg = registration.getPkg();
     State agentState = registration.getActualState();
-    String appVersion = registration.getAppVersion();
 
     log.info("label: {} pkg: {}", label, pkg);
 
-    if (getComponentStatuses().containsKey(label)) {
-      response.setResponseStatus(RegistrationStatus.OK);
-      ComponentInstanceState componentStatus = getComponentStatuses().get(label);
-      componentStatus.heartbeat(System.currentTimeMillis());
-      updateComponentStatusWithAgentState(componentStatus, agentState);
-
+    ComponentInstanceState componentStatus = getComponentStatuses().get(label);
+    if (componentStatus != null) {
       String roleName = getRoleName(label);
       String roleGroup = getRoleGroup(label);
       String containerId = getContainerId(label);
 
+      if (!admitRegistration(registration, roleName, roleGroup, containerId)) {
+        response.setResponseStatus(RegistrationStatus.RETRY);
+        response.setBackoffInterval(registrations.getBackoffInterval());
+        response.setLog("Too many registrations in progress.");
+        log.info("Registration response: {}", response);
+        return response;
+      }
+
+      response.setResponseStatus(RegistrationStatus.OK);
+      componentStatus.heartbeat(System.currentTimeMillis());
+      componentStatus.resetHeartbeatBaseline();
+      componentStatus.clearPipelinedCommand();
+      response.setDeltaHeartbeat(deltaHeartbeats);
+      updateComponentStatusWithAgentState(componentStatus, agentState);
+
       if (SliderUtils.isSet(registration.getTags())) {
         tags.recordAssignedTag(roleName, containerId, registration.getTags());
       } else {
         response.setTags(tags.getTag(roleName, containerId));
       }
-
-      String hostFqdn = registration.getPublicHostname();
-      Map<String, String> ports = registration.getAllocatedPorts();
-      if (ports != null && !ports.isEmpty()) {
-        processAllocatedPorts(hostFqdn, roleName, roleGroup, containerId, ports);
-      }
-
-      Map<String, String> folders = registration.getLogFolders();
-      if (folders != null && !folders.isEmpty()) {
-        publishFolderPaths(folders, containerId, roleName, hostFqdn);
-      }
-
-      // Set app version if empty. It gets unset during upgrade - why?
-      checkAndSetContainerAppVersion(containerId, appVersion);
     } else {
       response.setResponseStatus(RegistrationStatus.FAILED);
       response.setLog("Label not recognized.");
@@ -1034,6 +1112,49 @@ public class AgentProviderService extends AbstractProviderService implements
     return response;
   }
 
+  /**
+   * Process the ports, folders and application version of a registration,
+   * either now or, if the registration pipeline is enabled, on one of its
+   * workers.
+   * @return false if the pipeline is full and the agent must retry later
+   */
+  private boolean admitRegistration(final Register registration,
+      final String roleName,
+      final String roleGroup,
+      final String containerId) {
+    AgentRegistrationPipeline pipeline = registrations;
+    Runnable work = new Runnable() {
+      @Override
+      public void run() {
+        processRegistration(registration, roleName, roleGroup, containerId);
+      }
+    };
+    if (pipeline == null) {
+      work.run();
+      return true;
+    }
+    return pipeline.submit(registration.getLabel(), work);
+  }
+
+  private void processRegistration(Register registration,
+      String roleName,
+      String roleGroup,
+      String containerId) {
+    String hostFqdn = registration.getPublicHostname();
+    Map<String, String> ports = registration.getAllocatedPorts();
+    if (ports != null && !ports.isEmpty()) {
+      processAllocatedPorts(hostFqdn, roleName, roleGroup, containerId, ports);
+    }
+
+    Map<String, String> folders = registration.getLogFolders();
+    if (folders != null && !folders.isEmpty()) {
+      publishFolderPaths(folders, containerId, roleName, hostFqdn);
+    }
+
+    // Set app version if empty. It gets unset during upgrade - why?
+    checkAndSetContainerAppVersion(containerId, registration.getAppVersion());
+  }
+
   // Checks if app version is empty. Sets it to the version as reported by the
   // container during registration phase.
   private void checkAndSetContainerAppVersion(String containerId,
@@ -1109,7 +1230,8 @@ public class AgentProviderService extends AbstractProviderService implements
       timeout = 600L;
     }
 
-    if (!getComponentStatuses().containsKey(label)) {
+    ComponentInstanceState componentStatus = getComponentStatuses().get(label);
+    if (componentStatus == null) {
       // container is completed but still heart-beating, send terminate signal
       log.info(
           "Sending terminate signal to completed container (still heartbeating): {}",
@@ -1164,7 +1286,6 @@ public class AgentProviderService extends AbstractProviderService implements
     }
 
     Boolean isMaster = isMaster(roleGroup);
-    ComponentInstanceState componentStatus = getComponentStatuses().get(label);
     componentStatus.heartbeat(System.currentTimeMillis());
     if (doUpgrade) {
       switch (componentStatus.getState()) {
@@ -1190,7 +1311,9 @@ public class AgentProviderService extends AbstractProviderService implements
       componentStatus.setStopInitiated(true);
     }
 
-    publishConfigAndExportGroups(heartBeat, componentStatus, roleGroup);
+    if (applyHeartbeatBaseline(heartBeat, componentStatus, response)) {
+      publishConfigAndExportGroups(heartBeat, componentStatus, roleGroup);
+    }
     CommandResult result = null;
     List<CommandReport> reports = heartBeat.getReports();
     if (SliderUtils.isNotEmpty(reports)) {
@@ -1216,7 +1339,12 @@ public class AgentProviderService extends AbstractProviderService implements
 
     if (id < waitForCount) {
       log.info("Waiting until heartbeat count {}. Current val: {}", waitForCount, id);
-      getComponentStatuses().put(label, componentStatus);
+      return response;
+    }
+
+    AgentRegistrationPipeline pipeline = registrations;
+    if (pipeline != null && pipeline.isPending(label)) {
+      log.info("Registration of {} still in progress; no commands issued", label);
       return response;
     }
 
@@ -1245,6 +1373,12 @@ public class AgentProviderService extends AbstractProviderService implements
                 installCmd, timeout, null);
           }
           componentStatus.commandIssued(command);
+          if (canPipelineStart(componentStatus, roleGroup, doUpgrade)) {
+            log.info("Pipelining start of {} on {}.", roleName, containerId);
+            addComponentStartCommand(roleName, roleGroup, containerId,
+                response, scriptPath, commands, timeout);
+            componentStatus.commandPipelined(Command.START);
+          }
         } else if (command == Command.INSTALL_ADDON) {
           String nextPkgToInstall = componentStatus.getNextPkgToInstall();
           // retrieve scriptPath or command of that package for the component
@@ -1278,35 +1412,8 @@ public class AgentProviderService extends AbstractProviderService implements
           boolean canExecute = commandOrder.canExecute(roleGroup, command, getComponentStatuses().values());
           if (canExecute) {
             log.info("Starting {} on {}.", roleName, containerId);
-            if (isDockerContainer(roleGroup) || isYarnDockerContainer(roleGroup)){
-              addStartDockerCommand(roleName, roleGroup, containerId,
-                  response, null, timeout, false);
-            } else if (scriptPath != null) {
-              addStartCommand(roleName,
-                              roleGroup,
-                              containerId,
-                              response,
-                              scriptPath,
-                              null,
-                              null,
-                              timeout,
-                              isMarkedAutoRestart(roleGroup));
-            } else {
-              ComponentCommand startCmd = null;
-              for (ComponentCommand compCmd : commands) {
-                if (compCmd.getName().equals("START")) {
-                  startCmd = compCmd;
-                }
-              }
-              ComponentCommand stopCmd = null;
-              for (ComponentCommand compCmd : commands) {
-                if (compCmd.getName().equals("STOP")) {
-                  stopCmd = compCmd;
-                }
-              }
-              addStartCommand(roleName, roleGroup, containerId, response, null,
-                  startCmd, stopCmd, timeout, false);
-            }
+            addComponentStartCommand(roleName, roleGroup, containerId,
+                response, scriptPath, commands, timeout);
             componentStatus.commandIssued(command);
           } else {
             log.info("Start of {} on {} delayed as dependencies have not started.", roleName, containerId);
@@ -1315,6 +1422,17 @@ public class AgentProviderService extends AbstractProviderService implements
           addUpgradeCommand(roleName, roleGroup, containerId, response,
               scriptPath, timeout);
           componentStatus.commandIssued(command, true);
+          if (commandBatching) {
+            // the container is stopped whether or not the upgrade succeeds
+            log.info("Pipelining stop of {} on {}.", roleName, containerId);
+            addStopCommand(roleName, roleGroup, containerId, response,
+                scriptPath, timeout, true);
+            List<ExecutionCommand> executionCommands =
+                response.getExecutionCommands();
+            executionCommands.get(executionCommands.size() - 1)
+                .getCommandParams().put(AgentKeys.RUN_AFTER_FAILURE, "true");
+            componentStatus.commandPipelined(Command.STOP);
+          }
         } else if (command == Command.STOP) {
           log.info("Stop command being sent to container with id {}",
               containerId);
@@ -1364,6 +1482,59 @@ public class AgentProviderService extends AbstractProviderService implements
     return response;
   }
 
+  /**
+   * Add the START command of a component, in whichever form it takes
+   */
+  private void addComponentStartCommand(String roleName, String roleGroup,
+      String containerId, HeartBeatResponse response, String scriptPath,
+      List<ComponentCommand> commands, long timeout) throws SliderException {
+    if (isDockerContainer(roleGroup) || isYarnDockerContainer(roleGroup)){
+      addStartDockerCommand(roleName, roleGroup, containerId,
+          response, null, timeout, false);
+    } else if (scriptPath != null) {
+      addStartCommand(roleName,
+                      roleGroup,
+                      containerId,
+                      response,
+                      scriptPath,
+                      null,
+                      null,
+                      timeout,
+                      isMarkedAutoRestart(roleGroup));
+    } else {
+      ComponentCommand startCmd = null;
+      for (ComponentCommand compCmd : commands) {
+        if (compCmd.getName().equals("START")) {
+          startCmd = compCmd;
+        }
+      }
+      ComponentCommand stopCmd = null;
+      for (ComponentCommand compCmd : commands) {
+        if (compCmd.getName().equals("STOP")) {
+          stopCmd = compCmd;
+        }
+      }
+      addStartCommand(roleName, roleGroup, containerId, response, null,
+          startCmd, stopCmd, timeout, false);
+    }
+  }
+
+  /**
+   * Can the START of a component be sent along with its INSTALL?
+   * Only if batching is enabled, the component has no add-on packages to
+   * install in between, and the components it depends on have started.
+   */
+  private boolean canPipelineStart(ComponentInstanceState componentStatus,
+      String roleGroup, boolean doUpgrade) {
+    return commandBatching
+           && !doUpgrade
+           && !appStopInitiated
+           && !componentStatus.hasAddonPackages()
+           && componentStatus.getTargetState() == State.STARTED
+           && commandOrder.canExecute(roleGroup, Command.START,
+               getComponentStatuses().values());
+  }
+
   private boolean isDockerContainer(String roleGroup) {
     String type = getApplicationComponent(roleGroup).getType();
     if (SliderUtils.isSet(type)) {
@@ -1399,7 +1570,10 @@ public class AgentProviderService extends AbstractProviderService implements
 
       // add the allocated ports to the global list as well as per container list
       // per container allocation will over-write each other in the global
-      this.getAllocatedPorts().put(portname, portNo);
+      String previous = this.getAllocatedPorts().put(portname, portNo);
+      if (!portNo.equals(previous)) {
+        sharedPortsVersion.incrementAndGet();
+      }
       this.getAllocatedPorts(containerId).put(portname, portNo);
       if (instance != null) {
         try {
@@ -1533,55 +1707,54 @@ public class AgentProviderService extends AbstractProviderService implements
     // component - so many of the data structures may not be initialized
     if (containerId != null) {
       String containerIdStr = containerId.toString();
-      if (getComponentInstanceData().containsKey(containerIdStr)) {
-        getComponentInstanceData().remove(containerIdStr);
-        log.info("Removing container specific data for {}", containerIdStr);
-        publishComponentInstanceData();
-      }
+      // the removal is atomic, so if completion is notified more than
+      // once the state is only released once
+      ContainerRecord record = containerRecords.remove(containerIdStr);
+      if (record != null) {
+        if (!record.instanceData.isEmpty()) {
+          log.info("Removing container specific data for {}", containerIdStr);
+          publishComponentInstanceData();
+        }
 
-      if (this.allocatedPorts.containsKey(containerIdStr)) {
-        Map<String, String> portsByContainerId = getAllocatedPorts(containerIdStr);
-        this.allocatedPorts.remove(containerIdStr);
         // free up the allocations from global as well
         // if multiple containers allocate global ports then last one
         // wins and similarly first one removes it - its not supported anyway
-        for(String portName : portsByContainerId.keySet()) {
-          getAllocatedPorts().remove(portName);
+        for(String portName : record.allocatedPorts.keySet()) {
+          if (getAllocatedPorts().remove(portName) != null) {
+            sharedPortsVersion.incrementAndGet();
+          }
         }
-
       }
 
       String componentName = null;
-      synchronized (this.componentStatuses) {
-        for (String label : getComponentStatuses().keySet()) {
-          if (label.startsWith(containerIdStr)) {
-            componentName = getRoleName(label);
-            log.info("Removing component status for label {}", label);
-            getComponentStatuses().remove(label);
-          }
+      // the iterator of the concurrent map tolerates concurrent removal
+      for (String label : getComponentStatuses().keySet()) {
+        if (label.startsWith(containerIdStr)) {
+          componentName = getRoleName(label);
+          log.info("Removing component status for label {}", label);
+          getComponentStatuses().remove(label);
         }
       }
 
       tags.releaseTag(componentName, containerIdStr);
 
-      synchronized (this.containerExportsMap) {
-        Set<String> containerExportSets = containerExportsMap.get(containerIdStr);
-        if (containerExportSets != null) {
-          for (String containerExportStr : containerExportSets) {
-            String[] parts = containerExportStr.split(":");
-            Map<String, List<ExportEntry>> exportGroup = getCurrentExports(parts[0]);
-            List<ExportEntry> exports = exportGroup.get(parts[1]);
-            List<ExportEntry> exportToRemove = new ArrayList<ExportEntry>();
-            for (ExportEntry export : exports) {
-              if (containerIdStr.equals(export.getContainerId())) {
-                exportToRemove.add(export);
-              }
+      if (record != null && !record.exports.isEmpty()) {
+        for (String containerExportStr : record.exports) {
+          String[] parts = containerExportStr.split(":");
+          Map<String, List<ExportEntry>> exportGroup = getCurrentExports(parts[0]);
+          List<ExportEntry> exports = exportGroup.get(parts[1]);
+          if (exports == null) {
+            continue;
+          }
+          List<ExportEntry> exportToRemove = new ArrayList<ExportEntry>();
+          for (ExportEntry export : exports) {
+            if (containerIdStr.equals(export.getContainerId())) {
+              exportToRemove.add(export);
             }
-            exports.removeAll(exportToRemove);
           }
-          log.info("Removing container exports for {}", containerIdStr);
-          containerExportsMap.remove(containerIdStr);
+          exports.removeAll(exportToRemove);
         }
+        log.info("Removing container exports for {}", containerIdStr);
       }
     }
   }
@@ -1632,12 +1805,12 @@ public class AgentProviderService extends AbstractProviderService implements
 
   @VisibleForTesting
   protected Map<String, ExportEntry> getLogFolderExports() {
-    return logFolderExports;
+    return Collections.unmodifiableMap(logFolderExports.entries);
   }
 
   @VisibleForTesting
   protected Map<String, ExportEntry> getWorkFolderExports() {
-    return workFolderExports;
+    return Collections.unmodifiableMap(workFolderExports.entries);
   }
 
   protected Metainfo getMetaInfo() {
@@ -1664,11 +1837,71 @@ public class AgentProviderService extends AbstractProviderService implements
     return componentStatuses;
   }
 
+  /**
+   * Add the state of a new container, and have its heartbeats monitored
+   * if the monitor is running; if not, the monitor picks it up on startup.
+   * @param label container label
+   * @param componentStatus state of the container
+   */
+  private void addComponentStatus(String label,
+      ComponentInstanceState componentStatus) {
+    getComponentStatuses().put(label, componentStatus);
+    HeartbeatMonitor heartbeatMonitor = monitor;
+    if (heartbeatMonitor != null) {
+      heartbeatMonitor.track(label, componentStatus);
+    }
+  }
+
+  /**
+   * Bind to the AM metrics, so that the heartbeat monitor's metrics
+   * can be published
+   * @param metricsAndMonitoring metrics
+   */
+  public synchronized void bindMetrics(MetricsAndMonitoring metricsAndMonitoring) {
+    this.metricsAndMonitoring = metricsAndMonitoring;
+    registerMonitorMetrics();
+  }
+
+  private synchronized void registerMonitorMetrics() {
+    if (metricsAndMonitoring != null && monitor != null) {
+      metricsAndMonitoring.addMetricSet(monitor);
+    }
+    if (metricsAndMonitoring != null && registrations != null) {
+      metricsAndMonitoring.addMetricSet(registrations);
+    }
+  }
+
+  /**
+   * Create the registration pipeline if the application asks for one
+   * @param instanceDefinition instance definition
+   */
+  private void initializeRegistrationPipeline(
+      AggregateConf instanceDefinition) {
+    MapOperations options =
+        instanceDefinition.getAppConfOperations().getGlobalOptions();
+    int threads = options.getOptionInt(AgentKeys.REGISTRATION_THREADS,
+        AgentKeys.DEFAULT_REGISTRATION_THREADS);
+    if (threads > 0 && registrations == null) {
+      setRegistrationPipeline(new AgentRegistrationPipeline(threads,
+          options.getOptionInt(AgentKeys.REGISTRATION_QUEUE_SIZE,
+              AgentKeys.DEFAULT_REGISTRATION_QUEUE_SIZE),
+          options.getOptionInt(AgentKeys.REGISTRATION_BACKOFF_INTERVAL,
+              AgentKeys.DEFAULT_REGISTRATION_BACKOFF_INTERVAL)));
+    }
+  }
+
+  @VisibleForTesting
+  protected void setRegistrationPipeline(
+      AgentRegistrationPipeline registrations) {
+    this.registrations = registrations;
+  }
+
   @VisibleForTesting
   protected Metainfo getApplicationMetainfo(SliderFileSystem fileSystem,
       String appDef, boolean addonPackage) throws IOException,
       BadConfigException {
-    return AgentUtils.getApplicationMetainfo(fileSystem, appDef, addonPackage);
+    return metainfoCache.getApplicationMetainfo(fileSystem, appDef,
+        addonPackage);
   }
 
   @VisibleForTesting
@@ -1687,6 +1920,16 @@ public class AgentProviderService extends AbstractProviderService implements
     this.heartbeatLostInterval = heartbeatLostInterval;
   }
 
+  @VisibleForTesting
+  protected void setDeltaHeartbeats(boolean deltaHeartbeats) {
+    this.deltaHeartbeats = deltaHeartbeats;
+  }
+
+  @VisibleForTesting
+  protected void setCommandBatching(boolean commandBatching) {
+    this.commandBatching = commandBatching;
+  }
+
   public void setInUpgradeMode(boolean inUpgradeMode) {
     this.isInUpgradeMode = inUpgradeMode;
   }
@@ -1717,7 +1960,8 @@ public class AgentProviderService extends AbstractProviderService implements
       for (ConfigFile configFile : metainfo.getApplication().getConfigFiles()) {
         DefaultConfig config = null;
         try {
-          config = AgentUtils.getDefaultConfig(fileSystem, appDef, configFile.getDictionaryName() + ".xml");
+          config = metainfoCache.getDefaultConfig(fileSystem, appDef,
+              configFile.getDictionaryName() + ".xml");
         } catch (IOException e) {
           log.warn("Default config file not found. Only the config as input during create will be applied for {}",
                    configFile.getDictionaryName());
@@ -1845,29 +2089,21 @@ public class AgentProviderService extends AbstractProviderService implements
       exportEntry.setTag(componentName);
       exportEntry.setUpdatedTime(now.toString());
       if (entry.getKey().equals("AGENT_LOG_ROOT")) {
-        synchronized (logFolderExports) {
-          getLogFolderExports().put(containerId, exportEntry);
-        }
+        logFolderExports.put(containerId, exportEntry);
       } else {
-        synchronized (workFolderExports) {
-          getWorkFolderExports().put(containerId, exportEntry);
-        }
+        workFolderExports.put(containerId, exportEntry);
       }
       log.info("Updating log and pwd folders for container {}", containerId);
     }
 
     PublishedExports exports = new PublishedExports(CONTAINER_LOGS_TAG);
     exports.setUpdated(now.getTime());
-    synchronized (logFolderExports) {
-      updateExportsFromList(exports, getLogFolderExports());
-    }
+    updateExportsFromList(exports, getLogFolderExports());
     getAmState().getPublishedExportsSet().put(CONTAINER_LOGS_TAG, exports);
 
     exports = new PublishedExports(CONTAINER_PWDS_TAG);
     exports.setUpdated(now.getTime());
-    synchronized (workFolderExports) {
-      updateExportsFromList(exports, getWorkFolderExports());
-    }
+    updateExportsFromList(exports, getWorkFolderExports());
     getAmState().getPublishedExportsSet().put(CONTAINER_PWDS_TAG, exports);
   }
 
@@ -1986,7 +2222,7 @@ public class AgentProviderService extends AbstractProviderService implements
                     entry.setValue(value);
                     entry.setUpdatedTime(new Date().toString());
                     // over-write, app exports are singletons
-                    map.put(export.getName(), new ArrayList(Arrays.asList(entry)));
+                    map.put(export.getName(), new CopyOnWriteArrayList(Arrays.asList(entry)));
                     log.info("Preparing to publish. Key {} and Value {}", export.getName(), value);
                   }
                 }
@@ -2004,20 +2240,79 @@ public class AgentProviderService extends AbstractProviderService implements
     }
   }
 
+  /**
+   * Complete a heartbeat against the baseline held for its container.
+   * In a delta heartbeat, configurations already acknowledged by the AM
+   * are replaced by their digest, and are restored here. If the heartbeat
+   * is out of sequence or refers to configurations the AM does not hold,
+   * the agent is told to send a full heartbeat next.
+   * Configurations received in full become the new baseline.
+   * Configurations restored from a baseline which has already been
+   * published need not be published again.
+   *
+   * @param heartBeat incoming heartbeat
+   * @param componentStatus state of the container
+   * @param response response to the heartbeat
+   * @return true if the configurations in the heartbeat are to be published
+   */
+  protected boolean applyHeartbeatBaseline(HeartBeat heartBeat,
+      ComponentInstanceState componentStatus, HeartBeatResponse response) {
+    long id = heartBeat.getResponseId();
+    boolean fullRequired = false;
+    boolean alreadyPublished =
+        Boolean.TRUE.equals(componentStatus.getConfigReported());
+    boolean publish = false;
+    if (heartBeat.isDelta() && !componentStatus.isHeartbeatInSequence(id)) {
+      log.info("Delta heartbeat {} from {} is out of sequence",
+          id, heartBeat.getHostname());
+      fullRequired = true;
+    }
+    List<ComponentStatus> statuses = heartBeat.getComponentStatus();
+    if (statuses != null) {
+      for (ComponentStatus status : statuses) {
+        String digest = status.getConfigsDigest();
+        if (digest == null) {
+          publish |= status.getConfigs() != null;
+          continue;
+        }
+        if (status.getConfigs() != null) {
+          publish |= !alreadyPublished ||
+                     componentStatus.getReportedConfigs(digest) == null;
+          componentStatus.recordReportedConfigs(digest, status.getConfigs());
+        } else {
+          Map<String, Map<String, String>> configs =
+              componentStatus.getReportedConfigs(digest);
+          if (configs != null) {
+            status.setConfigs(configs);
+            publish |= !alreadyPublished;
+          } else {
+            log.info("No configurations with digest {} held for {}",
+                digest, heartBeat.getHostname());
+            fullRequired = true;
+          }
+        }
+      }
+    }
+    componentStatus.setLastHeartbeatId(id);
+    response.setFullHeartbeatRequired(fullRequired);
+    return publish;
+  }
+
   private boolean canBeExported(String exportGroupName, String name, Set<String> appExports) {
     return appExports.contains(String.format("%s-%s", exportGroupName, name));
   }
 
   protected Map<String, List<ExportEntry>> getCurrentExports(String groupName) {
-    if (this.exportGroups.get(groupName) == null) {
-      synchronized (this.exportGroups) {
-        if (!this.exportGroups.containsKey(groupName)) {
-          this.exportGroups.put(groupName, new ConcurrentHashMap<String, List<ExportEntry>>());
-        }
+    Map<String, List<ExportEntry>> exports = this.exportGroups.get(groupName);
+    if (exports == null) {
+      exports = new ConcurrentHashMap<String, List<ExportEntry>>();
+      Map<String, List<ExportEntry>> existing =
+          this.exportGroups.putIfAbsent(groupName, exports);
+      if (existing != null) {
+        exports = existing;
       }
     }
-
-    return this.exportGroups.get(groupName);
+    return exports;
   }
 
   private void publishModifiedExportGroups(Set<String> modifiedGroups) {
@@ -2085,14 +2380,7 @@ public class AgentProviderService extends AbstractProviderService implements
     }
 
     if (toPublish.size() > 0) {
-      Map<String, String> perContainerData = null;
-      if (!getComponentInstanceData().containsKey(containerId)) {
-        perContainerData = new ConcurrentHashMap<String, String>();
-      } else {
-        perContainerData = getComponentInstanceData().get(containerId);
-      }
-      perContainerData.putAll(toPublish);
-      getComponentInstanceData().put(containerId, perContainerData);
+      getComponentInstanceData(containerId).putAll(toPublish);
       publishComponentInstanceData();
     }
   }
@@ -2173,13 +2461,8 @@ public class AgentProviderService extends AbstractProviderService implements
                   log.info("Publishing {} for name {} and container {}",
                            templateToExport, export.getName(), containerId);
                   modifiedGroups.add(exportGroupName);
-                  synchronized (containerExportsMap) {
-                    if (!containerExportsMap.containsKey(containerId)) {
-                      containerExportsMap.put(containerId, new HashSet<String>());
-                    }
-                    Set<String> containerExportMaps = containerExportsMap.get(containerId);
-                    containerExportMaps.add(String.format("%s:%s", exportGroupName, export.getName()));
-                  }
+                  getContainerRecord(containerId).exports.add(
+                      String.format("%s:%s", exportGroupName, export.getName()));
                 }
               }
             }
@@ -2192,10 +2475,12 @@ public class AgentProviderService extends AbstractProviderService implements
 
   private void publishComponentInstanceData() {
     Map<String, String> dataToPublish = new HashMap<String, String>();
-    for (String container : getComponentInstanceData().keySet()) {
-      for (String prop : getComponentInstanceData().get(container).keySet()) {
-        dataToPublish.put(
-            container + "." + prop, getComponentInstanceData().get(container).get(prop));
+    for (Map.Entry<String, ContainerRecord> container :
+        containerRecords.entrySet()) {
+      for (Map.Entry<String, String> prop :
+          container.getValue().instanceData.entrySet()) {
+        dataToPublish.put(container.getKey() + "." + prop.getKey(),
+            prop.getValue());
       }
     }
     publishApplicationInstanceData(COMPONENT_DATA_TAG, COMPONENT_DATA_TAG, dataToPublish.entrySet());
@@ -3096,102 +3381,170 @@ public class AgentProviderService extends AbstractProviderService implements
   }
 
   protected Map<String, String> getAllocatedPorts() {
-    return getAllocatedPorts(SHARED_PORT_TAG);
+    return this.sharedPorts;
   }
 
-  protected Map<String, Map<String, String>> getComponentInstanceData() {
-    return this.componentInstanceData;
+  protected Map<String, String> getComponentInstanceData(String containerId) {
+    return getContainerRecord(containerId).instanceData;
   }
 
   protected Map<String, String> getAllocatedPorts(String containerId) {
-    if (this.allocatedPorts.get(containerId) == null) {
-      synchronized (this.allocatedPorts) {
-        if (!this.allocatedPorts.containsKey(containerId)) {
-          this.allocatedPorts.put(containerId,
-                                  new ConcurrentHashMap<String, String>());
-        }
+    return getContainerRecord(containerId).allocatedPorts;
+  }
+
+  /**
+   * Get the record of a container, creating it if needed
+   * @param containerId container ID
+   * @return the record of the container
+   */
+  protected ContainerRecord getContainerRecord(String containerId) {
+    ContainerRecord record = containerRecords.get(containerId);
+    if (record == null) {
+      record = new ContainerRecord();
+      ContainerRecord existing =
+          containerRecords.putIfAbsent(containerId, record);
+      if (existing != null) {
+        record = existing;
       }
     }
-    return this.allocatedPorts.get(containerId);
+    return record;
+  }
+
+  @VisibleForTesting
+  protected boolean hasContainerRecord(String containerId) {
+    return containerRecords.containsKey(containerId);
   }
 
+  /**
+   * Build the configurations of a command for a container.
+   * The configurations are resolved once per role into a
+   * {@link CommandConfigurationTemplate}, which is rebuilt when the
+   * app configuration or the shared allocated ports change, or a role
+   * without a host slot gets its first container; only the container
+   * specific values and the role hosts are filled in for each command.
+   */
   private Map<String, Map<String, String>> buildCommandConfigurations(
       ConfTreeOperations appConf, String containerId, String roleName, String roleGroup)
       throws SliderException {
 
-    Map<String, Map<String, String>> configurations =
-        new TreeMap<String, Map<String, String>>();
-    Map<String, String> tokens = getStandardTokenMap(appConf, roleName, roleGroup);
-    tokens.put("${CONTAINER_ID}", containerId);
+    Map<String, String> hosts = getRoleHostTokens();
+    long portsVersion = sharedPortsVersion.get();
+    String templateKey = roleGroup + LABEL_MAKER + roleName;
+    CommandConfigurationTemplate template = commandConfigTemplates.get(templateKey);
+    if (template == null
+        || !template.isValidFor(appConf.confTree, portsVersion, hosts.keySet())) {
+      log.debug("Building command configuration template for {}", roleName);
+      Map<String, String> tokens = getStandardTokenMap(appConf, roleName, roleGroup);
+      tokens.put("${CONTAINER_ID}", CommandConfigurationTemplate.CONTAINER_ID_SLOT);
+      for (String token : hosts.keySet()) {
+        tokens.put(token, CommandConfigurationTemplate.hostsSlot(token));
+      }
+      Map<String, String> sharedPorts =
+          new HashMap<String, String>(getAllocatedPorts());
+      template = buildCommandConfigurationTemplate(appConf, tokens, sharedPorts,
+          portsVersion, hosts.keySet(), roleName, roleGroup);
+      commandConfigTemplates.put(templateKey, template);
+    }
+    return template.instantiate(containerId,
+        tags.getTag(roleName, containerId),
+        template.hasPortSlots() ? getAllocatedPorts(containerId) : null,
+        hosts);
+  }
+
+  /**
+   * Get the values of the role host tokens, {@code ${ROLE_HOST}}, for
+   * all roles with live containers. They are only rebuilt when the
+   * containers of the application have changed since they were last built.
+   * @return an unmodifiable map of token to comma separated host list
+   */
+  protected Map<String, String> getRoleHostTokens() {
+    long version = getAmState().getStateVersion();
+    synchronized (roleHostTokensLock) {
+      if (roleHostTokens == null || roleHostTokensVersion != version) {
+        Map<String, String> tokens = new HashMap<String, String>();
+        addRoleRelatedTokens(tokens);
+        roleHostTokens = Collections.unmodifiableMap(tokens);
+        roleHostTokensVersion = version;
+      }
+      return roleHostTokens;
+    }
+  }
+
+  /**
+   * Discard all command configuration templates, so they are rebuilt
+   * on the next command
+   */
+  @VisibleForTesting
+  public void invalidateCommandConfigurationTemplates() {
+    commandConfigTemplates.clear();
+  }
 
+  private CommandConfigurationTemplate buildCommandConfigurationTemplate(
+      ConfTreeOperations appConf, Map<String, String> tokens,
+      Map<String, String> sharedPorts, long portsVersion,
+      Set<String> hostTokens, String roleName, String roleGroup)
+      throws SliderException {
     Set<String> configs = new HashSet<String>();
     configs.addAll(getApplicationConfigurationTypes(roleGroup));
     configs.addAll(getSystemConfigurationsRequested(appConf));
 
-    for (String configType : configs) {
-      addNamedConfiguration(configType, appConf.getGlobalOptions().options,
-                            configurations, tokens, containerId, roleName,
-                            roleGroup);
-      if (appConf.getComponent(roleGroup) != null) {
-        addNamedConfiguration(configType, appConf.getComponent(roleGroup).options,
-            configurations, tokens, containerId, roleName, roleGroup);
+    Map<String, Map<String, String>> configurations =
+        buildTemplateConfigurations(appConf, configs, tokens, sharedPorts,
+            roleGroup, false);
+    Map<String, Map<String, String>> portConfigurations = null;
+    if (!sharedPorts.isEmpty()) {
+      portConfigurations = buildTemplateConfigurations(appConf, configs,
+          tokens, sharedPorts, roleGroup, true);
+      if (portConfigurations.equals(configurations)) {
+        // no per-container ports
+        portConfigurations = null;
       }
     }
 
     //do a final replacement of re-used configs
     dereferenceAllConfigs(configurations);
-
-    return configurations;
+    if (portConfigurations != null) {
+      dereferenceAllConfigs(portConfigurations);
+    }
+    return new CommandConfigurationTemplate(appConf.confTree, portsVersion,
+        hostTokens, configurations, portConfigurations);
   }
 
-  protected void dereferenceAllConfigs(Map<String, Map<String, String>> configurations) {
-    Map<String, String> allConfigs = new HashMap<String, String>();
-    String lookupFormat = "${@//site/%s/%s}";
-    for (String configType : configurations.keySet()) {
-      Map<String, String> configBucket = configurations.get(configType);
-      for (String configName : configBucket.keySet()) {
-        allConfigs.put(String.format(lookupFormat, configType, configName), configBucket.get(configName));
-      }
-    }
-
-    boolean finished = false;
-    while (!finished) {
-      finished = true;
-      for (Map.Entry<String, String> entry : allConfigs.entrySet()) {
-        String configValue = entry.getValue();
-        for (Map.Entry<String, String> lookUpEntry : allConfigs.entrySet()) {
-          String lookUpValue = lookUpEntry.getValue();
-          if (lookUpValue.contains("${@//site/")) {
-            continue;
-          }
-          String lookUpKey = lookUpEntry.getKey();
-          if (configValue != null && configValue.contains(lookUpKey)) {
-            configValue = configValue.replace(lookUpKey, lookUpValue);
-          }
-        }
-        if (!configValue.equals(entry.getValue())) {
-          finished = false;
-          allConfigs.put(entry.getKey(), configValue);
-        }
+  private Map<String, Map<String, String>> buildTemplateConfigurations(
+      ConfTreeOperations appConf, Set<String> configs,
+      Map<String, String> tokens, Map<String, String> sharedPorts,
+      String roleGroup, boolean slotContainerPorts) {
+    Map<String, Map<String, String>> configurations =
+        new TreeMap<String, Map<String, String>>();
+    Map<String, String> noPorts = Collections.emptyMap();
+    for (String configType : configs) {
+      addNamedConfiguration(configType, appConf.getGlobalOptions().options,
+          configurations, tokens,
+          CommandConfigurationTemplate.CONTAINER_ID_SLOT,
+          CommandConfigurationTemplate.CONTAINER_TAG_SLOT,
+          roleGroup, sharedPorts, noPorts, slotContainerPorts);
+      if (appConf.getComponent(roleGroup) != null) {
+        addNamedConfiguration(configType, appConf.getComponent(roleGroup).options,
+            configurations, tokens,
+            CommandConfigurationTemplate.CONTAINER_ID_SLOT,
+            CommandConfigurationTemplate.CONTAINER_TAG_SLOT,
+            roleGroup, sharedPorts, noPorts, slotContainerPorts);
       }
     }
+    return configurations;
+  }
 
-    for (String configType : configurations.keySet()) {
-      Map<String, String> configBucket = configurations.get(configType);
-      for (Map.Entry<String, String> entry: configBucket.entrySet()) {
-        String configName = entry.getKey();
-        String configValue = entry.getValue();
-        for (Map.Entry<String, String> lookUpEntry : allConfigs.entrySet()) {
-          String lookUpValue = lookUpEntry.getValue();
-          if (lookUpValue.contains("${@//site/")) {
-            continue;
-          }
-          String lookUpKey = lookUpEntry.getKey();
-          if (configValue != null && configValue.contains(lookUpKey)) {
-            configValue = configValue.replace(lookUpKey, lookUpValue);
-          }
-        }
-        configBucket.put(configName, configValue);
+  /**
+   * Replace the {@code ${@//site/type/name}} references between
+   * the configurations. References which cannot be resolved, because
+   * they are unknown or form a cycle, are left in place.
+   * @param configurations configurations to update
+   */
+  protected void dereferenceAllConfigs(Map<String, Map<String, String>> configurations) {
+    TokenResolver resolver = TokenResolver.forSiteReferences(configurations);
+    for (Map<String, String> configBucket : configurations.values()) {
+      for (Map.Entry<String, String> entry : configBucket.entrySet()) {
+        entry.setValue(resolver.resolve(entry.getValue()));
       }
     }
   }
@@ -3285,28 +3638,67 @@ public class AgentProviderService extends AbstractProviderService implements
                                      Map<String, Map<String, String>> configurations,
                                      Map<String, String> tokens, String containerId,
                                      String roleName, String roleGroup) {
+    // add role hosts to tokens
+    tokens.putAll(getRoleHostTokens());
+    Map<String, String> containerPorts = null;
+    if (containerId != null) {
+      ContainerRecord record = containerRecords.get(containerId);
+      if (record != null) {
+        containerPorts = record.allocatedPorts;
+      }
+    }
+    if (containerPorts == null) {
+      containerPorts = Collections.emptyMap();
+    }
+    addNamedConfiguration(configName, sourceConfig, configurations, tokens,
+        containerId,
+        configName.equals(GLOBAL_CONFIG_TAG) ? tags.getTag(roleName, containerId) : null,
+        roleGroup, getAllocatedPorts(), containerPorts, false);
+  }
+
+  /**
+   * Add a named configuration
+   * @param configName configuration type
+   * @param sourceConfig options to propagate
+   * @param configurations map to add the configuration to
+   * @param tokens tokens to substitute
+   * @param containerId container ID, or its template slot
+   * @param containerTag container tag, or its template slot
+   * @param roleGroup role group
+   * @param sharedPorts ports shared between the containers
+   * @param containerPorts ports allocated in the container
+   * @param slotContainerPorts insert template slots for the per-container
+   * ports rather than the values in {@code containerPorts}
+   */
+  private void addNamedConfiguration(String configName, Map<String, String> sourceConfig,
+                                     Map<String, Map<String, String>> configurations,
+                                     Map<String, String> tokens, String containerId,
+                                     String containerTag, String roleGroup,
+                                     Map<String, String> sharedPorts,
+                                     Map<String, String> containerPorts,
+                                     boolean slotContainerPorts) {
     Map<String, String> config = new HashMap<String, String>();
     if (configName.equals(GLOBAL_CONFIG_TAG)) {
-      addDefaultGlobalConfig(config, containerId, roleName);
+      addDefaultGlobalConfig(config, containerId, containerTag);
     }
-    // add role hosts to tokens
-    addRoleRelatedTokens(tokens);
     providerUtils.propagateSiteOptions(sourceConfig, config, configName, tokens);
 
     //apply any port updates
-    if (!this.getAllocatedPorts().isEmpty()) {
+    if (!sharedPorts.isEmpty()) {
       for (String key : config.keySet()) {
         String value = config.get(key);
         String lookupKey = configName + "." + key;
         if (!value.contains(PER_CONTAINER_TAG)) {
           // If the config property is shared then pass on the already allocated value
           // from any container
-          if (this.getAllocatedPorts().containsKey(lookupKey)) {
-            config.put(key, getAllocatedPorts().get(lookupKey));
+          if (sharedPorts.containsKey(lookupKey)) {
+            config.put(key, sharedPorts.get(lookupKey));
           }
+        } else if (slotContainerPorts) {
+          config.put(key, CommandConfigurationTemplate.portSlot(lookupKey));
         } else {
-          if (this.getAllocatedPorts(containerId).containsKey(lookupKey)) {
-            config.put(key, getAllocatedPorts(containerId).get(lookupKey));
+          if (containerPorts.containsKey(lookupKey)) {
+            config.put(key, containerPorts.get(lookupKey));
           }
         }
       }
@@ -3347,14 +3739,15 @@ public class AgentProviderService extends AbstractProviderService implements
     return hosts;
   }
 
-  private void addDefaultGlobalConfig(Map<String, String> config, String containerId, String roleName) {
+  private void addDefaultGlobalConfig(Map<String, String> config, String containerId,
+                                      String containerTag) {
     config.put("app_log_dir", "${AGENT_LOG_ROOT}");
     config.put("app_pid_dir", "${AGENT_WORK_ROOT}/app/run");
     config.put("app_install_dir", "${AGENT_WORK_ROOT}/app/install");
     config.put("app_conf_dir", "${AGENT_WORK_ROOT}/" + AgentKeys.APP_CONF_DIR);
     config.put("app_input_conf_dir", "${AGENT_WORK_ROOT}/" + SliderKeys.PROPAGATED_CONF_DIR_NAME);
     config.put("app_container_id", containerId);
-    config.put("app_container_tag", tags.getTag(roleName, containerId));
+    config.put("app_container_tag", containerTag);
 
     // add optional parameters only if they are not already provided
     if (!config.containsKey("pid_file")) {
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.slider.providers.agent;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes the slow part of agent registrations &mdash; recording ports
+ * and folders, and updating the registry and published exports &mdash;
+ * on a bounded pool of worker threads, so that the web thread handling
+ * the registration can acknowledge it straight away.
+ * <p>
+ * Admission is bounded: once the configured number of registrations are
+ * queued or running, further agents are turned away with a backoff
+ * interval, rather than piling up on the AM after it restarts.
+ * <p>
+ * Until its registration has been processed, a container is
+ * {@link #isPending(String) pending} and no commands should be issued to it.
+ */
+public class AgentRegistrationPipeline implements MetricSet {
+  protected static final Logger log =
+      LoggerFactory.getLogger(AgentRegistrationPipeline.class);
+
+  private final ThreadPoolExecutor executor;
+  private final int capacity;
+  private final long backoffInterval;
+  private final Random random = new Random();
+  /** label to submission time (nanos) of the registrations in progress */
+  private final ConcurrentMap<String, Long> pending =
+      new ConcurrentHashMap<String, Long>();
+  private final Timer timeToRegistered = new Timer();
+  private final Counter rejected = new Counter();
+
+  /**
+   * Create the pipeline
+   * @param threads number of worker threads
+   * @param capacity maximum number of registrations queued or running
+   * @param backoffInterval base interval in milliseconds which rejected
+   * agents are asked to wait before trying again
+   */
+  public AgentRegistrationPipeline(int threads, int capacity,
+      long backoffInterval) {
+    this.capacity = capacity;
+    this.backoffInterval = backoffInterval;
+    executor = new ThreadPoolExecutor(threads, threads,
+        60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("agent-registration-%d")
+            .setDaemon(true)
+            .build());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Admit a registration and queue its processing.
+   * <p>
+   * A container which re-registers while an earlier registration is still
+   * pending is always admitted; its work is queued behind the earlier one.
+   * @param label label of the registering container
+   * @param work the processing of the registration
+   * @return true if the registration was admitted, false if the AM is
+   * overloaded and the agent should back off
+   */
+  public boolean submit(final String label, final Runnable work) {
+    final long submitted = System.nanoTime();
+    if (pending.putIfAbsent(label, submitted) != null) {
+      pending.put(label, submitted);
+    } else if (pending.size() > capacity) {
+      pending.remove(label, submitted);
+      rejected.inc();
+      log.info("Registration of {} rejected: {} registrations in progress",
+          label, pending.size());
+      return false;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          work.run();
+        } catch (RuntimeException e) {
+          log.warn("Failed to process registration of {}", label, e);
+        } finally {
+          // only the latest registration of a label clears it
+          if (pending.remove(label, submitted)) {
+            timeToRegistered.update(System.nanoTime() - submitted,
+                TimeUnit.NANOSECONDS);
+          }
+        }
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Is a registration of the container still being processed?
+   * @param label container label
+   * @return true if it is pending
+   */
+  public boolean isPending(String label) {
+    return pending.containsKey(label);
+  }
+
+  /**
+   * Number of registrations queued or running
+   * @return the count
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * The interval a rejected agent should wait before registering again:
+   * the base interval plus up to the same again of random jitter, so that
+   * a crowd of agents rejected together do not all come back together.
+   * @return the interval in milliseconds
+   */
+  public long getBackoffInterval() {
+    synchronized (random) {
+      return backoffInterval
+          + (long) (random.nextDouble() * backoffInterval);
+    }
+  }
+
+  /**
+   * Stop the workers; pending registrations are abandoned
+   */
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * The metrics of the pipeline: the number of registrations in progress,
+   * the time taken from admission to completion, and the count of
+   * registrations turned away.
+   * @return the metrics
+   */
+  @Override
+  public Map<String, Metric> getMetrics() {
+    Map<String, Metric> metrics = new HashMap<String, Metric>();
+    metrics.put(MetricsConstants.AGENT_REGISTRATIONS_PENDING,
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return getPendingCount();
+          }
+        });
+    metrics.put(MetricsConstants.AGENT_REGISTRATION_LATENCY,
+        timeToRegistered);
+    metrics.put(MetricsConstants.AGENT_REGISTRATIONS_REJECTED, rejected);
+    return metrics;
+  }
+}
@@ -119,8 +119,16 @@ public class AgentUtils {
     return null;
   }
 
-  static DefaultConfig getDefaultConfig(SliderFileSystem fileSystem,
-                                        String appDef, String configFileName)
+  /**
+   * Read a default config file from an application package
+   * @param fileSystem filesystem
+   * @param appDef path to the application package
+   * @param configFileName name of the file under the configuration directory
+   * @return the config, or null if the package does not contain the file
+   * @throws IOException failure to read the package or the file
+   */
+  static DefaultConfig readDefaultConfig(SliderFileSystem fileSystem,
+                                         String appDef, String configFileName)
       throws IOException {
     // this is the path inside the zip file
     String fileToRead = "configuration/" + configFileName;
@@ -129,7 +137,7 @@ public class AgentUtils {
         fileSystem.getFileSystem(), new Path(appDef), fileToRead);
     if (configStream == null) {
       log.error("{} is unavailable at {}.", fileToRead, appDef);
-      throw new IOException("Expected config file " + fileToRead + " is not available.");
+      return null;
     }
 
     return new DefaultConfigParser().parse(configStream);
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.providers.agent;
+
+import org.apache.slider.core.conf.ConfTree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The resolved command configurations of a role, with slots in place of
+ * the values which differ between containers: the container ID, the
+ * container tag and any per-container allocated ports. The role host
+ * tokens, {@code ${ROLE_HOST}}, are slots too, as their values change
+ * whenever a container starts or stops.
+ * <p>
+ * A template is valid for one app configuration snapshot and one version
+ * of the shared allocated ports, and only for the roles it has host slots
+ * for; when any of these change a new template must be built. As a new app
+ * configuration snapshot is created whenever the instance definition is
+ * updated, that is enough to invalidate the templates of an updated
+ * application.
+ * <p>
+ * Slots are plain strings, so they pass unchanged through token
+ * substitution and the dereferencing of {@code ${@//site/...}}
+ * references; filling them in afterwards gives the same result as
+ * resolving the configuration for each container.
+ */
+public class CommandConfigurationTemplate {
+
+  /**
+   * Marker character of all slots.
+   */
+  static final char SLOT_MARKER = '\u0001';
+
+  /**
+   * Slot for the container ID
+   */
+  public static final String CONTAINER_ID_SLOT = SLOT_MARKER + "CONTAINER_ID" + SLOT_MARKER;
+
+  /**
+   * Slot for the container tag
+   */
+  public static final String CONTAINER_TAG_SLOT = SLOT_MARKER + "CONTAINER_TAG" + SLOT_MARKER;
+
+  private final ConfTree appConf;
+  private final long sharedPortsVersion;
+
+  /**
+   * The role host tokens which have slots
+   */
+  private final Set<String> hostTokens;
+
+  /**
+   * Configurations for a container without any per-container ports
+   */
+  private final Map<String, Map<String, String>> configurations;
+  private final List<String[]> slots;
+
+  /**
+   * Configurations with port slots for all per-container port values;
+   * null if there are none.
+   */
+  private final Map<String, Map<String, String>> portConfigurations;
+  private final List<String[]> portSlots;
+
+  /**
+   * Values of the per-container port properties when the container has
+   * no port of that name, by {@code type.name}
+   */
+  private final Map<String, String> portFallbacks;
+
+  /**
+   * Create a template.
+   * @param appConf app configuration the template was built from
+   * @param sharedPortsVersion version of the shared allocated ports the
+   * template was built from
+   * @param hostTokens the role host tokens replaced by their
+   * {@link #hostsSlot(String)} when building the template
+   * @param configurations resolved configurations containing container
+   * slots but no port slots
+   * @param portConfigurations resolved configurations containing both
+   * container and port slots; null if there are no per-container ports.
+   */
+  public CommandConfigurationTemplate(ConfTree appConf,
+      long sharedPortsVersion,
+      Collection<String> hostTokens,
+      Map<String, Map<String, String>> configurations,
+      Map<String, Map<String, String>> portConfigurations) {
+    this.appConf = appConf;
+    this.sharedPortsVersion = sharedPortsVersion;
+    this.hostTokens = new HashSet<>(hostTokens);
+    this.configurations = configurations;
+    this.slots = findSlots(configurations);
+    this.portConfigurations = portConfigurations;
+    this.portFallbacks = new HashMap<>();
+    if (portConfigurations != null) {
+      this.portSlots = findSlots(portConfigurations);
+      for (String[] slot : portSlots) {
+        String lookupKey = slot[0] + "." + slot[1];
+        String value = portConfigurations.get(slot[0]).get(slot[1]);
+        if (value.equals(portSlot(lookupKey))) {
+          portFallbacks.put(lookupKey, configurations.get(slot[0]).get(slot[1]));
+        }
+      }
+    } else {
+      this.portSlots = Collections.emptyList();
+    }
+  }
+
+  /**
+   * Get the slot of a per-container allocated port
+   * @param lookupKey the port name, {@code type.name}
+   * @return the slot
+   */
+  public static String portSlot(String lookupKey) {
+    return SLOT_MARKER + "PORT:" + lookupKey + SLOT_MARKER;
+  }
+
+  /**
+   * Get the slot of a role host token
+   * @param token the token, {@code ${ROLE_HOST}}
+   * @return the slot
+   */
+  public static String hostsSlot(String token) {
+    return SLOT_MARKER + "HOSTS:" + token + SLOT_MARKER;
+  }
+
+  private static List<String[]> findSlots(
+      Map<String, Map<String, String>> configurations) {
+    List<String[]> found = new ArrayList<>();
+    for (Map.Entry<String, Map<String, String>> config : configurations.entrySet()) {
+      for (Map.Entry<String, String> entry : config.getValue().entrySet()) {
+        String value = entry.getValue();
+        if (value != null && value.indexOf(SLOT_MARKER) >= 0) {
+          found.add(new String[]{config.getKey(), entry.getKey()});
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Is this template valid for the current state of the application?
+   * @param appConf current app configuration
+   * @param sharedPortsVersion current version of the shared allocated ports
+   * @param hostTokens the role host tokens which currently have values
+   * @return true if the template can be used
+   */
+  public boolean isValidFor(ConfTree appConf,
+      long sharedPortsVersion,
+      Collection<String> hostTokens) {
+    return this.appConf == appConf
+           && this.sharedPortsVersion == sharedPortsVersion
+           && this.hostTokens.containsAll(hostTokens);
+  }
+
+  /**
+   * Does the template have any per-container ports to fill in?
+   * @return true if the per-container ports must be passed in to
+   * {@link #instantiate(String, String, Map, Map)}
+   */
+  public boolean hasPortSlots() {
+    return !portFallbacks.isEmpty();
+  }
+
+  /**
+   * Create the configurations of a container. The result is a new
+   * structure which may be modified by the caller.
+   * @param containerId container ID
+   * @param containerTag container tag
+   * @param containerPorts ports allocated in the container; may be null
+   * @param hosts current values of the role host tokens; a token without
+   * a value is left in place, as it is when resolving the configuration
+   * @return the configurations
+   */
+  public Map<String, Map<String, String>> instantiate(String containerId,
+      String containerTag,
+      Map<String, String> containerPorts,
+      Map<String, String> hosts) {
+    boolean usePorts = false;
+    if (containerPorts != null && hasPortSlots()) {
+      for (String lookupKey : portFallbacks.keySet()) {
+        if (containerPorts.containsKey(lookupKey)) {
+          usePorts = true;
+          break;
+        }
+      }
+    }
+    Map<String, Map<String, String>> source =
+        usePorts ? portConfigurations : configurations;
+    List<String[]> sourceSlots = usePorts ? portSlots : slots;
+
+    Map<String, Map<String, String>> result =
+        new TreeMap<String, Map<String, String>>();
+    for (Map.Entry<String, Map<String, String>> config : source.entrySet()) {
+      result.put(config.getKey(), new HashMap<>(config.getValue()));
+    }
+    for (String[] slot : sourceSlots) {
+      Map<String, String> config = result.get(slot[0]);
+      String value = config.get(slot[1]);
+      if (usePorts) {
+        for (Map.Entry<String, String> fallback : portFallbacks.entrySet()) {
+          String lookupKey = fallback.getKey();
+          String port = containerPorts.get(lookupKey);
+          value = value.replace(portSlot(lookupKey),
+              port != null ? port : fallback.getValue());
+        }
+      }
+      for (String token : hostTokens) {
+        String slot = hostsSlot(token);
+        if (value.contains(slot)) {
+          String roleHosts = hosts.get(token);
+          value = value.replace(slot, roleHosts != null ? roleHosts : token);
+        }
+      }
+      value = value.replace(CONTAINER_ID_SLOT, containerId)
+                   .replace(CONTAINER_TAG_SLOT, containerTag);
+      config.put(slot[1], value);
+    }
+    return result;
+  }
+}
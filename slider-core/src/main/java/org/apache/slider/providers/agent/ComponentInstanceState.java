@@ -45,7 +45,8 @@ public class ComponentInstanceState {
   private State targetState = State.STARTED;
   private int failuresSeen = 0;
   private Boolean configReported = false;
-  private long lastHeartbeat = 0;
+  private volatile long lastHeartbeat = 0;
+  private volatile HeartbeatMonitor.Tracker heartbeatTracker;
   private String ip;
   private String hostname;
   private ContainerState containerState;
@@ -54,6 +55,13 @@ public class ComponentInstanceState {
   private String nextPkgToInstall;
 
   private boolean stopInitiated;
+  // command queued on the agent behind the one in progress
+  private Command pipelinedCommand;
+
+  // delta heartbeat baseline
+  private long lastHeartbeatId = -1;
+  private String reportedConfigsDigest;
+  private Map<String, Map<String, String>> reportedConfigs;
 
   public ComponentInstanceState(String componentName,
       ContainerId containerId,
@@ -110,8 +118,29 @@ public class ComponentInstanceState {
        containerState == ContainerState.INIT) {
       containerState = ContainerState.HEALTHY;
     }
+    HeartbeatMonitor.Tracker tracker = heartbeatTracker;
+    if (tracker != null) {
+      tracker.heartbeat(heartbeatTime);
+    }
     return containerState;
   }
+
+  HeartbeatMonitor.Tracker getHeartbeatTracker() {
+    return heartbeatTracker;
+  }
+
+  /**
+   * Set the tracker which the heartbeat monitor uses to reschedule
+   * this instance's deadline on every heartbeat
+   * @param heartbeatTracker tracker
+   * @return the previous tracker, or null
+   */
+  HeartbeatMonitor.Tracker setHeartbeatTracker(
+      HeartbeatMonitor.Tracker heartbeatTracker) {
+    HeartbeatMonitor.Tracker previous = this.heartbeatTracker;
+    this.heartbeatTracker = heartbeatTracker;
+    return previous;
+  }
   
 
   public ContainerId getContainerId() {
@@ -176,6 +205,15 @@ public class ComponentInstanceState {
         failuresSeen = 0;
       }
       state = state.getNextState(result);
+      if (pipelinedCommand != null && result != CommandResult.IN_PROGRESS) {
+        Command next = pipelinedCommand;
+        pipelinedCommand = null;
+        // the agent has moved on to the pipelined command if it was still
+        // the next one to run; otherwise it has discarded it
+        if (state.getSupportedCommand(false, stopInitiated) == next) {
+          state = state.getNextState(next);
+        }
+      }
     } catch (IllegalArgumentException e) {
       String message = String.format(INVALID_TRANSITION_ERROR,
                                      result.toString(),
@@ -258,6 +296,40 @@ public class ComponentInstanceState {
     this.targetState = targetState;
   }
 
+  /**
+   * Record that a command has been sent to the agent in the same response
+   * as the command just issued. The agent runs it as soon as that command
+   * finishes, so when its result is applied the state moves on as if
+   * the pipelined command had then been issued.
+   * @param command command queued behind the one in progress
+   */
+  public void commandPipelined(Command command) {
+    if (state.canIssueCommands() || pipelinedCommand != null) {
+      throw new IllegalStateException("Command " + command
+          + " cannot be pipelined in state " + state);
+    }
+    pipelinedCommand = command;
+  }
+
+  public Command getPipelinedCommand() {
+    return pipelinedCommand;
+  }
+
+  /**
+   * Forget any pipelined command, as the agent does when it re-registers
+   */
+  public void clearPipelinedCommand() {
+    pipelinedCommand = null;
+  }
+
+  /**
+   * Are there add-on packages to install on top of the master package?
+   * @return true if there are add-on packages
+   */
+  public boolean hasAddonPackages() {
+    return !pkgStatuses.isEmpty();
+  }
+
   public String getNextPkgToInstall() {
     return nextPkgToInstall;
   }
@@ -337,4 +409,55 @@ public class ComponentInstanceState {
   public void setHostname(String hostname) {
     this.hostname = hostname;
   }
+
+  /**
+   * Discard the delta heartbeat baseline, as happens when the agent
+   * (re)registers. Until a new heartbeat arrives, no delta heartbeat
+   * is in sequence.
+   */
+  public synchronized void resetHeartbeatBaseline() {
+    lastHeartbeatId = -1;
+    reportedConfigsDigest = null;
+    reportedConfigs = null;
+  }
+
+  /**
+   * Check that a heartbeat follows on from the last one seen. A repeat
+   * of the last heartbeat is also in sequence, as agents resend a heartbeat
+   * whose response they did not receive.
+   * @param heartbeatId the response ID of the incoming heartbeat
+   * @return true if the heartbeat is in sequence
+   */
+  public synchronized boolean isHeartbeatInSequence(long heartbeatId) {
+    return lastHeartbeatId >= 0 &&
+           (heartbeatId == lastHeartbeatId || heartbeatId == lastHeartbeatId + 1);
+  }
+
+  public synchronized void setLastHeartbeatId(long lastHeartbeatId) {
+    this.lastHeartbeatId = lastHeartbeatId;
+  }
+
+  /**
+   * Record the configurations reported by the agent, so that later
+   * delta heartbeats can refer to them by digest
+   * @param digest the agent's digest of the configurations
+   * @param configs the configurations
+   */
+  public synchronized void recordReportedConfigs(String digest,
+      Map<String, Map<String, String>> configs) {
+    this.reportedConfigsDigest = digest;
+    this.reportedConfigs = configs;
+  }
+
+  /**
+   * Look up the reported configurations by digest
+   * @param digest the agent's digest of the configurations
+   * @return the configurations, or null if those last recorded have a
+   * different digest
+   */
+  public synchronized Map<String, Map<String, String>> getReportedConfigs(
+      String digest) {
+    return digest != null && digest.equals(reportedConfigsDigest)
+           ? reportedConfigs : null;
+  }
 }
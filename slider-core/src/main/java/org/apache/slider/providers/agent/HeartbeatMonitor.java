@@ -17,25 +17,65 @@
  */
 package org.apache.slider.providers.agent;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 
 import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.slider.common.tools.SliderUtils;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.apache.slider.providers.agent.AgentKeys.DEFAULT_HEARTBEAT_LOST_INTERVAL;
 
-/** Monitors the container state and heartbeats. */
-public class HeartbeatMonitor implements Runnable {
+/**
+ * Monitors the container state and heartbeats.
+ * <p>
+ * Rather than scanning every container at each wakeup, every monitored
+ * container has a deadline in an ordered set, and each heartbeat moves
+ * that deadline on. The monitor thread only examines containers whose
+ * deadline has passed, and sleeps until the next deadline is due; a
+ * deadline due before then wakes it early. The cost
+ * of a check is proportional to the number of containers which have missed
+ * their heartbeats, and they are detected as soon as their deadline passes
+ * rather than at the next wakeup.
+ */
+public class HeartbeatMonitor implements Runnable, MetricSet {
   protected static final Logger log =
       LoggerFactory.getLogger(HeartbeatMonitor.class);
   private final int threadWakeupInterval; //1 minute
   private final int heartbeatLostInterval; //2 hours
   private final AgentProviderService provider;
   private volatile boolean shouldRun = true;
-  private Thread monitorThread = null;
+  private volatile Thread monitorThread = null;
+
+  /**
+   * Time the monitor thread is sleeping until; Long.MIN_VALUE while awake,
+   * as it then reads the next deadline before sleeping again
+   */
+  private volatile long wakeupTime = Long.MIN_VALUE;
+
+  private final ConcurrentSkipListSet<Deadline> deadlines =
+      new ConcurrentSkipListSet<Deadline>();
+  private final AtomicLong sequencer = new AtomicLong();
+  private volatile boolean existingContainersTracked = false;
+
+  private final Timer detectionLatency = new Timer();
+  private final Counter unhealthyContainers = new Counter();
+  private final Counter lostContainers = new Counter();
 
   public HeartbeatMonitor(AgentProviderService provider, int threadWakeupInterval) {
     this(provider, threadWakeupInterval, DEFAULT_HEARTBEAT_LOST_INTERVAL);
@@ -50,11 +90,16 @@ public class HeartbeatMonitor implements Runnable {
 
   public void shutdown() {
     shouldRun = false;
+    if (monitorThread != null) {
+      monitorThread.interrupt();
+    }
   }
 
   public void start() {
     log.info("Starting heartbeat monitor with interval {}", threadWakeupInterval);
-    monitorThread = new Thread(this);
+    trackExistingContainers();
+    monitorThread = new Thread(this, "HeartbeatMonitor");
+    monitorThread.setDaemon(true);
     monitorThread.start();
   }
 
@@ -72,12 +117,27 @@ public class HeartbeatMonitor implements Runnable {
   public void run() {
     while (shouldRun) {
       try {
-        log.debug("Putting monitor to sleep for " + threadWakeupInterval + " " +
-                  "milliseconds");
-        Thread.sleep(threadWakeupInterval);
+        long now = System.currentTimeMillis();
+        long delay = Math.min(threadWakeupInterval, timeToNextDeadline(now));
+        if (delay > 0) {
+          wakeupTime = now + delay;
+          // a deadline added before the wakeup time was set did not wake
+          // this thread, so the next deadline is read again
+          delay = Math.min(delay, timeToNextDeadline(now));
+          if (delay > 0) {
+            log.debug("Putting monitor to sleep for {} milliseconds", delay);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(delay));
+          }
+          wakeupTime = Long.MIN_VALUE;
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+        }
         doWork(System.currentTimeMillis());
       } catch (InterruptedException ex) {
-        log.warn("Scheduler thread is interrupted going to stop", ex);
+        if (shouldRun) {
+          log.warn("Scheduler thread is interrupted going to stop", ex);
+        }
         shouldRun = false;
       } catch (Exception ex) {
         log.warn("Exception received", ex);
@@ -88,51 +148,244 @@ public class HeartbeatMonitor implements Runnable {
   }
 
   /**
-   * Every interval the current state of the container are checked. If the state is INIT or HEALTHY and no HB are
-   * received in last check interval they are marked as UNHEALTHY. INIT is when the agent is started but it did not
-   * communicate at all. HEALTHY being the AM has received heartbeats. After an interval as UNHEALTHY the container is
-   * declared unavailable
+   * Start monitoring a container. Its first deadline is derived from
+   * the last heartbeat recorded; from then on, every heartbeat of the
+   * component instance reschedules it.
+   * @param containerLabel label of the container
+   * @param componentInstanceState state of the container
+   */
+  public void track(String containerLabel,
+      ComponentInstanceState componentInstanceState) {
+    Tracker tracker = new Tracker(containerLabel, componentInstanceState);
+    Tracker previous = componentInstanceState.setHeartbeatTracker(tracker);
+    if (previous != null) {
+      previous.cancel();
+    }
+    tracker.heartbeat(componentInstanceState.getLastHeartbeat());
+  }
+
+  /**
+   * Track all the containers already known to the provider, such as those
+   * rebuilt after an AM restart. This is only done once.
+   */
+  private void trackExistingContainers() {
+    if (existingContainersTracked) {
+      return;
+    }
+    existingContainersTracked = true;
+    Map<String, ComponentInstanceState> componentStatuses =
+        provider.getComponentStatuses();
+    if (componentStatuses != null) {
+      for (Map.Entry<String, ComponentInstanceState> entry :
+          componentStatuses.entrySet()) {
+        if (entry.getValue().getHeartbeatTracker() == null) {
+          track(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Check the containers whose deadline has passed. If the state is INIT or
+   * HEALTHY and no HB has been received within the wakeup interval they are
+   * marked as UNHEALTHY. INIT is when the agent is started but it did not
+   * communicate at all. HEALTHY being the AM has received heartbeats. Once
+   * no HB has been received within the heartbeat lost interval, an
+   * UNHEALTHY container is declared unavailable
    * @param now current time in milliseconds ... tests can set this explicitly
    */
   @VisibleForTesting
   public void doWork(long now) {
-    Map<String, ComponentInstanceState> componentStatuses = provider.getComponentStatuses();
-    if (componentStatuses != null) {
-      for (String containerLabel : componentStatuses.keySet()) {
-        ComponentInstanceState componentInstanceState = componentStatuses.get(containerLabel);
-        long timeSinceLastHeartbeat = now - componentInstanceState.getLastHeartbeat();
-
-        if (timeSinceLastHeartbeat > threadWakeupInterval) {
-          switch (componentInstanceState.getContainerState()) {
-            case INIT:
-            case HEALTHY:
-              componentInstanceState.setContainerState(ContainerState.UNHEALTHY);
-              log.warn(
-                  "Component {} marked UNHEALTHY. Last heartbeat received at {} approx. {} ms. back.",
-                  componentInstanceState,
-                  componentInstanceState.getLastHeartbeat(),
-                  timeSinceLastHeartbeat);
-              break;
-            case UNHEALTHY:
-              if (timeSinceLastHeartbeat > heartbeatLostInterval) {
-                componentInstanceState.setContainerState(
-                    ContainerState.HEARTBEAT_LOST);
-                log.warn(
-                    "Component {} marked HEARTBEAT_LOST. Last heartbeat received at {} approx. {} ms. back.",
-                    componentInstanceState, componentInstanceState.getLastHeartbeat(),
-                    timeSinceLastHeartbeat);
-                ContainerId containerId =
-                    componentInstanceState.getContainerId();
-                provider.lostContainer(containerLabel, containerId);
-              }
-              break;
-            case HEARTBEAT_LOST:
-              // unexpected case
-              log.warn("Heartbeat from lost component: {}", componentInstanceState);
-              break;
-          }
-            
+    trackExistingContainers();
+    Deadline deadline;
+    while ((deadline = nextExpired(now)) != null) {
+      check(deadline, now);
+    }
+  }
+
+  /**
+   * Get the time until the next deadline is due
+   * @param now current time in milliseconds
+   * @return the time in milliseconds, or Long.MAX_VALUE if there is none
+   */
+  @VisibleForTesting
+  long timeToNextDeadline(long now) {
+    Deadline first = first();
+    return first != null ? first.time - now : Long.MAX_VALUE;
+  }
+
+  /**
+   * @return the number of containers with a pending deadline
+   */
+  public int getMonitoredContainerCount() {
+    return deadlines.size();
+  }
+
+  private Deadline first() {
+    Iterator<Deadline> iterator = deadlines.iterator();
+    return iterator.hasNext() ? iterator.next() : null;
+  }
+
+  /**
+   * Remove and return the earliest deadline, if it has passed
+   * @param now current time in milliseconds
+   * @return the deadline or null if none has passed
+   */
+  private Deadline nextExpired(long now) {
+    while (true) {
+      Deadline first = first();
+      if (first == null || first.time > now) {
+        return null;
+      }
+      if (deadlines.remove(first)) {
+        return first;
+      }
+    }
+  }
+
+  private void check(Deadline deadline, long now) {
+    Tracker tracker = deadline.tracker;
+    if (!tracker.current.compareAndSet(deadline, null)) {
+      // superseded by a heartbeat
+      return;
+    }
+    String containerLabel = tracker.containerLabel;
+    ComponentInstanceState componentInstanceState = tracker.state;
+    Map<String, ComponentInstanceState> componentStatuses =
+        provider.getComponentStatuses();
+    if (componentStatuses == null ||
+        componentStatuses.get(containerLabel) != componentInstanceState) {
+      // the container has completed or been released
+      return;
+    }
+    long lastHeartbeat = componentInstanceState.getLastHeartbeat();
+    long timeSinceLastHeartbeat = now - lastHeartbeat;
+    if (timeSinceLastHeartbeat <= threadWakeupInterval) {
+      // a heartbeat arrived while the deadline was being processed
+      tracker.heartbeat(lastHeartbeat);
+      return;
+    }
+    switch (componentInstanceState.getContainerState()) {
+      case INIT:
+      case HEALTHY:
+        componentInstanceState.setContainerState(ContainerState.UNHEALTHY);
+        log.warn(
+            "Component {} marked UNHEALTHY. Last heartbeat received at {} approx. {} ms. back.",
+            componentInstanceState,
+            componentInstanceState.getLastHeartbeat(),
+            timeSinceLastHeartbeat);
+        unhealthyContainers.inc();
+        detectionLatency.update(now - deadline.time, TimeUnit.MILLISECONDS);
+        tracker.schedule(lastHeartbeat + heartbeatLostInterval + 1);
+        break;
+      case UNHEALTHY:
+        if (timeSinceLastHeartbeat > heartbeatLostInterval) {
+          componentInstanceState.setContainerState(
+              ContainerState.HEARTBEAT_LOST);
+          log.warn(
+              "Component {} marked HEARTBEAT_LOST. Last heartbeat received at {} approx. {} ms. back.",
+              componentInstanceState, componentInstanceState.getLastHeartbeat(),
+              timeSinceLastHeartbeat);
+          lostContainers.inc();
+          detectionLatency.update(now - deadline.time, TimeUnit.MILLISECONDS);
+          ContainerId containerId =
+              componentInstanceState.getContainerId();
+          provider.lostContainer(containerLabel, containerId);
+        } else {
+          tracker.schedule(lastHeartbeat + heartbeatLostInterval + 1);
         }
+        break;
+      case HEARTBEAT_LOST:
+        // unexpected case
+        log.warn("Heartbeat from lost component: {}", componentInstanceState);
+        break;
+    }
+  }
+
+  /**
+   * The metrics of the monitor: the latency between a container's deadline
+   * passing and it being acted on, counts of containers marked unhealthy
+   * and lost, and the number of containers being monitored.
+   * @return the metrics
+   */
+  @Override
+  public Map<String, Metric> getMetrics() {
+    Map<String, Metric> metrics = new HashMap<String, Metric>();
+    metrics.put(MetricsConstants.AGENT_HEARTBEAT_DETECTION_LATENCY,
+        detectionLatency);
+    metrics.put(MetricsConstants.AGENT_CONTAINERS_UNHEALTHY,
+        unhealthyContainers);
+    metrics.put(MetricsConstants.AGENT_CONTAINERS_LOST, lostContainers);
+    metrics.put(MetricsConstants.AGENT_CONTAINERS_MONITORED,
+        new Gauge<Integer>() {
+          @Override
+          public Integer getValue() {
+            return getMonitoredContainerCount();
+          }
+        });
+    return metrics;
+  }
+
+  /**
+   * The deadline of a container: ordered by time, then by creation
+   */
+  private static final class Deadline implements Comparable<Deadline> {
+    final long time;
+    final long sequence;
+    final Tracker tracker;
+
+    Deadline(long time, long sequence, Tracker tracker) {
+      this.time = time;
+      this.sequence = sequence;
+      this.tracker = tracker;
+    }
+
+    @Override
+    public int compareTo(Deadline that) {
+      int result = SliderUtils.compareTo(time, that.time);
+      return result != 0 ? result : SliderUtils.compareTo(sequence, that.sequence);
+    }
+  }
+
+  /**
+   * Tracks the current deadline of a single container
+   */
+  final class Tracker {
+    final String containerLabel;
+    final ComponentInstanceState state;
+    final AtomicReference<Deadline> current = new AtomicReference<Deadline>();
+
+    Tracker(String containerLabel, ComponentInstanceState state) {
+      this.containerLabel = containerLabel;
+      this.state = state;
+    }
+
+    /**
+     * A heartbeat has been received; the container is next checked once
+     * the wakeup interval has passed without another.
+     * @param heartbeatTime time of the heartbeat
+     */
+    void heartbeat(long heartbeatTime) {
+      schedule(heartbeatTime + threadWakeupInterval + 1);
+    }
+
+    void schedule(long time) {
+      Deadline next = new Deadline(time, sequencer.incrementAndGet(), this);
+      deadlines.add(next);
+      Deadline previous = current.getAndSet(next);
+      if (previous != null) {
+        deadlines.remove(previous);
+      }
+      if (time < wakeupTime) {
+        // due before the monitor thread next wakes up
+        LockSupport.unpark(monitorThread);
+      }
+    }
+
+    void cancel() {
+      Deadline previous = current.getAndSet(null);
+      if (previous != null) {
+        deadlines.remove(previous);
       }
     }
   }
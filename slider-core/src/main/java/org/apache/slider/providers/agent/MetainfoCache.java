@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.slider.providers.agent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.slider.common.tools.SliderFileSystem;
+import org.apache.slider.core.exceptions.BadConfigException;
+import org.apache.slider.providers.agent.application.metadata.DefaultConfig;
+import org.apache.slider.providers.agent.application.metadata.Metainfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the parsed metainfo and default configurations of application
+ * packages, so that a package is unzipped and parsed once per version
+ * rather than once per role group which refers to it.
+ * <p>
+ * Entries are keyed by the package path and a version derived from the
+ * length and modification time of the package and of any metainfo
+ * summary file alongside it; replacing the package in the filesystem
+ * changes the version and so forces it to be read again.
+ * <p>
+ * Callers are given their own copy of any cached metainfo, as the
+ * provider renames the components of prefixed role groups in place.
+ * Default configurations are shared and must be treated as read-only.
+ * <p>
+ * If a cache directory is supplied, parsed metainfo is also saved there
+ * as JSON, which lets short-lived clients skip the package read on
+ * subsequent runs.
+ */
+public class MetainfoCache {
+  private static final Logger log =
+      LoggerFactory.getLogger(MetainfoCache.class);
+
+  private static final String METAINFO_XML = ".metainfo.xml";
+  private static final String METAINFO_JSON = ".metainfo.json";
+
+  /** Marker for config files known to be absent from a package */
+  private static final DefaultConfig MISSING = new DefaultConfig();
+
+  private final Gson gson = new Gson();
+  private final ConcurrentMap<String, Metainfo> metainfos =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, DefaultConfig> defaultConfigs =
+      new ConcurrentHashMap<>();
+  private final File cacheDir;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Create an in-memory cache
+   */
+  public MetainfoCache() {
+    this(null);
+  }
+
+  /**
+   * Create a cache
+   * @param cacheDir local directory to save parsed metainfo in;
+   * may be null
+   */
+  public MetainfoCache(File cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * Get the metainfo of a package, reading and parsing it only if this
+   * version of the package has not been seen before
+   * @param fileSystem filesystem
+   * @param appDef path to the application package
+   * @param addonPackage is this an add-on package
+   * @return a copy of the metainfo
+   * @throws IOException failure to read the package
+   * @throws BadConfigException the metainfo is invalid
+   */
+  public Metainfo getApplicationMetainfo(SliderFileSystem fileSystem,
+      String appDef, boolean addonPackage) throws IOException,
+      BadConfigException {
+    String key = versionKey(fileSystem, appDef) + "#" + addonPackage;
+    Metainfo metainfo = metainfos.get(key);
+    if (metainfo == null) {
+      metainfo = loadFromCacheDir(key);
+      if (metainfo == null) {
+        misses.incrementAndGet();
+        metainfo = AgentUtils.getApplicationMetainfo(fileSystem, appDef,
+            addonPackage);
+        saveToCacheDir(key, metainfo);
+      } else {
+        hits.incrementAndGet();
+      }
+      Metainfo existing = metainfos.putIfAbsent(key, metainfo);
+      if (existing != null) {
+        metainfo = existing;
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+    return copy(metainfo);
+  }
+
+  /**
+   * Get a default configuration from a package, reading and parsing it
+   * only if this version of the package has not been seen before
+   * @param fileSystem filesystem
+   * @param appDef path to the application package
+   * @param configFileName name of the file under the configuration directory
+   * @return the configuration; this is shared and must not be modified
+   * @throws IOException failure to read the package, or the file is absent
+   */
+  public DefaultConfig getDefaultConfig(SliderFileSystem fileSystem,
+      String appDef, String configFileName) throws IOException {
+    String key = versionKey(fileSystem, appDef) + "#" + configFileName;
+    DefaultConfig config = defaultConfigs.get(key);
+    if (config == null) {
+      misses.incrementAndGet();
+      // only a file absent from the package is remembered; a failure
+      // to read the package may be transient, so is not cached
+      config = readDefaultConfig(fileSystem, appDef, configFileName);
+      if (config == null) {
+        config = MISSING;
+      }
+      DefaultConfig existing = defaultConfigs.putIfAbsent(key, config);
+      if (existing != null) {
+        config = existing;
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+    if (config == MISSING) {
+      throw new IOException("Expected config file " + configFileName
+                            + " is not available in " + appDef);
+    }
+    return config;
+  }
+
+  /**
+   * Read a default configuration from a package
+   * @param fileSystem filesystem
+   * @param appDef path to the application package
+   * @param configFileName name of the file under the configuration directory
+   * @return the configuration, or null if the package does not contain it
+   * @throws IOException failure to read the package
+   */
+  @VisibleForTesting
+  DefaultConfig readDefaultConfig(SliderFileSystem fileSystem,
+      String appDef, String configFileName) throws IOException {
+    return AgentUtils.readDefaultConfig(fileSystem, appDef, configFileName);
+  }
+
+  /**
+   * Forget everything cached
+   */
+  public void clear() {
+    metainfos.clear();
+    defaultConfigs.clear();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Build the key identifying a version of a package: its qualified path
+   * followed by the length and modification time of the package and of
+   * each metainfo summary file which is present.
+   * @param fileSystem filesystem
+   * @param appDef path to the package
+   * @return the key
+   * @throws IOException failure to stat the package
+   */
+  @VisibleForTesting
+  String versionKey(SliderFileSystem fileSystem, String appDef)
+      throws IOException {
+    FileSystem fs = fileSystem.getFileSystem();
+    Path appPath = fs.makeQualified(new Path(appDef));
+    StringBuilder key = new StringBuilder(appPath.toString());
+    appendVersion(key, fs, appPath);
+    appendVersion(key, fs, new Path(appPath + METAINFO_XML));
+    appendVersion(key, fs, new Path(appPath + METAINFO_JSON));
+    return key.toString();
+  }
+
+  private static void appendVersion(StringBuilder key, FileSystem fs,
+      Path path) throws IOException {
+    key.append(';');
+    try {
+      FileStatus status = fs.getFileStatus(path);
+      key.append(status.getLen()).append(':')
+         .append(status.getModificationTime());
+    } catch (FileNotFoundException e) {
+      key.append('-');
+    }
+  }
+
+  private Metainfo copy(Metainfo metainfo) {
+    return gson.fromJson(gson.toJsonTree(metainfo), Metainfo.class);
+  }
+
+  private File cacheFile(String key) {
+    return new File(cacheDir,
+        Integer.toHexString(key.hashCode()) + "-" + key.length() + ".json");
+  }
+
+  private Metainfo loadFromCacheDir(String key) {
+    if (cacheDir == null) {
+      return null;
+    }
+    File file = cacheFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      String text = FileUtils.readFileToString(file, Charset.forName("UTF-8"));
+      // the first line holds the full key, to guard against hash collisions
+      int eol = text.indexOf('\n');
+      if (eol < 0 || !key.equals(text.substring(0, eol))) {
+        return null;
+      }
+      log.debug("Loaded metainfo for {} from {}", key, file);
+      return gson.fromJson(text.substring(eol + 1), Metainfo.class);
+    } catch (IOException | RuntimeException e) {
+      log.info("Ignoring unreadable cached metainfo {}: {}", file, e.toString());
+      return null;
+    }
+  }
+
+  private void saveToCacheDir(String key, Metainfo metainfo) {
+    if (cacheDir == null) {
+      return;
+    }
+    File file = cacheFile(key);
+    File tmp = new File(cacheDir, file.getName() + ".tmp");
+    try {
+      if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+        log.info("Unable to create metainfo cache directory {}", cacheDir);
+        return;
+      }
+      FileUtils.writeStringToFile(tmp, key + "\n" + gson.toJson(metainfo),
+          Charset.forName("UTF-8"));
+      if (!tmp.renameTo(file)) {
+        FileUtils.deleteQuietly(tmp);
+      }
+    } catch (IOException e) {
+      log.info("Unable to save metainfo to {}: {}", file, e.toString());
+      FileUtils.deleteQuietly(tmp);
+    }
+  }
+}
@@ -18,6 +18,9 @@
 
 package org.apache.slider.server.appmaster;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -25,6 +28,7 @@ import org.apache.hadoop.security.Credentials;
 import org.apache.hadoop.yarn.api.records.Container;
 import org.apache.hadoop.yarn.conf.YarnConfiguration;
 import org.apache.slider.common.SliderKeys;
+import org.apache.slider.common.SliderXmlConfKeys;
 import org.apache.slider.common.tools.SliderFileSystem;
 import org.apache.slider.core.conf.AggregateConf;
 import org.apache.slider.core.conf.MapOperations;
@@ -33,7 +37,11 @@ import org.apache.slider.providers.ProviderRole;
 import org.apache.slider.providers.ProviderService;
 import org.apache.slider.providers.agent.AgentKeys;
 import org.apache.slider.server.appmaster.actions.ActionStartContainer;
+import org.apache.slider.server.appmaster.actions.AsyncAction;
 import org.apache.slider.server.appmaster.actions.QueueAccess;
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.apache.slider.server.appmaster.state.AppState;
 import org.apache.slider.server.appmaster.state.ContainerAssignment;
 import org.apache.slider.server.appmaster.state.RoleInstance;
 import org.apache.slider.server.appmaster.state.RoleStatus;
@@ -42,13 +50,31 @@ import org.apache.slider.server.services.workflow.ServiceThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A service for launching containers
+ * A service for launching containers.
+ * <p>
+ * Launches are prepared by a bounded pool of threads, fed from a bounded
+ * queue. When the queue is full, the launch is retried after a short
+ * delay from the action queue: the submitting thread, usually the one
+ * handling the RM's allocation callback, is never blocked and never
+ * prepares a launch itself.
+ * <p>
+ * The number of launches in progress for any one NodeManager is also
+ * limited; further launches for that node are held back until one
+ * of the active ones completes.
  */
 public class RoleLaunchService
     extends WorkflowExecutorService<ExecutorService> {
@@ -57,6 +83,12 @@ public class RoleLaunchService
 
   public static final String ROLE_LAUNCH_SERVICE = "RoleLaunchService";
 
+  /**
+   * Delay in milliseconds before retrying a launch which could not be
+   * queued for the launcher threads
+   */
+  public static final int LAUNCH_RETRY_DELAY = 100;
+
 
   /**
    * Queue submission API
@@ -86,9 +118,47 @@ public class RoleLaunchService
 
   private Map<String, String> envVars;
 
+  /**
+   * Metrics; may be null
+   */
+  private final MetricsAndMonitoring metricsAndMonitoring;
+
+  /**
+   * Maximum number of launches in progress per NodeManager; 0 for no limit
+   */
+  private int maxLaunchesPerNode;
+
+  /**
+   * The executor, once created
+   */
+  private ThreadPoolExecutor launchPool;
+
+  /**
+   * Launches in progress and held back, by NodeManager.
+   * All access must be synchronized on the map.
+   */
+  private final Map<String, NodeLaunches> nodeLaunches = new HashMap<>();
+
+  /**
+   * Number of launches submitted and not yet completed
+   */
+  private final AtomicInteger activeLaunches = new AtomicInteger();
+
+  /**
+   * Number of launches held back by the per-node limit
+   */
+  private final AtomicInteger deferredLaunches = new AtomicInteger();
+
+  /**
+   * Launch latency timers by role
+   */
+  private final ConcurrentMap<String, Timer> launchLatency =
+      new ConcurrentHashMap<>();
+
   /**
    * Construct an instance of the launcher
    * @param queueAccess
+   * @param metricsAndMonitoring metrics to register with; may be null
    * @param provider the provider
    * @param fs filesystem
    * @param generatedConfDirPath path in the FS for the generated dir
@@ -96,6 +166,7 @@ public class RoleLaunchService
    * @param launcherTmpDirPath path for a temporary data in the launch process
    */
   public RoleLaunchService(QueueAccess queueAccess,
+      MetricsAndMonitoring metricsAndMonitoring,
       ProviderService provider,
       SliderFileSystem fs,
       Path generatedConfDirPath,
@@ -103,6 +174,7 @@ public class RoleLaunchService
       Path launcherTmpDirPath) {
     super(ROLE_LAUNCH_SERVICE);
     this.actionQueue = queueAccess;
+    this.metricsAndMonitoring = metricsAndMonitoring;
     this.fs = fs;
     this.generatedConfDirPath = generatedConfDirPath;
     this.launcherTmpDirPath = launcherTmpDirPath;
@@ -113,8 +185,104 @@ public class RoleLaunchService
   @Override
   public void init(Configuration conf) {
     super.init(conf);
-    setExecutor(Executors.newCachedThreadPool(
-        new ServiceThreadFactory(ROLE_LAUNCH_SERVICE, true)));
+    int threads = conf.getInt(SliderXmlConfKeys.KEY_AM_LAUNCHER_THREADS,
+        SliderXmlConfKeys.DEFAULT_AM_LAUNCHER_THREADS);
+    int queueSize = conf.getInt(SliderXmlConfKeys.KEY_AM_LAUNCHER_QUEUE_SIZE,
+        SliderXmlConfKeys.DEFAULT_AM_LAUNCHER_QUEUE_SIZE);
+    maxLaunchesPerNode = conf.getInt(
+        SliderXmlConfKeys.KEY_AM_LAUNCHER_MAX_PER_NODE,
+        SliderXmlConfKeys.DEFAULT_AM_LAUNCHER_MAX_PER_NODE);
+    Preconditions.checkArgument(threads > 0, "Invalid value of %s: %s",
+        SliderXmlConfKeys.KEY_AM_LAUNCHER_THREADS, threads);
+    Preconditions.checkArgument(queueSize > 0, "Invalid value of %s: %s",
+        SliderXmlConfKeys.KEY_AM_LAUNCHER_QUEUE_SIZE, queueSize);
+    log.info("Container launcher threads: {}; queue size: {};"
+             + " maximum launches per node: {}",
+        threads, queueSize, maxLaunchesPerNode);
+    launchPool = new ThreadPoolExecutor(threads, threads,
+        60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(queueSize),
+        new ServiceThreadFactory(ROLE_LAUNCH_SERVICE, true),
+        new RetryRejectedLaunch());
+    launchPool.allowCoreThreadTimeOut(true);
+    setExecutor(launchPool);
+    if (metricsAndMonitoring != null) {
+      registerMetrics(metricsAndMonitoring);
+    }
+  }
+
+  /**
+   * Register the launcher gauges
+   * @param metrics metrics to register with
+   */
+  private void registerMetrics(MetricsAndMonitoring metrics) {
+    metrics.register(RoleLaunchService.class, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return launchPool.getQueue().size();
+      }
+    }, "queue.depth");
+    metrics.register(RoleLaunchService.class, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return activeLaunches.get();
+      }
+    }, "active");
+    metrics.register(RoleLaunchService.class, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return deferredLaunches.get();
+      }
+    }, "deferred");
+  }
+
+  /**
+   * Get the number of launches submitted and not yet completed,
+   * including those held back by the per-node limit
+   * @return the number of active launches
+   */
+  public int getActiveLaunches() {
+    return activeLaunches.get();
+  }
+
+  /**
+   * Get the number of launches currently held back by the per-node limit
+   * @return the number of deferred launches
+   */
+  public int getDeferredLaunches() {
+    return deferredLaunches.get();
+  }
+
+  /**
+   * Get the maximum number of launches in progress per NodeManager
+   * @return the limit; 0 for none
+   */
+  public int getMaxLaunchesPerNode() {
+    return maxLaunchesPerNode;
+  }
+
+  /**
+   * Get the launch latency timer of a role, creating it on demand.
+   * The latency is measured from the submission of the launch to
+   * the container start being queued, so includes time spent waiting
+   * for a launcher thread.
+   * @param roleName role name
+   * @return the timer
+   */
+  public Timer getLaunchLatency(String roleName) {
+    Timer timer = launchLatency.get(roleName);
+    if (timer == null) {
+      String name = MetricsConstants.PREFIX_SLIDER_ROLES + roleName + "."
+                    + MetricsConstants.ROLE_LAUNCH_LATENCY;
+      timer = metricsAndMonitoring != null
+              ? metricsAndMonitoring.getMetrics().timer(name)
+              : new Timer();
+      Timer existing = launchLatency.putIfAbsent(roleName, timer);
+      if (existing != null) {
+        timer = existing;
+      }
+    }
+    return timer;
   }
 
   /**
@@ -137,7 +305,163 @@ public class RoleLaunchService
          clusterSpec.getResourceOperations().getOrAddComponent(roleGroup),
          clusterSpec.getAppConfOperations().getOrAddComponent(roleGroup),
          credentials);
-    execute(launcher);
+    submitLaunch(assignment.container.getNodeId().toString(), roleName,
+        launcher);
+  }
+
+  /**
+   * Submit a launch for a NodeManager. If the node is at its limit
+   * of launches in progress, the launch is held back until one
+   * of them completes.
+   * @param node the NodeManager
+   * @param roleName role, for the latency metrics
+   * @param launcher the launch operation
+   */
+  @VisibleForTesting
+  void submitLaunch(String node, String roleName, Runnable launcher) {
+    ThrottledLaunch launch = new ThrottledLaunch(node,
+        getLaunchLatency(roleName),
+        launcher);
+    activeLaunches.incrementAndGet();
+    synchronized (nodeLaunches) {
+      NodeLaunches launches = nodeLaunches.get(node);
+      if (launches == null) {
+        launches = new NodeLaunches();
+        nodeLaunches.put(node, launches);
+      }
+      if (maxLaunchesPerNode > 0 && launches.active >= maxLaunchesPerNode) {
+        log.debug("Deferring launch on {}: {} launches in progress",
+            node, launches.active);
+        launches.deferred.add(launch);
+        deferredLaunches.incrementAndGet();
+        return;
+      }
+      launches.active++;
+    }
+    execute(launch);
+  }
+
+  /**
+   * A launch on a node has completed; start the next one held back
+   * for that node, if there is one.
+   * @param node the NodeManager
+   */
+  private void launchCompleted(String node) {
+    activeLaunches.decrementAndGet();
+    ThrottledLaunch next = null;
+    synchronized (nodeLaunches) {
+      NodeLaunches launches = nodeLaunches.get(node);
+      if (launches == null) {
+        return;
+      }
+      next = launches.deferred.poll();
+      if (next == null) {
+        launches.active--;
+        if (launches.active <= 0) {
+          nodeLaunches.remove(node);
+        }
+      }
+    }
+    if (next != null) {
+      deferredLaunches.decrementAndGet();
+      execute(next);
+    }
+  }
+
+  /**
+   * A launch was rejected by the pool after it had been counted as in
+   * progress, as the pool has been shut down. Undo the counting, and
+   * discard any launches held back for the node as they can no
+   * longer be run.
+   * @param node the NodeManager
+   */
+  private void launchAbandoned(String node) {
+    activeLaunches.decrementAndGet();
+    synchronized (nodeLaunches) {
+      NodeLaunches launches = nodeLaunches.remove(node);
+      if (launches != null && !launches.deferred.isEmpty()) {
+        int discarded = launches.deferred.size();
+        log.warn("Discarding {} deferred launches on {}", discarded, node);
+        activeLaunches.addAndGet(-discarded);
+        deferredLaunches.addAndGet(-discarded);
+      }
+    }
+  }
+
+  /**
+   * Handle a launch the pool will not accept. If the pool has been shut
+   * down the launch is abandoned; if its queue is full, the launch
+   * is resubmitted from the action queue after a delay.
+   */
+  private class RetryRejectedLaunch implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+      ThrottledLaunch launch = (ThrottledLaunch) r;
+      if (executor.isShutdown() || actionQueue == null) {
+        log.warn("Container launcher is not accepting launches;"
+                 + " abandoning launch on {}", launch.node);
+        launchAbandoned(launch.node);
+      } else {
+        log.debug("Container launcher queue is full;"
+                  + " retrying launch on {}", launch.node);
+        actionQueue.schedule(new RetryLaunch(launch));
+      }
+    }
+  }
+
+  /**
+   * Action to resubmit a launch to the pool
+   */
+  private class RetryLaunch extends AsyncAction {
+    private final ThrottledLaunch launch;
+
+    RetryLaunch(ThrottledLaunch launch) {
+      super("retry launch on " + launch.node, LAUNCH_RETRY_DELAY,
+          TimeUnit.MILLISECONDS);
+      this.launch = launch;
+    }
+
+    @Override
+    public void execute(SliderAppMaster appMaster,
+        QueueAccess queueService,
+        AppState appState) throws Exception {
+      RoleLaunchService.this.execute(launch);
+    }
+  }
+
+  /**
+   * Launches in progress and held back for a single node
+   */
+  private static class NodeLaunches {
+    int active;
+    final Deque<ThrottledLaunch> deferred = new ArrayDeque<>();
+  }
+
+  /**
+   * Wrapper of a launch which records its latency and
+   * releases its node's slot on completion
+   */
+  private class ThrottledLaunch implements Runnable {
+    private final String node;
+    private final Timer latency;
+    private final Runnable launcher;
+    private final long submitted = System.nanoTime();
+
+    ThrottledLaunch(String node, Timer latency, Runnable launcher) {
+      this.node = node;
+      this.latency = latency;
+      this.launcher = launcher;
+    }
+
+    @Override
+    public void run() {
+      try {
+        launcher.run();
+      } finally {
+        latency.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+        launchCompleted(node);
+      }
+    }
   }
 
   /**
@@ -149,6 +149,7 @@ import org.apache.slider.server.appmaster.monkey.ChaosKillAM;
 import org.apache.slider.server.appmaster.monkey.ChaosKillContainer;
 import org.apache.slider.server.appmaster.monkey.ChaosMonkeyService;
 import org.apache.slider.server.appmaster.operations.AsyncRMOperationHandler;
+import org.apache.slider.server.appmaster.operations.CoalescingRMOperationHandler;
 import org.apache.slider.server.appmaster.operations.ProviderNotifyingOperationHandler;
 import org.apache.slider.server.appmaster.rpc.RpcBinder;
 import org.apache.slider.server.appmaster.rpc.SliderAMPolicyProvider;
@@ -199,8 +200,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
@@ -258,7 +262,7 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
   private AMRMClientAsync asyncRMClient;
 
   @SuppressWarnings("FieldAccessedSynchronizedAndUnsynchronized")
-  private RMOperationHandler rmOperationHandler;
+  private CoalescingRMOperationHandler rmOperationHandler;
   
   private RMOperationHandler providerRMOperationHandler;
 
@@ -397,6 +401,12 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
    */
   private WorkflowExecutorService<ExecutorService> executorService;
 
+  /**
+   * Executor for background refreshes of the REST content cache.
+   * Assigned in {@link #serviceInit(Configuration)}
+   */
+  private WorkflowExecutorService<ExecutorService> contentCacheRefresher;
+
   /**
    * Action queues. Created at instance creation, but
    * added as a child and inited in {@link #serviceInit(Configuration)}
@@ -500,7 +510,12 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
     metrics.registerAll(new GarbageCollectorMetricSet());
 
 */
-    contentCache = ApplicationResouceContentCacheFactory.createContentCache(stateForProviders);
+    contentCacheRefresher = new WorkflowExecutorService<>("ContentCacheRefresher",
+        ServiceThreadFactory.singleThreadExecutor("ContentCacheRefresher", true));
+    addService(contentCacheRefresher);
+    contentCache = ApplicationResouceContentCacheFactory.createContentCache(
+        stateForProviders, contentCacheRefresher.getExecutor());
+    metricsAndMonitoring.addMetricSet(contentCache);
 
     executorService = new WorkflowExecutorService<>("AmExecutor",
         Executors.newFixedThreadPool(2,
@@ -508,6 +523,7 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
     addService(executorService);
 
     addService(actionQueues);
+    actionQueues.register(metricsAndMonitoring);
 
     //init all child services
     super.serviceInit(conf);
@@ -713,6 +729,7 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
 
     Map<String, String> envVars;
     List<Container> liveContainers;
+    Future<?> providerRebuild;
 
     /*
      * It is critical this section is synchronized, to stop async AM events
@@ -831,7 +848,11 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
 
       // build the handler for RM request/release operations; this uses
       // the max value as part of its lookup
-      rmOperationHandler = new AsyncRMOperationHandler(asyncRMClient, maximumResourceCapability);
+      rmOperationHandler = new CoalescingRMOperationHandler(
+          new AsyncRMOperationHandler(asyncRMClient, maximumResourceCapability),
+          metricsAndMonitoring,
+          serviceConf.getBoolean(KEY_AM_RM_OPERATIONS_COALESCING,
+              DEFAULT_AM_RM_OPERATIONS_COALESCING));
 
       // set the RM-defined maximum cluster values
       appInformation.put(ResourceKeys.YARN_CORES, Integer.toString(maxCores));
@@ -920,7 +941,9 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
       binding.nodeReports = nodeReports;
       appState.buildInstance(binding);
 
-      providerService.rebuildContainerDetails(liveContainers,
+      // the provider rebuilds its view of the containers of any previous
+      // attempt while the rest of the AM is initialized
+      providerRebuild = rebuildProviderContainerDetails(liveContainers,
           instanceDefinition.getName(), appState.getRolePriorityMap());
 
       // add the AM to the list of nodes in the cluster
@@ -951,6 +974,7 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
 
     //launcher service
     launchService = new RoleLaunchService(actionQueues,
+                                          metricsAndMonitoring,
                                           providerService,
                                           fs,
                                           new Path(getGeneratedConfDir()),
@@ -962,9 +986,18 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
     appState.noteAMLaunched();
 
 
+    try {
+      providerRebuild.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+
     //Give the provider access to the state, and AM
     providerService.bind(stateForProviders, actionQueues, liveContainers);
     sliderAMProvider.bind(stateForProviders, actionQueues, liveContainers);
+    if (providerService instanceof AgentProviderService) {
+      ((AgentProviderService) providerService).bindMetrics(metricsAndMonitoring);
+    }
 
     // chaos monkey
     maybeStartMonkey();
@@ -989,6 +1022,8 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
     // declare the cluster initialized
     log.info("Application Master Initialization Completed");
     initCompleted.set(true);
+    long readyDuration = appState.noteAMReady();
+    log.info("Application Master ready {} mS after launch", readyDuration);
 
     scheduleFailureWindowResets(instanceDefinition.getResources());
     scheduleEscalation(instanceDefinition.getInternal());
@@ -1877,6 +1912,34 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
     reviewRequestAndReleaseNodes("flexCluster");
   }
 
+  /**
+   * Rebuild the provider's view of the containers of a previous attempt
+   * in its own thread.
+   * @param liveContainers containers of the previous attempt
+   * @param applicationId application name
+   * @param roles map of role priority to role
+   * @return a future to await the completion of the rebuild
+   */
+  private Future<?> rebuildProviderContainerDetails(
+      final List<Container> liveContainers,
+      final String applicationId,
+      final Map<Integer, ProviderRole> roles) {
+    ExecutorService executor =
+        ServiceThreadFactory.singleThreadExecutor("provider-rebuild", true);
+    try {
+      return executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          providerService.rebuildContainerDetails(liveContainers,
+              applicationId, roles);
+          return null;
+        }
+      });
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   /**
    * Schedule the failure window
    * @param resources the resource tree
@@ -2146,6 +2209,11 @@ public class SliderAppMaster extends AbstractSliderLaunchedService
    */
   @Override //AMRMClientAsync
   public float getProgress() {
+    // called on every heartbeat
+    CoalescingRMOperationHandler handler = rmOperationHandler;
+    if (handler != null) {
+      handler.onHeartbeat();
+    }
     return appState.getApplicationProgressPercentage();
   }
 
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.actions;
+
+/**
+ * A store of actions to be executed in the future. The
+ * {@link QueueService} moves actions from its scheduler to the
+ * immediate queue once they are due.
+ */
+public interface ActionScheduler {
+
+  /**
+   * Add an action; it will be returned by {@link #take()} once its
+   * delay has expired
+   * @param action action to schedule
+   */
+  void add(AsyncAction action);
+
+  /**
+   * Remove an action
+   * @param action action to remove
+   * @return true if the action was found and removed
+   */
+  boolean remove(AsyncAction action);
+
+  /**
+   * Take the next due action, blocking until there is one
+   * @return an action whose delay has expired
+   * @throws InterruptedException if interrupted while waiting
+   */
+  AsyncAction take() throws InterruptedException;
+
+  /**
+   * Get the number of scheduled actions
+   * @return the current size
+   */
+  int size();
+}
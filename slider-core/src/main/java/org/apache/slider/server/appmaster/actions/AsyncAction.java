@@ -124,6 +124,16 @@ public abstract class AsyncAction implements Delayed {
   public abstract void execute(SliderAppMaster appMaster,
       QueueAccess queueService, AppState appState) throws Exception;
 
+  /**
+   * Get the key under which queued instances of this action are coalesced.
+   * If an action is queued with the same key as one already in the
+   * immediate queue, the earlier one is superseded and will not be executed.
+   * @return the key, or null if the action must never be coalesced.
+   */
+  public String getCoalescingKey() {
+    return null;
+  }
+
   public long getNanos() {
     return nanos;
   }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.actions;
+
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Scheduler backed by a {@link DelayQueue}; insertion and removal
+ * are O(log n) and O(n) respectively.
+ */
+public class DelayQueueActionScheduler implements ActionScheduler {
+
+  private final DelayQueue<AsyncAction> queue;
+
+  public DelayQueueActionScheduler(DelayQueue<AsyncAction> queue) {
+    this.queue = queue;
+  }
+
+  @Override
+  public void add(AsyncAction action) {
+    queue.add(action);
+  }
+
+  @Override
+  public boolean remove(AsyncAction action) {
+    return queue.remove(action);
+  }
+
+  @Override
+  public AsyncAction take() throws InterruptedException {
+    return queue.take();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+}
@@ -25,6 +25,8 @@ import org.apache.slider.server.appmaster.state.AppState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -59,21 +61,27 @@ public class QueueExecutor implements Runnable {
   }
 
   /**
-   * Run until the queue has been told to stop
+   * Run until the queue has been told to stop.
+   * Actions are taken from the queue in batches, and executed in order.
    */
   @Override
   public void run() {
     AsyncAction take = null;
+    List<AsyncAction> batch = new ArrayList<>();
     try {
       log.info("Queue Executor run() started");
-      do {
-        take = actionQueues.actionQueue.take();
-        log.debug("Executing {}", take);
-        
-        take.execute(appMaster, actionQueues, appState);
-        log.debug("Completed {}", take);
-
-      } while (!(take instanceof ActionStopQueue));
+      boolean stopped = false;
+      while (!stopped) {
+        batch.clear();
+        actionQueues.takeBatch(batch);
+        for (AsyncAction action : batch) {
+          take = action;
+          log.debug("Executing {}", take);
+          take.execute(appMaster, actionQueues, appState);
+          log.debug("Completed {}", take);
+          stopped = take instanceof ActionStopQueue;
+        }
+      }
       log.info("Queue Executor run() stopped");
     } catch (InterruptedException e) {
       // interrupted: exit
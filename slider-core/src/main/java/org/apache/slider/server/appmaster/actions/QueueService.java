@@ -19,13 +19,23 @@
 package org.apache.slider.server.appmaster.actions;
 
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.slider.common.SliderXmlConfKeys;
+import org.apache.slider.core.exceptions.BadConfigException;
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
 import org.apache.slider.server.services.workflow.ServiceThreadFactory;
 import org.apache.slider.server.services.workflow.WorkflowExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
@@ -33,6 +43,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * The Queue service provides immediate and scheduled queues, as well
@@ -46,6 +57,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * which the queue would have to set from its (monotonic, thread-safe) counter
  * on every submission, with a modified comparison operator. This would guarantee
  * that earlier submissions were picked before later ones.
+ * <p>
+ * Actions which declare a {@link AsyncAction#getCoalescingKey()} are
+ * coalesced: queuing one supersedes any action with the same key still
+ * in the immediate queue, which is then skipped when dequeued.
+ * The number of queued actions with each attribute bit set is tracked,
+ * so {@link #hasQueuedActionWithAttribute(int)} does not scan the queue.
  */
 public class QueueService extends WorkflowExecutorService<ExecutorService>
 implements Runnable, QueueAccess {
@@ -61,10 +78,18 @@ implements Runnable, QueueAccess {
       new LinkedBlockingDeque<>();
 
   /**
-   * Actions to be scheduled in the future
+   * Actions to be scheduled in the future, when the default
+   * delay queue scheduler is in use
    */
   public final DelayQueue<AsyncAction> scheduledActions = new DelayQueue<>();
 
+  /**
+   * The scheduler of future actions; defaults to the {@link #scheduledActions}
+   * delay queue.
+   */
+  private ActionScheduler scheduler =
+      new DelayQueueActionScheduler(scheduledActions);
+
   /**
    * Map of renewing actions by name ... this is to allow them to 
    * be cancelled by name
@@ -72,6 +97,41 @@ implements Runnable, QueueAccess {
   private final Map<String, RenewingAction<? extends AsyncAction>> renewingActions
       = new ConcurrentHashMap<>();
 
+  /**
+   * Map of coalescing key to the most recently queued action with that key.
+   */
+  private final Map<String, AsyncAction> coalescedActions =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Actions still in the immediate queue which have been superseded;
+   * their attributes have already been released.
+   * Superseding and dequeuing are synchronized on this set, so that
+   * the attributes of an action are released exactly once.
+   */
+  private final Set<AsyncAction> supersededActions = new HashSet<>();
+
+  /**
+   * Count of actions in the immediate queue with each attribute bit set.
+   */
+  private final AtomicIntegerArray attributeCounts =
+      new AtomicIntegerArray(Integer.SIZE);
+
+  /**
+   * Number of actions superseded by a later one with the same key
+   */
+  private final Counter coalescedCount = new Counter();
+
+  /**
+   * Time from an action becoming due to it being dequeued for execution
+   */
+  private final Timer queueLatency = new Timer();
+
+  private boolean coalescingEnabled =
+      SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_COALESCING;
+
+  private int batchSize = SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_BATCH_SIZE;
+
   /**
    * Create a queue instance with a single thread executor
    */
@@ -80,22 +140,206 @@ implements Runnable, QueueAccess {
         ServiceThreadFactory.singleThreadExecutor(NAME, true));
   }
 
+  @Override
+  protected void serviceInit(Configuration conf) throws Exception {
+    super.serviceInit(conf);
+    coalescingEnabled = conf.getBoolean(
+        SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_COALESCING,
+        SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_COALESCING);
+    batchSize = Math.max(1, conf.getInt(
+        SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_BATCH_SIZE,
+        SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_BATCH_SIZE));
+    log.debug("Action queue coalescing={}, batch size={}",
+        coalescingEnabled, batchSize);
+    String schedulerName = conf.getTrimmed(
+        SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_SCHEDULER,
+        SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_DELAYQUEUE);
+    if (SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL
+        .equals(schedulerName)) {
+      long tick = conf.getLong(
+          SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_TIMINGWHEEL_TICK,
+          SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_TICK);
+      int wheelSize = conf.getInt(
+          SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_TIMINGWHEEL_SIZE,
+          SliderXmlConfKeys.DEFAULT_AM_ACTION_QUEUE_TIMINGWHEEL_SIZE);
+      log.info("Using timing wheel scheduler; tick={} mS, size={}",
+          tick, wheelSize);
+      scheduler = new TimingWheelActionScheduler(tick, TimeUnit.MILLISECONDS,
+          wheelSize);
+    } else if (!SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_DELAYQUEUE
+        .equals(schedulerName)) {
+      throw new BadConfigException("Unknown action scheduler %s=\"%s\"",
+          SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_SCHEDULER, schedulerName);
+    }
+  }
+
+  /**
+   * Get the scheduler of future actions
+   * @return the scheduler
+   */
+  public ActionScheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Register the queue metrics
+   * @param metrics metrics to register with
+   */
+  public void register(MetricsAndMonitoring metrics) {
+    metrics.register(QueueService.class, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return actionQueue.size();
+      }
+    }, "queue.depth");
+    metrics.register(QueueService.class, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return scheduler.size();
+      }
+    }, "scheduled.depth");
+    metrics.register(QueueService.class, coalescedCount, "coalesced");
+    metrics.register(QueueService.class, queueLatency, "queue.latency");
+  }
+
   @Override
   public void put(AsyncAction action) {
     log.debug("Queueing {}", action);
+    enqueue(action);
+  }
+
+  /**
+   * Add an action to the immediate queue, superseding any queued
+   * action with the same coalescing key and updating the attribute counts.
+   * @param action action to queue
+   */
+  private void enqueue(AsyncAction action) {
+    String key = coalescingEnabled ? action.getCoalescingKey() : null;
+    if (key != null) {
+      synchronized (supersededActions) {
+        AsyncAction superseded = coalescedActions.put(key, action);
+        if (superseded != null && superseded != action
+            && supersededActions.add(superseded)) {
+          log.debug("Coalescing {} into {}", superseded, action);
+          coalescedCount.inc();
+          noteAttributes(superseded, -1);
+        }
+      }
+    }
+    noteAttributes(action, 1);
     actionQueue.add(action);
   }
 
+  /**
+   * Update the per-attribute counts for an action entering
+   * or leaving the immediate queue. Counts never go below zero.
+   * @param action action
+   * @param delta +1 or -1
+   */
+  private void noteAttributes(AsyncAction action, int delta) {
+    int attrs = action.getAttrs();
+    for (int bit = 0; attrs != 0; bit++, attrs >>>= 1) {
+      if ((attrs & 1) != 0) {
+        if (delta > 0) {
+          attributeCounts.incrementAndGet(bit);
+        } else {
+          int current;
+          do {
+            current = attributeCounts.get(bit);
+          } while (current > 0
+                   && !attributeCounts.compareAndSet(bit, current, current - 1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Note that an action has left the immediate queue.
+   * @param action action removed
+   * @return true if the action is still live; false if it was
+   * superseded by a later action with the same coalescing key.
+   */
+  private boolean dequeued(AsyncAction action) {
+    String key = action.getCoalescingKey();
+    if (key != null) {
+      synchronized (supersededActions) {
+        if (supersededActions.remove(action)) {
+          // its attributes were released when it was superseded
+          return false;
+        }
+        // only unregister the key if it still maps to this action
+        coalescedActions.remove(key, action);
+      }
+    }
+    noteAttributes(action, -1);
+    return true;
+  }
+
+  /**
+   * Take the next batch of actions to execute from the immediate queue,
+   * blocking until there is at least one.
+   * <p>
+   * Superseded actions are dropped; the batch ends after any
+   * {@link ActionStopQueue} or {@link AsyncAction#ATTR_HALTS_APP} action,
+   * so that nothing queued after it is executed with it.
+   * <p>
+   * An action with attributes is only ever the first of a batch: if it
+   * were taken behind other actions, they would no longer see it through
+   * {@link #hasQueuedActionWithAttribute(int)}, although it is still to
+   * be executed after them.
+   * @param batch list to add the actions to
+   * @return the number of actions added
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public int takeBatch(List<AsyncAction> batch) throws InterruptedException {
+    int count = 0;
+    while (count == 0) {
+      // block for the first entry, then pick up anything else queued
+      AsyncAction next = actionQueue.take();
+      while (next != null) {
+        if (count > 0 && next.getAttrs() != 0) {
+          // leave it, still counted, at the head of the queue
+          actionQueue.addFirst(next);
+          break;
+        }
+        if (dequeued(next)) {
+          queueLatency.update(Math.max(0, System.nanoTime() - next.getNanos()),
+              TimeUnit.NANOSECONDS);
+          batch.add(next);
+          count++;
+          if (next instanceof ActionStopQueue
+              || (next.getAttrs() & AsyncAction.ATTR_HALTS_APP) != 0
+              || count >= batchSize) {
+            break;
+          }
+        }
+        next = actionQueue.poll();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Get the number of actions superseded by later ones
+   * @return a count
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.getCount();
+  }
+
   @Override
   public void schedule(AsyncAction action) {
     log.debug("Scheduling {}", action);
-    scheduledActions.add(action);
+    scheduler.add(action);
   }
 
   @Override
   public boolean remove(AsyncAction action) {
-    boolean removedFromDelayQueue = scheduledActions.remove(action);
+    boolean removedFromDelayQueue = scheduler.remove(action);
     boolean removedFromActions = actionQueue.remove(action);
+    if (removedFromActions) {
+      dequeued(action);
+    }
     return removedFromActions || removedFromDelayQueue;
   }
   
@@ -147,14 +391,15 @@ implements Runnable, QueueAccess {
       AsyncAction next = iterator.next();
       if (next.getClass().equals(clazz)) {
         iterator.remove();
+        dequeued(next);
       }
     }
   }
 
   @Override
   public boolean hasQueuedActionWithAttribute(int attr) {
-    for (AsyncAction action : actionQueue) {
-      if (action.hasAttr(attr)) {
+    for (int bit = 0; attr != 0; bit++, attr >>>= 1) {
+      if ((attr & 1) != 0 && attributeCounts.get(bit) > 0) {
         return true;
       }
     }
@@ -172,9 +417,9 @@ implements Runnable, QueueAccess {
 
       AsyncAction take;
       do {
-        take = scheduledActions.take();
+        take = scheduler.take();
         log.debug("Propagating {}", take);
-        actionQueue.put(take);
+        enqueue(take);
       } while (!(take instanceof ActionStopQueue));
       log.info("QueueService processor terminated");
     } catch (InterruptedException e) {
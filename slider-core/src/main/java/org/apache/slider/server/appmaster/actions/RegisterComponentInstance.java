@@ -56,4 +56,14 @@ public class RegisterComponentInstance extends AsyncAction {
 
     appMaster.registerComponent(containerId, description, type);
   }
+
+  /**
+   * Shares its key with {@link UnregisterComponentInstance}, so that
+   * only the most recent registry operation on a container is executed.
+   * @return a key derived from the container ID
+   */
+  @Override
+  public String getCoalescingKey() {
+    return UnregisterComponentInstance.coalescingKey(containerId);
+  }
 }
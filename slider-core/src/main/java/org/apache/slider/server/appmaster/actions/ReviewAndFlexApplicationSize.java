@@ -40,4 +40,13 @@ public class ReviewAndFlexApplicationSize extends AsyncAction {
       AppState appState) throws Exception {
     appMaster.handleReviewAndFlexApplicationSize(this);
   }
+
+  /**
+   * All pending reviews are equivalent: only the latest need be executed.
+   * @return the class name
+   */
+  @Override
+  public String getCoalescingKey() {
+    return ReviewAndFlexApplicationSize.class.getName();
+  }
 }
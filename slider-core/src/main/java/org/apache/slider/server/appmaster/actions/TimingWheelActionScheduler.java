@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.actions;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hashed timing wheel scheduler.
+ * <p>
+ * Time is divided into ticks; each action is placed in the wheel bucket
+ * of the tick at which it becomes due, recording how many full turns of
+ * the wheel remain before then. Insertion and cancellation are O(1);
+ * the thread calling {@link #take()} advances the wheel, examining only
+ * the entries in the buckets it passes.
+ * <p>
+ * The wheel does not tick while there is nothing to do: the taking thread
+ * sleeps until the next occupied bucket falls due, skipping empty buckets,
+ * and blocks without a timeout when the wheel is empty. Adding an action
+ * due before then wakes it.
+ * <p>
+ * Actions are released up to one tick after their due time: the tick
+ * length trades timing precision for wakeups. Actions which are already
+ * due when added are released immediately.
+ */
+public class TimingWheelActionScheduler implements ActionScheduler {
+
+  private final long tickNanos;
+  private final Slot[] wheel;
+  private final int mask;
+  private final long startNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition ready = lock.newCondition();
+
+  /** Actions which are due; guarded by the lock */
+  private final ArrayDeque<AsyncAction> expired = new ArrayDeque<>();
+
+  /** Map of action to its slot in the wheel; guarded by the lock */
+  private final Map<AsyncAction, Slot> slots = new HashMap<>();
+
+  /** The last tick processed; guarded by the lock */
+  private long currentTick;
+
+  /**
+   * The tick the taking thread is sleeping until;
+   * {@link Long#MAX_VALUE} if it is not sleeping on a deadline.
+   * Guarded by the lock
+   */
+  private long wakeTick = Long.MAX_VALUE;
+
+  /** Number of times the taking thread has woken up; guarded by the lock */
+  private long wakeups;
+
+  /**
+   * Create a scheduler
+   * @param tick duration of a tick
+   * @param unit time unit of the tick
+   * @param wheelSize number of buckets; rounded up to a power of two
+   */
+  public TimingWheelActionScheduler(long tick, TimeUnit unit, int wheelSize) {
+    Preconditions.checkArgument(tick > 0, "invalid tick: " + tick);
+    Preconditions.checkArgument(wheelSize > 0,
+        "invalid wheel size: " + wheelSize);
+    this.tickNanos = unit.toNanos(tick);
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+    wheel = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      // each bucket is a circular list with a sentinel head
+      wheel[i] = new Slot(null, 0);
+    }
+    mask = size - 1;
+    startNanos = System.nanoTime();
+  }
+
+  @Override
+  public void add(AsyncAction action) {
+    lock.lock();
+    try {
+      // re-adding an action reschedules it
+      removeInternal(action);
+      long deadlineTick = tickOf(action.getNanos());
+      if (deadlineTick <= currentTick) {
+        expired.add(action);
+        ready.signal();
+      } else {
+        Slot slot = new Slot(action, deadlineTick);
+        wheel[(int) (deadlineTick & mask)].append(slot);
+        slots.put(action, slot);
+        if (deadlineTick < wakeTick) {
+          // due before the taking thread would next wake up
+          wakeTick = deadlineTick;
+          ready.signal();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean remove(AsyncAction action) {
+    lock.lock();
+    try {
+      return removeInternal(action);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remove an action; lock must be held
+   * @param action action
+   * @return true if it was found
+   */
+  private boolean removeInternal(AsyncAction action) {
+    Slot slot = slots.remove(action);
+    if (slot != null) {
+      slot.unlink();
+      return true;
+    }
+    return expired.remove(action);
+  }
+
+  @Override
+  public AsyncAction take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (expired.isEmpty()) {
+        long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+        if (currentTick < nowTick) {
+          // catch up, jumping over empty buckets
+          currentTick = nextOccupiedTick(nowTick);
+          expireBucket(wheel[(int) (currentTick & mask)]);
+        } else if (slots.isEmpty()) {
+          // nothing scheduled: sleep until something is added
+          wakeTick = Long.MAX_VALUE;
+          ready.await();
+          wakeups++;
+        } else {
+          wakeTick = nextOccupiedTick(currentTick + wheel.length);
+          long wait = startNanos + wakeTick * tickNanos - System.nanoTime();
+          if (wait > 0) {
+            ready.awaitNanos(wait);
+            wakeups++;
+          }
+        }
+      }
+      wakeTick = Long.MAX_VALUE;
+      return expired.poll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of times the taking thread has woken up from a sleep
+   * @return the wakeup count
+   */
+  public long getWakeups() {
+    lock.lock();
+    try {
+      return wakeups;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return slots.size() + expired.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Move all entries in a bucket which are due in the current tick
+   * to the expired queue, in order of due time. Lock must be held.
+   * @param head bucket head
+   */
+  private void expireBucket(Slot head) {
+    List<AsyncAction> due = null;
+    Slot slot = head.next;
+    while (slot != head) {
+      Slot next = slot.next;
+      if (slot.deadlineTick <= currentTick) {
+        slot.unlink();
+        slots.remove(slot.action);
+        if (due == null) {
+          due = new ArrayList<>();
+        }
+        due.add(slot.action);
+      }
+      slot = next;
+    }
+    if (due != null) {
+      if (due.size() > 1) {
+        Collections.sort(due, new CompareByDueTime());
+      }
+      expired.addAll(due);
+    }
+  }
+
+  /**
+   * Find the first tick after the current one whose bucket holds any
+   * entries; entries there may still be some turns of the wheel away.
+   * Lock must be held.
+   * @param limit the last tick to consider
+   * @return the tick of the next occupied bucket, or the limit if
+   * there is none up to it or within one turn of the wheel
+   */
+  private long nextOccupiedTick(long limit) {
+    long last = Math.min(limit, currentTick + wheel.length);
+    for (long tick = currentTick + 1; tick < last; tick++) {
+      if (!wheel[(int) (tick & mask)].isEmpty()) {
+        return tick;
+      }
+    }
+    return last;
+  }
+
+  /**
+   * Get the tick in which a time falls, rounding up
+   * @param nanos time in nanos
+   * @return the tick
+   */
+  private long tickOf(long nanos) {
+    long offset = nanos - startNanos;
+    if (offset <= 0) {
+      return 0;
+    }
+    return (offset + tickNanos - 1) / tickNanos;
+  }
+
+  /**
+   * An entry in a bucket: a node in a doubly linked circular list
+   */
+  private static final class Slot {
+    final AsyncAction action;
+    final long deadlineTick;
+    Slot prev = this;
+    Slot next = this;
+
+    Slot(AsyncAction action, long deadlineTick) {
+      this.action = action;
+      this.deadlineTick = deadlineTick;
+    }
+
+    void append(Slot slot) {
+      slot.prev = prev;
+      slot.next = this;
+      prev.next = slot;
+      prev = slot;
+    }
+
+    boolean isEmpty() {
+      return next == this;
+    }
+
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+      prev = this;
+      next = this;
+    }
+  }
+
+  /**
+   * Order actions by their due time
+   */
+  private static final class CompareByDueTime
+      implements Comparator<AsyncAction> {
+    @Override
+    public int compare(AsyncAction o1, AsyncAction o2) {
+      long d = o1.getNanos() - o2.getNanos();
+      return d < 0 ? -1 : (d > 0 ? 1 : 0);
+    }
+  }
+}
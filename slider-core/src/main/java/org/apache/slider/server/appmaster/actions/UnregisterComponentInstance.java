@@ -48,4 +48,18 @@ public class UnregisterComponentInstance extends AsyncAction {
     appMaster.unregisterComponent(containerId);
 
   }
+
+  @Override
+  public String getCoalescingKey() {
+    return coalescingKey(containerId);
+  }
+
+  /**
+   * Build the coalescing key of the registry operations of a container
+   * @param containerId container ID
+   * @return the key
+   */
+  static String coalescingKey(ContainerId containerId) {
+    return "component instance " + containerId;
+  }
 }
@@ -53,6 +53,101 @@ public class MetricsConstants {
    */
   public static final String CONTAINERS_START_FAILED = "containers.start-failed";
 
+  /**
+   * {@value}
+   */
+  public static final String AM_RESTART_REBUILD_DURATION = "am.restart.rebuild.duration";
+
+  /**
+   * {@value}
+   */
+  public static final String AM_READY_TIME = "am.ready.time";
+
+  /**
+   * {@value}
+   */
+  public static final String AM_READY_DURATION = "am.ready.duration";
+
+  /**
+   * {@value}
+   */
+  public static final String RM_OPERATIONS_SUBMITTED = "rm.operations.submitted";
+
+  /**
+   * {@value}
+   */
+  public static final String RM_OPERATIONS_ISSUED = "rm.operations.issued";
+
+  /**
+   * {@value}
+   */
+  public static final String RM_OPERATIONS_COALESCED = "rm.operations.coalesced";
+
+  /**
+   * {@value}
+   */
+  public static final String RM_OPERATIONS_PER_HEARTBEAT = "rm.operations.per-heartbeat";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_HEARTBEAT_DETECTION_LATENCY = "agent.heartbeat.detection.latency";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_CONTAINERS_UNHEALTHY = "agent.containers.unhealthy";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_CONTAINERS_LOST = "agent.containers.lost";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_CONTAINERS_MONITORED = "agent.containers.monitored";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_REGISTRATIONS_PENDING = "agent.registrations.pending";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_REGISTRATION_LATENCY = "agent.registration.latency";
+
+  /**
+   * {@value}
+   */
+  public static final String AGENT_REGISTRATIONS_REJECTED = "agent.registrations.rejected";
+
   public static final String PREFIX_SLIDER_ROLES = "slider.roles.";
 
+  /**
+   * Per-role suffix of the container launch latency timer: {@value}
+   */
+  public static final String ROLE_LAUNCH_LATENCY = "launch.latency";
+
+  /**
+   * Prefix of the per-entry metrics of the REST content cache: {@value}
+   */
+  public static final String PREFIX_CONTENT_CACHE = "slider.contentcache";
+
+  /**
+   * Per-entry suffix of the content cache hit counter: {@value}
+   */
+  public static final String CONTENT_CACHE_HITS = "hits";
+
+  /**
+   * Per-entry suffix of the content cache miss counter: {@value}
+   */
+  public static final String CONTENT_CACHE_MISSES = "misses";
+
+  /**
+   * Per-entry suffix of the content cache refresh timer: {@value}
+   */
+  public static final String CONTENT_CACHE_REFRESH = "refresh";
+
 }
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.operations;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.Priority;
+import org.apache.hadoop.yarn.client.api.AMRMClient;
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An RM operation handler which coalesces each list of operations
+ * before passing it on to the handler which talks to the RM.
+ * <ol>
+ *   <li>A container request followed by the cancellation of that same
+ *   request instance cancel each other out: neither the AMRM client nor
+ *   the outstanding request tracker would have anything left to show for
+ *   them. Requests are never paired with cancellations of other requests,
+ *   even ones with the same priority, capability and locality, as the
+ *   AMRM client and the tracker would then disagree on which request
+ *   was outstanding. A cancellation followed by a request of the same
+ *   instance is passed on as is.</li>
+ *   <li>Repeated releases of the same container are dropped.</li>
+ *   <li>Blacklist updates are merged into a single update, issued in
+ *   the place of the last of them.</li>
+ * </ol>
+ * The surviving operations are passed on in their original order.
+ * <p>
+ * Requests of the same priority, capability and locality are not merged
+ * into counted requests. The AMRM client already aggregates them into a
+ * single resource request with a count for each (priority, location,
+ * capability), so merging would not reduce what is sent to the RM, while
+ * every request instance has to reach the client as is: the outstanding
+ * request tracker holds on to it, and it is the instance that is later
+ * removed from the client when the request is satisfied or cancelled.
+ * <p>
+ * The number of operations issued to the RM between heartbeats is
+ * recorded when {@link #onHeartbeat()} is called.
+ */
+public class CoalescingRMOperationHandler extends RMOperationHandler {
+  protected static final Logger log =
+    LoggerFactory.getLogger(CoalescingRMOperationHandler.class);
+
+  /** Number of heartbeats held in the ops per heartbeat histogram */
+  public static final int HEARTBEAT_WINDOW = 1024;
+
+  private final RMOperationHandler handler;
+  private final boolean coalescing;
+
+  private final Counter submitted = new Counter();
+  private final Counter issued = new Counter();
+  private final Counter coalesced = new Counter();
+  private final Histogram perHeartbeat =
+      new Histogram(new SlidingWindowReservoir(HEARTBEAT_WINDOW));
+  private final AtomicLong issuedSinceHeartbeat = new AtomicLong();
+
+  /**
+   * Create an instance
+   * @param handler handler to pass the coalesced operations to
+   * @param metricsAndMonitoring metrics to register with
+   * @param coalescing is coalescing enabled? If not, operations are
+   * only counted.
+   */
+  public CoalescingRMOperationHandler(RMOperationHandler handler,
+      MetricsAndMonitoring metricsAndMonitoring,
+      boolean coalescing) {
+    this.handler = handler;
+    this.coalescing = coalescing;
+    metricsAndMonitoring.register(MetricsConstants.RM_OPERATIONS_SUBMITTED,
+        submitted);
+    metricsAndMonitoring.register(MetricsConstants.RM_OPERATIONS_ISSUED,
+        issued);
+    metricsAndMonitoring.register(MetricsConstants.RM_OPERATIONS_COALESCED,
+        coalesced);
+    metricsAndMonitoring.register(MetricsConstants.RM_OPERATIONS_PER_HEARTBEAT,
+        perHeartbeat);
+  }
+
+  public boolean isCoalescing() {
+    return coalescing;
+  }
+
+  public long getSubmitted() {
+    return submitted.getCount();
+  }
+
+  public long getIssued() {
+    return issued.getCount();
+  }
+
+  public long getCoalesced() {
+    return coalesced.getCount();
+  }
+
+  public Histogram getOperationsPerHeartbeat() {
+    return perHeartbeat;
+  }
+
+  /**
+   * Notification of an RM heartbeat: record the number of operations
+   * issued since the previous one
+   */
+  public void onHeartbeat() {
+    perHeartbeat.update(issuedSinceHeartbeat.getAndSet(0));
+  }
+
+  @Override
+  public void execute(List<AbstractRMOperation> operations) {
+    if (operations.isEmpty()) {
+      return;
+    }
+    submitted.inc(operations.size());
+    List<AbstractRMOperation> coalescedOperations =
+        coalescing ? coalesce(operations) : operations;
+    if (coalescedOperations.size() < operations.size()) {
+      log.debug("Coalesced {} RM operations into {}", operations.size(),
+          coalescedOperations.size());
+    }
+    super.execute(coalescedOperations);
+  }
+
+  /**
+   * Coalesce a list of operations. The surviving operations keep
+   * their original order.
+   * @param operations operations
+   * @return the coalesced list
+   */
+  @VisibleForTesting
+  public List<AbstractRMOperation> coalesce(List<AbstractRMOperation> operations) {
+    int size = operations.size();
+    // slots of the output; dropped operations are nulled out
+    AbstractRMOperation[] slots = new AbstractRMOperation[size];
+    // positions of requests not yet cancelled, by request instance
+    Map<AMRMClient.ContainerRequest, Deque<Integer>> requests =
+        new IdentityHashMap<>();
+    Set<ContainerId> releases = new HashSet<>();
+    Set<String> blacklistAdditions = new LinkedHashSet<>();
+    Set<String> blacklistRemovals = new LinkedHashSet<>();
+    int lastBlacklistUpdate = -1;
+    long dropped = 0;
+
+    for (int i = 0; i < size; i++) {
+      AbstractRMOperation operation = operations.get(i);
+      if (operation instanceof ContainerRequestOperation) {
+        AMRMClient.ContainerRequest request =
+            ((ContainerRequestOperation) operation).getRequest();
+        Deque<Integer> positions = requests.get(request);
+        if (positions == null) {
+          positions = new ArrayDeque<>(1);
+          requests.put(request, positions);
+        }
+        positions.add(i);
+        slots[i] = operation;
+      } else if (operation instanceof CancelSingleRequest) {
+        AMRMClient.ContainerRequest request =
+            ((CancelSingleRequest) operation).getRequest();
+        Deque<Integer> positions = requests.get(request);
+        if (positions != null && !positions.isEmpty()) {
+          // the same request was added earlier in this list
+          slots[positions.removeLast()] = null;
+          dropped += 2;
+        } else {
+          slots[i] = operation;
+        }
+      } else if (operation instanceof ContainerReleaseOperation) {
+        if (releases.add(
+            ((ContainerReleaseOperation) operation).getContainerId())) {
+          slots[i] = operation;
+        } else {
+          dropped++;
+        }
+      } else if (operation instanceof UpdateBlacklistOperation) {
+        UpdateBlacklistOperation update = (UpdateBlacklistOperation) operation;
+        if (update.getBlacklistAdditions() != null) {
+          for (String host : update.getBlacklistAdditions()) {
+            blacklistRemovals.remove(host);
+            blacklistAdditions.add(host);
+          }
+        }
+        if (update.getBlacklistRemovals() != null) {
+          for (String host : update.getBlacklistRemovals()) {
+            blacklistAdditions.remove(host);
+            blacklistRemovals.add(host);
+          }
+        }
+        if (lastBlacklistUpdate >= 0) {
+          dropped++;
+        }
+        lastBlacklistUpdate = i;
+      } else {
+        slots[i] = operation;
+      }
+    }
+    if (lastBlacklistUpdate >= 0) {
+      // the merged update goes where the last one was, so no change
+      // is made before it was originally asked for
+      if (!blacklistAdditions.isEmpty() || !blacklistRemovals.isEmpty()) {
+        slots[lastBlacklistUpdate] = new UpdateBlacklistOperation(
+            new ArrayList<>(blacklistAdditions),
+            new ArrayList<>(blacklistRemovals));
+      } else {
+        dropped++;
+      }
+    }
+
+    List<AbstractRMOperation> result = new ArrayList<>(size);
+    for (AbstractRMOperation operation : slots) {
+      if (operation != null) {
+        result.add(operation);
+      }
+    }
+    coalesced.inc(dropped);
+    return result;
+  }
+
+  @Override
+  public void releaseAssignedContainer(ContainerId containerId) {
+    noteIssued();
+    handler.releaseAssignedContainer(containerId);
+  }
+
+  @Override
+  public void addContainerRequest(AMRMClient.ContainerRequest request) {
+    noteIssued();
+    handler.addContainerRequest(request);
+  }
+
+  @Override
+  public void cancelSingleRequest(AMRMClient.ContainerRequest request) {
+    noteIssued();
+    handler.cancelSingleRequest(request);
+  }
+
+  @Override
+  public int cancelContainerRequests(Priority priority1,
+      Priority priority2,
+      int count) {
+    noteIssued();
+    return handler.cancelContainerRequests(priority1, priority2, count);
+  }
+
+  @Override
+  public void updateBlacklist(List<String> blacklistAdditions,
+      List<String> blacklistRemovals) {
+    noteIssued();
+    handler.updateBlacklist(blacklistAdditions, blacklistRemovals);
+  }
+
+  private void noteIssued() {
+    issued.inc();
+    issuedSinceHeartbeat.incrementAndGet();
+  }
+}
@@ -29,6 +29,14 @@ public class UpdateBlacklistOperation extends AbstractRMOperation {
     this.blacklistRemovals = blacklistRemovals;
   }
 
+  public List<String> getBlacklistAdditions() {
+    return blacklistAdditions;
+  }
+
+  public List<String> getBlacklistRemovals() {
+    return blacklistRemovals;
+  }
+
   @Override
   public void execute(RMOperationHandlerActions handler) {
     handler.updateBlacklist(blacklistAdditions, blacklistRemovals);
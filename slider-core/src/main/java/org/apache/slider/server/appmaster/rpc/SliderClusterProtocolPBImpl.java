@@ -315,4 +315,16 @@ public class SliderClusterProtocolPBImpl implements SliderClusterProtocolPB {
       throw wrap(e);
     }
   }
+
+  @Override
+  public Messages.WrappedJsonProto watchApplicationState(
+      RpcController controller,
+      Messages.WatchApplicationStateRequestProto request)
+      throws ServiceException {
+    try {
+      return real.watchApplicationState(request);
+    } catch (Exception e) {
+      throw wrap(e);
+    }
+  }
 }
@@ -355,4 +355,14 @@ public class SliderClusterProtocolProxy implements SliderClusterProtocol {
       throw convert(e);
     }
   }
+
+  @Override
+  public Messages.WrappedJsonProto watchApplicationState(Messages.WatchApplicationStateRequestProto request) throws
+      IOException {
+    try {
+      return endpoint.watchApplicationState(NULL_CONTROLLER, request);
+    } catch (ServiceException e) {
+      throw convert(e);
+    }
+  }
 }
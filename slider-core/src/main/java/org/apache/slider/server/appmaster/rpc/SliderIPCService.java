@@ -24,11 +24,11 @@ import org.apache.hadoop.service.AbstractService;
 import org.apache.hadoop.yarn.api.records.FinalApplicationStatus;
 import org.apache.hadoop.yarn.exceptions.YarnException;
 import org.apache.hadoop.yarn.exceptions.YarnRuntimeException;
-import org.apache.slider.api.ClusterDescription;
 import org.apache.slider.api.SliderClusterProtocol;
 import org.apache.slider.api.SliderExitReason;
 import org.apache.slider.api.proto.Messages;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.NodeInformation;
@@ -40,6 +40,7 @@ import org.apache.slider.core.exceptions.SliderException;
 import org.apache.slider.core.main.LauncherExitCodes;
 import org.apache.slider.core.persist.AggregateConfSerDeser;
 import org.apache.slider.core.persist.ConfTreeSerDeser;
+import org.apache.slider.core.persist.JsonSerDeser;
 import org.apache.slider.server.appmaster.AppMasterActionOperations;
 import org.apache.slider.server.appmaster.actions.ActionFlexCluster;
 import org.apache.slider.server.appmaster.actions.ActionHalt;
@@ -49,6 +50,7 @@ import org.apache.slider.server.appmaster.actions.ActionUpgradeContainers;
 import org.apache.slider.server.appmaster.actions.AsyncAction;
 import org.apache.slider.server.appmaster.actions.QueueAccess;
 import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
+import org.apache.slider.server.appmaster.state.ClusterStatusDocument;
 import org.apache.slider.server.appmaster.state.RoleInstance;
 import org.apache.slider.server.appmaster.state.StateAccessForProviders;
 import org.apache.slider.server.appmaster.web.rest.application.resources.ContentCache;
@@ -59,6 +61,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -92,6 +95,8 @@ public class SliderIPCService extends AbstractService
   private final AppMasterActionOperations amOperations;
   private final ContentCache cache;
   private final CertificateManager certificateManager;
+  private final JsonSerDeser<ApplicationStateChanges> stateChangesSerDeser =
+      new JsonSerDeser<ApplicationStateChanges>(ApplicationStateChanges.class);
 
   /**
    * This is the prefix used for metrics
@@ -232,15 +237,17 @@ public class SliderIPCService extends AbstractService
       Messages.GetJSONClusterStatusRequestProto request)
       throws IOException, YarnException {
     onRpcCall("getstatus");
-    String result;
-    //quick update
-    //query and json-ify
-    ClusterDescription cd = state.refreshClusterStatus();
-    result = cd.toJsonString();
-    String stat = result;
-    return Messages.GetJSONClusterStatusResponseProto.newBuilder()
-                                                     .setClusterSpec(stat)
-                                                     .build();
+    ClusterStatusDocument document = state.getClusterStatusDocument();
+    Messages.GetJSONClusterStatusResponseProto.Builder builder =
+        Messages.GetJSONClusterStatusResponseProto.newBuilder()
+            .setVersion(document.version);
+    if (request.hasSinceVersion()
+        && document.isUnchangedSince(request.getSinceVersion())) {
+      builder.setUnchanged(true).setClusterSpec("");
+    } else {
+      builder.setClusterSpecBytes(document.getJson());
+    }
+    return builder.build();
   }
 
   @Override
@@ -550,4 +557,24 @@ public class SliderIPCService extends AbstractService
     }
     return marshall(store);
   }
+
+  /**
+   * Get the changes since the resume token. Unlike the REST watch, this
+   * never waits for a change, so as not to hold an IPC handler thread;
+   * the client polls instead.
+   */
+  @Override
+  public Messages.WrappedJsonProto watchApplicationState(
+      Messages.WatchApplicationStateRequestProto request) throws IOException {
+    onRpcCall("watch");
+    long resumeToken = request.hasResumeToken() ? request.getResumeToken() : -1;
+    try {
+      ApplicationStateChanges changes =
+          state.getApplicationStateChanges(resumeToken, 0);
+      return wrap(stateChangesSerDeser.toJson(changes));
+    } catch (InterruptedException e) {
+      throw (InterruptedIOException)
+          new InterruptedIOException(e.toString()).initCause(e);
+    }
+  }
 }
@@ -22,6 +22,7 @@ import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -50,12 +51,15 @@ import org.apache.slider.api.StateValues;
 import org.apache.slider.api.StatusKeys;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
 import org.apache.slider.api.types.ApplicationDiagnostics;
+import org.apache.slider.api.types.ApplicationStateChanges;
+import org.apache.slider.api.types.ApplicationStateEvent;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.ResourceInformation;
 import org.apache.slider.api.types.RoleStatistics;
 import org.apache.slider.common.SliderExitCodes;
 import org.apache.slider.common.SliderKeys;
+import org.apache.slider.common.SliderXmlConfKeys;
 import org.apache.slider.common.tools.ConfigHelper;
 import org.apache.slider.common.tools.SliderUtils;
 import org.apache.slider.core.conf.AggregateConf;
@@ -76,14 +80,17 @@ import org.apache.slider.server.appmaster.actions.MonitorHealthThreshold;
 import org.apache.slider.server.appmaster.management.LongGauge;
 import org.apache.slider.server.appmaster.management.MetricsAndMonitoring;
 import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.apache.slider.server.appmaster.management.Timestamp;
 import org.apache.slider.server.appmaster.operations.AbstractRMOperation;
 import org.apache.slider.server.appmaster.operations.ContainerReleaseOperation;
 import org.apache.slider.server.appmaster.operations.ContainerRequestOperation;
 import org.apache.slider.server.appmaster.operations.UpdateBlacklistOperation;
+import org.apache.slider.server.services.workflow.ServiceThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -93,10 +100,17 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.slider.api.ResourceKeys.*;
 import static org.apache.slider.api.RoleKeys.*;
@@ -108,6 +122,12 @@ import static org.apache.slider.api.StateValues.*;
  * concurrency rules: any method which begins with <i>build</i>
  * is not synchronized and intended to be used during
  * initialization.
+ * <p>
+ * Updates are made by a single writer holding the monitor of this
+ * instance. Every change to container membership increments the state
+ * version; readers of live container information work off an
+ * {@link AppStateSnapshot}, which is rebuilt at most once per version, by
+ * the first reader to ask for it. Readers never need the monitor.
  */
 public class AppState {
   protected static final Logger log =
@@ -296,6 +316,33 @@ public class AppState {
 
   private RoleHistory roleHistory;
   private Configuration publishedProviderConf;
+
+  /**
+   * Number of threads used to rebuild the state from the containers
+   * of a previous attempt
+   */
+  private int restartRebuildThreads =
+      SliderXmlConfKeys.DEFAULT_AM_RESTART_REBUILD_THREADS;
+
+  /**
+   * Minimum number of containers for each thread in a restart rebuild
+   */
+  private static final int RESTART_REBUILD_MIN_PARTITION = 256;
+
+  /**
+   * Duration in millis of the rebuild on an AM restart
+   */
+  private final LongGauge restartRebuildDuration = new LongGauge();
+
+  /**
+   * Time the AM declared itself ready to serve
+   */
+  private final Timestamp amReadyTime = new Timestamp(0);
+
+  /**
+   * Millis from the launch of the AM process until it was ready
+   */
+  private final LongGauge amReadyDuration = new LongGauge();
   private long startTimeThreshold;
 
   private int failureThreshold = 10;
@@ -316,6 +363,64 @@ public class AppState {
   private long lastAllocationTime;
   private RMClientAccessForAppState rmClientAccess;
 
+  /**
+   * Version of the state visible to snapshot readers; incremented on
+   * every change to the container maps or role counters.
+   */
+  private final AtomicLong stateVersion = new AtomicLong();
+
+  /**
+   * The most recently built snapshot; rebuilt on the first read after
+   * the state version has moved on.
+   */
+  private volatile AppStateSnapshot stateSnapshot;
+
+  /**
+   * The most recently serialized cluster status
+   */
+  private volatile ClusterStatusDocument statusDocument;
+
+  /**
+   * Source of status document versions. This is seeded from the clock
+   * so that versions keep increasing over a restart of the AM.
+   */
+  private final AtomicLong statusDocumentVersion =
+      new AtomicLong(System.currentTimeMillis() * 1000);
+
+  /**
+   * Lock to serialize status document rebuilds
+   */
+  private final Object statusDocumentLock = new Object();
+
+  /**
+   * Status time written into the current status document;
+   * guarded by {@link #statusDocumentLock}
+   */
+  private long statusDocumentTime;
+
+  /**
+   * Age in millis after which the status document is rebuilt even if
+   * the state has not changed
+   */
+  private long statusDocumentMaxAge =
+      SliderXmlConfKeys.DEFAULT_AM_STATUS_MAX_AGE;
+
+  /**
+   * Journal of container and component events for watchers.
+   * Rebuilt with the configured capacity in {@link #buildInstance(AppStateBindingInfo)}
+   */
+  private volatile StateChangeJournal journal = new StateChangeJournal(
+      SliderXmlConfKeys.DEFAULT_AM_WATCH_JOURNAL_SIZE,
+      SliderXmlConfKeys.DEFAULT_AM_WATCH_MAX_WAITERS,
+      System.currentTimeMillis() * 1000);
+
+  /**
+   * Lock to serialize snapshot rebuilds. Only readers which find the
+   * snapshot out of date acquire it, and it is never held while acquiring
+   * the monitor of the app state.
+   */
+  private final Object snapshotLock = new Object();
+
   /**
    * Create an instance
    * @param recordFactory factory for YARN records
@@ -335,6 +440,9 @@ public class AppState {
     register(MetricsConstants.CONTAINERS_COMPLETED, completedContainerCount);
     register(MetricsConstants.CONTAINERS_FAILED, failedContainerCount);
     register(MetricsConstants.CONTAINERS_START_FAILED, startFailedContainerCount);
+    register(MetricsConstants.AM_RESTART_REBUILD_DURATION, restartRebuildDuration);
+    register(MetricsConstants.AM_READY_TIME, amReadyTime);
+    register(MetricsConstants.AM_READY_DURATION, amReadyDuration);
   }
 
   private void register(String name, Metric counter) {
@@ -380,7 +488,7 @@ public class AppState {
    * live container set.
    */
   public void addLiveContainer(String roleGroup, ContainerId cId) {
-    log.info("Adding live container {} to role {}", cId, roleGroup);
+    log.debug("Adding live container {} to role {}", cId, roleGroup);
     if (roleGroup == null) {
       return;
     }
@@ -475,6 +583,61 @@ public class AppState {
     return liveNodes;
   }
 
+  /**
+   * Note that the container maps have changed. This only increments the
+   * version: the snapshot is rebuilt by the next reader, so a burst of
+   * changes on the writer thread costs one rebuild, not one per change.
+   * <p>
+   * It must be called after the maps have been updated, so that a
+   * snapshot built after reading a version includes every change up
+   * to that version.
+   */
+  protected void stateChanged() {
+    stateVersion.incrementAndGet();
+  }
+
+  private AppStateSnapshot buildSnapshot(long version) {
+    AppStateSnapshot snapshot = new AppStateSnapshot(version,
+        now(),
+        liveNodes.values(),
+        ownedContainers.values(),
+        roleStatusMap.values());
+    log.debug("Published {}", snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Get the current version of the state
+   * @return a monotonically increasing version number
+   */
+  public long getStateVersion() {
+    return stateVersion.get();
+  }
+
+  /**
+   * Get a snapshot of the current state.
+   * <p>
+   * This does not acquire the app state monitor. If the state has changed
+   * since the last snapshot was built, the first reader to notice rebuilds
+   * it from the concurrent container maps; other readers wait for that
+   * rebuild rather than repeating it.
+   * @return a snapshot of at least the current version
+   */
+  public AppStateSnapshot getStateSnapshot() {
+    AppStateSnapshot snapshot = stateSnapshot;
+    if (snapshot == null || snapshot.version < stateVersion.get()) {
+      synchronized (snapshotLock) {
+        snapshot = stateSnapshot;
+        long version = stateVersion.get();
+        if (snapshot == null || snapshot.version < version) {
+          snapshot = buildSnapshot(version);
+          stateSnapshot = snapshot;
+        }
+      }
+    }
+    return snapshot;
+  }
+
   /**
    * Get the current view of the cluster status.
    * <p>
@@ -668,6 +831,27 @@ public class AppState {
     // set up the role history
     roleHistory = new RoleHistory(roleStatusMap.values(), recordFactory);
     roleHistory.register(metricsAndMonitoring);
+    restartRebuildThreads = Math.max(1, binding.serviceConfig.getInt(
+        SliderXmlConfKeys.KEY_AM_RESTART_REBUILD_THREADS,
+        SliderXmlConfKeys.DEFAULT_AM_RESTART_REBUILD_THREADS));
+    statusDocumentMaxAge = binding.serviceConfig.getLong(
+        SliderXmlConfKeys.KEY_AM_STATUS_MAX_AGE,
+        SliderXmlConfKeys.DEFAULT_AM_STATUS_MAX_AGE);
+    journal = new StateChangeJournal(
+        binding.serviceConfig.getInt(
+            SliderXmlConfKeys.KEY_AM_WATCH_JOURNAL_SIZE,
+            SliderXmlConfKeys.DEFAULT_AM_WATCH_JOURNAL_SIZE),
+        binding.serviceConfig.getInt(
+            SliderXmlConfKeys.KEY_AM_WATCH_MAX_WAITERS,
+            SliderXmlConfKeys.DEFAULT_AM_WATCH_MAX_WAITERS),
+        System.currentTimeMillis() * 1000);
+    roleHistory.setDeltaLogging(
+        binding.serviceConfig.getBoolean(
+            SliderXmlConfKeys.KEY_AM_HISTORY_DELTA_LOG,
+            SliderXmlConfKeys.DEFAULT_AM_HISTORY_DELTA_LOG),
+        Math.max(1, binding.serviceConfig.getInt(
+            SliderXmlConfKeys.KEY_AM_HISTORY_COMPACTION_INTERVAL,
+            SliderXmlConfKeys.DEFAULT_AM_HISTORY_COMPACTION_INTERVAL)));
     roleHistory.onStart(binding.fs, binding.historyPath);
     // trigger first node update
     roleHistory.onNodesUpdated(binding.nodeReports);
@@ -822,6 +1006,10 @@ public class AppState {
   public synchronized List<ProviderRole> updateResourceDefinitions(ConfTree resources)
       throws BadConfigException, IOException {
     log.debug("Updating resources to {}", resources);
+    Map<Integer, Long> desiredBefore = new HashMap<>();
+    for (RoleStatus roleStatus : getRoleStatusMap().values()) {
+      desiredBefore.put(roleStatus.getKey(), roleStatus.getDesired());
+    }
     // snapshot the (possibly unresolved) values
     ConfTreeSerDeser serDeser = new ConfTreeSerDeser();
     unresolvedInstanceDefinition.setResources(
@@ -835,7 +1023,16 @@ public class AppState {
     Map<String, Map<String, String>> updated = resources.components;
     getClusterStatus().roles = SliderUtils.deepClone(updated);
     getClusterStatus().updateTime = now();
-    return buildRoleRequirementsFromResources();
+    List<ProviderRole> newRoles = buildRoleRequirementsFromResources();
+    stateChanged();
+    // only components whose desired count has changed are journaled
+    for (RoleStatus roleStatus : getRoleStatusMap().values()) {
+      Long desired = desiredBefore.get(roleStatus.getKey());
+      if (desired == null || desired != roleStatus.getDesired()) {
+        journalComponentUpdate(roleStatus);
+      }
+    }
+    return newRoles;
   }
 
   /**
@@ -1055,6 +1252,7 @@ public class AppState {
     roleStatus.setDesired(1);
     roleStatus.incActual();
     roleStatus.incStarted();
+    stateChanged();
   }
 
   /**
@@ -1066,6 +1264,7 @@ public class AppState {
    */
   public void noteAMLaunched() {
     getLiveContainers().put(appMasterNode.getContainerId(), appMasterNode);
+    stateChanged();
   }
 
   /**
@@ -1075,6 +1274,39 @@ public class AppState {
    */
   public void noteAMLive() {
     appMasterNode.state = STATE_LIVE;
+    stateChanged();
+  }
+
+  /**
+   * Note that the AM has completed its initialization and is ready
+   * to serve agents and clients. The time taken since the AM process
+   * was launched is recorded.
+   * @return millis from the launch of the AM process until now
+   */
+  public long noteAMReady() {
+    long ready = now();
+    long duration =
+        ready - ManagementFactory.getRuntimeMXBean().getStartTime();
+    amReadyTime.set(ready);
+    amReadyDuration.set(duration);
+    return duration;
+  }
+
+  /**
+   * Get the time the AM declared itself ready
+   * @return the time in millis, or 0 if it has not yet done so
+   */
+  public long getAMReadyTime() {
+    return amReadyTime.get();
+  }
+
+  /**
+   * Get the duration of the rebuild from the containers of a
+   * previous attempt
+   * @return the duration in millis; 0 if there was no rebuild
+   */
+  public long getRestartRebuildDuration() {
+    return restartRebuildDuration.get();
   }
 
   /**
@@ -1140,9 +1372,8 @@ public class AppState {
    * Clone the list of active (==owned) containers
    * @return the list of role instances representing all owned containers
    */
-  public synchronized List<RoleInstance> cloneOwnedContainerList() {
-    Collection<RoleInstance> values = ownedContainers.values();
-    return new ArrayList<>(values);
+  public List<RoleInstance> cloneOwnedContainerList() {
+    return new ArrayList<>(getStateSnapshot().getOwnedContainers());
   }
 
   /**
@@ -1173,6 +1404,7 @@ public class AppState {
     } else {
       log.debug("RoleInstance = {}", ri);
       removeLiveContainer(ri.group, id);
+      stateChanged();
     }
     return ri;
   }
@@ -1186,18 +1418,18 @@ public class AppState {
   private RoleInstance putOwnedContainer(ContainerId id,
       RoleInstance instance) {
     addLiveContainer(instance.group, id);
-    return ownedContainers.put(id, instance);
+    RoleInstance previous = ownedContainers.put(id, instance);
+    stateChanged();
+    return previous;
   }
 
   /**
-   * Clone the live container list. This is synchronized.
+   * Clone the live container list. This works off the current
+   * {@link AppStateSnapshot}, so does not block on state updates.
    * @return a snapshot of the live node list
    */
-  public synchronized List<RoleInstance> cloneLiveContainerInfoList() {
-    List<RoleInstance> allRoleInstances;
-    Collection<RoleInstance> values = getLiveContainers().values();
-    allRoleInstances = new ArrayList<>(values);
-    return allRoleInstances;
+  public List<RoleInstance> cloneLiveContainerInfoList() {
+    return new ArrayList<>(getStateSnapshot().getLiveContainers());
   }
 
   /**
@@ -1206,10 +1438,14 @@ public class AppState {
    * @return the role instance for that container
    * @throws NoSuchNodeException if it does not exist
    */
-  public synchronized RoleInstance getLiveInstanceByContainerID(String containerId)
+  public RoleInstance getLiveInstanceByContainerID(String containerId)
       throws NoSuchNodeException {
-    Collection<RoleInstance> nodes = getLiveContainers().values();
-    return findNodeInCollection(containerId, nodes);
+    RoleInstance instance =
+        getStateSnapshot().lookupLiveContainer(containerId);
+    if (instance == null) {
+      throw new NoSuchNodeException("Unknown node: " + containerId);
+    }
+    return instance;
   }
 
   /**
@@ -1218,9 +1454,9 @@ public class AppState {
    * @return the role instance for that container
    * @throws NoSuchNodeException if it does not exist
    */
-  public synchronized RoleInstance getOwnedInstanceByContainerID(String containerId)
+  public RoleInstance getOwnedInstanceByContainerID(String containerId)
       throws NoSuchNodeException {
-    Collection<RoleInstance> nodes = ownedContainers.values();
+    Collection<RoleInstance> nodes = getStateSnapshot().getOwnedContainers();
     return findNodeInCollection(containerId, nodes);
   }
 
@@ -1249,15 +1485,15 @@ public class AppState {
     }
   }
 
-  public synchronized List<RoleInstance> getLiveInstancesByContainerIDs(
+  public List<RoleInstance> getLiveInstancesByContainerIDs(
     Collection<String> containerIDs) {
-    //first, a hashmap of those containerIDs is built up
+    //dedup the IDs, then look each one up in the snapshot
     Set<String> uuidSet = new HashSet<String>(containerIDs);
     List<RoleInstance> nodes = new ArrayList<RoleInstance>(uuidSet.size());
-    Collection<RoleInstance> clusterNodes = getLiveContainers().values();
-
-    for (RoleInstance node : clusterNodes) {
-      if (uuidSet.contains(node.id)) {
+    AppStateSnapshot snapshot = getStateSnapshot();
+    for (String uuid : uuidSet) {
+      RoleInstance node = snapshot.lookupLiveContainer(uuid);
+      if (node != null) {
         nodes.add(node);
       }
     }
@@ -1270,15 +1506,12 @@ public class AppState {
    * @param role role, or "" for all roles
    * @return a list of nodes, may be empty
    */
-  public synchronized List<RoleInstance> enumLiveNodesInRole(String role) {
-    List<RoleInstance> nodes = new ArrayList<RoleInstance>();
-    Collection<RoleInstance> allRoleInstances = getLiveContainers().values();
-    for (RoleInstance node : allRoleInstances) {
-      if (role.isEmpty() || role.equals(node.role)) {
-        nodes.add(node);
-      }
+  public List<RoleInstance> enumLiveNodesInRole(String role) {
+    AppStateSnapshot snapshot = getStateSnapshot();
+    if (role.isEmpty()) {
+      return new ArrayList<RoleInstance>(snapshot.getLiveContainers());
     }
-    return nodes;
+    return new ArrayList<RoleInstance>(snapshot.getLiveContainersInRole(role));
   }
 
  
@@ -1306,15 +1539,16 @@ public class AppState {
    * Build an instance map.
    * @return the map of Role name to list of role instances
    */
-  private synchronized Map<String, List<String>> createRoleToInstanceMap() {
+  private Map<String, List<String>> createRoleToInstanceMap() {
+    Map<String, List<RoleInstance>> byRole =
+        getStateSnapshot().getLiveContainersByRole();
     Map<String, List<String>> map = new HashMap<String, List<String>>();
-    for (RoleInstance node : getLiveContainers().values()) {
-      List<String> containers = map.get(node.role);
-      if (containers == null) {
-        containers = new ArrayList<String>();
-        map.put(node.role, containers);
+    for (Map.Entry<String, List<RoleInstance>> entry : byRole.entrySet()) {
+      List<String> containers = new ArrayList<String>(entry.getValue().size());
+      for (RoleInstance node : entry.getValue()) {
+        containers.add(node.id);
       }
-      containers.add(node.id);
+      map.put(entry.getKey(), containers);
     }
     return map;
   }
@@ -1324,17 +1558,17 @@ public class AppState {
    * 
    * @return the map of Role name to list of Cluster Nodes
    */
-  public synchronized Map<String, Map<String, ClusterNode>> createRoleToClusterNodeMap() {
+  public Map<String, Map<String, ClusterNode>> createRoleToClusterNodeMap() {
+    Map<String, List<RoleInstance>> byRole =
+        getStateSnapshot().getLiveContainersByRole();
     Map<String, Map<String, ClusterNode>> map = new HashMap<>();
-    for (RoleInstance node : getLiveContainers().values()) {
-      
-      Map<String, ClusterNode> containers = map.get(node.role);
-      if (containers == null) {
-        containers = new HashMap<String, ClusterNode>();
-        map.put(node.role, containers);
+    for (Map.Entry<String, List<RoleInstance>> entry : byRole.entrySet()) {
+      Map<String, ClusterNode> containers = new HashMap<String, ClusterNode>();
+      for (RoleInstance node : entry.getValue()) {
+        ClusterNode clusterNode = node.toClusterNode();
+        containers.put(clusterNode.name, clusterNode);
       }
-      ClusterNode clusterNode = node.toClusterNode();
-      containers.put(clusterNode.name, clusterNode);
+      map.put(entry.getKey(), containers);
     }
     return map;
   }
@@ -1383,6 +1617,7 @@ public class AppState {
     RoleStatus role = lookupRoleStatus(instance.roleId);
     role.incReleasing();
     roleHistory.onContainerReleaseSubmitted(container);
+    stateChanged();
   }
 
   /**
@@ -1540,6 +1775,7 @@ public class AppState {
         "Unknown role for node " + node);
     }
     getLiveContainers().put(node.getContainerId(), node);
+    stateChanged();
 
     // Store container info for diagnostics
     log.info("Initial diagnostics entry of container {}", container.getId());
@@ -1603,6 +1839,7 @@ public class AppState {
     roleStatus.incStarted();
     Container container = instance.container;
     addLaunchedContainer(container, instance);
+    journalContainerEvent(ApplicationStateEvent.CONTAINER_ADDED, instance);
     return instance;
   }
 
@@ -1640,6 +1877,7 @@ public class AppState {
       getFailedContainers().put(containerId, instance);
       roleHistory.onNodeManagerContainerStartFailed(instance.container);
     }
+    stateChanged();
   }
 
   /**
@@ -1835,12 +2073,14 @@ public class AppState {
     ContainerId id = status.getContainerId();
     log.info("Removing node ID {}", id);
     RoleInstance node = getLiveContainers().remove(id);
+    stateChanged();
     if (node != null) {
       node.state = STATE_DESTROYED;
       node.exitCode = exitStatus;
       node.diagnostics = status.getDiagnostics();
       getCompletedContainers().put(id, node);
       result.roleInstance = node;
+      journalContainerEvent(ApplicationStateEvent.CONTAINER_REMOVED, node);
     } else {
       // not in the list
       log.warn("Received notification of completion of unknown node {}", id);
@@ -2008,6 +2248,139 @@ public class AppState {
     return cd;
   }
 
+  /**
+   * Get the cluster status serialized as JSON.
+   * <p>
+   * The document is only rebuilt if the state has changed since the
+   * current one was built, or it is older than the maximum age; otherwise
+   * the same document is returned to every caller.
+   * A rebuild after the maximum age which finds the status unchanged,
+   * other than its status time, keeps the previous version and JSON, so
+   * callers holding that version are not sent the document again.
+   * @return the current document
+   * @throws IOException failure to serialize the status
+   */
+  public ClusterStatusDocument getClusterStatusDocument() throws IOException {
+    ClusterStatusDocument document = statusDocument;
+    if (isCurrent(document)) {
+      return document;
+    }
+    synchronized (statusDocumentLock) {
+      // another caller may have rebuilt it while this thread was waiting
+      ClusterStatusDocument previous = statusDocument;
+      document = previous;
+      if (!isCurrent(document)) {
+        long version = stateVersion.get();
+        ByteString json = null;
+        synchronized (this) {
+          ClusterDescription cd = refreshClusterStatus();
+          if (previous != null && previous.stateVersion == version) {
+            // serialize with the previous status time to see if anything
+            // else has changed
+            cd.setInfoTime(StatusKeys.INFO_STATUS_TIME_HUMAN,
+                StatusKeys.INFO_STATUS_TIME_MILLIS,
+                statusDocumentTime);
+            ByteString rebuilt = ByteString.copyFromUtf8(cd.toJsonString());
+            if (rebuilt.equals(previous.getJson())) {
+              json = previous.getJson();
+            }
+          }
+          if (json == null) {
+            statusDocumentTime = now();
+            cd.setInfoTime(StatusKeys.INFO_STATUS_TIME_HUMAN,
+                StatusKeys.INFO_STATUS_TIME_MILLIS,
+                statusDocumentTime);
+            json = ByteString.copyFromUtf8(cd.toJsonString());
+          }
+        }
+        boolean unchanged = previous != null && json == previous.getJson();
+        document = new ClusterStatusDocument(
+            unchanged ? previous.version
+                      : statusDocumentVersion.incrementAndGet(),
+            version,
+            now(),
+            json);
+        log.debug("Built {}", document);
+        statusDocument = document;
+      }
+    }
+    return document;
+  }
+
+  private boolean isCurrent(ClusterStatusDocument document) {
+    return document != null
+           && document.stateVersion == stateVersion.get()
+           && now() - document.timestamp < statusDocumentMaxAge;
+  }
+
+  @VisibleForTesting
+  public void setStatusDocumentMaxAge(long statusDocumentMaxAge) {
+    this.statusDocumentMaxAge = statusDocumentMaxAge;
+  }
+
+  /**
+   * Get the container and component events since a resume token,
+   * waiting up to the timeout for one if there are none yet.
+   * This waits on the journal, not the app state; if the maximum number
+   * of watchers are already waiting, it returns at once.
+   * @param resumeToken token from a previous watch
+   * @param timeout time in millis to wait; 0 to return immediately
+   * @return the changes
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public ApplicationStateChanges getApplicationStateChanges(long resumeToken,
+      long timeout) throws InterruptedException {
+    return journal.await(resumeToken, timeout);
+  }
+
+  @VisibleForTesting
+  public StateChangeJournal getStateChangeJournal() {
+    return journal;
+  }
+
+  /**
+   * Journal a container event, and the update to its component.
+   * Only the type, component and exit code are recorded here; the
+   * container is serialized when a watcher first reads the event.
+   * @param type event type
+   * @param instance container
+   */
+  private void journalContainerEvent(String type, final RoleInstance instance) {
+    ApplicationStateEvent event = new ApplicationStateEvent(type,
+        instance.role);
+    final boolean removed = ApplicationStateEvent.CONTAINER_REMOVED.equals(type);
+    final int exitCode = instance.exitCode;
+    journal.append(event, new StateChangeJournal.EventDetails() {
+      @Override
+      public void fill(ApplicationStateEvent journaled) {
+        journaled.container = instance.serialize();
+        if (removed) {
+          journaled.container.exitCode = exitCode;
+        }
+      }
+    });
+    RoleStatus roleStatus = getRoleStatusMap().get(instance.roleId);
+    if (roleStatus != null) {
+      journalComponentUpdate(roleStatus);
+    }
+  }
+
+  /**
+   * Journal an update to a component. Its state is serialized when
+   * a watcher first reads the event, so is the state at that time.
+   * @param roleStatus role status of the component
+   */
+  private void journalComponentUpdate(final RoleStatus roleStatus) {
+    ApplicationStateEvent event = new ApplicationStateEvent(
+        ApplicationStateEvent.COMPONENT_UPDATED, roleStatus.getName());
+    journal.append(event, new StateChangeJournal.EventDetails() {
+      @Override
+      public void fill(ApplicationStateEvent journaled) {
+        journaled.componentInformation = roleStatus.serialize();
+      }
+    });
+  }
+
   /**
    * get application liveness information
    * @return a snapshot of the current liveness information
@@ -2109,6 +2482,7 @@ public class AppState {
         allOperations.addAll(operations);
       }
     }
+    stateChanged();
     return allOperations;
   }
 
@@ -2196,6 +2570,7 @@ public class AppState {
           failed);
     }
     roleHistory.resetFailedRecently();
+    stateChanged();
   }
 
   /**
@@ -2221,6 +2596,7 @@ public class AppState {
         roleStatus.cancelOutstandingAARequest();
       }
     }
+    stateChanged();
     return operations;
   }
 
@@ -2593,6 +2969,7 @@ public class AppState {
 
       }
     }
+    stateChanged();
   }
 
   public void onContainerStatusReceived(ContainerId containerId,
@@ -2615,11 +2992,23 @@ public class AppState {
   }
 
   /**
-   * Event handler for the list of active containers on restart.
+   * Rebuild the model from the containers of a previous attempt.
+   * <p>
+   * This is done in stages, so that an AM adopting thousands of containers
+   * is ready in seconds rather than minutes:
+   * <ol>
+   *   <li>The role instances are built from the containers, in parallel.</li>
+   *   <li>The role history is updated in one bulk operation, concurrently
+   *   with the container ownership and live maps being filled in.</li>
+   * </ol>
+   * Unlike the normal container lifecycle, there is no per-container state
+   * change notification or role history save.
+   * <p>
    * Sets the info key {@link StatusKeys#INFO_CONTAINERS_AM_RESTART}
    * to the size of the list passed down (and does not set it if none were)
    * @param liveContainers the containers allocated
    * @return true if a rebuild took place (even if size 0)
+   * @throws BadClusterStateException if the rebuild failed
    * @throws RuntimeException on problems
    */
   private boolean rebuildModelFromRestart(List<Container> liveContainers)
@@ -2627,42 +3016,151 @@ public class AppState {
     if (liveContainers == null) {
       return false;
     }
-    for (Container container : liveContainers) {
-      addRestartedContainer(container);
+    long start = System.currentTimeMillis();
+    int threads = Math.min(restartRebuildThreads,
+        Math.max(1, liveContainers.size() / RESTART_REBUILD_MIN_PARTITION));
+    ExecutorService executor = threads > 1
+        ? Executors.newFixedThreadPool(threads,
+              new ServiceThreadFactory("am-restart-rebuild", true))
+        : null;
+    try {
+      List<RoleInstance> instances =
+          buildRestartedInstances(liveContainers, threads, executor);
+      Future<?> history = submitRestartStage(executor,
+          new HistoryRebuild(liveContainers));
+      for (RoleInstance instance : instances) {
+        addRestartedInstance(instance);
+      }
+      awaitRestartStage(history);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
+    stateChanged();
+    long duration = System.currentTimeMillis() - start;
+    restartRebuildDuration.set(duration);
+    log.info("Rebuilt {} containers from a previous attempt in {} mS"
+             + " using {} thread(s)", liveContainers.size(), duration, threads);
     clusterStatus.setInfo(StatusKeys.INFO_CONTAINERS_AM_RESTART,
                                Integer.toString(liveContainers.size()));
     return true;
   }
 
   /**
-   * Add a restarted container by walking it through the create/submit/start
-   * lifecycle, so building up the internal structures
-   * @param container container that was running before the AM restarted
-   * @throws RuntimeException on problems
+   * Build the role instances of the containers of a previous attempt,
+   * partitioning the work across the executor if there is one.
+   * @param containers containers
+   * @param partitions number of partitions
+   * @param executor executor; null for the work to be done in this thread
+   * @return the instances, in the order of the containers
+   * @throws BadClusterStateException if the rebuild failed
+   */
+  private List<RoleInstance> buildRestartedInstances(
+      final List<Container> containers,
+      int partitions,
+      ExecutorService executor) throws BadClusterStateException {
+    int size = containers.size();
+    List<Future<List<RoleInstance>>> futures = new ArrayList<>(partitions);
+    for (int p = 0; p < partitions; p++) {
+      final List<Container> partition =
+          containers.subList(p * size / partitions, (p + 1) * size / partitions);
+      futures.add(submitRestartStage(executor,
+          new Callable<List<RoleInstance>>() {
+            @Override
+            public List<RoleInstance> call() throws Exception {
+              List<RoleInstance> built = new ArrayList<>(partition.size());
+              for (Container container : partition) {
+                built.add(buildRestartedInstance(container));
+              }
+              return built;
+            }
+          }));
+    }
+    List<RoleInstance> instances = new ArrayList<>(size);
+    for (Future<List<RoleInstance>> future : futures) {
+      instances.addAll(awaitRestartStage(future));
+    }
+    return instances;
+  }
+
+  /**
+   * Submit a stage of the restart rebuild
+   * @param executor executor; if null the stage is executed immediately
+   * @param stage stage to run
+   * @param <T> type of the result
+   * @return a future to await the result from
    */
-  private void addRestartedContainer(Container container)
+  private static <T> Future<T> submitRestartStage(ExecutorService executor,
+      Callable<T> stage) {
+    if (executor != null) {
+      return executor.submit(stage);
+    }
+    FutureTask<T> task = new FutureTask<>(stage);
+    task.run();
+    return task;
+  }
+
+  /**
+   * Wait for a stage of the restart rebuild to complete
+   * @param future future of the stage
+   * @param <T> type of the result
+   * @return the result
+   * @throws BadClusterStateException if the stage failed or was interrupted
+   */
+  private static <T> T awaitRestartStage(Future<T> future)
       throws BadClusterStateException {
-    String containerHostInfo = container.getNodeId().getHost()
-                               + ":" +
-                               container.getNodeId().getPort();
-    // get the container ID
-    ContainerId cid = container.getId();
-    
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BadClusterStateException(e,
+          "Interrupted while rebuilding from a previous attempt");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new BadClusterStateException(cause,
+          "Failed to rebuild from a previous attempt: %s", cause);
+    }
+  }
+
+  /**
+   * Restart stage to update the role history with all restarted containers
+   */
+  private class HistoryRebuild implements Callable<Void> {
+    private final List<Container> containers;
+
+    private HistoryRebuild(List<Container> containers) {
+      this.containers = containers;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      roleHistory.onContainersRestarted(containers);
+      return null;
+    }
+  }
+
+  /**
+   * Build the role instance of a container which was running before the
+   * AM restarted, as it would be at the end of the create/submit/start
+   * lifecycle. The role counters are updated; they are thread safe.
+   * @param container container that was running before the AM restarted
+   * @return the instance
+   * @throws RuntimeException if the role of the container is unknown
+   */
+  private RoleInstance buildRestartedInstance(Container container) {
     // get the role
     int roleId = ContainerPriority.extractRole(container);
-    RoleStatus role =
-      lookupRoleStatus(roleId);
+    RoleStatus role = lookupRoleStatus(roleId);
     // increment its count
     role.incActual();
+    role.incStarted();
     String roleName = role.getName();
-    
-    log.info("Rebuilding container {} in role {} on {},",
-             cid,
-             roleName,
-             containerHostInfo);
-
-    //update app state internal structures and maps
+    log.debug("Rebuilding container {} in role {} on {}",
+              container.getId(), roleName, container.getNodeId());
 
     RoleInstance instance = new RoleInstance(container);
     instance.command = roleName;
@@ -2672,15 +3170,30 @@ public class AppState {
     instance.environment = new String[0];
     instance.container = container;
     instance.createTime = now();
+    instance.startTime = instance.createTime;
     instance.state = STATE_LIVE;
     instance.appVersion = SliderKeys.APP_VERSION_UNKNOWN;
-    putOwnedContainer(cid, instance);
-    //role history gets told
-    roleHistory.onContainerAssigned(container);
-    // pretend the container has just had its start actions submitted
-    containerStartSubmitted(container, instance);
-    // now pretend it has just started
-    innerOnNodeManagerContainerStarted(cid);
+    instance.logLink = AppState.getLiveLogsURLForContainer(container);
+    return instance;
+  }
+
+  /**
+   * Add a rebuilt instance to the owned and live containers
+   * and the diagnostics.
+   * @param instance instance from {@link #buildRestartedInstance(Container)}
+   */
+  private void addRestartedInstance(RoleInstance instance) {
+    ContainerId cid = instance.getContainerId();
+    addLiveContainer(instance.group, cid);
+    ownedContainers.put(cid, instance);
+    getLiveContainers().put(cid, instance);
+    incStartedCountainerCount();
+    lastAllocationTime = instance.startTime;
+    ContainerInformation ci = instance.serialize();
+    if (ci != null) {
+      ci.logLink = instance.logLink;
+    }
+    getApplicationDiagnostics().addContainer(ci);
   }
 
   public ApplicationDiagnostics getApplicationDiagnostics() {
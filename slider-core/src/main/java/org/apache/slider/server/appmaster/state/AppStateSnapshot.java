@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.state;
+
+import org.apache.slider.api.types.RoleStatistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of the container membership of an
+ * {@link AppState}.
+ * <p>
+ * Snapshots are built by the app state on demand and consumed by readers
+ * (REST, IPC, providers) without acquiring the app state monitor.
+ * The collections are all unmodifiable; the {@link RoleInstance} entries
+ * within them are the live objects, so their fields may still change
+ * after the snapshot was taken. What is frozen is the membership: which
+ * containers were live/owned, and in which role, at the given version.
+ */
+public final class AppStateSnapshot {
+
+  /**
+   * Version of the app state this snapshot was built from
+   */
+  public final long version;
+
+  /**
+   * Time in millis the snapshot was built
+   */
+  public final long timestamp;
+
+  private final List<RoleInstance> liveContainers;
+  private final List<RoleInstance> ownedContainers;
+  private final Map<String, RoleInstance> liveContainersById;
+  private final Map<String, List<RoleInstance>> liveContainersByRole;
+  private final List<RoleStatus> roleStatuses;
+
+  /**
+   * Build a snapshot
+   * @param version state version
+   * @param timestamp time of creation
+   * @param live live containers
+   * @param owned owned containers
+   * @param roleStatuses role status entries to read statistics from
+   */
+  AppStateSnapshot(long version,
+      long timestamp,
+      Collection<RoleInstance> live,
+      Collection<RoleInstance> owned,
+      Collection<RoleStatus> roleStatuses) {
+    this.version = version;
+    this.timestamp = timestamp;
+    List<RoleInstance> liveList = new ArrayList<>(live);
+    Map<String, RoleInstance> byId = new HashMap<>(liveList.size() * 2);
+    Map<String, List<RoleInstance>> byRole = new HashMap<>();
+    for (RoleInstance instance : liveList) {
+      byId.put(instance.id, instance);
+      List<RoleInstance> instances = byRole.get(instance.role);
+      if (instances == null) {
+        instances = new ArrayList<>();
+        byRole.put(instance.role, instances);
+      }
+      instances.add(instance);
+    }
+    for (Map.Entry<String, List<RoleInstance>> entry : byRole.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    this.liveContainers = Collections.unmodifiableList(liveList);
+    this.ownedContainers = Collections.unmodifiableList(
+        new ArrayList<>(owned));
+    this.liveContainersById = Collections.unmodifiableMap(byId);
+    this.liveContainersByRole = Collections.unmodifiableMap(byRole);
+    this.roleStatuses = new ArrayList<>(roleStatuses);
+  }
+
+  /**
+   * Get the live containers
+   * @return an unmodifiable list
+   */
+  public List<RoleInstance> getLiveContainers() {
+    return liveContainers;
+  }
+
+  /**
+   * Get the owned containers; a superset of the live list
+   * @return an unmodifiable list
+   */
+  public List<RoleInstance> getOwnedContainers() {
+    return ownedContainers;
+  }
+
+  /**
+   * Look up a live container by its string container ID
+   * @param containerId container ID
+   * @return the instance or null
+   */
+  public RoleInstance lookupLiveContainer(String containerId) {
+    return liveContainersById.get(containerId);
+  }
+
+  /**
+   * Get the live containers of a role
+   * @param role role name
+   * @return an unmodifiable, possibly empty, list
+   */
+  public List<RoleInstance> getLiveContainersInRole(String role) {
+    List<RoleInstance> instances = liveContainersByRole.get(role);
+    return instances != null ? instances
+                             : Collections.<RoleInstance>emptyList();
+  }
+
+  /**
+   * Get the map of role name to live containers
+   * @return an unmodifiable map
+   */
+  public Map<String, List<RoleInstance>> getLiveContainersByRole() {
+    return liveContainersByRole;
+  }
+
+  /**
+   * Get the per-role statistics. The role counters change without
+   * changing the state version, so these are read from the role status
+   * entries on every call rather than frozen with the snapshot.
+   * @return a map of role name to statistics
+   */
+  public Map<String, RoleStatistics> getRoleStatistics() {
+    Map<String, RoleStatistics> stats = new HashMap<>(roleStatuses.size());
+    for (RoleStatus roleStatus : roleStatuses) {
+      stats.put(roleStatus.getName(), roleStatus.getStatistics());
+    }
+    return stats;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("AppStateSnapshot{");
+    sb.append("version=").append(version);
+    sb.append(", timestamp=").append(timestamp);
+    sb.append(", live=").append(liveContainers.size());
+    sb.append(", owned=").append(ownedContainers.size());
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.state;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * The cluster status of an {@link AppState}, serialized as JSON.
+ * <p>
+ * Documents are built when the app state has changed since the last one
+ * (or it has grown too old, as some of the content, such as the resources
+ * available from the RM, changes without the state changing) and are
+ * then served as-is to every caller.
+ * <p>
+ * Document versions increase monotonically, including across AM
+ * restarts, so a caller can present the version it holds and be told
+ * when that is still current rather than be sent the document again.
+ */
+public final class ClusterStatusDocument {
+
+  /**
+   * Version of the document
+   */
+  public final long version;
+
+  /**
+   * Version of the app state the document was built from
+   */
+  public final long stateVersion;
+
+  /**
+   * Time in millis the document was built, or last found unchanged
+   */
+  public final long timestamp;
+
+  private final ByteString json;
+
+  ClusterStatusDocument(long version,
+      long stateVersion,
+      long timestamp,
+      ByteString json) {
+    this.version = version;
+    this.stateVersion = stateVersion;
+    this.timestamp = timestamp;
+    this.json = json;
+  }
+
+  /**
+   * Get the UTF-8 encoded JSON of the status. This is immutable, so
+   * may be handed directly to protobuf or written to a stream.
+   * @return the serialized status
+   */
+  public ByteString getJson() {
+    return json;
+  }
+
+  /**
+   * Get the HTTP entity tag of this document
+   * @return the version as an (unquoted) entity tag value
+   */
+  public String getETag() {
+    return Long.toHexString(version);
+  }
+
+  /**
+   * Is this version of the document current as far as a caller holding
+   * the given version is concerned?
+   * @param sinceVersion version the caller holds
+   * @return true if the caller's copy is up to date
+   */
+  public boolean isUnchangedSince(long sinceVersion) {
+    return sinceVersion == version;
+  }
+
+  @Override
+  public String toString() {
+    return "ClusterStatusDocument{" +
+           "version=" + version +
+           ", stateVersion=" + stateVersion +
+           ", size=" + json.size() +
+           '}';
+  }
+}
@@ -82,6 +82,9 @@ public class NodeEntry implements Cloneable {
   /** timestamp of last use */
   private long lastUsed;
 
+  /** counter of updates to this entry */
+  private long version;
+
   /**
    * Is the node available for assignments? That is, it is
    * not running any instances of this type, nor are there
@@ -135,6 +138,7 @@ public class NodeEntry implements Cloneable {
    */
   public synchronized void setLive(int v) {
     live = v;
+    ++version;
   }
   
   private synchronized void incLive() {
@@ -147,6 +151,7 @@ public class NodeEntry implements Cloneable {
   
   public synchronized void onStarting() {
     ++starting;
+    ++version;
   }
 
   private void decStarting() {
@@ -156,6 +161,7 @@ public class NodeEntry implements Cloneable {
   public synchronized void onStartCompleted() {
     decStarting();
     incLive();
+    ++version;
   }
   
     /**
@@ -181,6 +187,7 @@ public class NodeEntry implements Cloneable {
    */
   public synchronized void request() {
     ++requested;
+    ++version;
   }
 
   /**
@@ -188,6 +195,7 @@ public class NodeEntry implements Cloneable {
    */
   public synchronized void requestCompleted() {
     requested = RoleHistoryUtils.decToFloor(requested);
+    ++version;
   }
 
   /**
@@ -202,6 +210,7 @@ public class NodeEntry implements Cloneable {
    */
   public synchronized void release() {
     releasing++;
+    ++version;
   }
 
   /**
@@ -240,6 +249,7 @@ public class NodeEntry implements Cloneable {
       }
     }
     decLive();
+    ++version;
     return isAvailable();
   }
 
@@ -252,6 +262,7 @@ public class NodeEntry implements Cloneable {
 
   public synchronized void setLastUsed(long lastUsed) {
     this.lastUsed = lastUsed;
+    ++version;
   }
 
   public synchronized int getStartFailed() {
@@ -269,6 +280,7 @@ public class NodeEntry implements Cloneable {
   @VisibleForTesting
   public synchronized void setFailedRecently(int failedRecently) {
     this.failedRecently = failedRecently;
+    ++version;
   }
 
   public synchronized int getPreempted() {
@@ -281,6 +293,15 @@ public class NodeEntry implements Cloneable {
    */
   public synchronized void resetFailedRecently() {
     failedRecently = 0;
+    ++version;
+  }
+
+  /**
+   * Get the version of this entry; it is incremented on every update
+   * @return the current version
+   */
+  public synchronized long getVersion() {
+    return version;
   }
 
   @Override
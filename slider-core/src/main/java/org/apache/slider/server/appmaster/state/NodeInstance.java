@@ -74,6 +74,13 @@ public class NodeInstance {
    */
   private final List<NodeEntry> nodeEntries;
 
+  /**
+   * Counter of updates to the node and its list of entries. The
+   * versions of entries removed from the list are added to it, so
+   * that {@link #getVersion()} never goes backwards.
+   */
+  private long version;
+
   /**
    * Create an instance and the (empty) array of nodes
    * @param roles role count -the no. of roles
@@ -84,7 +91,10 @@ public class NodeInstance {
   }
 
   public synchronized void setBlacklisted(boolean blacklisted) {
-    this.blacklisted = blacklisted;
+    if (this.blacklisted != blacklisted) {
+      this.blacklisted = blacklisted;
+      ++version;
+    }
   }
 
   public boolean isBlacklisted() {
@@ -114,6 +124,9 @@ public class NodeInstance {
     boolean nodeNowAvailable = oldStateUnusable && newUsable;
     String labels = this.nodeLabels;
     nodeLabels = SliderUtils.extractNodeLabel(report);
+    if (oldState != nodeState || !nodeLabels.equals(labels)) {
+      ++version;
+    }
     return nodeNowAvailable
         || newUsable && !this.nodeLabels.equals(labels);
   }
@@ -148,6 +161,7 @@ public class NodeInstance {
     if (entry == null) {
       entry = new NodeEntry(role);
       nodeEntries.add(entry);
+      ++version;
     }
     return entry;
   }
@@ -182,6 +196,19 @@ public class NodeInstance {
     return (nodeEntry != null ) ? nodeEntry.getLive() : 0;
   }
 
+  /**
+   * Get the version of the state of this node; it changes whenever
+   * the node or any of its entries is updated
+   * @return the current version
+   */
+  public synchronized long getVersion() {
+    long v = version;
+    for (NodeEntry entry : nodeEntries) {
+      v += entry.getVersion();
+    }
+    return v;
+  }
+
   /**
    * Is the node considered online
    * @return the node
@@ -210,6 +237,7 @@ public class NodeInstance {
     NodeEntry nodeEntry = get(role);
     if (nodeEntry != null) {
       nodeEntries.remove(nodeEntry);
+      version += nodeEntry.getVersion() + 1;
     }
     return nodeEntry;
   }
@@ -217,6 +245,7 @@ public class NodeInstance {
   public synchronized void set(int role, NodeEntry nodeEntry) {
     remove(role);
     nodeEntries.add(nodeEntry);
+    ++version;
   }
 
   /**
@@ -232,6 +261,7 @@ public class NodeInstance {
       NodeEntry entry = entries.next();
       if (entry.notUsedSince(absoluteTime) && entry.getFailedRecently() == 0) {
         entries.remove();
+        version += entry.getVersion() + 1;
       } else {
         active = true;
       }
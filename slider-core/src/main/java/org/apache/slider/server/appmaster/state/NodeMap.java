@@ -33,6 +33,11 @@ import java.util.Map;
 /**
  * Node map map -and methods to work with it. 
  * Not Synchronized: caller is expected to lock access.
+ * <p>
+ * A list of the nodes sorted by hostname is cached for placement queries.
+ * Rather than trying to intercept every path by which the map can change
+ * (including its views and iterators), the list is checked against the
+ * map before each use and rebuilt if the membership differs.
  */
 public class NodeMap extends HashMap<String, NodeInstance> {
   protected static final Logger log =
@@ -43,6 +48,12 @@ public class NodeMap extends HashMap<String, NodeInstance> {
    */
   private final int roleSize;
 
+  /**
+   * Nodes sorted by hostname, as of when it was last built; null if never
+   * built. Never modified once built, so may be shared with clones.
+   */
+  private transient List<NodeInstance> sortedNodes;
+
   /**
    * Construct
    * @param roleSize number of roles
@@ -51,6 +62,43 @@ public class NodeMap extends HashMap<String, NodeInstance> {
     this.roleSize = roleSize;
   }
 
+  /**
+   * Get the nodes sorted by hostname, building the list if the
+   * membership of the map has changed.
+   * @return an unmodifiable list
+   */
+  private List<NodeInstance> sortedNodes() {
+    List<NodeInstance> nodes = sortedNodes;
+    if (nodes == null || !isCurrent(nodes)) {
+      nodes = new ArrayList<>(values());
+      Collections.sort(nodes, new NodeInstance.CompareNames());
+      nodes = Collections.unmodifiableList(nodes);
+      sortedNodes = nodes;
+    }
+    return nodes;
+  }
+
+  /**
+   * Check that a list built from the map still holds exactly its values.
+   * The list entries are distinct, so if every one is mapped from its
+   * hostname and the sizes match, the membership is unchanged.
+   * This is O(n) without allocation, against the O(n log n) of a rebuild.
+   * Node state changes do not affect the hostname ordering.
+   * @param nodes cached list
+   * @return true if the list matches the map's current values
+   */
+  private boolean isCurrent(List<NodeInstance> nodes) {
+    if (nodes.size() != size()) {
+      return false;
+    }
+    for (NodeInstance node : nodes) {
+      if (get(node.hostname) != node) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Get the node instance for the specific node -creating it if needed
    * @param hostname node
@@ -143,19 +191,20 @@ public class NodeMap extends HashMap<String, NodeInstance> {
   }
 
   /**
-   * Scan the current node map for all nodes capable of hosting an instance
+   * Scan the current node map for all nodes capable of hosting an instance.
+   * The nodes are scanned in hostname order, so the result needs no sorting.
    * @param role role ID
    * @param label label which must match, or "" for no label checks
-   * @return a possibly empty list of node instances matching the criteria.
+   * @return a possibly empty list of node instances matching the criteria,
+   * sorted by hostname.
    */
   public List<NodeInstance> findAllNodesForRole(int role, String label) {
-    List<NodeInstance> nodes = new ArrayList<>(size());
-    for (NodeInstance instance : values()) {
+    List<NodeInstance> nodes = new ArrayList<>();
+    for (NodeInstance instance : sortedNodes()) {
       if (instance.canHost(role, label)) {
         nodes.add(instance);
       }
     }
-    Collections.sort(nodes, new NodeInstance.CompareNames());
     return nodes;
   }
 
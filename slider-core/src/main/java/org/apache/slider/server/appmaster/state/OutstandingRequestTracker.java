@@ -31,15 +31,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -53,6 +58,17 @@ import java.util.Set;
  * If an allocation comes in that is not in the map: either the allocation
  * was unplaced, or the placed allocation could not be met on the specified
  * host, and the RM/scheduler fell back to another location. 
+ * <p>
+ * The requests are indexed so that the operations performed on every
+ * allocation and every escalation check do not scan all outstanding requests:
+ * <ol>
+ *   <li>placed requests by (role, hostname) and by role</li>
+ *   <li>open requests by role</li>
+ *   <li>issued placed requests by escalation time, in a heap</li>
+ * </ol>
+ * The escalation heap is maintained lazily: entries for requests which have
+ * since been satisfied or cancelled are discarded when they reach the head
+ * of the queue, or when the heap is compacted.
  */
 
 public class OutstandingRequestTracker {
@@ -63,19 +79,56 @@ public class OutstandingRequestTracker {
    * no requests; saves creating a new list if not needed
    */
   private final List<AbstractRMOperation> NO_REQUESTS = new ArrayList<>(0);
- 
-  private Map<RoleHostnamePair, OutstandingRequest> placedRequests = new HashMap<>();
 
   /**
-   * List of open requests; no specific details on them.
+   * Minimum number of stale entries in the escalation queue before
+   * it is compacted.
+   */
+  private static final int ESCALATION_QUEUE_COMPACTION_THRESHOLD = 256;
+
+  /**
+   * Placed requests by (role, hostname)
    */
-  private List<OutstandingRequest> openRequests = new ArrayList<>();
+  private final Map<RoleHostnamePair, OutstandingRequest> placedRequests =
+      new LinkedHashMap<>();
+
+  /**
+   * Placed requests by role
+   */
+  private final Map<Integer, Set<OutstandingRequest>> placedRequestsByRole =
+      new HashMap<>();
+
+  /**
+   * Open requests, by role; no specific details on them.
+   * These are lists as open requests do not have unique (role, hostname)
+   * pairs, so cannot be placed in a hash structure.
+   */
+  private final Map<Integer, List<OutstandingRequest>> openRequestsByRole =
+      new HashMap<>();
+
+  /**
+   * Count of open requests across all roles
+   */
+  private int openRequestCount;
+
+  /**
+   * Placed requests which have not yet been added to the escalation queue,
+   * usually because they had not been issued when last checked.
+   */
+  private final Deque<OutstandingRequest> unscheduledEscalations =
+      new ArrayDeque<>();
+
+  /**
+   * Placed requests ordered by their escalation time.
+   */
+  private final PriorityQueue<EscalationEntry> escalationQueue =
+      new PriorityQueue<>();
 
   /**
    * Create a new request for the specific role.
    * <p>
    * If a location is set, the request is added to {@link #placedRequests}.
-   * If not, it is added to {@link #openRequests}
+   * If not, it is added to the open requests
    * <p>
    * This does not update the node instance's role's request count
    * @param instance node instance to manager
@@ -85,9 +138,9 @@ public class OutstandingRequestTracker {
   public synchronized OutstandingRequest newRequest(NodeInstance instance, int role) {
     OutstandingRequest request = new OutstandingRequest(role, instance);
     if (request.isLocated()) {
-      placedRequests.put(request.getIndex(), request);
+      addPlacedRequest(request);
     } else {
-      openRequests.add(request);
+      addOpenRequest(request);
     }
     return request;
   }
@@ -95,7 +148,7 @@ public class OutstandingRequestTracker {
   /**
    * Create a new Anti-affine request for the specific role
    * <p>
-   * It is added to {@link #openRequests}
+   * It is added to the open requests
    * <p>
    * This does not update the node instance's role's request count
    * @param role role index
@@ -113,7 +166,7 @@ public class OutstandingRequestTracker {
         "Cannot allocate role ID %d to node %s", role, node);
     }
     OutstandingRequest request = new OutstandingRequest(role, nodes);
-    openRequests.add(request);
+    addOpenRequest(request);
     return request;
   }
 
@@ -136,7 +189,67 @@ public class OutstandingRequestTracker {
    */
   @VisibleForTesting
   public synchronized OutstandingRequest removePlacedRequest(OutstandingRequest request) {
-    return placedRequests.remove(request);
+    return removePlaced(request);
+  }
+
+  /**
+   * Add a placed request to the indexes, and queue it for
+   * escalation scheduling.
+   * @param request request
+   */
+  private void addPlacedRequest(OutstandingRequest request) {
+    OutstandingRequest existing = placedRequests.put(request.getIndex(), request);
+    if (existing != null) {
+      placedRequestsByRole.get(existing.roleId).remove(existing);
+    }
+    Set<OutstandingRequest> requests = placedRequestsByRole.get(request.roleId);
+    if (requests == null) {
+      requests = new LinkedHashSet<>();
+      placedRequestsByRole.put(request.roleId, requests);
+    }
+    requests.add(request);
+    unscheduledEscalations.add(request);
+  }
+
+  /**
+   * Remove a placed request from the indexes.
+   * Any entry in the escalation queue is left to be discarded lazily.
+   * @param key (role, hostname) key
+   * @return the removed request or null
+   */
+  private OutstandingRequest removePlaced(RoleHostnamePair key) {
+    OutstandingRequest request = placedRequests.remove(key);
+    if (request != null) {
+      Set<OutstandingRequest> requests = placedRequestsByRole.get(request.roleId);
+      requests.remove(request);
+      if (requests.isEmpty()) {
+        placedRequestsByRole.remove(request.roleId);
+      }
+    }
+    return request;
+  }
+
+  /**
+   * Is a request the current placed request for its (role, hostname) pair?
+   * @param request request
+   * @return true if it is in the placed request map
+   */
+  private boolean isPlaced(OutstandingRequest request) {
+    return placedRequests.get(request) == request;
+  }
+
+  /**
+   * Add an open request
+   * @param request request
+   */
+  private void addOpenRequest(OutstandingRequest request) {
+    List<OutstandingRequest> requests = openRequestsByRole.get(request.roleId);
+    if (requests == null) {
+      requests = new LinkedList<>();
+      openRequestsByRole.put(request.roleId, requests);
+    }
+    requests.add(request);
+    openRequestCount++;
   }
 
   /**
@@ -160,7 +273,7 @@ public class OutstandingRequestTracker {
         containerDetails);
     ContainerAllocationResults allocation = new ContainerAllocationResults();
     ContainerAllocationOutcome outcome;
-    OutstandingRequest request = placedRequests.remove(new OutstandingRequest(role, hostname));
+    OutstandingRequest request = removePlaced(new RoleHostnamePair(role, hostname));
     if (request != null) {
       //satisfied request
       log.debug("Found oustanding placed request for container: {}", request);
@@ -172,7 +285,7 @@ public class OutstandingRequestTracker {
     } else {
       // not in the list; this is an open placement
       // scan through all containers in the open request list
-      request = removeOpenRequest(container);
+      request = removeOpenRequest(role, container);
       if (request != null) {
         log.debug("Found open outstanding request for container: {}", request);
         request.completed();
@@ -182,7 +295,7 @@ public class OutstandingRequestTracker {
       } else {
         log.warn("No oustanding request found for container {}, outstanding queue has {} entries ",
             containerDetails,
-            openRequests.size());
+            openRequestCount);
         outcome = ContainerAllocationOutcome.Unallocated;
       }
     }
@@ -201,17 +314,22 @@ public class OutstandingRequestTracker {
   }
 
   /**
-   * Find and remove an open request. Determine it by scanning open requests
-   * for one whose priority & resource requirements match that of the container
-   * allocated.
+   * Find and remove an open request. Determine it by scanning the open requests
+   * of the role for one whose priority & resource requirements match that of
+   * the container allocated.
+   * @param role role index
    * @param container container allocated
    * @return a request which matches the allocation, or null for "no match"
    */
-  private OutstandingRequest removeOpenRequest(Container container) {
+  private OutstandingRequest removeOpenRequest(int role, Container container) {
+    List<OutstandingRequest> requests = openRequestsByRole.get(role);
+    if (requests == null) {
+      return null;
+    }
     int pri = container.getPriority().getPriority();
     Resource resource = container.getResource();
     OutstandingRequest request = null;
-    ListIterator<OutstandingRequest> openlist = openRequests.listIterator();
+    ListIterator<OutstandingRequest> openlist = requests.listIterator();
     while (openlist.hasNext() && request == null) {
       OutstandingRequest r = openlist.next();
       if (r.getPriority() == pri) {
@@ -220,11 +338,15 @@ public class OutstandingRequestTracker {
           // match of priority and resources
           request = r;
           openlist.remove();
+          openRequestCount--;
         } else {
           log.debug("Matched priorities but resources different");
         }
       }
     }
+    if (requests.isEmpty()) {
+      openRequestsByRole.remove(role);
+    }
     return request;
   }
   
@@ -303,7 +425,7 @@ public class OutstandingRequestTracker {
     for (Container container : inAllocated) {
       int role = ContainerPriority.extractRole(container);
       String hostname = RoleHistoryUtils.hostnameOf(container);
-      if (placedRequests.containsKey(new OutstandingRequest(role, hostname))) {
+      if (placedRequests.containsKey(new RoleHostnamePair(role, hostname))) {
         outPlaceRequested.add(container);
       } else {
         outUnplaced.add(container);
@@ -321,24 +443,17 @@ public class OutstandingRequestTracker {
    */
   public synchronized List<NodeInstance> resetOutstandingRequests(int role) {
     List<NodeInstance> hosts = new ArrayList<>();
-    Iterator<Map.Entry<RoleHostnamePair, OutstandingRequest>> iterator =
-      placedRequests.entrySet().iterator();
-    while (iterator.hasNext()) {
-      Map.Entry<RoleHostnamePair, OutstandingRequest> next =
-        iterator.next();
-      OutstandingRequest request = next.getValue();
-      if (request.roleId == role) {
-        iterator.remove();
+    Set<OutstandingRequest> placed = placedRequestsByRole.remove(role);
+    if (placed != null) {
+      for (OutstandingRequest request : placed) {
+        placedRequests.remove(request);
         request.completed();
         hosts.add(request.node);
       }
     }
-    ListIterator<OutstandingRequest> openlist = openRequests.listIterator();
-    while (openlist.hasNext()) {
-      OutstandingRequest next = openlist.next();
-      if (next.roleId == role) {
-        openlist.remove();
-      }
+    List<OutstandingRequest> open = openRequestsByRole.remove(role);
+    if (open != null) {
+      openRequestCount -= open.size();
     }
     return hosts;
   }
@@ -358,23 +473,39 @@ public class OutstandingRequestTracker {
    * @return a list of the current outstanding requests
    */
   public synchronized List<OutstandingRequest> listOpenRequests() {
-    return new ArrayList<>(openRequests);
+    List<OutstandingRequest> requests = new ArrayList<>(openRequestCount);
+    for (List<OutstandingRequest> roleRequests : openRequestsByRole.values()) {
+      requests.addAll(roleRequests);
+    }
+    return requests;
   }
 
   /**
    * Escalate operation as triggered by external timer.
+   * <p>
+   * Only those requests whose escalation time has passed are examined.
    * @return a (usually empty) list of cancel/request operations.
    */
   @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
   public synchronized List<AbstractRMOperation> escalateOutstandingRequests(long now) {
     if (placedRequests.isEmpty()) {
+      // anything queued for escalation is stale
+      unscheduledEscalations.clear();
+      escalationQueue.clear();
       return NO_REQUESTS;
     }
+    scheduleEscalations();
 
     List<AbstractRMOperation> operations = new ArrayList<>();
-    List<RoleHostnamePair> requestsToMove = new ArrayList<>();
-    for (Map.Entry<RoleHostnamePair, OutstandingRequest> entry : placedRequests.entrySet()) {
-      OutstandingRequest outstandingRequest = entry.getValue();
+    EscalationEntry head;
+    while ((head = escalationQueue.peek()) != null
+           && head.escalationTime < now) {
+      escalationQueue.poll();
+      OutstandingRequest outstandingRequest = head.request;
+      if (!isPlaced(outstandingRequest)) {
+        // satisfied or cancelled since it was queued
+        continue;
+      }
       synchronized (outstandingRequest) {
         // sync escalation check with operation so that nothing can happen to state
         // of the request during the escalation
@@ -385,18 +516,57 @@ public class OutstandingRequestTracker {
           operations.add(cancel);
           AMRMClient.ContainerRequest escalated = outstandingRequest.escalate();
           operations.add(new ContainerRequestOperation(escalated));
-          requestsToMove.add(entry.getKey());
+          log.info("move placedRequests to openRequests {}", outstandingRequest);
+          removePlaced(outstandingRequest.getIndex());
+          addOpenRequest(outstandingRequest);
+        } else if (outstandingRequest.mayEscalate()
+                   && !outstandingRequest.isEscalated()) {
+          // the request was reissued with a later timeout
+          escalationQueue.add(new EscalationEntry(outstandingRequest));
         }
       }
     }
-    for (RoleHostnamePair keys : requestsToMove) {
-      OutstandingRequest escalatedOutstandingRequest = placedRequests.get(keys);
-      log.info("move placedRequests to openRequests {}", escalatedOutstandingRequest);
-      openRequests.add(escalatedOutstandingRequest);
-      placedRequests.remove(keys);
+    return operations;
+  }
+
+  /**
+   * Move all issued placed requests which may escalate from the
+   * unscheduled list into the escalation queue, compacting the queue
+   * if too many of its entries have become stale.
+   */
+  private void scheduleEscalations() {
+    int unscheduled = unscheduledEscalations.size();
+    for (int i = 0; i < unscheduled; i++) {
+      OutstandingRequest request = unscheduledEscalations.poll();
+      if (!isPlaced(request)) {
+        continue;
+      }
+      if (request.getIssuedRequest() == null) {
+        // not yet issued: check again next time
+        unscheduledEscalations.add(request);
+      } else if (request.mayEscalate()) {
+        escalationQueue.add(new EscalationEntry(request));
+      }
     }
+    if (escalationQueue.size() - placedRequests.size()
+        > ESCALATION_QUEUE_COMPACTION_THRESHOLD) {
+      Iterator<EscalationEntry> iterator = escalationQueue.iterator();
+      while (iterator.hasNext()) {
+        if (!isPlaced(iterator.next().request)) {
+          iterator.remove();
+        }
+      }
+    }
+  }
 
-    return operations;
+  /**
+   * Get the number of entries in the escalation queue, including
+   * any stale ones not yet discarded
+   * @return the size of the queue
+   */
+  @VisibleForTesting
+  public synchronized int getEscalationQueueSize() {
+    return escalationQueue.size();
   }
 
   /**
@@ -425,20 +595,29 @@ public class OutstandingRequestTracker {
       }
     }
     for (RoleHostnamePair keys : requestsToRemove) {
-      placedRequests.remove(keys);
+      removePlaced(keys);
     }
 
     // second, all open requests
-    ListIterator<OutstandingRequest> orit = openRequests.listIterator();
-    while (orit.hasNext()) {
-      OutstandingRequest outstandingRequest =  orit.next();
-      synchronized (outstandingRequest) {
-        if (outstandingRequest.isAntiAffine()) {
-          // time to escalate
-          operations.add(outstandingRequest.createCancelOperation());
-          orit.remove();
+    Iterator<List<OutstandingRequest>> roles =
+        openRequestsByRole.values().iterator();
+    while (roles.hasNext()) {
+      List<OutstandingRequest> requests = roles.next();
+      ListIterator<OutstandingRequest> orit = requests.listIterator();
+      while (orit.hasNext()) {
+        OutstandingRequest outstandingRequest =  orit.next();
+        synchronized (outstandingRequest) {
+          if (outstandingRequest.isAntiAffine()) {
+            // time to escalate
+            operations.add(outstandingRequest.createCancelOperation());
+            orit.remove();
+            openRequestCount--;
+          }
         }
       }
+      if (requests.isEmpty()) {
+        roles.remove();
+      }
     }
     log.info("Cancelling {} outstanding AA requests", operations.size());
 
@@ -453,14 +632,19 @@ public class OutstandingRequestTracker {
    */
   public synchronized List<OutstandingRequest> extractOpenRequestsForRole(int roleId, int count) {
     List<OutstandingRequest> results = new ArrayList<>();
-    ListIterator<OutstandingRequest> openlist = openRequests.listIterator();
+    List<OutstandingRequest> requests = openRequestsByRole.get(roleId);
+    if (requests == null) {
+      return results;
+    }
+    ListIterator<OutstandingRequest> openlist = requests.listIterator();
     while (openlist.hasNext() && count > 0) {
-      OutstandingRequest openRequest = openlist.next();
-      if (openRequest.roleId == roleId) {
-        results.add(openRequest);
-        openlist.remove();
-        count--;
-      }
+      results.add(openlist.next());
+      openlist.remove();
+      openRequestCount--;
+      count--;
+    }
+    if (requests.isEmpty()) {
+      openRequestsByRole.remove(roleId);
     }
     return results;
   }
@@ -473,21 +657,40 @@ public class OutstandingRequestTracker {
    */
   public synchronized List<OutstandingRequest> extractPlacedRequestsForRole(int roleId, int count) {
     List<OutstandingRequest> results = new ArrayList<>();
-    Iterator<Map.Entry<RoleHostnamePair, OutstandingRequest>>
-        iterator = placedRequests.entrySet().iterator();
+    Set<OutstandingRequest> requests = placedRequestsByRole.get(roleId);
+    if (requests == null) {
+      return results;
+    }
+    Iterator<OutstandingRequest> iterator = requests.iterator();
     while (iterator.hasNext() && count > 0) {
-      OutstandingRequest request = iterator.next().getValue();
-      if (request.roleId == roleId) {
-        results.add(request);
-        count--;
-      }
+      results.add(iterator.next());
+      count--;
     }
-    // now cull them from the map
+    // now cull them from the maps
     for (OutstandingRequest result : results) {
-      placedRequests.remove(result);
+      removePlaced(result);
     }
 
     return results;
   }
 
+  /**
+   * An entry in the escalation queue. The escalation time is captured
+   * when the entry is created, so that the heap ordering is stable.
+   */
+  private static final class EscalationEntry
+      implements Comparable<EscalationEntry> {
+    final long escalationTime;
+    final OutstandingRequest request;
+
+    EscalationEntry(OutstandingRequest request) {
+      this.request = request;
+      this.escalationTime = request.getEscalationTimeoutMillis();
+    }
+
+    @Override
+    public int compareTo(EscalationEntry that) {
+      return Long.compare(escalationTime, that.escalationTime);
+    }
+  }
 }
@@ -25,6 +25,7 @@ import org.apache.slider.api.ClusterDescription;
 import org.apache.slider.api.ClusterNode;
 import org.apache.slider.api.types.ApplicationDiagnostics;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.NodeInformation;
 import org.apache.slider.api.types.RoleStatistics;
@@ -36,6 +37,7 @@ import org.apache.slider.core.registry.docstore.PublishedExportsSet;
 import org.apache.slider.server.appmaster.web.rest.RestPaths;
 import org.apache.slider.server.services.utility.PatternValidator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -226,6 +228,22 @@ public class ProviderAppState implements StateAccessForProviders {
     return appState.refreshClusterStatus();
   }
 
+  @Override
+  public ClusterStatusDocument getClusterStatusDocument() throws IOException {
+    return appState.getClusterStatusDocument();
+  }
+
+  @Override
+  public long getStateVersion() {
+    return appState.getStateVersion();
+  }
+
+  @Override
+  public ApplicationStateChanges getApplicationStateChanges(long resumeToken,
+      long timeout) throws InterruptedException {
+    return appState.getApplicationStateChanges(resumeToken, timeout);
+  }
+
   @Override
   public List<RoleStatus> cloneRoleStatusList() {
     return appState.cloneRoleStatusList();
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.state;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The recently used nodes of a single role, most recently used first.
+ * <p>
+ * Each node appears at most once. Its position is fixed by the last used
+ * time supplied when it was added, so the list never needs re-sorting;
+ * adding a node which is already present moves it to its new position.
+ * Insertion and removal are {@code O(log n)}.
+ * <p>
+ * Not synchronized: the caller is expected to lock access.
+ */
+public class RecentNodeList implements Iterable<NodeInstance> {
+
+  /**
+   * Nodes ordered by (last used descending, hostname)
+   */
+  private final TreeMap<Key, NodeInstance> nodes = new TreeMap<>();
+
+  /**
+   * Key of each node in the ordered map, by hostname
+   */
+  private final Map<String, Key> keys = new HashMap<>();
+
+  /**
+   * Add a node, or move it if it is already present
+   * @param node node
+   * @param lastUsed the last used time, which defines its position
+   * @return true if the node was not already in the list
+   */
+  public boolean add(NodeInstance node, long lastUsed) {
+    Key key = new Key(lastUsed, node.hostname);
+    Key existing = keys.put(node.hostname, key);
+    if (existing != null) {
+      nodes.remove(existing);
+    }
+    nodes.put(key, node);
+    return existing == null;
+  }
+
+  /**
+   * Remove a node
+   * @param node node to remove
+   * @return true if it was present
+   */
+  public boolean remove(NodeInstance node) {
+    Key key = keys.remove(node.hostname);
+    if (key != null) {
+      nodes.remove(key);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Query for a node being in the list
+   * @param node node
+   * @return true if it is present
+   */
+  public boolean contains(NodeInstance node) {
+    return keys.containsKey(node.hostname);
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public boolean isEmpty() {
+    return nodes.isEmpty();
+  }
+
+  /**
+   * Iterate through the nodes, most recently used first.
+   * The iterator supports removal.
+   * @return an iterator
+   */
+  @Override
+  public Iterator<NodeInstance> iterator() {
+    final Iterator<Map.Entry<Key, NodeInstance>> entries =
+        nodes.entrySet().iterator();
+    return new Iterator<NodeInstance>() {
+      private Key current;
+
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public NodeInstance next() {
+        Map.Entry<Key, NodeInstance> entry = entries.next();
+        current = entry.getKey();
+        return entry.getValue();
+      }
+
+      @Override
+      public void remove() {
+        entries.remove();
+        keys.remove(current.hostname);
+      }
+    };
+  }
+
+  /**
+   * Copy the nodes into a new list, most recently used first
+   * @return a new list
+   */
+  public List<NodeInstance> toList() {
+    return new ArrayList<>(nodes.values());
+  }
+
+  @Override
+  public String toString() {
+    return nodes.values().toString();
+  }
+
+  /**
+   * Ordering key: most recent first, then by hostname
+   */
+  private static final class Key implements Comparable<Key> {
+    final long lastUsed;
+    final String hostname;
+
+    Key(long lastUsed, String hostname) {
+      this.lastUsed = lastUsed;
+      this.hostname = hostname;
+    }
+
+    @Override
+    public int compareTo(Key that) {
+      int c = Long.compare(that.lastUsed, lastUsed);
+      return c != 0 ? c : hostname.compareTo(that.hostname);
+    }
+  }
+}
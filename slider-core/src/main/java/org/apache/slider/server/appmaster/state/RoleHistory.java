@@ -27,6 +27,7 @@ import org.apache.hadoop.yarn.api.records.NodeReport;
 import org.apache.hadoop.yarn.api.records.NodeState;
 import org.apache.hadoop.yarn.api.records.Resource;
 import org.apache.slider.api.types.NodeInformation;
+import org.apache.slider.common.SliderXmlConfKeys;
 import org.apache.slider.common.tools.SliderUtils;
 import org.apache.slider.core.exceptions.BadConfigException;
 import org.apache.slider.providers.ProviderRole;
@@ -45,8 +46,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -91,6 +92,45 @@ public class RoleHistory {
   private Path historyPath;
   private RoleHistoryWriter historyWriter = new RoleHistoryWriter();
 
+  /**
+   * Is the history saved as a log of deltas against a snapshot?
+   */
+  private boolean deltaLogging;
+
+  /**
+   * Number of deltas after which a new snapshot is written.
+   */
+  private int compactionInterval =
+      SliderXmlConfKeys.DEFAULT_AM_HISTORY_COMPACTION_INTERVAL;
+
+  /**
+   * Path of the current snapshot; null if there is none and so the
+   * next save must be a snapshot.
+   */
+  private Path snapshotPath;
+
+  /**
+   * Time of the current snapshot, used in the names of its deltas.
+   */
+  private long snapshotTime;
+
+  /**
+   * Number of deltas written against the current snapshot.
+   */
+  private int deltaCount;
+
+  /**
+   * Files superseded by the next snapshot: the current snapshot and its
+   * deltas, or those loaded when the history was thawed.
+   */
+  private final List<Path> supersededFiles = new ArrayList<>();
+
+  /**
+   * Map of hostname to the version of the node instance when it was last
+   * written to a snapshot or delta.
+   */
+  private final Map<String, Long> savedNodeVersions = new HashMap<>();
+
   /**
    * When were the nodes updated in a {@link #onNodesUpdated(List)} call?
    * If zero: never.
@@ -104,9 +144,12 @@ public class RoleHistory {
   /**
    * For each role, lists nodes that are available for data-local allocation,
    * ordered by more recently released - to accelerate node selection.
-   * That is, they are "recently used nodes"
+   * That is, they are "recently used nodes".
+   * <p>
+   * These are maintained incrementally as containers start and finish;
+   * they are only fully rebuilt when the history is thawed.
    */
-  private Map<Integer, LinkedList<NodeInstance>> recentNodes;
+  private Map<Integer, RecentNodeList> recentNodes;
 
   /**
    * Instantiate
@@ -133,6 +176,27 @@ public class RoleHistory {
     nodemap = new NodeMap(roleSize);
     resetAvailableNodeLists();
     outstandingRequests = new OutstandingRequestTracker();
+    // the node instances have all been replaced: start a new snapshot
+    snapshotPath = null;
+    savedNodeVersions.clear();
+  }
+
+  /**
+   * Configure how the history is saved. This must be called before
+   * {@link #onStart(FileSystem, Path)}.
+   * @param deltaLog true to save deltas against a periodically
+   * compacted snapshot; false to save a full snapshot every time
+   * @param interval number of deltas written before the next snapshot
+   */
+  public synchronized void setDeltaLogging(boolean deltaLog, int interval) {
+    Preconditions.checkArgument(interval > 0,
+        "compaction interval must be positive: %s", interval);
+    deltaLogging = deltaLog;
+    compactionInterval = interval;
+  }
+
+  public synchronized boolean isDeltaLogging() {
+    return deltaLogging;
   }
 
   /**
@@ -403,9 +467,76 @@ public class RoleHistory {
    */
   @VisibleForTesting
   public synchronized Path saveHistory(long time) throws IOException {
+    Path filename;
+    if (!deltaLogging) {
+      filename = historyWriter.createHistoryFilename(historyPath, time);
+      historyWriter.write(filesystem, filename, true, this, time);
+    } else if (snapshotPath == null || deltaCount >= compactionInterval) {
+      filename = saveSnapshot(time);
+    } else {
+      filename = saveDelta(time);
+    }
+    saved(time);
+    return filename;
+  }
+
+  /**
+   * Save a full snapshot, then delete the files it supersedes.
+   * The node versions are collected before the snapshot is written, so
+   * any change made while writing it will be picked up by the next delta.
+   * @param time save time
+   * @return the path of the snapshot
+   * @throws IOException IO problems
+   */
+  private Path saveSnapshot(long time) throws IOException {
+    savedNodeVersions.clear();
+    for (NodeInstance instance : nodemap.values()) {
+      savedNodeVersions.put(instance.hostname, instance.getVersion());
+    }
     Path filename = historyWriter.createHistoryFilename(historyPath, time);
     historyWriter.write(filesystem, filename, true, this, time);
-    saved(time);
+    for (Path path : supersededFiles) {
+      if (!path.equals(filename)) {
+        try {
+          filesystem.delete(path, false);
+        } catch (IOException e) {
+          log.info("Failed to delete superseded history file {}", path, e);
+        }
+      }
+    }
+    supersededFiles.clear();
+    supersededFiles.add(filename);
+    snapshotPath = filename;
+    snapshotTime = time;
+    deltaCount = 0;
+    log.debug("Saved role history snapshot {}", filename);
+    return filename;
+  }
+
+  /**
+   * Save a delta of all nodes which have changed since the last save
+   * @param time save time
+   * @return the path of the delta
+   * @throws IOException IO problems
+   */
+  private Path saveDelta(long time) throws IOException {
+    List<NodeInstance> changed = new ArrayList<>();
+    Map<String, Long> versions = new HashMap<>();
+    for (NodeInstance instance : nodemap.values()) {
+      long version = instance.getVersion();
+      Long saved = savedNodeVersions.get(instance.hostname);
+      if (saved == null || saved != version) {
+        changed.add(instance);
+        versions.put(instance.hostname, version);
+      }
+    }
+    Path filename = historyWriter.createDeltaFilename(historyPath,
+        snapshotTime, ++deltaCount);
+    supersededFiles.add(filename);
+    long count = historyWriter.writeDelta(filesystem, filename, this, time,
+        changed);
+    savedNodeVersions.putAll(versions);
+    log.debug("Saved role history delta {} with {} records", filename, count);
     return filename;
   }
 
@@ -466,9 +597,13 @@ public class RoleHistory {
       thawSuccessful = true;
       Path loadPath = loadedRoleHistory.getPath();
       log.debug("loaded history from {}", loadPath);
+      // the loaded files are superseded by the first snapshot saved
+      supersededFiles.add(loadPath);
+      supersededFiles.addAll(loadedRoleHistory.deltas);
       // delete any old entries
       try {
         int count = historyWriter.purgeOlderHistoryEntries(filesystem, loadPath);
+        count += historyWriter.purgeOrphanedDeltas(filesystem, loadPath);
         log.debug("Deleted {} old history entries", count);
       } catch (IOException e) {
         log.info("Ignoring exception raised while trying to delete old entries",
@@ -486,7 +621,9 @@ public class RoleHistory {
 
 
   /**
-   * (After the start), rebuild the availability data structures
+   * (After the start), rebuild the availability data structures.
+   * This is {@code O(nodes * roles)}; after this the lists are
+   * maintained incrementally.
    */
   @VisibleForTesting
   public synchronized void buildRecentNodeLists() {
@@ -498,56 +635,38 @@ public class RoleHistory {
         NodeEntry nodeEntry = ni.get(i);
         if (nodeEntry != null && nodeEntry.isAvailable()) {
           log.debug("Adding {} for role {}", ni, i);
-          listRecentNodesForRoleId(i).add(ni);
+          listRecentNodesForRoleId(i).add(ni, nodeEntry.getLastUsed());
         }
       }
     }
-    // sort the resulting arrays
-    for (int i = 0; i < roleSize; i++) {
-      sortRecentNodeList(i);
-    }
   }
 
   /**
    * Get the nodes for an ID -may be null
    * @param id role ID
-   * @return potentially null list
+   * @return potentially null list; a copy of the current list
    */
   @VisibleForTesting
-  public List<NodeInstance> getRecentNodesForRoleId(int id) {
-    return recentNodes.get(id);
+  public synchronized List<NodeInstance> getRecentNodesForRoleId(int id) {
+    RecentNodeList instances = recentNodes.get(id);
+    return instances != null ? instances.toList() : null;
   }
 
   /**
    * Get a possibly empty list of suggested nodes for a role.
+   * Unsynced: requires caller to be in a sync block.
    * @param id role ID
    * @return list
    */
-  private LinkedList<NodeInstance> listRecentNodesForRoleId(int id) {
-    LinkedList<NodeInstance> instances = recentNodes.get(id);
+  private RecentNodeList listRecentNodesForRoleId(int id) {
+    RecentNodeList instances = recentNodes.get(id);
     if (instances == null) {
-      synchronized (this) {
-        // recheck in the synchronized block and recreate
-        if (recentNodes.get(id) == null) {
-          recentNodes.put(id, new LinkedList<NodeInstance>());
-        }
-        instances = recentNodes.get(id);
-      }
+      instances = new RecentNodeList();
+      recentNodes.put(id, instances);
     }
     return instances;
   }
 
-  /**
-   * Sort a the recent node list for a single role
-   * @param role role to sort
-   */
-  private void sortRecentNodeList(int role) {
-    List<NodeInstance> nodesForRoleId = getRecentNodesForRoleId(role);
-    if (nodesForRoleId != null) {
-      Collections.sort(nodesForRoleId, new NodeInstance.Preferred(role));
-    }
-  }
-
   public synchronized UpdateBlacklistOperation updateBlacklist(
       Collection<RoleStatus> roleStatuses) {
     List<String> blacklistAdditions = new ArrayList<>();
@@ -596,21 +715,22 @@ public class RoleHistory {
     NodeInstance nodeInstance = null;
     // Get the list of possible targets.
     // This is a live list: changes here are preserved
-    List<NodeInstance> targets = getRecentNodesForRoleId(roleId);
+    RecentNodeList targets = recentNodes.get(roleId);
     if (targets == null) {
       // nothing to allocate on
       return null;
     }
 
-    int cnt = targets.size();
-    log.debug("There are {} node(s) to consider for {}", cnt, role.getName());
-    for (int i = 0; i < cnt  && nodeInstance == null; i++) {
-      NodeInstance candidate = targets.get(i);
+    log.debug("There are {} node(s) to consider for {}", targets.size(),
+        role.getName());
+    Iterator<NodeInstance> iterator = targets.iterator();
+    while (iterator.hasNext() && nodeInstance == null) {
+      NodeInstance candidate = iterator.next();
       if (candidate.getActiveRoleInstances(roleId) == 0) {
         // no active instances: check failure statistics
         if (strictPlacement
             || (candidate.isOnline() && !candidate.exceedsFailureThreshold(role))) {
-          targets.remove(i);
+          iterator.remove();
           // exit criteria for loop is now met
           nodeInstance = candidate;
         } else {
@@ -618,6 +738,10 @@ public class RoleHistory {
           log.info("Recent node failures is higher than threshold {}. Not requesting host {}",
               role.getNodeFailureThreshold(), candidate.hostname);
         }
+      } else {
+        // an instance is active there; the node will be re-added
+        // when it next becomes available
+        iterator.remove();
       }
     }
 
@@ -822,12 +946,42 @@ public class RoleHistory {
   }
 
   /**
-   * Container start event
+   * Container start event.
+   * The node is no longer a candidate for new instances of the role,
+   * so is dropped from that role's recent node list.
    * @param container container that just started
    */
-  public void onContainerStarted(Container container) {
-    NodeEntry nodeEntry = getOrCreateNodeEntry(container);
+  public synchronized void onContainerStarted(Container container) {
+    NodeInstance node = getOrCreateNodeInstance(container);
+    NodeEntry nodeEntry = node.getOrCreate(container);
     nodeEntry.onStartCompleted();
+    RecentNodeList recent =
+        recentNodes.get(ContainerPriority.extractRole(container));
+    if (recent != null) {
+      recent.remove(node);
+    }
+    touch();
+  }
+
+  /**
+   * Bulk event on an AM restart: the containers of the previous attempt
+   * have all been assigned and started. The history is only touched once,
+   * rather than once per container.
+   * @param containers containers which were running before the restart
+   */
+  public synchronized void onContainersRestarted(
+      Collection<Container> containers) {
+    for (Container container : containers) {
+      NodeInstance node = getOrCreateNodeInstance(container);
+      NodeEntry nodeEntry = node.getOrCreate(container);
+      nodeEntry.onStarting();
+      nodeEntry.onStartCompleted();
+      RecentNodeList recent =
+          recentNodes.get(ContainerPriority.extractRole(container));
+      if (recent != null) {
+        recent.remove(node);
+      }
+    }
     touch();
   }
 
@@ -972,7 +1126,7 @@ public class RoleHistory {
       NodeInstance ni = getOrCreateNodeInstance(container);
       int roleId = ContainerPriority.extractRole(container);
       log.debug("Node {} is now available for role id {}", ni, roleId);
-      listRecentNodesForRoleId(roleId).addFirst(ni);
+      listRecentNodesForRoleId(roleId).add(ni, nodeEntry.getLastUsed());
     }
     return available;
   }
@@ -983,7 +1137,7 @@ public class RoleHistory {
   public synchronized void dump() {
     for (ProviderRole role : providerRoles) {
       log.info(role.toString());
-      List<NodeInstance> instances = listRecentNodesForRoleId(role.id);
+      List<NodeInstance> instances = listRecentNodesForRoleId(role.id).toList();
       log.info("  available: " + instances.size()
                + " " + SliderUtils.joinWithInnerSeparator(" ", instances));
     }
@@ -1012,8 +1166,8 @@ public class RoleHistory {
    * @return a clone of the list
    */
   @VisibleForTesting
-  public List<NodeInstance> cloneRecentNodeList(int role) {
-    return new LinkedList<>(listRecentNodesForRoleId(role));
+  public synchronized List<NodeInstance> cloneRecentNodeList(int role) {
+    return new LinkedList<>(listRecentNodesForRoleId(role).toList());
   }
 
   /**
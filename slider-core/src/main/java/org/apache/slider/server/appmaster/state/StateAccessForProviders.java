@@ -26,6 +26,7 @@ import org.apache.slider.api.ClusterNode;
 import org.apache.slider.api.StatusKeys;
 import org.apache.slider.api.types.ApplicationDiagnostics;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.NodeInformation;
 import org.apache.slider.api.types.RoleStatistics;
@@ -35,6 +36,7 @@ import org.apache.slider.core.exceptions.NoSuchNodeException;
 import org.apache.slider.core.registry.docstore.PublishedConfigSet;
 import org.apache.slider.core.registry.docstore.PublishedExportsSet;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -235,6 +237,32 @@ public interface StateAccessForProviders {
    */
   ClusterDescription refreshClusterStatus();
 
+  /**
+   * Get the cluster status serialized as JSON, rebuilding it only if
+   * the state has changed
+   * @return the current status document
+   * @throws IOException failure to serialize the status
+   */
+  ClusterStatusDocument getClusterStatusDocument() throws IOException;
+
+  /**
+   * Get the current version of the state; this changes whenever
+   * the state does
+   * @return a monotonically increasing version number
+   */
+  long getStateVersion();
+
+  /**
+   * Get the container and component events since a resume token,
+   * waiting up to the timeout for one if there are none yet
+   * @param resumeToken token from a previous watch
+   * @param timeout time in millis to wait; 0 to return immediately
+   * @return the changes
+   * @throws InterruptedException if interrupted while waiting
+   */
+  ApplicationStateChanges getApplicationStateChanges(long resumeToken,
+      long timeout) throws InterruptedException;
+
   /**
    * Get a deep clone of the role status list. Concurrent events may mean this
    * list (or indeed, some of the role status entries) may be inconsistent
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.state;
+
+import org.apache.slider.api.types.ApplicationStateChanges;
+import org.apache.slider.api.types.ApplicationStateEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A bounded journal of application state events, from which watchers
+ * can pick up the changes since the last event they saw.
+ * <p>
+ * The journal has its own monitor: appending is cheap, and watchers
+ * waiting for events never block the app state.
+ * <p>
+ * The details of an event, such as the container or component information,
+ * may be left to an {@link EventDetails} source. They are then only
+ * serialized when a watcher first reads the event, outside the monitors
+ * of both the app state and the journal; events no watcher reads are never
+ * serialized.
+ * <p>
+ * The number of watchers which may wait at the same time is limited, as
+ * each one holds a thread of its caller; when the limit is reached,
+ * further watches return at once, as if their timeout were 0.
+ * <p>
+ * Sequence numbers start from a seed, which the AM takes from the clock,
+ * so that a resume token from a previous AM instance falls outside the
+ * journal and triggers a reset.
+ */
+public class StateChangeJournal {
+
+  /**
+   * Source of the details of an event
+   */
+  public interface EventDetails {
+
+    /**
+     * Fill in the details of an event; called at most once
+     * @param event event to complete
+     */
+    void fill(ApplicationStateEvent event);
+  }
+
+  private final int capacity;
+  private final Deque<Entry> events;
+
+  private final int maxWaiters;
+
+  /** sequence number of the last event appended */
+  private long sequence;
+
+  /** number of watchers currently waiting */
+  private int waiters;
+
+  /** number of watches which returned at once as too many were waiting */
+  private long waitsRefused;
+
+  /**
+   * Create a journal with no limit on the number of waiting watchers
+   * @param capacity number of events to retain; 0 to retain none,
+   * in which case every watch with an old token is reset
+   * @param seed initial sequence number
+   */
+  public StateChangeJournal(int capacity, long seed) {
+    this(capacity, Integer.MAX_VALUE, seed);
+  }
+
+  /**
+   * Create a journal
+   * @param capacity number of events to retain; 0 to retain none,
+   * in which case every watch with an old token is reset
+   * @param maxWaiters maximum number of watchers waiting at the same time;
+   * 0 for none to wait
+   * @param seed initial sequence number
+   */
+  public StateChangeJournal(int capacity, int maxWaiters, long seed) {
+    this.capacity = Math.max(0, capacity);
+    this.maxWaiters = Math.max(0, maxWaiters);
+    this.events = new ArrayDeque<Entry>(
+        Math.min(this.capacity, 1024));
+    this.sequence = seed;
+  }
+
+  /**
+   * Append an event, assigning its sequence number and timestamp,
+   * and wake up any watchers. The event must not be modified afterwards.
+   * @param event event
+   */
+  public void append(ApplicationStateEvent event) {
+    append(event, null);
+  }
+
+  /**
+   * Append an event whose details are filled in when it is first read,
+   * assigning its sequence number and timestamp, and wake up any watchers.
+   * The event must not be modified afterwards, other than by the source
+   * of its details.
+   * @param event event
+   * @param details source of the details of the event; may be null
+   */
+  public synchronized void append(ApplicationStateEvent event,
+      EventDetails details) {
+    event.sequence = ++sequence;
+    event.timestamp = System.currentTimeMillis();
+    if (capacity > 0) {
+      if (events.size() == capacity) {
+        events.removeFirst();
+      }
+      events.addLast(new Entry(event, details));
+    }
+    notifyAll();
+  }
+
+  /**
+   * Get the token of the last event
+   * @return a token from which to watch for later events
+   */
+  public synchronized long getResumeToken() {
+    return sequence;
+  }
+
+  public synchronized int size() {
+    return events.size();
+  }
+
+  /**
+   * Get the number of watchers currently waiting
+   * @return the waiter count
+   */
+  public synchronized int getWaiters() {
+    return waiters;
+  }
+
+  /**
+   * Get the number of watches which returned at once because the
+   * maximum number of watchers were already waiting
+   * @return the count
+   */
+  public synchronized long getWaitsRefused() {
+    return waitsRefused;
+  }
+
+  /**
+   * Get the events since a resume token, without waiting
+   * @param resumeToken token from a previous watch
+   * @return the changes; flagged as reset if the events since the token
+   * are not all in the journal
+   */
+  public ApplicationStateChanges since(long resumeToken) {
+    ApplicationStateChanges changes = new ApplicationStateChanges();
+    List<Entry> entries = collect(resumeToken, changes);
+    // the details are filled in without holding the journal's monitor
+    for (Entry entry : entries) {
+      changes.events.add(entry.resolve());
+    }
+    return changes;
+  }
+
+  /**
+   * Collect the entries since a resume token
+   * @param resumeToken token from a previous watch
+   * @param changes changes to set the resume token and reset flag of
+   * @return the entries after the token
+   */
+  private synchronized List<Entry> collect(long resumeToken,
+      ApplicationStateChanges changes) {
+    List<Entry> entries = new ArrayList<Entry>();
+    changes.resumeToken = sequence;
+    if (resumeToken == sequence) {
+      return entries;
+    }
+    long oldest = events.isEmpty()
+                  ? sequence + 1
+                  : events.peekFirst().event.sequence;
+    if (resumeToken < oldest - 1 || resumeToken > sequence) {
+      changes.reset = true;
+      return entries;
+    }
+    for (Entry entry : events) {
+      if (entry.event.sequence > resumeToken) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Wait for events after a resume token, returning as soon as there are
+   * any or the timeout expires. If the maximum number of watchers are
+   * already waiting, this returns at once.
+   * @param resumeToken token from a previous watch
+   * @param timeout time in millis to wait; 0 to return immediately
+   * @return the changes, which may be empty if the timeout expired
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public ApplicationStateChanges await(long resumeToken,
+      long timeout) throws InterruptedException {
+    waitForEvents(resumeToken, timeout);
+    return since(resumeToken);
+  }
+
+  /**
+   * Wait for events after a resume token, unless there are already some,
+   * the maximum number of watchers are waiting, or the timeout expires
+   * @param resumeToken token from a previous watch
+   * @param timeout time in millis to wait
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private synchronized void waitForEvents(long resumeToken, long timeout)
+      throws InterruptedException {
+    if (resumeToken != sequence || timeout <= 0) {
+      return;
+    }
+    if (waiters >= maxWaiters) {
+      waitsRefused++;
+      return;
+    }
+    waiters++;
+    try {
+      long deadline = System.currentTimeMillis() + timeout;
+      long remaining = timeout;
+      while (resumeToken == sequence && remaining > 0) {
+        wait(remaining);
+        remaining = deadline - System.currentTimeMillis();
+      }
+    } finally {
+      waiters--;
+    }
+  }
+
+  /**
+   * An event in the journal, with the source of its details until
+   * they have been filled in
+   */
+  private static final class Entry {
+    final ApplicationStateEvent event;
+    private EventDetails details;
+
+    Entry(ApplicationStateEvent event, EventDetails details) {
+      this.event = event;
+      this.details = details;
+    }
+
+    /**
+     * Get the event, filling in its details on the first call
+     * @return the complete event
+     */
+    synchronized ApplicationStateEvent resolve() {
+      if (details != null) {
+        details.fill(event);
+        details = null;
+      }
+      return event;
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder sb = new StringBuilder("StateChangeJournal{");
+    sb.append("capacity=").append(capacity);
+    sb.append(", size=").append(events.size());
+    sb.append(", sequence=").append(sequence);
+    sb.append(", waiters=").append(waiters);
+    sb.append('}');
+    return sb.toString();
+  }
+}
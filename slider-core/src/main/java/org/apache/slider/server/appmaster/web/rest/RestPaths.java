@@ -147,6 +147,8 @@ public class RestPaths {
   public static final String LIVE_LIVENESS = "/live/liveness";
   public static final String LIVE_DIAGNOSTICS = "/live/diagnostics";
   public static final String LIVE_STATISTICS = "/live/statistics";
+  public static final String LIVE_STATUS = "/live/status";
+  public static final String LIVE_WATCH = "/live/watch";
   public static final String MODEL = "/model";
   public static final String MODEL_DESIRED = MODEL +"/desired";
   public static final String MODEL_DESIRED_APPCONF = MODEL_DESIRED +"/appconf";
@@ -16,7 +16,9 @@
  */
 package org.apache.slider.server.appmaster.web.rest.agent;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.sun.jersey.api.container.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.core.ResourceConfig;
 import com.sun.jersey.spi.container.WebApplication;
 import com.sun.jersey.spi.container.servlet.ServletContainer;
@@ -35,6 +37,8 @@ import org.mortbay.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.ws.rs.ext.Provider;
 import java.io.Closeable;
 import java.io.File;
@@ -87,9 +91,7 @@ public class AgentWebApp implements Closeable {
       }
 
       agentServer = new Server();
-      agentServer.setThreadPool(
-          new QueuedThreadPool(
-              configsMap.getOptionInt("agent.threadpool.size.max", 25)));
+      agentServer.setThreadPool(createThreadPool(configsMap));
       agentServer.setStopAtShutdown(true);
       agentServer.setGracefulShutdown(1000);
 
@@ -110,6 +112,14 @@ public class AgentWebApp implements Closeable {
                              "org.apache.slider.server.appmaster.web.rest.agent");
       agent.setInitParameter("com.sun.jersey.api.json.POJOMappingFeature",
                              "true");
+      if (configsMap.getOptionBool(AgentKeys.KEY_AGENT_REST_GZIP_ENABLED,
+          AgentKeys.DEFAULT_AGENT_REST_GZIP_ENABLED)) {
+        // responses are only compressed if the agent asks for it
+        agent.setInitParameter(ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS,
+            GZIPContentEncodingFilter.class.getName());
+        agent.setInitParameter(ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS,
+            GZIPContentEncodingFilter.class.getName());
+      }
 //      agent.setInitParameter("com.sun.jersey.spi.container.ContainerRequestFilters", "com.sun.jersey.api.container.filter.LoggingFilter");
 //      agent.setInitParameter("com.sun.jersey.spi.container.ContainerResponseFilters", "com.sun.jersey.api.container.filter.LoggingFilter");
 //      agent.setInitParameter("com.sun.jersey.config.feature.Trace", "true");
@@ -166,7 +176,11 @@ public class AgentWebApp implements Closeable {
 
     private SslSelectChannelConnector createSSLConnector(boolean needClientAuth, int port) {
       SslSelectChannelConnector sslConnector = new
-          SslSelectChannelConnector();
+          TunedSslSelectChannelConnector(
+              configsMap.getOptionInt(
+                  AgentKeys.KEY_AGENT_SSL_SESSION_CACHE_SIZE, -1),
+              configsMap.getOptionInt(
+                  AgentKeys.KEY_AGENT_SSL_SESSION_TIMEOUT, -1));
 
       String keystore = SecurityUtils.getSecurityDir() +
                         File.separator + "keystore.p12";
@@ -181,7 +195,7 @@ public class AgentWebApp implements Closeable {
       sslConnector.setNeedClientAuth(needClientAuth);
 
       sslConnector.setPort(port);
-      sslConnector.setAcceptors(2);
+      configureConnector(sslConnector, configsMap);
       return sslConnector;
     }
 
@@ -224,6 +238,92 @@ public class AgentWebApp implements Closeable {
     }
   }
 
+  /**
+   * Create the thread pool serving agent requests.
+   * @param configs AM component configuration
+   * @return a named thread pool sized from the configuration
+   */
+  @VisibleForTesting
+  static QueuedThreadPool createThreadPool(MapOperations configs) {
+    int max = configs.getOptionInt(AgentKeys.KEY_AGENT_THREADPOOL_SIZE_MAX,
+        AgentKeys.DEFAULT_AGENT_THREADPOOL_SIZE_MAX);
+    int min = configs.getOptionInt(AgentKeys.KEY_AGENT_THREADPOOL_SIZE_MIN,
+        AgentKeys.DEFAULT_AGENT_THREADPOOL_SIZE_MIN);
+    QueuedThreadPool pool = new QueuedThreadPool(max);
+    pool.setMinThreads(Math.min(min, max));
+    pool.setName("agent-rest");
+    return pool;
+  }
+
+  /**
+   * Apply the acceptor, backlog and keep-alive options to a connector.
+   * @param connector connector to configure
+   * @param configs AM component configuration
+   */
+  @VisibleForTesting
+  static void configureConnector(SslSelectChannelConnector connector,
+      MapOperations configs) {
+    connector.setAcceptors(
+        configs.getOptionInt(AgentKeys.KEY_AGENT_CONNECTOR_ACCEPTORS,
+            AgentKeys.DEFAULT_AGENT_CONNECTOR_ACCEPTORS));
+    connector.setAcceptQueueSize(
+        configs.getOptionInt(AgentKeys.KEY_AGENT_CONNECTOR_ACCEPT_QUEUE_SIZE,
+            AgentKeys.DEFAULT_AGENT_CONNECTOR_ACCEPT_QUEUE_SIZE));
+    int maxIdle =
+        configs.getOptionInt(AgentKeys.KEY_AGENT_CONNECTOR_MAX_IDLE_TIME,
+            AgentKeys.DEFAULT_AGENT_CONNECTOR_MAX_IDLE_TIME);
+    connector.setMaxIdleTime(maxIdle);
+    // under load, fall back to the much shorter idle time of the
+    // default connector rather than hold sockets for idle agents
+    connector.setLowResourceMaxIdleTime(Math.min(maxIdle, 10000));
+  }
+
+  /**
+   * SSL connector which sizes the server session cache, so that agents
+   * reconnecting after a dropped connection can resume their SSL session
+   * rather than go through a full handshake.
+   */
+  @VisibleForTesting
+  static class TunedSslSelectChannelConnector
+      extends SslSelectChannelConnector {
+    private final int sessionCacheSize;
+    private final int sessionTimeout;
+
+    TunedSslSelectChannelConnector(int sessionCacheSize, int sessionTimeout) {
+      this.sessionCacheSize = sessionCacheSize;
+      this.sessionTimeout = sessionTimeout;
+    }
+
+    @Override
+    protected SSLContext createSSLContext() throws Exception {
+      SSLContext context = super.createSSLContext();
+      tuneSessionContext(context.getServerSessionContext(),
+          sessionCacheSize, sessionTimeout);
+      return context;
+    }
+  }
+
+  /**
+   * Set the size and timeout of an SSL session cache; negative values
+   * leave the JVM defaults in place.
+   * @param sessions session context
+   * @param cacheSize number of sessions to cache
+   * @param timeout session lifetime in seconds
+   */
+  @VisibleForTesting
+  static void tuneSessionContext(SSLSessionContext sessions,
+      int cacheSize, int timeout) {
+    if (sessions == null) {
+      return;
+    }
+    if (cacheSize >= 0) {
+      sessions.setSessionCacheSize(cacheSize);
+    }
+    if (timeout >= 0) {
+      sessions.setSessionTimeout(timeout);
+    }
+  }
+
   public static Builder $for(String name, WebAppApi app, String wsPrefix) {
     return new Builder(name, wsPrefix, app);
   }
@@ -38,6 +38,8 @@ public class ComponentStatus {
   String hostname;
   @JsonProperty("configurations")
   private Map<String, Map<String, String>> configurations;
+  @JsonProperty("configurationsDigest")
+  private String configurationsDigest;
 
   public String getRoleCommand() {
     return roleCommand;
@@ -97,6 +99,20 @@ public class ComponentStatus {
     this.configurations = configs;
   }
 
+  /**
+   * @return the agent's digest of the configurations. In a delta heartbeat
+   * the configurations themselves are omitted if the AM has already
+   * acknowledged configurations with this digest.
+   */
+  public String getConfigsDigest() {
+    return configurationsDigest;
+  }
+
+  /** @param configsDigest the digest of the configurations */
+  public void setConfigsDigest(String configsDigest) {
+    this.configurationsDigest = configsDigest;
+  }
+
   @Override
   public String toString() {
     return "ComponentStatus{" +
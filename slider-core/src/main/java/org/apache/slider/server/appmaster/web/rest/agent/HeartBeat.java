@@ -45,6 +45,7 @@ public class HeartBeat {
   private AgentEnv agentEnv = null;
   private String fqdn;
   private String pkg;
+  private boolean delta = false;
 
   public long getResponseId() {
     return responseId;
@@ -134,6 +135,21 @@ public class HeartBeat {
     this.pkg = pkg;
   }
 
+  /**
+   * A delta heartbeat omits whatever has not changed since the last
+   * heartbeat acknowledged by the AM.
+   * @return true if this is a delta heartbeat
+   */
+  @JsonProperty("delta")
+  public boolean isDelta() {
+    return delta;
+  }
+
+  @JsonProperty("delta")
+  public void setDelta(boolean delta) {
+    this.delta = delta;
+  }
+
   @Override
   public String toString() {
     return "HeartBeat{" +
@@ -144,6 +160,7 @@ public class HeartBeat {
            ", componentStatus=" + componentStatus +
            ", package=" + pkg +
            ", nodeStatus=" + nodeStatus +
+           ", delta=" + delta +
            '}';
   }
 }
@@ -44,6 +44,7 @@ public class HeartBeatResponse {
   boolean restartEnabled = true;
   boolean hasMappedComponents = false;
   boolean terminateAgent = false;
+  boolean fullHeartbeatRequired = false;
 
   @JsonProperty("responseId")
   public long getResponseId() {
@@ -125,6 +126,21 @@ public class HeartBeatResponse {
     this.terminateAgent = terminateAgent;
   }
 
+  /**
+   * Set when the AM cannot apply a delta heartbeat; the agent must discard
+   * its baseline and send a full heartbeat next.
+   * @return true if the next heartbeat must be a full one
+   */
+  @JsonProperty("fullHeartbeatRequired")
+  public boolean isFullHeartbeatRequired() {
+    return fullHeartbeatRequired;
+  }
+
+  @JsonProperty("fullHeartbeatRequired")
+  public void setFullHeartbeatRequired(boolean fullHeartbeatRequired) {
+    this.fullHeartbeatRequired = fullHeartbeatRequired;
+  }
+
   public void addExecutionCommand(ExecutionCommand execCmd) {
     executionCommands.add(execCmd);
   }
@@ -142,6 +158,7 @@ public class HeartBeatResponse {
            ", registrationCommand=" + registrationCommand +
            ", restartAgent=" + restartAgent +
            ", terminateAgent=" + terminateAgent +
+           ", fullHeartbeatRequired=" + fullHeartbeatRequired +
            '}';
   }
 }
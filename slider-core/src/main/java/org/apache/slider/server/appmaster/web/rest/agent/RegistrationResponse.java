@@ -55,6 +55,17 @@ public class RegistrationResponse {
   @JsonProperty("statusCommands")
   private List<StatusCommand> statusCommands = null;
 
+  /** deltaHeartbeat - the AM accepts delta heartbeats from the agent */
+  @JsonProperty("deltaHeartbeat")
+  private boolean deltaHeartbeat;
+
+  /**
+   * backoffInterval - milliseconds the agent should wait before registering
+   * again when the response is RETRY
+   */
+  @JsonProperty("backoffInterval")
+  private long backoffInterval;
+
   public RegistrationResponse() {
   }
 
@@ -122,12 +133,30 @@ public class RegistrationResponse {
     this.pkg = pkg;
   }
 
+  public boolean isDeltaHeartbeat() {
+    return deltaHeartbeat;
+  }
+
+  public void setDeltaHeartbeat(boolean deltaHeartbeat) {
+    this.deltaHeartbeat = deltaHeartbeat;
+  }
+
+  public long getBackoffInterval() {
+    return backoffInterval;
+  }
+
+  public void setBackoffInterval(long backoffInterval) {
+    this.backoffInterval = backoffInterval;
+  }
+
   @Override
   public String toString() {
     return "RegistrationResponse{" +
            "response=" + response +
            ", responseId=" + responseId +
            ", statusCommands=" + statusCommands +
+           ", deltaHeartbeat=" + deltaHeartbeat +
+           ", backoffInterval=" + backoffInterval +
            '}';
   }
 }
@@ -18,5 +18,7 @@ package org.apache.slider.server.appmaster.web.rest.agent;
 
 public enum RegistrationStatus {
     OK,
-    FAILED
+    FAILED,
+    /** the AM is overloaded: register again after the backoff interval */
+    RETRY
 }
@@ -29,35 +29,51 @@ import org.apache.slider.server.appmaster.web.rest.application.resources.LiveNod
 import org.apache.slider.server.appmaster.web.rest.application.resources.LiveResourcesRefresher;
 import org.apache.slider.server.appmaster.web.rest.application.resources.LiveStatisticsRefresher;
 
+import java.util.concurrent.Executor;
+
 import static org.apache.slider.server.appmaster.web.rest.RestPaths.*;
 
 public class ApplicationResouceContentCacheFactory {
   public static final int LIFESPAN = 500;
 
   /**
-   * Build the content cache
+   * Build the content cache, with refreshes in the caller's thread
    * @param state state view
    */
   public static ContentCache createContentCache(
       StateAccessForProviders state) {
+    return createContentCache(state, null);
+  }
+
+  /**
+   * Build the content cache. Every entry is invalidated by changes
+   * in the application state as well as by age.
+   * @param state state view
+   * @param refreshExecutor executor for background refreshes of stale
+   * content; null for refreshes in the caller's thread
+   */
+  public static ContentCache createContentCache(
+      StateAccessForProviders state,
+      Executor refreshExecutor) {
     ContentCache cache = new ContentCache();
-    cache.put(LIVE_RESOURCES, new CachedContent<>(LIFESPAN, new LiveResourcesRefresher(state)));
-    cache.put(LIVE_CONTAINERS, new CachedContent<>(LIFESPAN, new LiveContainersRefresher(state)));
-    cache.put(LIVE_COMPONENTS, new CachedContent<>(LIFESPAN, new LiveComponentsRefresher(state)));
-    cache.put(LIVE_NODES, new CachedContent<>(LIFESPAN, new LiveNodesRefresher(state)));
+    cache.put(LIVE_RESOURCES, new CachedContent<>(LIFESPAN, new LiveResourcesRefresher(state), state));
+    cache.put(LIVE_CONTAINERS, new CachedContent<>(LIFESPAN, new LiveContainersRefresher(state), state));
+    cache.put(LIVE_COMPONENTS, new CachedContent<>(LIFESPAN, new LiveComponentsRefresher(state), state));
+    cache.put(LIVE_NODES, new CachedContent<>(LIFESPAN, new LiveNodesRefresher(state), state));
     cache.put(MODEL_DESIRED,
-        new CachedContent<>(LIFESPAN, new AggregateModelRefresher(state, false)));
+        new CachedContent<>(LIFESPAN, new AggregateModelRefresher(state, false), state));
     cache.put(MODEL_RESOLVED,
-        new CachedContent<>(LIFESPAN, new AggregateModelRefresher(state, true)));
+        new CachedContent<>(LIFESPAN, new AggregateModelRefresher(state, true), state));
     cache.put(MODEL_RESOLVED_APPCONF,
-        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, false, false)));
+        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, false, false), state));
     cache.put(MODEL_RESOLVED_RESOURCES,
-        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, false, true)));
+        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, false, true), state));
     cache.put(MODEL_DESIRED_APPCONF,
-        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, true, false)));
+        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, true, false), state));
     cache.put(MODEL_DESIRED_RESOURCES,
-        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, true, true)));
-    cache.put(LIVE_STATISTICS, new CachedContent<>(LIFESPAN, new LiveStatisticsRefresher(state)));
+        new CachedContent<>(LIFESPAN, new AppconfRefresher(state, true, true), state));
+    cache.put(LIVE_STATISTICS, new CachedContent<>(LIFESPAN, new LiveStatisticsRefresher(state), state));
+    cache.setRefreshExecutor(refreshExecutor);
     return cache;
   }
 }
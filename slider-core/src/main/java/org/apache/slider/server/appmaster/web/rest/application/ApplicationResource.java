@@ -24,6 +24,7 @@ import org.apache.hadoop.yarn.webapp.BadRequestException;
 import org.apache.hadoop.yarn.webapp.NotFoundException;
 import org.apache.slider.api.types.ApplicationDiagnostics;
 import org.apache.slider.api.types.ApplicationLivenessInformation;
+import org.apache.slider.api.types.ApplicationStateChanges;
 import org.apache.slider.api.types.ComponentInformation;
 import org.apache.slider.api.types.ContainerInformation;
 import org.apache.slider.api.types.NodeInformation;
@@ -35,6 +36,7 @@ import org.apache.slider.core.persist.ConfTreeSerDeser;
 import org.apache.slider.server.appmaster.actions.ActionFlexCluster;
 import org.apache.slider.server.appmaster.actions.AsyncAction;
 import org.apache.slider.server.appmaster.actions.QueueAccess;
+import org.apache.slider.server.appmaster.state.ClusterStatusDocument;
 import org.apache.slider.server.appmaster.state.RoleInstance;
 import org.apache.slider.server.appmaster.state.StateAccessForProviders;
 import org.apache.slider.server.appmaster.web.WebAppApi;
@@ -53,6 +55,7 @@ import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
 import javax.ws.rs.POST;
@@ -60,14 +63,19 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.StreamingOutput;
 
 import static javax.ws.rs.core.MediaType.*;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -83,8 +91,21 @@ public class ApplicationResource extends AbstractSliderResource {
       "components",
       "nodes",
       "statistics",
+      "status",
+      "watch",
       "internal");
 
+  /**
+   * Default time in millis a watch waits for a change: {@value}
+   */
+  public static final long WATCH_TIMEOUT_DEFAULT = 30000;
+
+  /**
+   * Upper limit on the time a watch waits for a change; this is kept
+   * below the client socket timeout: {@value}
+   */
+  public static final long WATCH_TIMEOUT_MAX = 45000;
+
   public static final List<String> ROOT_ENTRIES =
       toJsonList("model", "live", "actions");
 
@@ -412,6 +433,73 @@ TODO: decide what structure to return here, then implement
     }
   }
 
+  /**
+   * The JSON cluster status, served from the AM's pre-serialized
+   * document. The document version is returned as the entity tag, so
+   * a client repeating the request with <code>If-None-Match</code>
+   * gets a 304 with no body until the application state changes.
+   * @param request request, used to evaluate the preconditions
+   * @return the status, or a "not modified" response
+   */
+  @GET
+  @Path(LIVE_STATUS)
+  @Produces({APPLICATION_JSON})
+  public Response getLiveStatus(@Context Request request) {
+    markGet(SLIDER_SUBPATH_APPLICATION, LIVE_STATUS);
+    try {
+      final ClusterStatusDocument document = state.getClusterStatusDocument();
+      EntityTag tag = new EntityTag(document.getETag());
+      Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+      if (builder == null) {
+        builder = Response.ok(new StreamingOutput() {
+          @Override
+          public void write(OutputStream output) throws IOException {
+            document.getJson().writeTo(output);
+          }
+        });
+      }
+      return builder.tag(tag).build();
+    } catch (Exception e) {
+      throw buildException(LIVE_STATUS, e);
+    }
+  }
+
+  /**
+   * Long-poll watch of the container and component events.
+   * <p>
+   * Returns as soon as there are events after the resume token, or when
+   * the timeout expires. A client starts with a token of -1, which
+   * returns a reset and the current token; it then reads the live
+   * containers and components, and repeatedly watches from the token
+   * of the previous response, re-reading the state whenever a
+   * response is flagged as reset.
+   * <p>
+   * Each waiting watch holds a web server thread, so the number waiting
+   * at the same time is limited by
+   * {@link org.apache.slider.common.SliderXmlConfKeys#KEY_AM_WATCH_MAX_WAITERS};
+   * beyond that, a watch returns at once, and the client should back off
+   * before watching again.
+   * @param resumeToken token from the previous watch
+   * @param timeout time in millis to wait for a change; capped at
+   * {@link #WATCH_TIMEOUT_MAX}
+   * @return the changes since the token
+   */
+  @GET
+  @Path(LIVE_WATCH)
+  @Produces({APPLICATION_JSON})
+  public ApplicationStateChanges watch(
+      @QueryParam("token") @DefaultValue("-1") long resumeToken,
+      @QueryParam("timeout") @DefaultValue("" + WATCH_TIMEOUT_DEFAULT) long timeout) {
+    markGet(SLIDER_SUBPATH_APPLICATION, LIVE_WATCH);
+    try {
+      return state.getApplicationStateChanges(resumeToken,
+          Math.max(0, Math.min(timeout, WATCH_TIMEOUT_MAX)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw buildException(LIVE_WATCH, e);
+    }
+  }
+
   /**
    * Helper method; look up an aggregate configuration in the cache from
    * a key, or raise an exception
@@ -18,31 +18,76 @@
 
 package org.apache.slider.server.appmaster.web.rest.application.resources;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.util.Time;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.apache.slider.server.appmaster.state.StateAccessForProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A cached resource is one that can be stored and served up, with a refresh 
  * only taking place when the expiry happens.
- * 
- * The refresh check/refresh is synchronized.
+ * <p>
+ * If a state accessor is supplied, the content is also stale as soon
+ * as the application state version moves on from the version it was
+ * built against, or when {@link #invalidate()} is called.
+ * <p>
+ * Readers of fresh content do not block. If a refresh executor is set,
+ * readers of stale content get the previous value while a single
+ * refresh takes place in the background; only the very first read,
+ * when there is no value, waits for the refresh.
+ * Without an executor, the refresh check/refresh is synchronized.
  * @param <T> type to return
  */
-public class CachedContent<T> {
+public class CachedContent<T> implements MetricSet {
   private static final Logger log =
       LoggerFactory.getLogger(CachedContent.class);
-  private T cachedValue;
-  private long expires;
+  private volatile T cachedValue;
+  private volatile long expires;
+  private volatile long refreshedVersion;
+  /** Count of calls to {@link #invalidate()} */
+  private final AtomicLong invalidations = new AtomicLong();
+  /** Invalidation count when the current value's refresh began */
+  private volatile long refreshedInvalidation;
   private final long lifespan;
   private final ResourceRefresher<T> refresh;
+  private final StateAccessForProviders state;
+  private volatile Executor refreshExecutor;
+  private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
   private int refreshCounter;
+  private final Counter hits = new Counter();
+  private final Counter misses = new Counter();
+  private final Timer refreshTimer = new Timer();
 
   public CachedContent(long lifespan,
       ResourceRefresher<T> refresh) {
+    this(lifespan, refresh, null);
+  }
+
+  /**
+   * Create an entry whose content is also invalidated by state changes
+   * @param lifespan lifespan in millis of a value
+   * @param refresh refresher
+   * @param state state accessor whose version is tracked; may be null
+   */
+  public CachedContent(long lifespan,
+      ResourceRefresher<T> refresh,
+      StateAccessForProviders state) {
     this.lifespan = lifespan;
     this.refresh = refresh;
+    this.state = state;
   }
 
   /**
@@ -50,6 +95,17 @@ public class CachedContent<T> {
    * @return the cached or latest value.
    */
   public T get() throws Exception {
+    T value = cachedValue;
+    if (value != null && !isStale(now())) {
+      hits.inc();
+      return value;
+    }
+    misses.inc();
+    Executor executor = refreshExecutor;
+    if (value != null && executor != null) {
+      scheduleRefresh(executor);
+      return value;
+    }
     maybeRefresh();
     return getCachedValue();
   }
@@ -58,7 +114,7 @@ public class CachedContent<T> {
    * Get the cached value without any expiry check
    * @return the last value set. May be null.
    */
-  public synchronized T getCachedValue() {
+  public T getCachedValue() {
     return cachedValue;
   }
 
@@ -74,13 +130,31 @@ public class CachedContent<T> {
     return lifespan;
   }
 
+  /**
+   * Set the executor for background refreshes. If null, stale content
+   * is refreshed in the thread of the caller.
+   * @param refreshExecutor executor; may be null
+   */
+  public void setRefreshExecutor(Executor refreshExecutor) {
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * Mark the content as stale, so the next read triggers a refresh.
+   * This does not block; an invalidation during a refresh leaves the
+   * value of that refresh stale.
+   */
+  public void invalidate() {
+    invalidations.incrementAndGet();
+  }
+
   /**
    * Maybe refresh the content
    * @return true if a refresh took place.
    */
   public synchronized boolean maybeRefresh() throws Exception {
     long now = now();
-    if (cachedValue == null || now >= expires) {
+    if (cachedValue == null || isStale(now)) {
       log.debug("Refreshing at time {}", now);
       forceRefresh();
       log.debug("Refreshed value now {}", cachedValue);
@@ -89,6 +163,46 @@ public class CachedContent<T> {
     return false;
   }
 
+  /**
+   * Is the content stale?
+   * @param now current time
+   * @return true if the content has expired, been invalidated
+   * or the state has changed
+   */
+  private boolean isStale(long now) {
+    return now >= expires
+        || invalidations.get() != refreshedInvalidation
+        || (state != null && state.getStateVersion() != refreshedVersion);
+  }
+
+  /**
+   * Queue a refresh unless one is already queued or running
+   * @param executor executor to run it in
+   */
+  private void scheduleRefresh(Executor executor) {
+    if (!refreshScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            maybeRefresh();
+          } catch (Exception e) {
+            log.warn("Failed to refresh {}: {}", refresh, e, e);
+          } finally {
+            refreshScheduled.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // executor shut down: the stale value is still served
+      log.debug("Refresh of {} rejected: {}", refresh, e);
+      refreshScheduled.set(false);
+    }
+  }
+
   protected long now() {
     return Time.monotonicNow();
   }
@@ -99,13 +213,42 @@ public class CachedContent<T> {
    */
   protected synchronized T forceRefresh() throws Exception {
     refreshCounter ++;
-    T updated = refresh.refresh();
+    // read the versions first, so any change or invalidation during
+    // the refresh leaves the new value stale
+    long invalidation = invalidations.get();
+    long version = state != null ? state.getStateVersion() : 0;
+    Timer.Context timing = refreshTimer.time();
+    T updated;
+    try {
+      updated = refresh.refresh();
+    } finally {
+      timing.stop();
+    }
     Preconditions.checkNotNull(updated);
     cachedValue = updated;
+    refreshedVersion = version;
+    refreshedInvalidation = invalidation;
     expires = now() + lifespan;
     return cachedValue;
   }
 
+  public long getHits() {
+    return hits.getCount();
+  }
+
+  public long getMisses() {
+    return misses.getCount();
+  }
+
+  @Override
+  public Map<String, Metric> getMetrics() {
+    Map<String, Metric> metrics = new HashMap<String, Metric>();
+    metrics.put(MetricsConstants.CONTENT_CACHE_HITS, hits);
+    metrics.put(MetricsConstants.CONTENT_CACHE_MISSES, misses);
+    metrics.put(MetricsConstants.CONTENT_CACHE_REFRESH, refreshTimer);
+    return metrics;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb =
@@ -114,6 +257,10 @@ public class CachedContent<T> {
     sb.append(", lifespan=").append(lifespan);
     sb.append(", refresh=").append(refresh);
     sb.append(", refreshCounter=").append(refreshCounter);
+    sb.append(", refreshedVersion=").append(refreshedVersion);
+    sb.append(", invalidations=").append(invalidations.get());
+    sb.append(", hits=").append(hits.getCount());
+    sb.append(", misses=").append(misses.getCount());
     sb.append(", cached=").append(cachedValue);
     sb.append('}');
     return sb.toString();
@@ -18,14 +18,22 @@
 
 package org.apache.slider.server.appmaster.web.rest.application.resources;
 
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Cache of content
  */
-public class ContentCache extends ConcurrentHashMap<String, CachedContent> {
+public class ContentCache extends ConcurrentHashMap<String, CachedContent>
+    implements MetricSet {
 
   public ContentCache(int initialCapacity) {
     super(initialCapacity);
@@ -64,4 +72,43 @@ public class ContentCache extends ConcurrentHashMap<String, CachedContent> {
     }
   }
 
+  /**
+   * Invalidate every entry, so the next lookup of each triggers a refresh
+   */
+  public void invalidateAll() {
+    for (CachedContent content : values()) {
+      content.invalidate();
+    }
+  }
+
+  /**
+   * Set the executor for background refreshes of all current entries
+   * @param executor executor; null for refreshes in the caller's thread
+   */
+  public void setRefreshExecutor(Executor executor) {
+    for (CachedContent content : values()) {
+      content.setRefreshExecutor(executor);
+    }
+  }
+
+  /**
+   * Get the metrics of all entries, each prefixed by
+   * {@link MetricsConstants#PREFIX_CONTENT_CACHE} and the entry's path,
+   * with "/" converted to "."
+   * @return the metrics
+   */
+  @Override
+  public Map<String, Metric> getMetrics() {
+    Map<String, Metric> metrics = new HashMap<String, Metric>();
+    for (Map.Entry<String, CachedContent> entry : entrySet()) {
+      String prefix = MetricsConstants.PREFIX_CONTENT_CACHE
+                      + entry.getKey().replace('/', '.') + ".";
+      Map<String, Metric> entryMetrics = entry.getValue().getMetrics();
+      for (Map.Entry<String, Metric> metric : entryMetrics.entrySet()) {
+        metrics.put(prefix + metric.getKey(), metric.getValue());
+      }
+    }
+    return metrics;
+  }
+
 }
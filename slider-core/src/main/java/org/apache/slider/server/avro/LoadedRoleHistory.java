@@ -39,6 +39,11 @@ public class LoadedRoleHistory {
 
   public final List<NodeEntryRecord> records = new ArrayList<>();
 
+  /**
+   * Paths of the deltas applied on top of the loaded snapshot
+   */
+  public final List<Path> deltas = new ArrayList<>();
+
   /**
    * Add a record
    * @param record
@@ -71,6 +76,45 @@ public class LoadedRoleHistory {
     this.path = path;
   }
 
+  /**
+   * Apply a delta: its records are appended, so that when the history is
+   * rebuilt they replace any earlier record of the same node and role.
+   * <p>
+   * As the records of the snapshot and of each delta were written at
+   * different times, any which were active when saved have their last-used
+   * time set to that save time and are then marked inactive; the header of
+   * the delta becomes the header of the combined history.
+   * @param delta the delta to apply
+   */
+  public void applyDelta(LoadedRoleHistory delta) {
+    if (deltas.isEmpty()) {
+      resolveActiveRecords(records, header.getSaved());
+    }
+    resolveActiveRecords(delta.records, delta.getHeader().getSaved());
+    records.addAll(delta.records);
+    header = delta.getHeader();
+    if (!delta.roleMap.isEmpty()) {
+      roleMap.clear();
+      roleMap.putAll(delta.roleMap);
+    }
+    deltas.add(delta.getPath());
+  }
+
+  /**
+   * Convert all active records into inactive ones last used at the save time
+   * @param entries records
+   * @param saved save time
+   */
+  private static void resolveActiveRecords(List<NodeEntryRecord> entries,
+      long saved) {
+    for (NodeEntryRecord entry : entries) {
+      if (entry.getActive()) {
+        entry.setLastUsed(saved);
+        entry.setActive(false);
+      }
+    }
+  }
+
   public void buildMapping(Map<CharSequence, Integer> source) {
     roleMap.clear();
     for (Map.Entry<CharSequence, Integer> entry : source.entrySet()) {
@@ -86,6 +130,7 @@ public class LoadedRoleHistory {
     sb.append("path=").append(path);
     sb.append("; number of roles=").append(roleMap.size());
     sb.append("; size=").append(size());
+    sb.append("; deltas=").append(deltas.size());
     sb.append('}');
     return sb.toString();
   }
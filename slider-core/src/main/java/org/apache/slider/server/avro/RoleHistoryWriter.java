@@ -85,6 +85,26 @@ public class RoleHistoryWriter {
    */
   public long write(OutputStream out, RoleHistory history, long savetime)
     throws IOException {
+    return write(out, history, savetime, history.cloneNodemap().values());
+  }
+
+  /**
+   * Write out the entries of a set of node instances, in the same
+   * format as a full history.
+   * This does not update the history's dirty/savetime fields
+   *
+   * @param out outstream
+   * @param history history
+   * @param savetime time in millis for the save time to go in as a record
+   * @param instances the node instances to write
+   * @return no of records written
+   * @throws IOException IO failures
+   */
+  public long write(OutputStream out,
+      RoleHistory history,
+      long savetime,
+      Collection<NodeInstance> instances)
+    throws IOException {
     try {
       DatumWriter<RoleHistoryRecord> writer =
         new SpecificDatumWriter<>(RoleHistoryRecord.class);
@@ -98,7 +118,6 @@ public class RoleHistoryWriter {
       writer.write(createRolemapRecord(history), encoder);
       long count = 0;
       //now for every role history entry, write out its record
-      Collection<NodeInstance> instances = history.cloneNodemap().values();
       for (NodeInstance instance : instances) {
         for (int role = 0; role < roles; role++) {
           NodeEntry nodeEntry = instance.get(role);
@@ -171,6 +190,28 @@ public class RoleHistoryWriter {
     return write(out, history, savetime);
   }
 
+  /**
+   * Write a delta to a file: the entries of those node instances
+   * which have changed since the last save.
+   *
+   * @param fs filesystem
+   * @param path path
+   * @param history history
+   * @param savetime time in millis for the save time to go in as a record
+   * @param changed the changed node instances
+   * @return no of records written
+   * @throws IOException IO failures
+   */
+  public long writeDelta(FileSystem fs,
+      Path path,
+      RoleHistory history,
+      long savetime,
+      Collection<NodeInstance> changed)
+      throws IOException {
+    FSDataOutputStream out = fs.create(path, true);
+    return write(out, history, savetime, changed);
+  }
+
 
   /**
    * Create the filename for a history file
@@ -185,6 +226,36 @@ public class RoleHistoryWriter {
     return path;
   }
 
+  /**
+   * Create the filename for a delta against a history snapshot
+   * @param historyPath history directory
+   * @param snapshotTime the time of the snapshot
+   * @param sequence the sequence number of the delta
+   * @return a filename such that later deltas sort later in the directory
+   */
+  public Path createDeltaFilename(Path historyPath,
+      long snapshotTime,
+      int sequence) {
+    String filename = String.format(Locale.ENGLISH,
+                                    SliderKeys.HISTORY_DELTA_CREATION_PATTERN,
+                                    snapshotTime, sequence);
+    return new Path(historyPath, filename);
+  }
+
+  /**
+   * Get the prefix of the filenames of all deltas against a snapshot
+   * @param snapshot path of the snapshot
+   * @return the prefix
+   */
+  private String deltaPrefix(Path snapshot) {
+    String name = snapshot.getName();
+    String suffix = "." + SliderKeys.HISTORY_FILENAME_SUFFIX;
+    if (name.endsWith(suffix)) {
+      name = name.substring(0, name.length() - suffix.length());
+    }
+    return name + "-";
+  }
+
   /**
    * Build a {@link NodeEntryRecord} from a node entry; include whether
    * the node is in use and when it was last used.
@@ -411,7 +482,60 @@ public class RoleHistoryWriter {
       throws IOException, BadConfigException {
     assert fs != null: "null filesystem";
     List<Path> entries = findAllHistoryEntries(fs, dir, false);
-    return attemptToReadHistory(fs, entries);
+    LoadedRoleHistory history = attemptToReadHistory(fs, entries);
+    if (history != null) {
+      replayDeltas(fs, history);
+    }
+    return history;
+  }
+
+  /**
+   * Find all deltas against a snapshot, oldest first.
+   * @param fs filesystem
+   * @param snapshot path of the snapshot
+   * @return a possibly empty list
+   * @throws IOException IO problems
+   */
+  public List<Path> findDeltaEntries(FileSystem fs, Path snapshot)
+      throws IOException {
+    PathFilter filter = new GlobFilter(deltaPrefix(snapshot) + "*."
+        + SliderKeys.HISTORY_DELTA_SUFFIX);
+    FileStatus[] stats = fs.listStatus(snapshot.getParent(), filter);
+    List<Path> paths = new ArrayList<>(stats.length);
+    for (FileStatus stat : stats) {
+      if (stat.isFile() && stat.getLen() > 0) {
+        paths.add(stat.getPath());
+      }
+    }
+    Collections.sort(paths, new OlderFilesFirst());
+    return paths;
+  }
+
+  /**
+   * Apply all deltas against the snapshot of a loaded history, in order.
+   * A delta which cannot be read is logged and skipped: as each delta
+   * contains the complete entries of the nodes it covers, later deltas
+   * are still valid.
+   * @param fs filesystem
+   * @param history history loaded from a snapshot
+   * @return the number of deltas applied
+   * @throws IOException if the history directory cannot be listed
+   */
+  public int replayDeltas(FileSystem fs, LoadedRoleHistory history)
+      throws IOException {
+    int applied = 0;
+    for (Path path : findDeltaEntries(fs, history.getPath())) {
+      try {
+        LoadedRoleHistory delta = read(fs, path);
+        delta.setPath(path);
+        history.applyDelta(delta);
+        applied++;
+      } catch (IOException | AvroTypeException | BadConfigException e) {
+        log.warn("Failed to read history delta {}", path, e);
+      }
+    }
+    log.debug("Applied {} deltas to {}", applied, history);
+    return applied;
   }
 
   /**
@@ -446,4 +570,30 @@ public class RoleHistoryWriter {
     return deleteCount;
   }
 
+  /**
+   * Delete all history deltas other than those against the snapshot
+   * to keep
+   * @param fileSystem filesystem
+   * @param keep the snapshot whose deltas are to be kept
+   * @return the number of files deleted
+   * @throws IOException IO problems
+   */
+  public int purgeOrphanedDeltas(FileSystem fileSystem, Path keep)
+      throws IOException {
+    assert fileSystem != null : "null filesystem";
+    String prefix = deltaPrefix(keep);
+    FileStatus[] stats = fileSystem.listStatus(keep.getParent(),
+        new GlobFilter(SliderKeys.HISTORY_DELTA_GLOB_PATTERN));
+    int deleteCount = 0;
+    for (FileStatus stat : stats) {
+      Path path = stat.getPath();
+      if (!path.getName().startsWith(prefix)) {
+        log.debug("Deleting {}", path);
+        deleteCount++;
+        fileSystem.delete(path, false);
+      }
+    }
+    return deleteCount;
+  }
+
 }
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster
+
+import com.codahale.metrics.Timer
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.service.ServiceOperations
+import org.apache.slider.common.SliderXmlConfKeys
+import org.apache.slider.server.appmaster.actions.AsyncAction
+import org.apache.slider.server.appmaster.actions.QueueAccess
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring
+import org.apache.slider.server.appmaster.management.MetricsConstants
+import org.apache.slider.server.appmaster.model.mock.MockProviderService
+import org.junit.After
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Test the bounded launch pipeline of the {@link RoleLaunchService}
+ */
+@CompileStatic
+@Slf4j
+class TestRoleLaunchService {
+
+  MetricsAndMonitoring metrics = new MetricsAndMonitoring()
+  RoleLaunchService launchService
+  List<AsyncAction> scheduled = []
+  QueueAccess actionQueue = [
+      schedule: { AsyncAction action -> scheduled << action }
+  ] as QueueAccess
+
+  @After
+  public void teardown() {
+    ServiceOperations.stop(launchService)
+  }
+
+  RoleLaunchService createLaunchService(int threads, int queue, int perNode) {
+    def conf = new Configuration(false)
+    conf.setInt(SliderXmlConfKeys.KEY_AM_LAUNCHER_THREADS, threads)
+    conf.setInt(SliderXmlConfKeys.KEY_AM_LAUNCHER_QUEUE_SIZE, queue)
+    conf.setInt(SliderXmlConfKeys.KEY_AM_LAUNCHER_MAX_PER_NODE, perNode)
+    launchService = new RoleLaunchService(actionQueue, metrics,
+        new MockProviderService(), null, null, [:], null)
+    launchService.init(conf)
+    launchService.start()
+    return launchService
+  }
+
+  @Test
+  public void testPerNodeLimit() throws Throwable {
+    createLaunchService(8, 64, 2)
+    CountDownLatch release = new CountDownLatch(1)
+    CountDownLatch finished = new CountDownLatch(12)
+    AtomicInteger running = new AtomicInteger()
+    AtomicInteger maxRunning = new AtomicInteger()
+    10.times {
+      launchService.submitLaunch("node1:45454", "role0",
+          new BlockingLaunch(release, finished, running, maxRunning))
+    }
+    // another node is unaffected by the limit on the first
+    AtomicInteger running2 = new AtomicInteger()
+    AtomicInteger maxRunning2 = new AtomicInteger()
+    2.times {
+      launchService.submitLaunch("node2:45454", "role1",
+          new BlockingLaunch(release, finished, running2, maxRunning2))
+    }
+    assert 12 == launchService.activeLaunches
+    assert 8 == launchService.deferredLaunches
+    release.countDown()
+    assert finished.await(30, TimeUnit.SECONDS)
+    waitForLaunchesToComplete()
+    assert 2 == maxRunning.get()
+    assert 2 == maxRunning2.get()
+    assert 0 == launchService.deferredLaunches
+    assert 10 == launchService.getLaunchLatency("role0").count
+    assert 2 == launchService.getLaunchLatency("role1").count
+
+    // the timers are published as per-role metrics
+    Timer timer = metrics.metrics.timers[MetricsConstants.PREFIX_SLIDER_ROLES +
+        "role0." + MetricsConstants.ROLE_LAUNCH_LATENCY]
+    assert timer.is(launchService.getLaunchLatency("role0"))
+  }
+
+  @Test
+  public void testNoPerNodeLimit() throws Throwable {
+    createLaunchService(4, 64, 0)
+    CountDownLatch release = new CountDownLatch(1)
+    CountDownLatch finished = new CountDownLatch(4)
+    AtomicInteger running = new AtomicInteger()
+    AtomicInteger maxRunning = new AtomicInteger()
+    4.times {
+      launchService.submitLaunch("node1:45454", "role0",
+          new BlockingLaunch(release, finished, running, maxRunning))
+    }
+    assert 0 == launchService.deferredLaunches
+    release.countDown()
+    assert finished.await(30, TimeUnit.SECONDS)
+    waitForLaunchesToComplete()
+    assert maxRunning.get() <= 4
+  }
+
+  @Test
+  public void testBackPressureRetriesFromActionQueue() throws Throwable {
+    createLaunchService(1, 1, 0)
+    CountDownLatch release = new CountDownLatch(1)
+    CountDownLatch finished = new CountDownLatch(2)
+    AtomicInteger running = new AtomicInteger()
+    AtomicInteger maxRunning = new AtomicInteger()
+    // occupy the single thread, then fill the queue
+    launchService.submitLaunch("node1:45454", "role0",
+        new BlockingLaunch(release, finished, running, maxRunning))
+    launchService.submitLaunch("node2:45454", "role0",
+        new BlockingLaunch(release, finished, running, maxRunning))
+    // with the pool and queue full, the launch is retried later,
+    // never run by the submitting thread
+    Thread caller = Thread.currentThread()
+    Thread launchThread = null
+    CountDownLatch launched = new CountDownLatch(1)
+    launchService.submitLaunch("node3:45454", "role0", {
+      launchThread = Thread.currentThread()
+      launched.countDown()
+    } as Runnable)
+    assert 1 == scheduled.size()
+    assert null == launchThread
+    assert 3 == launchService.activeLaunches
+    release.countDown()
+    assert finished.await(30, TimeUnit.SECONDS)
+    scheduled[0].execute(null, actionQueue, null)
+    assert launched.await(30, TimeUnit.SECONDS)
+    assert !caller.is(launchThread)
+    waitForLaunchesToComplete()
+    assert 3 == launchService.getLaunchLatency("role0").count
+  }
+
+  @Test
+  public void testRejectionAfterShutdownReleasesCounters() throws Throwable {
+    createLaunchService(1, 1, 1)
+    CountDownLatch release = new CountDownLatch(1)
+    CountDownLatch finished = new CountDownLatch(1)
+    AtomicInteger running = new AtomicInteger()
+    AtomicInteger maxRunning = new AtomicInteger()
+    launchService.submitLaunch("node1:45454", "role0",
+        new BlockingLaunch(release, finished, running, maxRunning))
+    launchService.submitLaunch("node1:45454", "role0", {} as Runnable)
+    assert 1 == launchService.deferredLaunches
+    launchService.stop()
+    release.countDown()
+    assert finished.await(30, TimeUnit.SECONDS)
+    // the deferred launch was rejected: nothing is left counted
+    waitForLaunchesToComplete()
+    assert 0 == launchService.deferredLaunches
+    assert scheduled.empty
+    // a new launch on a stopped service is abandoned, not counted
+    launchService.submitLaunch("node2:45454", "role0", {} as Runnable)
+    assert 0 == launchService.activeLaunches
+  }
+
+  void waitForLaunchesToComplete() {
+    long end = System.currentTimeMillis() + 30000
+    while (launchService.activeLaunches > 0 &&
+           System.currentTimeMillis() < end) {
+      Thread.sleep(10)
+    }
+    assert 0 == launchService.activeLaunches
+  }
+
+  /**
+   * A launch which blocks until released, tracking the maximum number
+   * of launches running at the same time
+   */
+  static class BlockingLaunch implements Runnable {
+    final CountDownLatch release
+    final CountDownLatch finished
+    final AtomicInteger running
+    final AtomicInteger maxRunning
+
+    BlockingLaunch(CountDownLatch release,
+        CountDownLatch finished,
+        AtomicInteger running,
+        AtomicInteger maxRunning) {
+      this.release = release
+      this.finished = finished
+      this.running = running
+      this.maxRunning = maxRunning
+    }
+
+    @Override
+    void run() {
+      int now = running.incrementAndGet()
+      int current = maxRunning.get()
+      while (now > current && !maxRunning.compareAndSet(current, now)) {
+        current = maxRunning.get()
+      }
+      try {
+        release.await(30, TimeUnit.SECONDS)
+      } finally {
+        running.decrementAndGet()
+        finished.countDown()
+      }
+    }
+  }
+}
@@ -21,7 +21,11 @@ package org.apache.slider.server.appmaster.actions
 import groovy.util.logging.Slf4j
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.service.ServiceOperations
+import org.apache.hadoop.yarn.api.records.FinalApplicationStatus
 import org.apache.slider.server.appmaster.SliderAppMaster
+import org.apache.slider.server.appmaster.model.mock.MockApplicationAttemptId
+import org.apache.slider.server.appmaster.model.mock.MockApplicationId
+import org.apache.slider.server.appmaster.model.mock.MockContainerId
 import org.apache.slider.server.appmaster.state.AppState
 import org.apache.slider.server.services.workflow.ServiceThreadFactory
 import org.apache.slider.server.services.workflow.WorkflowExecutorService
@@ -194,6 +198,109 @@ class TestActions {
     assert queues.waitForServiceToStop(10000)
   }
   
+  @Test
+  public void testAttributeIndex() throws Throwable {
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+    def review = new ReviewAndFlexApplicationSize("review", 0, TimeUnit.SECONDS)
+    queues.put(review)
+    assert queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+    assert queues.hasQueuedActionWithAttribute(
+        AsyncAction.ATTR_REVIEWS_APP_SIZE | AsyncAction.ATTR_HALTS_APP)
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_HALTS_APP)
+    assert queues.remove(review)
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+  }
+
+  @Test
+  public void testCoalescingReviews() throws Throwable {
+    List<ReviewAndFlexApplicationSize> reviews = (1..100).collect {
+      new ReviewAndFlexApplicationSize("review $it", 0, TimeUnit.SECONDS)
+    }
+    reviews.each { queues.put(it) }
+    assert queues.coalescedCount == 99
+    assert queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+    queues.put(new ActionStopQueue(0))
+    List<AsyncAction> batch = []
+    queues.takeBatch(batch)
+    // only the last review survives
+    assert batch.size() == 2
+    assert batch[0].is(reviews[99])
+    assert batch[1] instanceof ActionStopQueue
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+  }
+
+  @Test
+  public void testCoalescingRegistryOperations() throws Throwable {
+    def attemptId = new MockApplicationAttemptId(new MockApplicationId(1), 1)
+    def cid = new MockContainerId(attemptId, 1)
+    def cid2 = new MockContainerId(attemptId, 2)
+    def register = new RegisterComponentInstance(cid, "", "", 0,
+        TimeUnit.MILLISECONDS)
+    def register2 = new RegisterComponentInstance(cid2, "", "", 0,
+        TimeUnit.MILLISECONDS)
+    def unregister = new UnregisterComponentInstance(cid, 0,
+        TimeUnit.MILLISECONDS)
+    queues.put(register)
+    queues.put(register2)
+    queues.put(unregister)
+    List<AsyncAction> batch = []
+    queues.takeBatch(batch)
+    assert batch == [register2, unregister]
+  }
+
+  @Test
+  public void testBatchEndsAtStop() throws Throwable {
+    ActionNoteExecuted note1 = new ActionNoteExecuted("note1", 0)
+    ActionNoteExecuted note2 = new ActionNoteExecuted("note2", 0)
+    def stop = new ActionStopQueue(0)
+    queues.put(note1)
+    queues.put(stop)
+    queues.put(note2)
+    List<AsyncAction> batch = []
+    assert 2 == queues.takeBatch(batch)
+    assert batch == [note1, stop]
+    assert queues.actionQueue.contains(note2)
+  }
+
+  @Test
+  public void testFlushReleasesSupersededActionsOnce() throws Throwable {
+    queues.put(new ReviewAndFlexApplicationSize("review1", 0, TimeUnit.SECONDS))
+    queues.put(new ReviewAndFlexApplicationSize("review2", 0, TimeUnit.SECONDS))
+    def other = new ActionNoteExecuted("other", 0,
+        AsyncAction.ATTR_REVIEWS_APP_SIZE)
+    queues.put(other)
+    queues.flushActionQueue(ReviewAndFlexApplicationSize)
+    // the superseded review must not release the count held by other
+    assert queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+    assert queues.remove(other)
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_REVIEWS_APP_SIZE)
+  }
+
+  @Test
+  public void testReviewNotBatchedWithHalt() throws Throwable {
+    ActionNoteExecuted note1 = new ActionNoteExecuted("note1", 0)
+    ActionNoteExecuted note2 = new ActionNoteExecuted("note2", 0)
+    def review = new ReviewAndFlexApplicationSize("review", 0, TimeUnit.SECONDS)
+    def halt = new ActionStopSlider("halt", 0, TimeUnit.SECONDS, 0,
+        FinalApplicationStatus.SUCCEEDED, "halt")
+    [note1, review, halt, note2].each { queues.put(it) }
+
+    List<AsyncAction> batch = []
+    assert 1 == queues.takeBatch(batch)
+    assert batch == [note1]
+    batch.clear()
+    assert 1 == queues.takeBatch(batch)
+    assert batch == [review]
+    // while the review executes, the halt is still visible in the queue
+    assert queues.hasQueuedActionWithAttribute(
+        AsyncAction.ATTR_REVIEWS_APP_SIZE | AsyncAction.ATTR_HALTS_APP)
+    batch.clear()
+    assert 1 == queues.takeBatch(batch)
+    assert batch == [halt]
+    assert !queues.hasQueuedActionWithAttribute(AsyncAction.ATTR_HALTS_APP)
+    assert queues.actionQueue.contains(note2)
+  }
+
   public class ActionNoteExecuted extends AsyncAction {
     public final AtomicBoolean executed = new AtomicBoolean(false);
     public final AtomicLong executionTimeNanos = new AtomicLong()
@@ -203,6 +310,10 @@ class TestActions {
       super(text, delay);
     }
 
+    public ActionNoteExecuted(String text, int delay, int attrs) {
+      super(text, delay, TimeUnit.MILLISECONDS, attrs);
+    }
+
     @Override
     public void execute(
         SliderAppMaster appMaster,
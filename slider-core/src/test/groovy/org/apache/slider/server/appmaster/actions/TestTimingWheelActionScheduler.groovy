@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.actions
+
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.service.ServiceOperations
+import org.apache.slider.common.SliderXmlConfKeys
+import org.apache.slider.server.appmaster.SliderAppMaster
+import org.apache.slider.server.appmaster.state.AppState
+import org.junit.Test
+
+import java.util.concurrent.DelayQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests of the timing wheel scheduler, and a comparison with the
+ * delay queue.
+ */
+@Slf4j
+class TestTimingWheelActionScheduler {
+
+  TimingWheelActionScheduler wheel =
+      new TimingWheelActionScheduler(10, TimeUnit.MILLISECONDS, 64)
+
+  @Test
+  public void testDueActionsReleasedImmediately() throws Throwable {
+    def action = new ActionCount("now", 0)
+    wheel.add(action)
+    assert 1 == wheel.size()
+    assert action.is(wheel.take())
+    assert 0 == wheel.size()
+  }
+
+  @Test
+  public void testOrdering() throws Throwable {
+    // beyond one turn of the wheel, so multiple rounds are needed
+    def late = new ActionCount("late", 900)
+    def early = new ActionCount("early", 50)
+    def middle = new ActionCount("middle", 200)
+    wheel.add(late)
+    wheel.add(early)
+    wheel.add(middle)
+    long start = System.currentTimeMillis()
+    assert early.is(wheel.take())
+    assert middle.is(wheel.take())
+    assert late.is(wheel.take())
+    long duration = System.currentTimeMillis() - start
+    assert duration >= 850
+    assert duration < 5000
+  }
+
+  @Test
+  public void testCancel() throws Throwable {
+    def cancelled = new ActionCount("cancelled", 50)
+    def kept = new ActionCount("kept", 100)
+    wheel.add(cancelled)
+    wheel.add(kept)
+    assert wheel.remove(cancelled)
+    assert !wheel.remove(cancelled)
+    assert 1 == wheel.size()
+    assert kept.is(wheel.take())
+  }
+
+  @Test
+  public void testReAddReschedules() throws Throwable {
+    def action = new ActionCount("action", 5000)
+    wheel.add(action)
+    action.nanos = System.nanoTime()
+    wheel.add(action)
+    assert 1 == wheel.size()
+    assert action.is(wheel.take())
+  }
+
+  @Test
+  public void testEmptyWheelDoesNotTick() throws Throwable {
+    def action = new ActionCount("action", 0)
+    def taken = []
+    Thread taker = new Thread({
+      taken << wheel.take()
+    } as Runnable, "taker")
+    taker.start()
+    // many ticks, with nothing scheduled
+    Thread.sleep(500)
+    assert 0 == wheel.wakeups
+    wheel.add(action)
+    taker.join(10000)
+    assert action.is(taken[0])
+    assert 1 == wheel.wakeups
+  }
+
+  @Test
+  public void testSleepsUntilEarliestDeadline() throws Throwable {
+    // 50 ticks away, within one turn of the wheel
+    def action = new ActionCount("action", 500)
+    wheel.add(action)
+    assert action.is(wheel.take())
+    // one wakeup at the deadline; allow for a spurious one
+    assert wheel.wakeups <= 2
+  }
+
+  @Test
+  public void testEarlierActionWakesSleepingTaker() throws Throwable {
+    def late = new ActionCount("late", 5000)
+    def early = new ActionCount("early", 50)
+    wheel.add(late)
+    def taken = []
+    Thread taker = new Thread({
+      taken << wheel.take()
+    } as Runnable, "taker")
+    taker.start()
+    Thread.sleep(100)
+    long start = System.currentTimeMillis()
+    wheel.add(early)
+    taker.join(10000)
+    assert early.is(taken[0])
+    assert System.currentTimeMillis() - start < 2000
+    assert wheel.remove(late)
+  }
+
+  @Test
+  public void testRenewingActionsInQueueService() throws Throwable {
+    QueueService queues = new QueueService()
+    def conf = new Configuration()
+    conf.set(SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_SCHEDULER,
+        SliderXmlConfKeys.AM_ACTION_QUEUE_SCHEDULER_TIMINGWHEEL)
+    conf.setLong(SliderXmlConfKeys.KEY_AM_ACTION_QUEUE_TIMINGWHEEL_TICK, 10)
+    queues.init(conf)
+    assert queues.getScheduler() instanceof TimingWheelActionScheduler
+    try {
+      def counter = new ActionCount("counter", 0)
+      queues.renewing("counter",
+          new RenewingAction<ActionCount>(counter, 10, 20,
+              TimeUnit.MILLISECONDS, 3))
+      queues.schedule(new ActionStopQueue(1, TimeUnit.SECONDS))
+      Thread mover = new Thread(queues, "mover")
+      mover.start()
+      new QueueExecutor(queues).run()
+      mover.join(10000)
+      assert 3 == counter.count.get()
+    } finally {
+      ServiceOperations.stop(queues)
+    }
+  }
+
+  @Test
+  public void testCompareWithDelayQueue() throws Throwable {
+    int count = 10000
+    int runs = 5
+    def random = new Random(0)
+    List<ActionCount> actions = (1..count).collect {
+      new ActionCount("action $it", 1000 + random.nextInt(60000))
+    }
+    long wheelNanos = 0
+    long delayNanos = 0
+    runs.times {
+      TimingWheelActionScheduler timingWheel =
+          new TimingWheelActionScheduler(50, TimeUnit.MILLISECONDS, 512)
+      wheelNanos += scheduleAndCancel(timingWheel, actions)
+      assert 0 == timingWheel.size()
+      def delayQueue = new DelayQueueActionScheduler(
+          new DelayQueue<AsyncAction>())
+      delayNanos += scheduleAndCancel(delayQueue, actions)
+      assert 0 == delayQueue.size()
+    }
+    log.info("Schedule and cancel of $count actions: " +
+             "timing wheel ${TimeUnit.NANOSECONDS.toMicros(wheelNanos / runs as long)} uS;" +
+             " delay queue ${TimeUnit.NANOSECONDS.toMicros(delayNanos / runs as long)} uS")
+  }
+
+  /**
+   * Schedule then cancel every action
+   * @param scheduler scheduler
+   * @param actions actions
+   * @return the duration in nanoseconds
+   */
+  long scheduleAndCancel(ActionScheduler scheduler, List<ActionCount> actions) {
+    long start = System.nanoTime()
+    actions.each { scheduler.add(it) }
+    // cancel in a different order from insertion
+    for (int i = actions.size() - 1; i >= 0; i--) {
+      assert scheduler.remove(actions[i])
+    }
+    return System.nanoTime() - start
+  }
+
+  static class ActionCount extends AsyncAction {
+    final AtomicInteger count = new AtomicInteger()
+
+    ActionCount(String name, long delayMillis) {
+      super(name, delayMillis)
+    }
+
+    @Override
+    void execute(SliderAppMaster appMaster,
+        QueueAccess queueService,
+        AppState appState) throws Exception {
+      count.incrementAndGet()
+    }
+  }
+}
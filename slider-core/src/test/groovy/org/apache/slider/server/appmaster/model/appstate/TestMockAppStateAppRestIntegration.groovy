@@ -18,6 +18,8 @@
 
 package org.apache.slider.server.appmaster.model.appstate
 
+import com.codahale.metrics.Counter
+import com.codahale.metrics.Timer
 import groovy.util.logging.Slf4j
 import org.apache.slider.api.types.ContainerInformation
 import org.apache.slider.core.persist.JsonSerDeser
@@ -38,6 +40,8 @@ import org.apache.slider.server.appmaster.web.rest.application.resources.Content
 import org.apache.slider.server.appmaster.web.rest.application.resources.ResourceRefresher
 import org.junit.Test
 
+import java.util.concurrent.Executor
+
 @Slf4j
 class TestMockAppStateAppRestIntegration extends BaseMockAppStateTest implements MockRoles {
 
@@ -62,6 +66,83 @@ class TestMockAppStateAppRestIntegration extends BaseMockAppStateTest implements
     assert 1 == got;
   }
 
+  @Test
+  public void testStateChangeInvalidatesContent() throws Throwable {
+    def refresher = new IntRefresher()
+    def entry = new CachedContent<Integer>(60000, refresher, stateAccess)
+    assert 0 == entry.get()
+    assert 0 == entry.get()
+    assert 1 == entry.refreshCounter
+    assert 1 == entry.hits
+    assert 1 == entry.misses
+
+    startNodes()
+    assert 1 == entry.get()
+    assert 2 == entry.refreshCounter
+
+    entry.invalidate()
+    assert 2 == entry.get()
+    assert 3 == entry.refreshCounter
+  }
+
+  @Test
+  public void testInvalidationDuringRefreshIsKept() throws Throwable {
+    CachedContent<Integer> entry = null
+    int count = 0
+    def refresher = {
+      int result = count++
+      if (result == 1) {
+        // invalidated while the refresh is in progress
+        entry.invalidate()
+      }
+      return result
+    } as ResourceRefresher<Integer>
+    entry = new CachedContent<Integer>(60000, refresher)
+    assert 0 == entry.get()
+    entry.invalidate()
+    // this refresh was invalidated before it completed
+    assert 1 == entry.get()
+    assert 2 == entry.get()
+    assert 2 == entry.get()
+    assert 3 == entry.refreshCounter
+  }
+
+  @Test
+  public void testStaleContentServedWhileRefreshing() throws Throwable {
+    List<Runnable> queued = []
+    def refresher = new IntRefresher()
+    def entry = new CachedContent<Integer>(60000, refresher, stateAccess)
+    entry.refreshExecutor = { Runnable r -> queued << r } as Executor
+    // the first read has nothing to serve, so refreshes directly
+    assert 0 == entry.get()
+    assert queued.empty
+
+    startNodes()
+    // stale: the old value is served and one refresh is queued
+    assert 0 == entry.get()
+    assert 0 == entry.get()
+    assert 1 == queued.size()
+    queued[0].run()
+    assert 1 == entry.get()
+    assert 1 == queued.size()
+  }
+
+  @Test
+  public void testContentCacheMetrics() throws Throwable {
+    ContentCache cache = new ContentCache()
+    cache.put("/live/int", new CachedContent<Integer>(60000, new IntRefresher()))
+    cache.lookup("/live/int")
+    cache.lookup("/live/int")
+    def metrics = cache.metrics
+    assert 1 == (metrics["slider.contentcache.live.int.hits"] as Counter).count
+    assert 1 == (metrics["slider.contentcache.live.int.misses"] as Counter).count
+    assert 1 == (metrics["slider.contentcache.live.int.refresh"] as Timer).count
+
+    cache.invalidateAll()
+    cache.lookup("/live/int")
+    assert 2 == (metrics["slider.contentcache.live.int.refresh"] as Timer).count
+  }
+
   @Test
   public void testContainerListRefresher() throws Throwable {
     LiveContainersRefresher clr = new LiveContainersRefresher(stateAccess)
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.appstate
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.yarn.client.api.AMRMClient
+import org.apache.slider.server.appmaster.management.MetricsAndMonitoring
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockContainerId
+import org.apache.slider.server.appmaster.model.mock.MockPriority
+import org.apache.slider.server.appmaster.model.mock.MockRMOperationHandler
+import org.apache.slider.server.appmaster.model.mock.MockResource
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.operations.AbstractRMOperation
+import org.apache.slider.server.appmaster.operations.CancelSingleRequest
+import org.apache.slider.server.appmaster.operations.CoalescingRMOperationHandler
+import org.apache.slider.server.appmaster.operations.ContainerReleaseOperation
+import org.apache.slider.server.appmaster.operations.ContainerRequestOperation
+import org.apache.slider.server.appmaster.operations.UpdateBlacklistOperation
+import org.junit.Test
+
+/**
+ * Test the coalescing of RM operations
+ */
+@CompileStatic
+@Slf4j
+class TestMockAppStateRMOperationCoalescing extends BaseMockAppStateTest
+    implements MockRoles {
+
+  MockRMOperationHandler mockHandler = new MockRMOperationHandler()
+  CoalescingRMOperationHandler handler = new CoalescingRMOperationHandler(
+      mockHandler, new MetricsAndMonitoring(), true)
+
+  @Override
+  String getTestName() {
+    return "TestMockAppStateRMOperationCoalescing"
+  }
+
+  AMRMClient.ContainerRequest request(int priority, String node = null,
+      boolean relax = true) {
+    return new AMRMClient.ContainerRequest(new MockResource(1, 1),
+        node ? [node] as String[] : null,
+        null,
+        new MockPriority(priority),
+        relax)
+  }
+
+  @Test
+  public void testFlexUpIsUnchanged() throws Throwable {
+    role0Status.desired = 500
+    List<AbstractRMOperation> ops = appState.reviewRequestAndReleaseNodes()
+    assert 500 == ops.size()
+    List<AbstractRMOperation> coalesced = handler.coalesce(ops)
+    assert ops == coalesced
+
+    handler.execute(ops)
+    assert 500 == mockHandler.requests
+    assert 500 == handler.submitted
+    assert 500 == handler.issued
+    assert 0 == handler.coalesced
+  }
+
+  @Test
+  public void testRequestThenCancelWithinBatch() throws Throwable {
+    role0Status.desired = 5
+    List<AbstractRMOperation> ops = appState.reviewRequestAndReleaseNodes()
+    role0Status.desired = 3
+    ops.addAll(appState.reviewRequestAndReleaseNodes())
+    assert 7 == ops.size()
+    assert 2 == ops.findAll { AbstractRMOperation op -> op instanceof CancelSingleRequest }.size()
+
+    handler.execute(ops)
+    assert 3 == mockHandler.requests
+    assert 4 == handler.coalesced
+    assert 3 == handler.issued
+    assert 3 == role0Status.requested
+  }
+
+  @Test
+  public void testRequestThenCancelOfSameInstance() throws Throwable {
+    def first = request(1)
+    def second = request(1)
+    List<AbstractRMOperation> ops = [
+        new ContainerRequestOperation(first),
+        new ContainerRequestOperation(request(2)),
+        new ContainerRequestOperation(second),
+        new CancelSingleRequest(first),
+    ] as List<AbstractRMOperation>
+    List<AbstractRMOperation> coalesced = handler.coalesce(ops)
+    assert [ops[1], ops[2]] == coalesced
+    assert second.is(((ContainerRequestOperation) coalesced[1]).request)
+    assert 2 == handler.coalesced
+  }
+
+  @Test
+  public void testCancelOfEquivalentRequestIsNotCoalesced() throws Throwable {
+    // same priority, capability and locality; different instances
+    List<AbstractRMOperation> ops = [
+        new ContainerRequestOperation(request(1)),
+        new CancelSingleRequest(request(1)),
+    ] as List<AbstractRMOperation>
+    assert ops == handler.coalesce(ops)
+    assert 0 == handler.coalesced
+  }
+
+  @Test
+  public void testCancelThenRerequestIsNotCoalesced() throws Throwable {
+    def req = request(1)
+    List<AbstractRMOperation> ops = [
+        new CancelSingleRequest(req),
+        new ContainerRequestOperation(req),
+        new ContainerRequestOperation(request(2)),
+    ] as List<AbstractRMOperation>
+    assert ops == handler.coalesce(ops)
+    assert 0 == handler.coalesced
+  }
+
+  @Test
+  public void testEscalationIsNotCoalesced() throws Throwable {
+    // a placed request is replaced by a relaxed one: different locality
+    List<AbstractRMOperation> ops = [
+        new CancelSingleRequest(request(1, "host1", false)),
+        new ContainerRequestOperation(request(1, "host1", true)),
+    ] as List<AbstractRMOperation>
+    assert ops == handler.coalesce(ops)
+    assert 0 == handler.coalesced
+  }
+
+  @Test
+  public void testReleasesAndBlacklistMerged() throws Throwable {
+    def cid = new MockContainerId(applicationAttemptId, 1)
+    List<AbstractRMOperation> ops = [
+        new UpdateBlacklistOperation(["host1", "host2"], []),
+        new ContainerReleaseOperation(cid),
+        new ContainerReleaseOperation(cid),
+        new UpdateBlacklistOperation(["host3"], ["host1"]),
+    ] as List<AbstractRMOperation>
+    List<AbstractRMOperation> coalesced = handler.coalesce(ops)
+    assert 2 == coalesced.size()
+    // original order: the merged update is where the last one was
+    assert ops[1].is(coalesced[0])
+    UpdateBlacklistOperation blacklist = (UpdateBlacklistOperation) coalesced[1]
+    assert ["host2", "host3"] == blacklist.blacklistAdditions
+    assert ["host1"] == blacklist.blacklistRemovals
+    assert 2 == handler.coalesced
+  }
+
+  @Test
+  public void testOperationsPerHeartbeat() throws Throwable {
+    handler.execute([
+        new ContainerRequestOperation(request(1)),
+        new ContainerRequestOperation(request(1)),
+    ] as List<AbstractRMOperation>)
+    handler.onHeartbeat()
+    handler.onHeartbeat()
+    def histogram = handler.operationsPerHeartbeat
+    assert 2 == histogram.count
+    assert 2 == histogram.snapshot.max
+    assert 0 == histogram.snapshot.min
+  }
+
+  @Test
+  public void testCoalescingDisabled() throws Throwable {
+    def passthrough = new CoalescingRMOperationHandler(mockHandler,
+        new MetricsAndMonitoring(), false)
+    List<AbstractRMOperation> ops = [
+        new ContainerRequestOperation(request(1)),
+        new CancelSingleRequest(request(1)),
+    ] as List<AbstractRMOperation>
+    mockHandler.availableToCancel = 1
+    passthrough.execute(ops)
+    assert 1 == mockHandler.requests
+    assert 1 == mockHandler.cancelled
+    assert 2 == passthrough.issued
+    assert 0 == passthrough.coalesced
+  }
+}
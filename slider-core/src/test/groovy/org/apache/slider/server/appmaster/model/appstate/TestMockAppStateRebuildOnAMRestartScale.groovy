@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.appstate
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.yarn.api.records.Container
+import org.apache.slider.common.SliderXmlConfKeys
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockAppState
+import org.apache.slider.server.appmaster.model.mock.MockNodeId
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.state.AppState
+import org.apache.slider.server.appmaster.state.AppStateBindingInfo
+import org.apache.slider.server.appmaster.state.ContainerPriority
+import org.apache.slider.server.appmaster.state.NodeInstance
+import org.junit.Test
+
+/**
+ * Test the rebuild of a large app state on an AM restart
+ */
+@CompileStatic
+@Slf4j
+class TestMockAppStateRebuildOnAMRestartScale extends BaseMockAppStateTest
+    implements MockRoles {
+
+  static final int CONTAINERS = 10000
+  static final int NODES = 1000
+
+  /**
+   * Time budget for the rebuild; generous so as to cope with slow
+   * and heavily loaded build machines.
+   */
+  static final long REBUILD_BUDGET = 30000
+
+  @Override
+  String getTestName() {
+    return "TestMockAppStateRebuildOnAMRestartScale"
+  }
+
+  List<Container> buildContainers() {
+    List<Container> containers = new ArrayList<>(CONTAINERS)
+    for (int i = 0; i < CONTAINERS; i++) {
+      containers << (Container) factory.newContainer(
+          new MockNodeId("host${i % NODES}"),
+          ContainerPriority.createPriority(i % ROLE_COUNT, false))
+    }
+    return containers
+  }
+
+  AppState restart(List<Container> containers, int threads) {
+    AppStateBindingInfo binding = buildBindingInfo()
+    binding.instanceDefinition = factory.newInstanceDefinition(3334, 3333, 3333)
+    binding.liveContainers = containers
+    binding.serviceConfig.setInt(
+        SliderXmlConfKeys.KEY_AM_RESTART_REBUILD_THREADS, threads)
+    return new MockAppState(binding)
+  }
+
+  void assertRebuilt(AppState state) {
+    assert CONTAINERS == state.startedCountainerCount
+    assert CONTAINERS == state.cloneOwnedContainerList().size()
+    assert 3334 == state.enumLiveNodesInRole(ROLE0).size()
+    assert 3333 == state.enumLiveNodesInRole(ROLE1).size()
+    assert 3333 == state.enumLiveNodesInRole(ROLE2).size()
+    assert 3334L == state.lookupRoleStatus(0).actual
+    assert 3334L == state.lookupRoleStatus(0).started
+    assert NODES == state.roleHistory.clusterSize
+    NodeInstance host0 = state.roleHistory.getExistingNodeInstance("host0")
+    assert 4 == host0.getLiveRoleInstances(0)
+    assert 3 == host0.getLiveRoleInstances(1)
+    assert 3 == host0.getLiveRoleInstances(2)
+    assert 0 == host0.get(0).starting
+    assert state.reviewRequestAndReleaseNodes().empty
+  }
+
+  @Test
+  public void testParallelRebuild() throws Throwable {
+    List<Container> containers = buildContainers()
+    AppState state = restart(containers, 8)
+    long duration = state.restartRebuildDuration
+    log.info("Rebuild of $CONTAINERS containers took $duration mS")
+    assertRebuilt(state)
+    assert duration < REBUILD_BUDGET
+
+    assert 0L == state.AMReadyTime
+    state.noteAMReady()
+    assert state.AMReadyTime > 0
+  }
+
+  @Test
+  public void testSerialRebuild() throws Throwable {
+    AppState state = restart(buildContainers(), 1)
+    log.info("Serial rebuild of $CONTAINERS containers took" +
+             " ${state.restartRebuildDuration} mS")
+    assertRebuilt(state)
+  }
+}
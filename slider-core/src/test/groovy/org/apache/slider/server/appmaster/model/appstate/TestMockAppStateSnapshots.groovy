@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.model.appstate
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.model.mock.MockYarnEngine
+import org.apache.slider.server.appmaster.state.AppStateSnapshot
+import org.apache.slider.server.appmaster.state.RoleInstance
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Test the published snapshots of the app state, and that readers
+ * do not block on the app state monitor
+ */
+@CompileStatic
+@Slf4j
+class TestMockAppStateSnapshots extends BaseMockAppStateTest
+    implements MockRoles {
+
+  @Override
+  String getTestName() {
+    return "TestMockAppStateSnapshots"
+  }
+
+  @Override
+  MockYarnEngine createYarnEngine() {
+    return new MockYarnEngine(64, 16)
+  }
+
+  @Test
+  public void testSnapshotVersioning() throws Throwable {
+    AppStateSnapshot s1 = appState.stateSnapshot
+    // no changes: same instance
+    assert s1.is(appState.stateSnapshot)
+    assert s1.liveContainers.empty
+
+    role0Status.desired = 2
+    role1Status.desired = 1
+    List<RoleInstance> instances = createAndStartNodes()
+    assert 3 == instances.size()
+
+    AppStateSnapshot s2 = appState.stateSnapshot
+    assert s2.version > s1.version
+    assert 3 == s2.liveContainers.size()
+    assert 2 == s2.getLiveContainersInRole(ROLE0).size()
+    assert 1 == s2.getLiveContainersInRole(ROLE1).size()
+    assert s2.getLiveContainersInRole(ROLE2).empty
+    assert 2 == s2.roleStatistics[ROLE0].actual
+
+    RoleInstance ri = instances[0]
+    assert ri.is(s2.lookupLiveContainer(ri.id))
+    assert ri.is(appState.getLiveInstanceByContainerID(ri.id))
+
+    // the older snapshot is unchanged
+    assert s1.liveContainers.empty
+  }
+
+  @Test
+  public void testSnapshotIsImmutable() throws Throwable {
+    role0Status.desired = 1
+    createAndStartNodes()
+    AppStateSnapshot snapshot = appState.stateSnapshot
+    try {
+      snapshot.liveContainers.clear()
+      fail("expected an exception")
+    } catch (UnsupportedOperationException expected) {
+    }
+    // but the clones are modifiable
+    List<RoleInstance> clone = appState.cloneLiveContainerInfoList()
+    clone.clear()
+    assert 1 == appState.cloneLiveContainerInfoList().size()
+  }
+
+  @Test
+  public void testReadersDoNotBlockOnAppStateMonitor() throws Throwable {
+    role0Status.desired = 4
+    createAndStartNodes()
+    CountDownLatch locked = new CountDownLatch(1)
+    CountDownLatch release = new CountDownLatch(1)
+    Thread writer = new Thread({
+      synchronized (appState) {
+        locked.countDown()
+        release.await(30, TimeUnit.SECONDS)
+      }
+    } as Runnable, "writer")
+    writer.start()
+    try {
+      assert locked.await(30, TimeUnit.SECONDS)
+      // the monitor is now held by the writer thread; all of these must
+      // complete without it
+      assert 4 == appState.cloneLiveContainerInfoList().size()
+      assert 4 == appState.enumLiveNodesInRole(ROLE0).size()
+      assert 4 == appState.createRoleToClusterNodeMap()[ROLE0].size()
+      assert 4 == appState.cloneOwnedContainerList().size()
+    } finally {
+      release.countDown()
+      writer.join()
+    }
+  }
+
+  @Test
+  public void testReaderLatencyDuringAllocationStorm() throws Throwable {
+    int readers = 4
+    AtomicBoolean finished = new AtomicBoolean(false)
+    AtomicLong reads = new AtomicLong()
+    AtomicLong maxLatency = new AtomicLong()
+    AtomicLong staleReads = new AtomicLong()
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>())
+    List<Thread> threads = []
+    readers.times { int i ->
+      Thread t = new Thread({
+        try {
+          while (!finished.get()) {
+            long start = System.nanoTime()
+            long seen = appState.stateVersion
+            AppStateSnapshot snapshot = appState.stateSnapshot
+            // the writer has already published a snapshot of at least
+            // the version this reader saw: readers never wait for a rebuild
+            if (snapshot.version < seen) {
+              staleReads.incrementAndGet()
+            }
+            int count = 0
+            snapshot.liveContainersByRole.values().each { List<RoleInstance> l ->
+              count += l.size()
+            }
+            // a snapshot is always internally consistent
+            assert count == snapshot.liveContainers.size()
+            appState.createRoleToClusterNodeMap()
+            long duration = System.nanoTime() - start
+            reads.incrementAndGet()
+            long current = maxLatency.get()
+            while (duration > current &&
+                   !maxLatency.compareAndSet(current, duration)) {
+              current = maxLatency.get()
+            }
+          }
+        } catch (Throwable e) {
+          failures.add(e)
+        }
+      } as Runnable, "reader-$i")
+      t.start()
+      threads << t
+    }
+
+    long start = System.nanoTime()
+    role0Status.desired = 300
+    role1Status.desired = 300
+    role2Status.desired = 300
+    List<RoleInstance> instances = createAndStartNodes()
+    long duration = System.nanoTime() - start
+    finished.set(true)
+    threads.each { Thread t -> t.join() }
+
+    assert failures.empty
+    assert 900 == instances.size()
+    assert 900 == appState.stateSnapshot.liveContainers.size()
+    log.info("Allocation of ${instances.size()} containers took " +
+             "${TimeUnit.NANOSECONDS.toMillis(duration)} mS;" +
+             " ${reads.get()} snapshot reads, max read latency" +
+             " ${TimeUnit.NANOSECONDS.toMicros(maxLatency.get())} uS")
+    assert reads.get() > 0
+    assert 0 == staleReads.get()
+  }
+
+  @Test
+  public void testSnapshotRebuiltOnceAfterChanges() throws Throwable {
+    AppStateSnapshot s1 = appState.stateSnapshot
+    role0Status.desired = 3
+    createAndStartNodes()
+    // every container changed the version; one read rebuilds the snapshot
+    assert appState.stateVersion >= s1.version + 3
+    AppStateSnapshot s2 = appState.stateSnapshot
+    assert s2.version == appState.stateVersion
+    assert 3 == s2.liveContainers.size()
+    assert s2.is(appState.stateSnapshot)
+  }
+
+  @Test
+  public void testRoleStatisticsAreCurrent() throws Throwable {
+    AppStateSnapshot snapshot = appState.stateSnapshot
+    long version = appState.stateVersion
+    role0Status.desired = 5
+    // the counter change does not change the version, but is visible
+    assert version == appState.stateVersion
+    assert 5 == snapshot.roleStatistics[ROLE0].desired
+  }
+
+  @Test
+  public void testSnapshotRebuiltWhileWriterHoldsMonitor() throws Throwable {
+    AppStateSnapshot s1 = appState.stateSnapshot
+    role0Status.desired = 1
+    createAndStartNodes()
+    // hold the writer's monitor: the reader must still get the
+    // current snapshot without blocking
+    CountDownLatch locked = new CountDownLatch(1)
+    CountDownLatch release = new CountDownLatch(1)
+    Thread writer = new Thread({
+      synchronized (appState) {
+        locked.countDown()
+        release.await(30, TimeUnit.SECONDS)
+      }
+    } as Runnable, "writer")
+    writer.start()
+    try {
+      assert locked.await(30, TimeUnit.SECONDS)
+      AppStateSnapshot s2 = appState.stateSnapshot
+      assert s2.version == appState.stateVersion
+      assert s2.version > s1.version
+      assert 1 == s2.liveContainers.size()
+      assert s2.is(appState.stateSnapshot)
+    } finally {
+      release.countDown()
+      writer.join()
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.model.appstate
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.slider.api.ClusterDescription
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.state.ClusterStatusDocument
+import org.junit.Test
+
+/**
+ * Test the versioned, pre-serialized cluster status document
+ */
+@CompileStatic
+@Slf4j
+class TestMockAppStateStatusDocument extends BaseMockAppStateTest
+    implements MockRoles {
+
+  @Override
+  String getTestName() {
+    return "TestMockAppStateStatusDocument"
+  }
+
+  @Test
+  public void testDocumentReusedUntilStateChanges() throws Throwable {
+    ClusterStatusDocument d1 = appState.clusterStatusDocument
+    assert d1.is(appState.clusterStatusDocument)
+    assert d1.isUnchangedSince(d1.version)
+    assert !d1.isUnchangedSince(d1.version - 1)
+    ClusterDescription status =
+        ClusterDescription.fromJson(d1.json.toStringUtf8())
+    assert status.state
+
+    role0Status.desired = 1
+    createAndStartNodes()
+    ClusterStatusDocument d2 = appState.clusterStatusDocument
+    assert d2.version > d1.version
+    assert d2.ETag != d1.ETag
+    assert !d2.isUnchangedSince(d1.version)
+    assert d2.is(appState.clusterStatusDocument)
+  }
+
+  @Test
+  public void testDocumentRebuiltAfterMaxAge() throws Throwable {
+    appState.statusDocumentMaxAge = 0
+    ClusterStatusDocument d1 = appState.clusterStatusDocument
+    ClusterStatusDocument d2 = appState.clusterStatusDocument
+    assert !d1.is(d2)
+    assert d2.stateVersion == d1.stateVersion
+    // nothing but the status time has changed, so the version is kept
+    assert d2.version == d1.version
+    assert d2.json.is(d1.json)
+    assert d2.isUnchangedSince(d1.version)
+
+    role0Status.desired = 1
+    createAndStartNodes()
+    ClusterStatusDocument d3 = appState.clusterStatusDocument
+    assert d3.version > d2.version
+    assert d3.json != d2.json
+  }
+}
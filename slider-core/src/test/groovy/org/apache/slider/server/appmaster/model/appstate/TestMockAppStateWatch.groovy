@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.server.appmaster.model.appstate
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.slider.api.types.ApplicationStateChanges
+import org.apache.slider.api.types.ApplicationStateEvent
+import org.apache.slider.api.types.ComponentInformation
+import org.apache.slider.core.persist.JsonSerDeser
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.state.RoleInstance
+import org.apache.slider.server.appmaster.state.StateChangeJournal
+import org.junit.Test
+
+/**
+ * Test the journal of state changes behind the watch API
+ */
+@CompileStatic
+@Slf4j
+class TestMockAppStateWatch extends BaseMockAppStateTest
+    implements MockRoles {
+
+  @Override
+  String getTestName() {
+    return "TestMockAppStateWatch"
+  }
+
+  @Test
+  public void testContainerEventsJournaled() throws Throwable {
+    ApplicationStateChanges initial = appState.getApplicationStateChanges(-1, 0)
+    assert initial.reset
+    assert initial.events.empty
+    long token = initial.resumeToken
+
+    role0Status.desired = 1
+    List<RoleInstance> instances = createAndStartNodes()
+    ApplicationStateChanges changes =
+        appState.getApplicationStateChanges(token, 0)
+    assert !changes.reset
+    List<ApplicationStateEvent> added = changes.events.findAll {
+      it.type == ApplicationStateEvent.CONTAINER_ADDED
+    }
+    assert 1 == added.size()
+    assert instances[0].id == added[0].container.containerId
+    assert ROLE0 == added[0].component
+    ApplicationStateEvent update = changes.events.last()
+    assert ApplicationStateEvent.COMPONENT_UPDATED == update.type
+    assert 1 == update.componentInformation.actual
+    assert changes.resumeToken == update.sequence
+
+    // nothing new
+    token = changes.resumeToken
+    changes = appState.getApplicationStateChanges(token, 0)
+    assert !changes.reset
+    assert changes.events.empty
+    assert token == changes.resumeToken
+
+    appState.onCompletedNode(containerStatus(instances[0].containerId, 1))
+    changes = appState.getApplicationStateChanges(token, 0)
+    ApplicationStateEvent removed = changes.events.find {
+      it.type == ApplicationStateEvent.CONTAINER_REMOVED
+    }
+    assert instances[0].id == removed.container.containerId
+    assert 1 == removed.container.exitCode
+
+    // round trip through JSON, as the IPC and REST clients do
+    def serDeser = new JsonSerDeser<ApplicationStateChanges>(
+        ApplicationStateChanges)
+    def parsed = serDeser.fromJson(serDeser.toJson(changes))
+    assert changes.events.size() == parsed.events.size()
+    assert removed.sequence == parsed.events.find {
+      it.type == ApplicationStateEvent.CONTAINER_REMOVED
+    }.sequence
+  }
+
+  @Test
+  public void testJournalOverflowResets() throws Throwable {
+    StateChangeJournal journal = new StateChangeJournal(3, 100)
+    long token = journal.resumeToken
+    5.times {
+      journal.append(new ApplicationStateEvent(
+          ApplicationStateEvent.COMPONENT_UPDATED, ROLE0))
+    }
+    assert 3 == journal.size()
+    assert 105 == journal.resumeToken
+    assert journal.since(token).reset
+    // a token from the future, e.g. another AM instance
+    assert journal.since(200).reset
+    ApplicationStateChanges changes = journal.since(102)
+    assert !changes.reset
+    assert [103L, 104L, 105L] == changes.events.collect { it.sequence }
+  }
+
+  @Test
+  public void testEventDetailsFilledOnceWhenRead() throws Throwable {
+    StateChangeJournal journal = new StateChangeJournal(10, 0)
+    int fills = 0
+    journal.append(new ApplicationStateEvent(
+        ApplicationStateEvent.COMPONENT_UPDATED, ROLE0),
+        { ApplicationStateEvent event ->
+          fills++
+          event.componentInformation = new ComponentInformation()
+          event.componentInformation.name = ROLE0
+        } as StateChangeJournal.EventDetails)
+    // appending does not serialize the details
+    assert 0 == fills
+    ApplicationStateChanges changes = journal.since(0)
+    assert ROLE0 == changes.events[0].componentInformation.name
+    assert 1 == fills
+    // later watches share them
+    changes = journal.since(0)
+    assert ROLE0 == changes.events[0].componentInformation.name
+    assert 1 == fills
+  }
+
+  @Test
+  public void testAwaitWokenByAppend() throws Throwable {
+    StateChangeJournal journal = new StateChangeJournal(10, 0)
+    long start = System.currentTimeMillis()
+    Thread.start {
+      Thread.sleep(100)
+      journal.append(new ApplicationStateEvent(
+          ApplicationStateEvent.COMPONENT_UPDATED, ROLE0))
+    }
+    ApplicationStateChanges changes = journal.await(0, 10000)
+    assert 1 == changes.events.size()
+    assert System.currentTimeMillis() - start < 10000
+
+    // and a timeout with no events returns an empty set of changes
+    changes = journal.await(changes.resumeToken, 50)
+    assert changes.events.empty
+    assert !changes.reset
+  }
+
+  @Test
+  public void testWaitersLimited() throws Throwable {
+    StateChangeJournal journal = new StateChangeJournal(10, 1, 0)
+    ApplicationStateChanges waited = null
+    Thread waiter = Thread.start {
+      waited = journal.await(0, 30000)
+    }
+    long end = System.currentTimeMillis() + 10000
+    while (journal.waiters == 0 && System.currentTimeMillis() < end) {
+      Thread.sleep(10)
+    }
+    assert 1 == journal.waiters
+
+    // the limit is reached: the next watch returns at once
+    long start = System.currentTimeMillis()
+    ApplicationStateChanges changes = journal.await(0, 30000)
+    assert System.currentTimeMillis() - start < 10000
+    assert changes.events.empty
+    assert !changes.reset
+    assert 1 == journal.waitsRefused
+
+    journal.append(new ApplicationStateEvent(
+        ApplicationStateEvent.COMPONENT_UPDATED, ROLE0))
+    waiter.join(10000)
+    assert 1 == waited.events.size()
+    assert 0 == journal.waiters
+  }
+}
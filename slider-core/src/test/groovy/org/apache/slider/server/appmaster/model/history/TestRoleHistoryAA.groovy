@@ -72,6 +72,40 @@ class TestRoleHistoryAA extends SliderTestBase {
     node.updateNode(MockFactory.instance.newNodeReport(node.hostname, state))
   }
 
+  @Test
+  public void testSortedNodesTrackAllMapChanges() throws Throwable {
+    verifyResultSize(3, nodeMap.findAllNodesForRole(1, ""))
+    // removal through the views
+    nodeMap.keySet().remove("1")
+    def found = verifyResultSize(2, nodeMap.findAllNodesForRole(1, ""))
+    assert ["2", "3"] == found*.hostname
+    def iterator = nodeMap.entrySet().iterator()
+    iterator.next()
+    iterator.remove()
+    verifyResultSize(1, nodeMap.findAllNodesForRole(1, ""))
+    // replacement of a node under the same name
+    def replacement = new NodeInstance(nodeMap.keySet().first(), 1)
+    nodeMap.entrySet().first().value = replacement
+    found = verifyResultSize(1, nodeMap.findAllNodesForRole(1, ""))
+    assert replacement.is(found[0])
+    // bulk operations, in reverse hostname order
+    NodeMap other = createNodeMap(["c", "b", "a"], NodeState.RUNNING)
+    nodeMap.clear()
+    verifyResultSize(0, nodeMap.findAllNodesForRole(1, ""))
+    nodeMap.putAll(other)
+    found = verifyResultSize(3, nodeMap.findAllNodesForRole(1, ""))
+    assert ["a", "b", "c"] == found*.hostname
+  }
+
+  @Test
+  public void testSortedNodesTrackNodeState() throws Throwable {
+    verifyResultSize(3, nodeMap.findAllNodesForRole(1, ""))
+    markNodeOneUnhealthy()
+    verifyResultSize(2, nodeMap.findAllNodesForRole(1, ""))
+    setNodeState(nodeMap.get("1"), NodeState.RUNNING)
+    verifyResultSize(3, nodeMap.findAllNodesForRole(1, ""))
+  }
+
   @Test
   public void testFindNoNodesWrongLabel() throws Throwable {
     // all three will surface at first
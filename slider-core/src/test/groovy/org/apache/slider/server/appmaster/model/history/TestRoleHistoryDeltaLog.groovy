@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.history
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.fs.GlobFilter
+import org.apache.hadoop.fs.Path
+import org.apache.hadoop.yarn.api.records.NodeId
+import org.apache.hadoop.yarn.api.records.NodeState
+import org.apache.slider.common.SliderKeys
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockFactory
+import org.apache.slider.server.appmaster.model.mock.MockRoleHistory
+import org.apache.slider.server.appmaster.state.ContainerOutcome
+import org.apache.slider.server.appmaster.state.NodeEntry
+import org.apache.slider.server.appmaster.state.NodeInstance
+import org.apache.slider.server.appmaster.state.RoleHistory
+import org.apache.slider.server.avro.LoadedRoleHistory
+import org.apache.slider.server.avro.NodeEntryRecord
+import org.apache.slider.server.avro.RoleHistoryWriter
+import org.junit.Test
+
+/**
+ * Test saving the role history as a log of deltas against a snapshot
+ */
+@Slf4j
+@CompileStatic
+class TestRoleHistoryDeltaLog extends BaseMockAppStateTest {
+
+  RoleHistoryWriter historyWriter = new RoleHistoryWriter()
+
+  @Override
+  String getTestName() {
+    return "TestRoleHistoryDeltaLog"
+  }
+
+  RoleHistory createHistory(int interval) {
+    RoleHistory roleHistory = new MockRoleHistory(MockFactory.ROLES)
+    roleHistory.setDeltaLogging(true, interval)
+    roleHistory.onStart(fs, historyPath)
+    return roleHistory
+  }
+
+  void addNodes(RoleHistory roleHistory, int count) {
+    for (int i = 0; i < count; i++) {
+      NodeInstance node = roleHistory.getOrCreateNodeInstance("host$i")
+      node.getOrCreate(0).lastUsed = 100 + i
+      node.getOrCreate(1).lastUsed = 200 + i
+    }
+  }
+
+  int countDeltas() {
+    fs.listStatus(historyPath,
+        new GlobFilter(SliderKeys.HISTORY_DELTA_GLOB_PATTERN)).length
+  }
+
+  @Test
+  public void testDeltaContainsOnlyChangedNodes() throws Throwable {
+    RoleHistory roleHistory = createHistory(8)
+    addNodes(roleHistory, 20)
+    Path snapshot = roleHistory.saveHistory(1000)
+    assert snapshot.name.endsWith(SliderKeys.HISTORY_FILENAME_SUFFIX)
+    assert 40 == historyWriter.read(fs, snapshot).size()
+
+    roleHistory.getExistingNodeInstance("host3").get(0).lastUsed = 500
+    Path delta = roleHistory.saveHistory(2000)
+    assert delta.name.endsWith(SliderKeys.HISTORY_DELTA_SUFFIX)
+    assert 2 == historyWriter.read(fs, delta).size()
+
+    // no changes: an empty delta
+    Path delta2 = roleHistory.saveHistory(3000)
+    assert 0 == historyWriter.read(fs, delta2).size()
+    List<Path> deltas = historyWriter.findDeltaEntries(fs, snapshot)
+    assert [delta.name, delta2.name] == deltas.collect { Path p -> p.name }
+  }
+
+  @Test
+  public void testThawReplaysDeltas() throws Throwable {
+    RoleHistory roleHistory = createHistory(8)
+    addNodes(roleHistory, 4)
+    roleHistory.saveHistory(1000)
+
+    roleHistory.getExistingNodeInstance("host1").get(0).lastUsed = 1500
+    roleHistory.getOrCreateNodeInstance("newhost").getOrCreate(2).lastUsed = 1600
+    roleHistory.saveHistory(2000)
+    roleHistory.getExistingNodeInstance("host2").get(1).live = 1
+    roleHistory.saveHistory(3000)
+
+    LoadedRoleHistory loaded = historyWriter.loadFromHistoryDir(fs, historyPath)
+    assert 2 == loaded.deltas.size()
+    assert 3000L == loaded.header.saved
+
+    RoleHistory rh2 = new MockRoleHistory(MockFactory.ROLES)
+    assert rh2.onStart(fs, historyPath)
+    assert 5 == rh2.clusterSize
+    assert 3000L == rh2.thawedDataTime
+    assert 1500L == rh2.getExistingNodeInstance("host1").getLastUsed(0)
+    assert 201L == rh2.getExistingNodeInstance("host1").getLastUsed(1)
+    assert 1600L == rh2.getExistingNodeInstance("newhost").getLastUsed(2)
+    // active at the time of the delta
+    assert 3000L == rh2.getExistingNodeInstance("host2").getLastUsed(1)
+    assert 102L == rh2.getExistingNodeInstance("host2").getLastUsed(0)
+  }
+
+  @Test
+  public void testCompaction() throws Throwable {
+    RoleHistory roleHistory = createHistory(2)
+    addNodes(roleHistory, 4)
+    Path snapshot = roleHistory.saveHistory(1000)
+    roleHistory.getExistingNodeInstance("host1").get(0).lastUsed = 1500
+    roleHistory.saveHistory(2000)
+    roleHistory.getExistingNodeInstance("host2").get(0).lastUsed = 2500
+    roleHistory.saveHistory(3000)
+    assert 2 == countDeltas()
+
+    // the next save is a snapshot, replacing the previous files
+    roleHistory.getExistingNodeInstance("host3").get(0).lastUsed = 3500
+    Path snapshot2 = roleHistory.saveHistory(4000)
+    assert snapshot2 != snapshot
+    assert !fs.exists(snapshot)
+    assert 0 == countDeltas()
+    List<Path> entries = historyWriter.findAllHistoryEntries(fs, historyPath,
+        true)
+    assert 1 == entries.size()
+    assert snapshot2.name == entries[0].name
+
+    LoadedRoleHistory loaded = historyWriter.read(fs, snapshot2)
+    RoleHistory rh2 = new MockRoleHistory(MockFactory.ROLES)
+    rh2.rebuild(loaded)
+    assert 1500L == rh2.getExistingNodeInstance("host1").getLastUsed(0)
+    assert 2500L == rh2.getExistingNodeInstance("host2").getLastUsed(0)
+    assert 3500L == rh2.getExistingNodeInstance("host3").getLastUsed(0)
+  }
+
+  @Test
+  public void testFirstSaveAfterThawIsSnapshot() throws Throwable {
+    RoleHistory roleHistory = createHistory(8)
+    addNodes(roleHistory, 4)
+    Path snapshot = roleHistory.saveHistory(1000)
+    roleHistory.getExistingNodeInstance("host1").get(0).lastUsed = 1500
+    roleHistory.saveHistory(2000)
+    // a delta against a snapshot which no longer exists
+    Path orphan = historyWriter.createDeltaFilename(historyPath, 500, 1)
+    fs.create(orphan).close()
+
+    RoleHistory rh2 = createHistory(8)
+    assert 4 == rh2.clusterSize
+    assert !fs.exists(orphan)
+    assert 1 == countDeltas()
+    Path snapshot2 = rh2.saveHistory(5000)
+    assert snapshot2.name.endsWith(SliderKeys.HISTORY_FILENAME_SUFFIX)
+    assert !fs.exists(snapshot)
+    assert 0 == countDeltas()
+    assert 1500L == historyWriter.loadFromHistoryDir(fs, historyPath)
+        .records.find { NodeEntryRecord r ->
+          r.host.toString() == "host1" && r.role == 0
+        }.lastUsed
+  }
+
+  /**
+   * Apply a mutation to host1 after a snapshot, and verify that the next
+   * delta contains records for that host and no other
+   * @param roleHistory history
+   * @param time save time of the delta
+   * @param mutation the mutation
+   */
+  void assertMutationSaved(RoleHistory roleHistory, long time,
+      String name, Closure mutation) {
+    roleHistory.saveHistory(time)
+    NodeInstance node = roleHistory.getExistingNodeInstance("host1")
+    long version = node.version
+    mutation.call(node)
+    assert node.version > version : "no version change after $name"
+    Path delta = roleHistory.saveHistory(time + 1)
+    assert delta.name.endsWith(SliderKeys.HISTORY_DELTA_SUFFIX)
+    List<NodeEntryRecord> records = historyWriter.read(fs, delta).records
+    assert records : "no delta records after $name"
+    assert records.every { NodeEntryRecord r -> r.host.toString() == "host1" }
+  }
+
+  @Test
+  public void testEveryMutationIsSaved() throws Throwable {
+    // a large interval, so every save after the first is a delta
+    RoleHistory roleHistory = createHistory(1000)
+    addNodes(roleHistory, 4)
+    long time = 1000
+    Map<String, Closure> mutations = [
+        onStarting: { NodeInstance n -> n.get(0).onStarting() },
+        onStartCompleted: { NodeInstance n -> n.get(0).onStartCompleted() },
+        release: { NodeInstance n -> n.get(0).release() },
+        containerCompleted: { NodeInstance n ->
+          n.get(0).containerCompleted(true, ContainerOutcome.Completed)
+        },
+        onStartFailed: { NodeInstance n -> n.get(0).onStartFailed() },
+        request: { NodeInstance n -> n.get(0).request() },
+        requestCompleted: { NodeInstance n -> n.get(0).requestCompleted() },
+        setLastUsed: { NodeInstance n -> n.get(0).lastUsed = 5000 },
+        setLive: { NodeInstance n -> n.get(0).live = 1 },
+        resetFailedRecently: { NodeInstance n -> n.resetFailedRecently() },
+        addEntry: { NodeInstance n -> n.getOrCreate(2) },
+        removeEntry: { NodeInstance n -> n.remove(2) },
+        setEntry: { NodeInstance n -> n.set(2, new NodeEntry(2)) },
+        blacklist: { NodeInstance n -> n.blacklisted = true },
+        onNodesUpdated: { NodeInstance n ->
+          roleHistory.onNodesUpdated([
+              factory.newNodeReport("host1", NodeId.newInstance("host1", 80),
+                  NodeState.UNHEALTHY, "")])
+        },
+    ]
+    mutations.each { String name, Closure mutation ->
+      assertMutationSaved(roleHistory, time, name, mutation)
+      time += 10
+    }
+
+    // and with nothing changed, nothing is saved
+    Path delta = roleHistory.saveHistory(time)
+    assert 0 == historyWriter.read(fs, delta).size()
+  }
+}
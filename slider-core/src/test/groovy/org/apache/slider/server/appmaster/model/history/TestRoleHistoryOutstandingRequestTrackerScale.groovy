@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.history
+
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.yarn.api.records.Resource
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockResource
+import org.apache.slider.server.appmaster.state.ContainerAllocationOutcome
+import org.apache.slider.server.appmaster.state.NodeInstance
+import org.apache.slider.server.appmaster.state.OutstandingRequest
+import org.apache.slider.server.appmaster.state.OutstandingRequestTracker
+import org.apache.slider.server.appmaster.state.RoleStatus
+import org.junit.Test
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test the indexed structures of the outstanding request tracker at scale,
+ * logging the time taken for allocation bursts and escalation checks.
+ */
+@Slf4j
+class TestRoleHistoryOutstandingRequestTrackerScale extends BaseMockAppStateTest {
+
+  public static final int REQUESTS = 5000
+
+  OutstandingRequestTracker tracker = new OutstandingRequestTracker()
+
+  @Override
+  String getTestName() {
+    return "TestRoleHistoryOutstandingRequestTrackerScale"
+  }
+
+  /**
+   * Create and issue placed requests on a set of hosts
+   * @param role role
+   * @param count number of requests
+   * @param time time of issue
+   * @return the requests
+   */
+  List<OutstandingRequest> issuePlacedRequests(RoleStatus role, int count, long time) {
+    Resource resource = appState.buildResourceRequirements(role, new MockResource())
+    (0..<count).collect { int i ->
+      def request = tracker.newRequest(new NodeInstance("host-$i", 3), role.key)
+      request.buildContainerRequest(resource, role, time)
+      request
+    }
+  }
+
+  @Test
+  public void testPlacedAllocationBurst() throws Throwable {
+    def requests = issuePlacedRequests(role0Status, REQUESTS, 0)
+    assert tracker.listPlacedRequests().size() == REQUESTS
+
+    long start = System.nanoTime()
+    requests.each { OutstandingRequest request ->
+      def container = factory.newContainer(request.issuedRequest, request.hostname)
+      def allocation = tracker.onContainerAllocated(request.roleId,
+          request.hostname, container)
+      assert allocation.outcome == ContainerAllocationOutcome.Placed
+      assert allocation.origin.is(request)
+    }
+    long duration = System.nanoTime() - start
+    log.info("Allocation of $REQUESTS placed containers took" +
+             " ${TimeUnit.NANOSECONDS.toMillis(duration)} mS")
+    assert tracker.listPlacedRequests().empty
+    assert tracker.listOpenRequests().empty
+  }
+
+  @Test
+  public void testOpenAllocationBurst() throws Throwable {
+    Resource resource = appState.buildResourceRequirements(role0Status, new MockResource())
+    Resource resource2 = appState.buildResourceRequirements(role2Status, new MockResource())
+    List<OutstandingRequest> requests = []
+    REQUESTS.times {
+      // interleave the roles
+      def request = tracker.newRequest(null, role0Status.key)
+      request.buildContainerRequest(resource, role0Status, 0)
+      tracker.newRequest(null, role2Status.key)
+          .buildContainerRequest(resource2, role2Status, 0)
+      requests << request
+    }
+    assert tracker.listOpenRequests().size() == 2 * REQUESTS
+
+    long start = System.nanoTime()
+    requests.each { OutstandingRequest request ->
+      def container = factory.newContainer(request.issuedRequest, "host")
+      def allocation = tracker.onContainerAllocated(role0Status.key, "host",
+          container)
+      assert allocation.outcome == ContainerAllocationOutcome.Open
+    }
+    long duration = System.nanoTime() - start
+    log.info("Allocation of $REQUESTS open containers took" +
+             " ${TimeUnit.NANOSECONDS.toMillis(duration)} mS")
+    // only the other role's requests remain
+    def remaining = tracker.listOpenRequests()
+    assert remaining.size() == REQUESTS
+    assert remaining.every { it.roleId == role2Status.key }
+    assert tracker.extractOpenRequestsForRole(role2Status.key, 10).size() == 10
+    assert tracker.listOpenRequests().size() == REQUESTS - 10
+  }
+
+  @Test
+  public void testEscalationChecks() throws Throwable {
+    long timeout = role0Status.placementTimeoutSeconds * 1000
+    // requests issued one millisecond apart
+    List<OutstandingRequest> requests = []
+    Resource resource = appState.buildResourceRequirements(role0Status, new MockResource())
+    REQUESTS.times { int i ->
+      def request = tracker.newRequest(new NodeInstance("host-$i", 3), role0Status.key)
+      request.buildContainerRequest(resource, role0Status, i)
+      requests << request
+    }
+
+    // repeated checks with nothing due
+    int checks = 1000
+    long start = System.nanoTime()
+    checks.times {
+      assert tracker.escalateOutstandingRequests(timeout).empty
+    }
+    long duration = System.nanoTime() - start
+    log.info("$checks escalation checks against $REQUESTS requests took" +
+             " ${TimeUnit.NANOSECONDS.toMillis(duration)} mS")
+
+    // the first hundred are now due
+    def operations = tracker.escalateOutstandingRequests(timeout + 100)
+    assert operations.size() == 200
+    assert requests[0..<100].every { it.escalated }
+    assert !requests[100].escalated
+    assert tracker.listOpenRequests().size() == 100
+    assert tracker.listPlacedRequests().size() == REQUESTS - 100
+
+    // satisfy half of the rest, so leaving stale entries in the queue
+    requests[100..<(REQUESTS / 2 as int)].each { OutstandingRequest request ->
+      def container = factory.newContainer(request.issuedRequest, request.hostname)
+      assert tracker.onContainerAllocated(request.roleId, request.hostname,
+          container).outcome == ContainerAllocationOutcome.Placed
+    }
+    // which are discarded on the next check
+    assert tracker.escalateOutstandingRequests(timeout).empty
+    assert tracker.escalationQueueSize == REQUESTS / 2
+
+    // and everything else escalates
+    assert tracker.escalateOutstandingRequests(timeout + REQUESTS).size() == REQUESTS
+    assert tracker.listPlacedRequests().empty
+    assert tracker.escalationQueueSize == 0
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.history
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.slider.server.appmaster.model.mock.BaseMockAppStateTest
+import org.apache.slider.server.appmaster.model.mock.MockContainer
+import org.apache.slider.server.appmaster.model.mock.MockFactory
+import org.apache.slider.server.appmaster.model.mock.MockNodeId
+import org.apache.slider.server.appmaster.model.mock.MockRoleHistory
+import org.apache.slider.server.appmaster.state.ContainerPriority
+import org.apache.slider.server.appmaster.state.NodeInstance
+import org.apache.slider.server.appmaster.state.RecentNodeList
+import org.apache.slider.server.appmaster.state.RoleHistory
+import org.apache.slider.server.appmaster.state.RoleStatus
+import org.junit.Test
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test the incremental maintenance of the recent node lists
+ */
+@Slf4j
+@CompileStatic
+class TestRoleHistoryRecentNodeLists extends BaseMockAppStateTest {
+
+  NodeInstance age1Active4 = nodeInstance(1, 4, 0, 0)
+  NodeInstance age2Active0 = nodeInstance(2, 0, 0, 0)
+  NodeInstance age3Active0 = nodeInstance(3, 0, 0, 0)
+
+  RoleHistory roleHistory = new MockRoleHistory(MockFactory.ROLES)
+
+  @Override
+  String getTestName() {
+    return "TestRoleHistoryRecentNodeLists"
+  }
+
+  @Test
+  public void testRecentNodeListOrdering() throws Throwable {
+    RecentNodeList list = new RecentNodeList()
+    assert list.add(age2Active0, 2)
+    assert list.add(age3Active0, 3)
+    assert list.add(age1Active4, 1)
+    assertListEquals([age3Active0, age2Active0, age1Active4], list.toList())
+
+    // re-adding moves rather than duplicates
+    assert !list.add(age1Active4, 4)
+    assertListEquals([age1Active4, age3Active0, age2Active0], list.toList())
+
+    // removal through the iterator
+    Iterator<NodeInstance> it = list.iterator()
+    it.next()
+    it.remove()
+    assert !list.contains(age1Active4)
+    assert 2 == list.size()
+    assert list.remove(age3Active0)
+    assert !list.remove(age3Active0)
+    assertListEquals([age2Active0], list.toList())
+  }
+
+  @Test
+  public void testListsMaintainedOnContainerEvents() throws Throwable {
+    roleHistory.insert([age1Active4, age2Active0, age3Active0])
+    roleHistory.buildRecentNodeLists()
+    assertListEquals([age3Active0, age2Active0], roleHistory.cloneRecentNodeList(0))
+
+    // start a container on the most recent node
+    MockContainer container = factory.newContainer(
+        new MockNodeId(age3Active0.hostname, 0),
+        ContainerPriority.createPriority(0, false))
+    roleHistory.onContainerAssigned(container)
+    roleHistory.onContainerStarted(container)
+    assertListEquals([age2Active0], roleHistory.cloneRecentNodeList(0))
+
+    // release it: the node goes back at the head of the list, once
+    roleHistory.onContainerReleaseSubmitted(container)
+    assert roleHistory.onReleaseCompleted(container)
+    assertListEquals([age3Active0, age2Active0], roleHistory.cloneRecentNodeList(0))
+  }
+
+  @Test
+  public void testPlacementOnLargeCluster() throws Throwable {
+    int nodes = 2000
+    List<NodeInstance> instances = (0..<nodes).collect { int i ->
+      nodeInstance(i, 0, 0, 0)
+    }
+    roleHistory.insert(instances)
+    long start = System.nanoTime()
+    roleHistory.buildRecentNodeLists()
+    long built = System.nanoTime()
+    RoleStatus role0 = new RoleStatus(MockFactory.PROVIDER_ROLE0)
+    // every query is answered from the head of the list, newest first
+    for (int i = nodes - 1; i >= 0; i--) {
+      assert instances[i].is(roleHistory.findRecentNodeForNewInstance(role0))
+    }
+    assert roleHistory.findRecentNodeForNewInstance(role0) == null
+    long finished = System.nanoTime()
+    log.info("Building recent node lists for $nodes nodes took" +
+             " ${TimeUnit.NANOSECONDS.toMicros(built - start)} uS;" +
+             " $nodes placements took" +
+             " ${TimeUnit.NANOSECONDS.toMicros(finished - built)} uS")
+  }
+
+  @Test
+  public void testAANodesSortedAsClusterChanges() throws Throwable {
+    roleHistory.insert([age3Active0, age1Active4, age2Active0])
+    List<NodeInstance> found =
+        roleHistory.findNodeForNewAAInstance(new RoleStatus(MockFactory.PROVIDER_ROLE0))
+    assertListEquals([age2Active0, age3Active0], found)
+
+    // a new node joins the cluster
+    NodeInstance added = roleHistory.getOrCreateNodeInstance("age0-new")
+    found = roleHistory.findNodeForNewAAInstance(new RoleStatus(MockFactory.PROVIDER_ROLE0))
+    assertListEquals([added, age2Active0, age3Active0], found)
+  }
+}
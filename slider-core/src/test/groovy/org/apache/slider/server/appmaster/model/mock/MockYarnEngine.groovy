@@ -121,7 +121,7 @@ class MockYarnEngine {
         ContainerRequestOperation req = (ContainerRequestOperation) op
         Container container = allocateContainer(req.request)
         if (container != null) {
-          log.info("allocated container $container for $req")
+          log.debug("allocated container $container for $req")
           allocation.add(container)
         } else {
           log.debug("Unsatisfied allocation $req")
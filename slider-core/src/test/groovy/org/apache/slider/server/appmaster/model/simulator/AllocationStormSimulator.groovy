@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.simulator
+
+import com.codahale.metrics.MetricRegistry
+import com.codahale.metrics.MetricFilter
+import com.codahale.metrics.Timer
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.fs.FileSystem as HadoopFS
+import org.apache.hadoop.fs.Path
+import org.apache.hadoop.yarn.api.records.Container
+import org.apache.hadoop.yarn.api.records.ContainerExitStatus
+import org.apache.hadoop.yarn.api.records.ContainerId
+import org.apache.hadoop.yarn.api.records.ContainerState
+import org.apache.hadoop.yarn.api.records.ContainerStatus
+import org.apache.hadoop.yarn.api.records.NodeReport
+import org.apache.hadoop.yarn.api.records.NodeState
+import org.apache.slider.api.ResourceKeys
+import org.apache.slider.common.tools.SliderUtils
+import org.apache.slider.core.conf.AggregateConf
+import org.apache.slider.providers.ProviderRole
+import org.apache.slider.server.appmaster.model.mock.MockAppState
+import org.apache.slider.server.appmaster.model.mock.MockFactory
+import org.apache.slider.server.appmaster.model.mock.MockYarnCluster
+import org.apache.slider.server.appmaster.model.mock.MockYarnEngine
+import org.apache.slider.server.appmaster.operations.AbstractRMOperation
+import org.apache.slider.server.appmaster.operations.CancelSingleRequest
+import org.apache.slider.server.appmaster.operations.ContainerReleaseOperation
+import org.apache.slider.server.appmaster.operations.ContainerRequestOperation
+import org.apache.slider.server.appmaster.operations.UpdateBlacklistOperation
+import org.apache.slider.server.appmaster.state.AppStateBindingInfo
+import org.apache.slider.server.appmaster.state.ContainerAssignment
+import org.apache.slider.server.appmaster.state.RoleInstance
+
+/**
+ * Drive a {@link MockAppState} through rounds of allocation against the
+ * {@link MockYarnEngine}, with random container failures and node loss,
+ * timing each of the app state operations.
+ * <p>
+ * Each round:
+ * <ol>
+ *   <li>Lost nodes whose recovery time has come are brought back.</li>
+ *   <li>Nodes are lost; their containers are reported as aborted.</li>
+ *   <li>Containers fail at random.</li>
+ *   <li>Failure counts are periodically reset.</li>
+ *   <li>Outstanding requests are escalated and the app state reviewed.</li>
+ *   <li>The resulting operations, and all still unsatisfied requests,
+ *   are executed against the engine; allocated containers are passed to
+ *   the app state and started.</li>
+ * </ol>
+ * This can be run from tests, benchmarks or the command line,
+ * where the configuration options are passed as {@code name=value} pairs.
+ */
+@CompileStatic
+@Slf4j
+class AllocationStormSimulator {
+
+  public static final String OP_REVIEW = "review"
+  public static final String OP_ALLOCATE = "allocate"
+  public static final String OP_START = "start"
+  public static final String OP_COMPLETE = "complete"
+  public static final String OP_NODE_UPDATE = "node-update"
+  public static final String OP_ESCALATE = "escalate"
+
+  /** Exit code of containers failed by the simulation */
+  public static final int EXIT_SIMULATED_FAILURE = 1
+
+  final SimulationConfig config
+  final HadoopFS fs
+  final Path historyPath
+  final MetricRegistry metrics = new MetricRegistry()
+  final Random random
+
+  MockYarnEngine engine
+  MockAppState appState
+
+  /** operations generated by the app state to execute in the next round */
+  private final List<AbstractRMOperation> deferred = []
+
+  /** lost nodes: map of cluster node index to the round to recover in */
+  private final Map<Integer, Integer> lostNodes = [:]
+
+  long allocated
+  long started
+  long failures
+  long nodesLost
+  long blacklistUpdates
+
+  /**
+   * Create a simulator
+   * @param config configuration
+   * @param fs filesystem for the role history
+   * @param historyPath path for the role history
+   */
+  AllocationStormSimulator(SimulationConfig config,
+      HadoopFS fs,
+      Path historyPath) {
+    this.config = config
+    this.fs = fs
+    this.historyPath = historyPath
+    this.random = new Random(config.seed)
+  }
+
+  /**
+   * Create a simulator saving its history to a temporary directory
+   * of the local filesystem
+   * @param config configuration
+   */
+  AllocationStormSimulator(SimulationConfig config) {
+    this(config,
+        HadoopFS.getLocal(SliderUtils.createConfiguration()),
+        new Path(File.createTempFile("simulator", "").toURI()))
+  }
+
+  /**
+   * Build the engine and the app state
+   */
+  void init() {
+    fs.delete(historyPath, true)
+    engine = new MockYarnEngine(config.clusterSize, config.containersPerNode)
+    AppStateBindingInfo binding = new AppStateBindingInfo()
+    AggregateConf definition = MockFactory.instance.newInstanceDefinition(
+        config.desiredRole0, config.desiredRole1, config.desiredRole2)
+    // failures are the point of the exercise: never tear down
+    definition.resourceOperations.globalOptions.put(
+        ResourceKeys.CONTAINER_FAILURE_THRESHOLD, "0")
+    binding.instanceDefinition = definition
+    binding.roles = [
+        role(MockFactory.PROVIDER_ROLE0),
+        role(MockFactory.PROVIDER_ROLE1),
+        role(config.antiAffinity ? MockFactory.AAROLE_2 : MockFactory.PROVIDER_ROLE2),
+    ]
+    binding.fs = fs
+    binding.historyPath = historyPath
+    binding.nodeReports = engine.nodeReports
+    binding.serviceConfig = SliderUtils.createConfiguration()
+    appState = new MockAppState(binding)
+  }
+
+  /**
+   * Clone a role, patching in the configured node failure threshold
+   * @param source source role
+   * @return the new role
+   */
+  private ProviderRole role(ProviderRole source) {
+    return new ProviderRole(source.name,
+        source.group,
+        source.id,
+        source.placementPolicy,
+        config.nodeFailureThreshold,
+        source.placementTimeoutSeconds,
+        source.labelExpression)
+  }
+
+  /**
+   * Run the simulation, initializing it if needed.
+   * The timers and counters are reset after the warm-up rounds, so the
+   * report only covers the measured rounds.
+   * @return the report
+   */
+  SimulationReport run() {
+    if (!appState) {
+      init()
+    }
+    int warmup = config.warmupRounds
+    for (int round = 0; round < warmup; round++) {
+      round(round)
+    }
+    metrics.removeMatching(MetricFilter.ALL)
+    allocated = 0
+    started = 0
+    failures = 0
+    nodesLost = 0
+    long start = System.nanoTime()
+    for (int round = warmup; round < warmup + config.rounds; round++) {
+      round(round)
+    }
+    long elapsed = System.nanoTime() - start
+    return new SimulationReport(config,
+        metrics.timers,
+        elapsed,
+        allocated,
+        started,
+        failures,
+        nodesLost,
+        appState.liveContainers.size())
+  }
+
+  /**
+   * Execute one round of the simulation
+   * @param round round number
+   */
+  void round(int round) {
+    recoverNodes(round)
+    loseNodes(round)
+    failContainers()
+    if (config.failureResetRounds > 0 && round > 0
+        && round % config.failureResetRounds == 0) {
+      appState.resetFailureCounts()
+    }
+    List<AbstractRMOperation> ops = new ArrayList<>(deferred)
+    deferred.clear()
+    ops.addAll(time(OP_ESCALATE) { appState.escalateOutstandingRequests() })
+    ops.addAll(time(OP_REVIEW) { appState.reviewRequestAndReleaseNodes() })
+    execute(ops)
+  }
+
+  /**
+   * Bring back lost nodes whose time has come
+   * @param round current round
+   */
+  private void recoverNodes(int round) {
+    List<NodeReport> updates = []
+    Iterator<Map.Entry<Integer, Integer>> it = lostNodes.entrySet().iterator()
+    while (it.hasNext()) {
+      Map.Entry<Integer, Integer> entry = it.next()
+      if (entry.value <= round) {
+        it.remove()
+        MockYarnCluster.MockYarnClusterNode node = engine.cluster.nodeAt(entry.key)
+        node.goOnline()
+        updates << nodeReport(node, NodeState.RUNNING)
+      }
+    }
+    updateNodes(updates)
+  }
+
+  /**
+   * Lose nodes at random, completing all containers on them
+   * @param round current round
+   */
+  private void loseNodes(int round) {
+    if (config.nodeLossRate <= 0) {
+      return
+    }
+    List<NodeReport> updates = []
+    for (int i = 0; i < config.clusterSize; i++) {
+      if (!lostNodes.containsKey(i) && random.nextDouble() < config.nodeLossRate) {
+        MockYarnCluster.MockYarnClusterNode node = engine.cluster.nodeAt(i)
+        node.goOffline()
+        lostNodes[i] = round + config.nodeRecoveryRounds
+        nodesLost++
+        updates << nodeReport(node, NodeState.LOST)
+        liveInstances().findAll { RoleInstance instance ->
+          instance.container.nodeId.host == node.hostname
+        }.each { RoleInstance instance ->
+          complete(instance.containerId, ContainerExitStatus.ABORTED)
+        }
+      }
+    }
+    updateNodes(updates)
+  }
+
+  /**
+   * Fail live containers at random
+   */
+  private void failContainers() {
+    if (config.failureRate <= 0) {
+      return
+    }
+    liveInstances().each { RoleInstance instance ->
+      if (random.nextDouble() < config.failureRate) {
+        engine.releaseContainer(instance.containerId)
+        failures++
+        complete(instance.containerId, EXIT_SIMULATED_FAILURE)
+      }
+    }
+  }
+
+  private List<RoleInstance> liveInstances() {
+    return new ArrayList<RoleInstance>(appState.liveContainers.values())
+  }
+
+  private NodeReport nodeReport(MockYarnCluster.MockYarnClusterNode node,
+      NodeState state) {
+    return MockFactory.instance.newNodeReport(node.hostname, node.nodeId,
+        state, "")
+  }
+
+  private void updateNodes(List<NodeReport> updates) {
+    if (updates) {
+      deferred.addAll(time(OP_NODE_UPDATE) {
+        appState.onNodesUpdated(updates).operations
+      })
+    }
+  }
+
+  private void complete(ContainerId containerId, int exitCode) {
+    ContainerStatus status = ContainerStatus.newInstance(containerId,
+        ContainerState.COMPLETE, "simulated", exitCode)
+    time(OP_COMPLETE) { appState.onCompletedNode(status) }
+  }
+
+  /**
+   * Execute the operations against the engine, along with all previously
+   * unsatisfied requests, then pass the allocations to the app state
+   * and start the containers
+   * @param ops operations to execute
+   */
+  private void execute(List<AbstractRMOperation> ops) {
+    List<AbstractRMOperation> requests = new ArrayList<AbstractRMOperation>(
+        engine.pending)
+    engine.pending.clear()
+    List<ContainerId> released = []
+    ops.each { AbstractRMOperation op ->
+      if (op instanceof ContainerReleaseOperation) {
+        ContainerId cid = ((ContainerReleaseOperation) op).containerId
+        // the container may have been lost with its node
+        engine.releaseContainer(cid)
+        released << cid
+      } else if (op instanceof CancelSingleRequest) {
+        def request = ((CancelSingleRequest) op).request
+        int index = requests.findIndexOf { AbstractRMOperation r ->
+          ((ContainerRequestOperation) r).request.is(request)
+        }
+        if (index >= 0) {
+          requests.remove(index)
+        }
+      } else if (op instanceof UpdateBlacklistOperation) {
+        blacklistUpdates++
+      } else {
+        requests << op
+      }
+    }
+    released.each { ContainerId cid -> complete(cid, 0) }
+
+    List<Container> allocation = engine.execute(requests, [])
+    allocated += allocation.size()
+    List<ContainerAssignment> assignments = []
+    List<AbstractRMOperation> operationsOut = []
+    time(OP_ALLOCATE) {
+      appState.onContainersAllocated(allocation, assignments, operationsOut)
+    }
+    deferred.addAll(operationsOut)
+    assignments.each { ContainerAssignment assigned ->
+      Container container = assigned.container
+      RoleInstance instance = new RoleInstance(container)
+      instance.roleId = assigned.role.priority
+      instance.role = assigned.role.name
+      time(OP_START) {
+        appState.containerStartSubmitted(container, instance)
+        appState.onNodeManagerContainerStarted(container.id)
+      }
+      started++
+    }
+  }
+
+  /**
+   * Time an operation
+   * @param operation operation name
+   * @param closure closure to execute
+   * @return the result of the closure
+   */
+  private <T> T time(String operation, Closure<T> closure) {
+    Timer.Context context = metrics.timer(operation).time()
+    try {
+      return closure.call()
+    } finally {
+      context.stop()
+    }
+  }
+
+  /**
+   * Run a simulation from the command line
+   * @param args list of {@code name=value} configuration options
+   */
+  static void main(String[] args) {
+    SimulationConfig config = SimulationConfig.fromArgs(args)
+    SimulationReport report = new AllocationStormSimulator(config).run()
+    println report
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.simulator
+
+import groovy.transform.CompileStatic
+import groovy.transform.TypeCheckingMode
+
+/**
+ * Configuration of an allocation storm simulation.
+ * <p>
+ * All the fields can be set from the command line of
+ * {@link AllocationStormSimulator#main(String[])} as {@code name=value}
+ * pairs.
+ */
+@CompileStatic
+class SimulationConfig {
+
+  /** Number of nodes in the YARN cluster */
+  int clusterSize = 64
+
+  /** Container slots per node; at most 256 */
+  int containersPerNode = 16
+
+  /** Desired instances of role 0, which has the default placement policy */
+  int desiredRole0 = 100
+
+  /** Desired instances of role 1, which has strict placement */
+  int desiredRole1 = 100
+
+  /** Desired instances of role 2 */
+  int desiredRole2 = 100
+
+  /** Should role 2 be anti-affine? */
+  boolean antiAffinity = false
+
+  /** Probability of a live container failing in a round */
+  double failureRate = 0
+
+  /** Probability of an online node being lost in a round */
+  double nodeLossRate = 0
+
+  /** Number of rounds after which a lost node comes back */
+  int nodeRecoveryRounds = 5
+
+  /** Node failure threshold of the roles; -1 for unlimited */
+  int nodeFailureThreshold = -1
+
+  /** Interval in rounds at which failure counts are reset; 0 for never */
+  int failureResetRounds = 20
+
+  /** Number of rounds to simulate */
+  int rounds = 100
+
+  /**
+   * Number of rounds to simulate before the measured ones; they are
+   * excluded from the report
+   */
+  int warmupRounds = 0
+
+  /** Seed of the random number generator */
+  long seed = 0
+
+  /**
+   * Total number of desired containers
+   * @return the sum of the desired instances of all roles
+   */
+  int getDesiredContainers() {
+    return desiredRole0 + desiredRole1 + desiredRole2
+  }
+
+  /**
+   * Set a field from its string value
+   * @param name field name
+   * @param value string value
+   * @throws IllegalArgumentException if there is no such field
+   */
+  @CompileStatic(TypeCheckingMode.SKIP)
+  void set(String name, String value) {
+    if (!hasProperty(name)) {
+      throw new IllegalArgumentException("Unknown option \"$name\"")
+    }
+    Class type = metaClass.getMetaProperty(name).type
+    switch (type) {
+      case int:
+        setProperty(name, Integer.parseInt(value))
+        break
+      case long:
+        setProperty(name, Long.parseLong(value))
+        break
+      case double:
+        setProperty(name, Double.parseDouble(value))
+        break
+      case boolean:
+        setProperty(name, Boolean.parseBoolean(value))
+        break
+      default:
+        throw new IllegalArgumentException("Cannot set option \"$name\"")
+    }
+  }
+
+  /**
+   * Build a configuration from a list of {@code name=value} arguments
+   * @param args arguments
+   * @return the configuration
+   * @throws IllegalArgumentException on an unparseable argument
+   */
+  static SimulationConfig fromArgs(String[] args) {
+    SimulationConfig config = new SimulationConfig()
+    for (String arg : args) {
+      int split = arg.indexOf('=')
+      if (split <= 0) {
+        throw new IllegalArgumentException("Not a name=value pair: \"$arg\"")
+      }
+      config.set(arg.substring(0, split).trim(), arg.substring(split + 1).trim())
+    }
+    return config
+  }
+
+  @Override
+  String toString() {
+    return "SimulationConfig{cluster=${clusterSize}x${containersPerNode}," +
+           " desired=[$desiredRole0, $desiredRole1, $desiredRole2]," +
+           " antiAffinity=$antiAffinity, failureRate=$failureRate," +
+           " nodeLossRate=$nodeLossRate, rounds=$rounds," +
+           " warmupRounds=$warmupRounds, seed=$seed}"
+  }
+}
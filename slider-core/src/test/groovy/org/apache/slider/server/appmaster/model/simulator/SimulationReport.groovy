@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.simulator
+
+import com.codahale.metrics.Snapshot
+import com.codahale.metrics.Timer
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * The results of an allocation storm simulation: the latency histograms
+ * of the operations on the app state, and the allocation throughput.
+ */
+@CompileStatic
+class SimulationReport {
+
+  final SimulationConfig config
+
+  /** Map of operation name to its timer */
+  final SortedMap<String, Timer> timers
+
+  /** Wall clock duration of the simulation in nanoseconds */
+  final long elapsedNanos
+
+  /** Containers allocated by the engine and passed to the app state */
+  final long allocated
+
+  /** Containers started */
+  final long started
+
+  /** Containers which were failed by the simulation */
+  final long failures
+
+  /** Nodes lost during the simulation */
+  final long nodesLost
+
+  /** Live containers at the end of the simulation */
+  final int live
+
+  SimulationReport(SimulationConfig config,
+      SortedMap<String, Timer> timers,
+      long elapsedNanos,
+      long allocated,
+      long started,
+      long failures,
+      long nodesLost,
+      int live) {
+    this.config = config
+    this.timers = timers
+    this.elapsedNanos = elapsedNanos
+    this.allocated = allocated
+    this.started = started
+    this.failures = failures
+    this.nodesLost = nodesLost
+    this.live = live
+  }
+
+  /**
+   * Get the timer of an operation
+   * @param operation operation name
+   * @return the timer or null if the operation was never executed
+   */
+  Timer timer(String operation) {
+    return timers[operation]
+  }
+
+  /**
+   * Get a percentile of the latency of an operation
+   * @param operation operation name
+   * @param quantile quantile in the range 0..1
+   * @return the latency in millis, or 0 if the operation was never executed
+   */
+  double latencyMillis(String operation, double quantile) {
+    Timer t = timer(operation)
+    return t ? t.snapshot.getValue(quantile) / TimeUnit.MILLISECONDS.toNanos(1)
+             : 0
+  }
+
+  /**
+   * Allocation throughput
+   * @return containers allocated per second of simulation
+   */
+  double getAllocationThroughput() {
+    return elapsedNanos > 0 ?
+        allocated * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0
+  }
+
+  @Override
+  String toString() {
+    StringBuilder sb = new StringBuilder()
+    sb.append(config).append('\n')
+    sb.append(String.format(Locale.ENGLISH,
+        "elapsed=%d mS allocated=%d started=%d failures=%d nodes lost=%d" +
+        " live=%d throughput=%.1f containers/s%n",
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos), allocated, started,
+        failures, nodesLost, live, allocationThroughput))
+    sb.append(String.format(Locale.ENGLISH,
+        "%-12s %8s %10s %10s %10s %10s %10s%n",
+        "operation", "count", "mean uS", "p50 uS", "p95 uS", "p99 uS",
+        "max uS"))
+    timers.each { String name, Timer t ->
+      Snapshot s = t.snapshot
+      sb.append(String.format(Locale.ENGLISH,
+          "%-12s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+          name, t.count, micros(s.mean), micros(s.median),
+          micros(s.get95thPercentile()), micros(s.get99thPercentile()),
+          micros(s.max)))
+    }
+    return sb.toString()
+  }
+
+  private static double micros(double nanos) {
+    return nanos / 1000
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.slider.server.appmaster.model.simulator
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.apache.hadoop.fs.FileSystem as HadoopFS
+import org.apache.hadoop.fs.Path
+import org.apache.slider.common.tools.SliderUtils
+import org.apache.slider.server.appmaster.model.mock.MockRoles
+import org.apache.slider.server.appmaster.state.RoleInstance
+import org.apache.slider.test.SliderTestBase
+import org.junit.Test
+
+/**
+ * Run the allocation storm simulator, verifying that the app state
+ * converges.
+ * <p>
+ * The review latency is only checked if a p99 bound is set with the
+ * system property {@link #REVIEW_P99_MAX_MILLIS}, as it depends on
+ * the machine running the tests.
+ */
+@CompileStatic
+@Slf4j
+class TestAllocationStormSimulator extends SliderTestBase implements MockRoles {
+
+  public static final String REVIEW_P99_MAX_MILLIS =
+      "slider.simulator.review.p99.max.millis"
+
+  AllocationStormSimulator simulator(SimulationConfig config) {
+    HadoopFS fs = HadoopFS.getLocal(SliderUtils.createConfiguration())
+    Path historyPath = new Path(
+        new File("target/simulator", methodName.methodName).toURI())
+    return new AllocationStormSimulator(config, fs, historyPath)
+  }
+
+  @Test
+  public void testConvergence() throws Throwable {
+    SimulationConfig config = new SimulationConfig(rounds: 20)
+    SimulationReport report = simulator(config).run()
+    log.info("\n$report")
+    assert config.desiredContainers == report.live
+    assert config.desiredContainers == report.started
+    assert 0 == report.failures
+    assert report.allocationThroughput > 0
+  }
+
+  @Test
+  public void testReviewLatency() throws Throwable {
+    String bound = System.getProperty(REVIEW_P99_MAX_MILLIS)
+    assume(bound != null, "$REVIEW_P99_MAX_MILLIS not set")
+    // enough churn and rounds for the p99 not to be the maximum
+    SimulationConfig config = new SimulationConfig(
+        failureRate: 0.02,
+        nodeLossRate: 0.01,
+        warmupRounds: 100,
+        rounds: 1000,
+        seed: 1)
+    SimulationReport report = simulator(config).run()
+    log.info("\n$report")
+    assert config.rounds ==
+           report.timer(AllocationStormSimulator.OP_REVIEW).count
+    double p99 = report.latencyMillis(AllocationStormSimulator.OP_REVIEW, 0.99)
+    assert p99 <= Long.parseLong(bound)
+  }
+
+  @Test
+  public void testWarmupExcludedFromReport() throws Throwable {
+    SimulationConfig config = new SimulationConfig(warmupRounds: 20,
+        rounds: 5)
+    SimulationReport report = simulator(config).run()
+    // the storm happened during the warm-up
+    assert 0 == report.allocated
+    assert config.desiredContainers == report.live
+    assert 5 == report.timer(AllocationStormSimulator.OP_REVIEW).count
+  }
+
+  @Test
+  public void testFailuresAndNodeLoss() throws Throwable {
+    SimulationConfig config = new SimulationConfig(
+        failureRate: 0.02,
+        nodeLossRate: 0.01,
+        rounds: 60,
+        seed: 1)
+    SimulationReport report = simulator(config).run()
+    log.info("\n$report")
+    assert report.failures > 0
+    assert report.nodesLost > 0
+    assert report.allocated > config.desiredContainers
+    assert report.live <= config.desiredContainers
+    assert report.timer(AllocationStormSimulator.OP_COMPLETE).count > 0
+    assert report.timer(AllocationStormSimulator.OP_NODE_UPDATE).count > 0
+  }
+
+  @Test
+  public void testAntiAffinity() throws Throwable {
+    SimulationConfig config = new SimulationConfig(
+        clusterSize: 32,
+        desiredRole0: 50,
+        desiredRole1: 0,
+        desiredRole2: 20,
+        antiAffinity: true,
+        rounds: 60)
+    AllocationStormSimulator simulator = simulator(config)
+    SimulationReport report = simulator.run()
+    log.info("\n$report")
+    List<RoleInstance> aa = simulator.appState.enumLiveNodesInRole(ROLE2)
+    assert 20 == aa.size()
+    Set<String> hosts = new HashSet<>()
+    aa.each { RoleInstance instance -> hosts << instance.container.nodeId.host }
+    assert 20 == hosts.size()
+  }
+
+  @Test
+  public void testConfigFromArgs() throws Throwable {
+    SimulationConfig config = SimulationConfig.fromArgs(
+        ["clusterSize=10", "antiAffinity=false", "failureRate=0.5",
+         "seed=12"] as String[])
+    assert 10 == config.clusterSize
+    assert !config.antiAffinity
+    assert 0.5d == config.failureRate
+    assert 12L == config.seed
+    try {
+      SimulationConfig.fromArgs(["unknown=1"] as String[])
+      fail("expected an exception")
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.common.tools;
+
+import org.apache.slider.core.registry.docstore.ConfigUtils;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** Test the single pass token resolver. */
+public class TestTokenResolver {
+
+  @Test
+  public void testResolveTokens() throws Throwable {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("${HOST}", "host1");
+    tokens.put("{{PORT}}", "8080");
+    tokens.put("${URL}", "http://${HOST}:{{PORT}}/");
+    assertEquals("http://host1:8080/ on host1",
+        TokenResolver.resolve("${URL} on ${HOST}", tokens));
+    // unknown and unterminated tokens are left alone
+    assertEquals("${UNKNOWN}-host1-${HOST",
+        TokenResolver.resolve("${UNKNOWN}-${HOST}-${HOST", tokens));
+    // replacements containing regexp characters are not interpreted
+    tokens.put("${DIR}", "$1\\path");
+    assertEquals("$1\\path/bin", TokenResolver.resolve("${DIR}/bin", tokens));
+  }
+
+  @Test
+  public void testNoReplacementReturnsSameString() throws Throwable {
+    TokenResolver resolver = new TokenResolver(new HashMap<String, String>());
+    String value = "no ${tokens} {{here}}";
+    assertSame(value, resolver.resolve(value));
+    assertNull(resolver.resolve(null));
+  }
+
+  @Test
+  public void testNestedToken() throws Throwable {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("${NAME}", "a");
+    tokens.put("${KEY.a}", "value");
+    assertEquals("${KEY.a}", TokenResolver.resolve("${KEY.${NAME}}", tokens));
+  }
+
+  @Test
+  public void testCyclesLeftInPlace() throws Throwable {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("${A}", "a${B}");
+    tokens.put("${B}", "b${A}");
+    tokens.put("${C}", "c");
+    TokenResolver resolver = new TokenResolver(tokens);
+    assertEquals("${A} ${B} c", resolver.resolve("${A} ${B} ${C}"));
+    tokens.put("${SELF}", "${SELF}");
+    assertEquals("${SELF}",
+        new TokenResolver(tokens).resolve("${SELF}"));
+  }
+
+  @Test
+  public void testSiteReferences() throws Throwable {
+    Map<String, Map<String, String>> configs = new HashMap<>();
+    Map<String, String> site = new HashMap<>();
+    site.put("port", "8020");
+    site.put("address", "host:${@//site/core-site/port}");
+    site.put("broken", "${@//site/core-site/missing}");
+    site.put("uses.broken", "x${@//site/core-site/broken}");
+    configs.put("core-site", site);
+    TokenResolver resolver = TokenResolver.forSiteReferences(configs);
+    assertEquals("host:8020", resolver.resolve(site.get("address")));
+    assertEquals("${@//site/core-site/missing}",
+        resolver.resolve(site.get("broken")));
+    // values which still contain references are not substituted
+    assertEquals("x${@//site/core-site/broken}",
+        resolver.resolve(site.get("uses.broken")));
+  }
+
+  @Test
+  public void testUnterminatedTokenIsLiteral() throws Throwable {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("${HOST}", "host1");
+    tokens.put("{{PORT}}", "8080");
+    assertEquals("{{ host1:8080",
+        TokenResolver.resolve("{{ ${HOST}:{{PORT}}", tokens));
+    assertEquals("a {{b} host1",
+        TokenResolver.resolve("a {{b} ${HOST}", tokens));
+    assertEquals("host1 ${HOST",
+        TokenResolver.resolve("${HOST} ${HOST", tokens));
+  }
+
+  @Test
+  public void testConfigUtilsReplaceProps() throws Throwable {
+    Map<String, String> config = new HashMap<>();
+    config.put("name", "value");
+    config.put("dir", "/var/${name}");
+    assertEquals("value /var/value",
+        ConfigUtils.replaceProps(config, "{{name}} ${dir}"));
+
+    Map<String, String> env = new HashMap<>();
+    env.put("JAVA_HOME", "/usr/java");
+    Map<String, String> site = new HashMap<>();
+    site.put("java", "${JAVA_HOME}/bin/java");
+    site.put("other", "{{JAVA_HOME}}");
+    Map<String, String> resolved = ConfigUtils.replacePropsInConfig(site, env);
+    assertEquals("/usr/java/bin/java", resolved.get("java"));
+    assertEquals("{{JAVA_HOME}}", resolved.get("other"));
+  }
+}
@@ -99,6 +99,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createNiceMock;
@@ -1581,14 +1583,14 @@ public class TestAgentProviderService {
     mockAps.getAllocatedPorts(id).put("b", "101");
     mockAps.getAllocatedPorts("cid2").put("c", "102");
 
-    mockAps.getComponentInstanceData().put("cid2", new HashMap<String, String>());
-    mockAps.getComponentInstanceData().put(id, new HashMap<String, String>());
+    mockAps.getComponentInstanceData("cid2").put("host", "h2");
+    mockAps.getComponentInstanceData(id).put("host", "h1");
 
     mockAps.getComponentStatuses().put("cid2_HM", new ComponentInstanceState("HM", cid2, "aid"));
     mockAps.getComponentStatuses().put(id + "_HM", new ComponentInstanceState("HM", cid, "aid"));
 
-    Assert.assertNotNull(mockAps.getComponentInstanceData().get(id));
-    Assert.assertNotNull(mockAps.getComponentInstanceData().get("cid2"));
+    Assert.assertTrue(mockAps.hasContainerRecord(id));
+    Assert.assertTrue(mockAps.hasContainerRecord("cid2"));
 
     Assert.assertNotNull(mockAps.getComponentStatuses().get(id + "_HM"));
     Assert.assertNotNull(mockAps.getComponentStatuses().get("cid2_HM"));
@@ -1600,17 +1602,71 @@ public class TestAgentProviderService {
     // Make the call
     mockAps.notifyContainerCompleted(new MockContainerId(1));
 
+    // the whole record of the container is released
+    Assert.assertFalse(mockAps.hasContainerRecord(id));
+    Assert.assertEquals("h2", mockAps.getComponentInstanceData("cid2").get("host"));
+
     Assert.assertEquals(mockAps.getAllocatedPorts().size(), 0);
     Assert.assertEquals(mockAps.getAllocatedPorts(id).size(), 0);
     Assert.assertEquals(mockAps.getAllocatedPorts("cid2").size(), 1);
 
-    Assert.assertNull(mockAps.getComponentInstanceData().get(id));
-    Assert.assertNotNull(mockAps.getComponentInstanceData().get("cid2"));
-
     Assert.assertNull(mockAps.getComponentStatuses().get(id + "_HM"));
     Assert.assertNotNull(mockAps.getComponentStatuses().get("cid2_HM"));
   }
 
+  @Test
+  public void testConcurrentContainerState() throws Exception {
+    AgentProviderService aps = createAgentProviderService(new Configuration());
+    final AgentProviderService mockAps = Mockito.spy(aps);
+    doNothing().when(mockAps).publishApplicationInstanceData(anyString(), anyString(), anyCollection());
+
+    final int containers = 200;
+    int threads = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Throwable> failures =
+        Collections.synchronizedList(new ArrayList<Throwable>());
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int t = 0; t < threads; t++) {
+      final String port = "port" + t;
+      Thread worker = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < containers; i++) {
+              String id = new MockContainerId(i).toString();
+              // all threads must see the same per-container map
+              mockAps.getAllocatedPorts(id).put(port, "1");
+              mockAps.getCurrentExports("group").isEmpty();
+            }
+          } catch (Throwable e) {
+            failures.add(e);
+          }
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    Assert.assertTrue(failures.toString(), failures.isEmpty());
+    for (int i = 0; i < containers; i++) {
+      Assert.assertEquals(threads,
+          mockAps.getAllocatedPorts(new MockContainerId(i).toString()).size());
+    }
+
+    // completion is idempotent
+    ContainerId cid = new MockContainerId(1);
+    mockAps.getComponentStatuses().put(cid.toString() + "_HM",
+        new ComponentInstanceState("HM", cid, "aid"));
+    mockAps.notifyContainerCompleted(cid);
+    mockAps.notifyContainerCompleted(cid);
+    Assert.assertNull(mockAps.getComponentStatuses().get(cid.toString() + "_HM"));
+    Assert.assertTrue(mockAps.getAllocatedPorts(cid.toString()).isEmpty());
+  }
+
   @Test
   public void testAddInstallCommand() throws Exception {
     InputStream metainfo_1 = new ByteArrayInputStream(metainfo_1_str.getBytes());
@@ -1895,4 +1951,408 @@ public class TestAgentProviderService {
     Assert.assertEquals("0${@//site/cfg-2/A1}", cfg1.get("a1"));
     Assert.assertEquals("11${@//site/cfg1/a1}", cfg2.get("A1"));
   }
+
+  @Test
+  public void testCommandConfigurationTemplateReuse() throws Exception {
+    AgentProviderService aps = createAgentProviderService(new Configuration());
+
+    StateAccessForProviders access = createNiceMock(StateAccessForProviders.class);
+    AgentProviderService mockAps = Mockito.spy(aps);
+    doReturn(access).when(mockAps).getAmState();
+
+    AggregateConf aggConf = new AggregateConf();
+    ConfTreeOperations treeOps = aggConf.getAppConfOperations();
+    treeOps.getGlobalOptions().put(AgentKeys.JAVA_HOME, "java_home");
+    treeOps.set(OptionKeys.APPLICATION_NAME, "HBASE");
+    treeOps.set("site.fs.defaultFS", "hdfs://HOST1:8020/");
+    treeOps.set("internal.data.dir.path", "hdfs://HOST1:8020/database");
+    treeOps.set(OptionKeys.ZOOKEEPER_HOSTS, "HOST1");
+    treeOps.getGlobalOptions().put("site.hbase-site.a.port", "${HBASE_MASTER.ALLOCATED_PORT}");
+    treeOps.getGlobalOptions().put("site.hbase-site.random.port", "${HBASE_MASTER.ALLOCATED_PORT}{PER_CONTAINER}");
+    treeOps.getGlobalOptions().put("site.hbase-site.random.address", "HOST1:${@//site/hbase-site/random.port}");
+    treeOps.getGlobalOptions().put("site.hbase-site.instance", "${CLUSTER_NAME}-${CONTAINER_ID}");
+
+    expect(access.getAppConfSnapshot()).andReturn(treeOps).anyTimes();
+    expect(access.getInternalsSnapshot()).andReturn(treeOps).anyTimes();
+    expect(access.isApplicationLive()).andReturn(true).anyTimes();
+
+    doReturn("HOST1").when(mockAps).getClusterInfoPropertyValue(anyString());
+    doReturn(new HashMap<String, DefaultConfig>()).when(mockAps).getDefaultConfigs(anyString());
+    List<String> configurations = new ArrayList<String>();
+    configurations.add("hbase-site");
+    configurations.add("global");
+    doReturn(configurations).when(mockAps).getApplicationConfigurationTypes(anyString());
+    doReturn(new ArrayList<String>()).when(mockAps).getSystemConfigurationsRequested(any(ConfTreeOperations.class));
+    doReturn(new HashMap<String, Map<String, ClusterNode>>()).when(mockAps).getRoleClusterNodeMapping();
+
+    Map<String, String> allocatedPorts = new HashMap<String, String>();
+    allocatedPorts.put("hbase-site.a.port", "10023");
+    allocatedPorts.put("hbase-site.random.port", "10026");
+    doReturn(allocatedPorts).when(mockAps).getAllocatedPorts();
+    Map<String, String> ports1 = new HashMap<String, String>();
+    ports1.put("hbase-site.random.port", "10025");
+    doReturn(ports1).when(mockAps).getAllocatedPorts("cid1");
+    Map<String, String> ports2 = new HashMap<String, String>();
+    doReturn(ports2).when(mockAps).getAllocatedPorts("cid2");
+
+    replay(access);
+
+    ComponentCommand startCmd = ComponentCommand.getDefaultComponentCommand();
+    ComponentCommand stopCmd = ComponentCommand.getDefaultComponentCommand("STOP");
+    HeartBeatResponse hbr1 = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid1", hbr1, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    HeartBeatResponse hbr2 = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid2", hbr2, "", startCmd, stopCmd, 0, Boolean.FALSE);
+
+    // the template is built once, with and without the per-container ports
+    Mockito.verify(mockAps, Mockito.times(2)).dereferenceAllConfigs(anyMap());
+
+    Map<String, Map<String, String>> conf1 = hbr1.getExecutionCommands().get(0).getConfigurations();
+    Map<String, Map<String, String>> conf2 = hbr2.getExecutionCommands().get(0).getConfigurations();
+    assertEquals("cid1", conf1.get("global").get("app_container_id"));
+    assertEquals("cid2", conf2.get("global").get("app_container_id"));
+    Assert.assertFalse(conf1.get("global").get("app_container_tag").equals(
+        conf2.get("global").get("app_container_tag")));
+    assertEquals("10023", conf1.get("hbase-site").get("a.port"));
+    assertEquals("10023", conf2.get("hbase-site").get("a.port"));
+    assertEquals("10025", conf1.get("hbase-site").get("random.port"));
+    assertEquals("HOST1:10025", conf1.get("hbase-site").get("random.address"));
+    // no port allocated in the second container
+    assertEquals("${HBASE_MASTER.ALLOCATED_PORT}{PER_CONTAINER}",
+        conf2.get("hbase-site").get("random.port"));
+    assertEquals("HOST1:${HBASE_MASTER.ALLOCATED_PORT}{PER_CONTAINER}",
+        conf2.get("hbase-site").get("random.address"));
+    Assert.assertTrue(conf1.get("hbase-site").get("instance").endsWith("-cid1"));
+    Assert.assertTrue(conf2.get("hbase-site").get("instance").endsWith("-cid2"));
+
+    // the configurations returned are independent copies
+    conf1.get("hbase-site").put("a.port", "0");
+    HeartBeatResponse hbr3 = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid1", hbr3, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("10023", hbr3.getExecutionCommands().get(0).getConfigurations()
+        .get("hbase-site").get("a.port"));
+    Mockito.verify(mockAps, Mockito.times(2)).dereferenceAllConfigs(anyMap());
+
+    // a change in the shared ports rebuilds the template
+    doNothing().when(mockAps).processAndPublishComponentSpecificData(anyMap(),
+        anyString(), anyString(), anyString());
+    doNothing().when(mockAps).processAndPublishComponentSpecificExports(anyMap(),
+        anyString(), anyString(), anyString(), anyString());
+    mockAps.processAllocatedPorts("HOST1", "HBASE_MASTER", "HBASE_MASTER", "cid2",
+        Collections.singletonMap("hbase-site.a.port", "10030"));
+    HeartBeatResponse hbr4 = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid2", hbr4, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("10030", hbr4.getExecutionCommands().get(0).getConfigurations()
+        .get("hbase-site").get("a.port"));
+    Mockito.verify(mockAps, Mockito.times(4)).dereferenceAllConfigs(anyMap());
+  }
+
+  @Test
+  public void testCommandConfigurationTemplateRoleHosts() throws Exception {
+    AgentProviderService aps = createAgentProviderService(new Configuration());
+
+    StateAccessForProviders access = Mockito.mock(StateAccessForProviders.class);
+    AgentProviderService mockAps = Mockito.spy(aps);
+    doReturn(access).when(mockAps).getAmState();
+
+    AggregateConf aggConf = new AggregateConf();
+    ConfTreeOperations treeOps = aggConf.getAppConfOperations();
+    treeOps.getGlobalOptions().put(AgentKeys.JAVA_HOME, "java_home");
+    treeOps.set(OptionKeys.APPLICATION_NAME, "HBASE");
+    treeOps.set("site.fs.defaultFS", "hdfs://HOST1:8020/");
+    treeOps.set("internal.data.dir.path", "hdfs://HOST1:8020/database");
+    treeOps.set(OptionKeys.ZOOKEEPER_HOSTS, "HOST1");
+    treeOps.getGlobalOptions().put("site.hbase-site.masters", "${HBASE_MASTER_HOST}:16000");
+
+    Mockito.when(access.getAppConfSnapshot()).thenReturn(treeOps);
+    Mockito.when(access.getInternalsSnapshot()).thenReturn(treeOps);
+    Mockito.when(access.isApplicationLive()).thenReturn(true);
+    Mockito.when(access.getStateVersion()).thenReturn(1L);
+
+    doReturn("HOST1").when(mockAps).getClusterInfoPropertyValue(anyString());
+    doReturn(new HashMap<String, DefaultConfig>()).when(mockAps).getDefaultConfigs(anyString());
+    List<String> configurations = new ArrayList<String>();
+    configurations.add("hbase-site");
+    configurations.add("global");
+    doReturn(configurations).when(mockAps).getApplicationConfigurationTypes(anyString());
+    doReturn(new ArrayList<String>()).when(mockAps).getSystemConfigurationsRequested(any(ConfTreeOperations.class));
+    Map<String, Map<String, ClusterNode>> roleClusterNodeMap =
+        new HashMap<String, Map<String, ClusterNode>>();
+    doReturn(roleClusterNodeMap).when(mockAps).getRoleClusterNodeMapping();
+    doReturn(new HashMap<String, String>()).when(mockAps).getAllocatedPorts();
+    doReturn(new HashMap<String, String>()).when(mockAps).getAllocatedPorts(anyString());
+
+    ComponentCommand startCmd = ComponentCommand.getDefaultComponentCommand();
+    ComponentCommand stopCmd = ComponentCommand.getDefaultComponentCommand("STOP");
+
+    // no master yet: the token is left in place
+    HeartBeatResponse hbr = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid1", hbr, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("${HBASE_MASTER_HOST}:16000", hbr.getExecutionCommands().get(0)
+        .getConfigurations().get("hbase-site").get("masters"));
+    Mockito.verify(mockAps, Mockito.times(1)).dereferenceAllConfigs(anyMap());
+
+    // the first master gives the role a host slot: one rebuild
+    Map<String, ClusterNode> masters = new TreeMap<String, ClusterNode>();
+    ClusterNode cn1 = new ClusterNode(new MockContainerId(1));
+    cn1.host = "HOST1";
+    masters.put("cid1", cn1);
+    roleClusterNodeMap.put("HBASE_MASTER", masters);
+    Mockito.when(access.getStateVersion()).thenReturn(2L);
+    hbr = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid2", hbr, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("HOST1:16000", hbr.getExecutionCommands().get(0)
+        .getConfigurations().get("hbase-site").get("masters"));
+    Mockito.verify(mockAps, Mockito.times(2)).dereferenceAllConfigs(anyMap());
+
+    // more masters, then none: the template is reused
+    ClusterNode cn2 = new ClusterNode(new MockContainerId(2));
+    cn2.host = "HOST2";
+    masters.put("cid2", cn2);
+    Mockito.when(access.getStateVersion()).thenReturn(3L);
+    hbr = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid3", hbr, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("HOST1,HOST2:16000", hbr.getExecutionCommands().get(0)
+        .getConfigurations().get("hbase-site").get("masters"));
+
+    roleClusterNodeMap.clear();
+    Mockito.when(access.getStateVersion()).thenReturn(4L);
+    hbr = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid4", hbr, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    assertEquals("${HBASE_MASTER_HOST}:16000", hbr.getExecutionCommands().get(0)
+        .getConfigurations().get("hbase-site").get("masters"));
+    Mockito.verify(mockAps, Mockito.times(2)).dereferenceAllConfigs(anyMap());
+
+    // an unchanged state version does not rebuild the host lists
+    hbr = new HeartBeatResponse();
+    mockAps.addStartCommand("HBASE_MASTER", "HBASE_MASTER", "cid5", hbr, "", startCmd, stopCmd, 0, Boolean.FALSE);
+    Mockito.verify(mockAps, Mockito.times(4)).getRoleClusterNodeMapping();
+  }
+
+  @Test
+  public void testCommandBatching() throws Exception {
+    InputStream metainfo_1 = new ByteArrayInputStream(metainfo_1_str.getBytes());
+    Metainfo metainfo = new MetainfoParser().fromXmlStream(metainfo_1);
+    Configuration conf = new Configuration();
+    AgentProviderService aps = createAgentProviderService(conf);
+
+    ContainerLaunchContext ctx = createNiceMock(ContainerLaunchContext.class);
+    AggregateConf instanceDefinition = prepareConfForAgentStateTests();
+
+    Container container = createNiceMock(Container.class);
+    ProviderRole role_hm = new ProviderRole("HBASE_MASTER", 1);
+    SliderFileSystem sliderFileSystem = createNiceMock(SliderFileSystem.class);
+    ContainerLauncher launcher = createNiceMock(ContainerLauncher.class);
+    Path generatedConfPath = new Path(".", "test");
+    MapOperations resourceComponent = new MapOperations();
+    MapOperations appComponent = new MapOperations();
+    Path containerTmpDirPath = new Path(".", "test");
+    FilterFileSystem mockFs = createNiceMock(FilterFileSystem.class);
+    expect(sliderFileSystem.getFileSystem())
+        .andReturn(mockFs).anyTimes();
+    expect(mockFs.exists(anyObject(Path.class))).andReturn(true).anyTimes();
+    expect(sliderFileSystem.createAmResource(anyObject(Path.class),
+                                             anyObject(LocalResourceType.class)))
+        .andReturn(createNiceMock(LocalResource.class)).anyTimes();
+    expect(container.getId()).andReturn(new MockContainerId(1)).anyTimes();
+    expect(container.getNodeId()).andReturn(new MockNodeId("localhost")).anyTimes();
+    StateAccessForProviders access = createNiceMock(StateAccessForProviders.class);
+
+    AgentProviderService mockAps = Mockito.spy(aps);
+    doReturn(access).when(mockAps).getAmState();
+    doReturn(metainfo).when(mockAps).getApplicationMetainfo(any(SliderFileSystem.class), anyString());
+    doReturn(new HashMap<String, DefaultConfig>()).when(mockAps).
+        initializeDefaultConfigs(any(SliderFileSystem.class), anyString(), any(Metainfo.class));
+    doReturn(true).when(mockAps).isMaster(anyString());
+    doNothing().when(mockAps).addInstallCommand(
+        anyString(),
+        anyString(),
+        anyString(),
+        any(HeartBeatResponse.class),
+        anyString(),
+        eq((ComponentCommand)null),
+        Mockito.anyLong(),
+        anyString());
+    doNothing().when(mockAps).addStartCommand(
+        anyString(),
+        anyString(),
+        anyString(),
+        any(HeartBeatResponse.class),
+        anyString(),
+        eq((ComponentCommand)null),
+        eq((ComponentCommand)null),
+        Mockito.anyLong(),
+        Matchers.anyBoolean());
+    doReturn(conf).when(mockAps).getConfig();
+
+    expect(access.isApplicationLive()).andReturn(true).anyTimes();
+    ClusterDescription desc = new ClusterDescription();
+    desc.setOption(OptionKeys.ZOOKEEPER_QUORUM, "host1:2181");
+    desc.setInfo(OptionKeys.APPLICATION_NAME, "HBASE");
+    expect(access.getClusterStatus()).andReturn(desc).anyTimes();
+
+    AggregateConf aggConf = new AggregateConf();
+    ConfTreeOperations treeOps = aggConf.getAppConfOperations();
+    treeOps.getOrAddComponent("HBASE_MASTER").put(AgentKeys.WAIT_HEARTBEAT, "0");
+    treeOps.set(OptionKeys.APPLICATION_NAME, "HBASE");
+    expect(access.getInstanceDefinitionSnapshot()).andReturn(aggConf).anyTimes();
+    expect(access.getInternalsSnapshot()).andReturn(treeOps).anyTimes();
+    replay(access, ctx, container, sliderFileSystem, mockFs);
+
+    mockAps.buildContainerLaunchContext(launcher,
+                                        instanceDefinition,
+                                        container,
+                                        role_hm,
+                                        sliderFileSystem,
+                                        generatedConfPath,
+                                        resourceComponent,
+                                        appComponent,
+                                        containerTmpDirPath);
+    mockAps.setCommandBatching(true);
+
+    String label = "mockcontainer_1___HBASE_MASTER";
+    Register reg = new Register();
+    reg.setResponseId(0);
+    reg.setLabel(label);
+    RegistrationResponse resp = mockAps.handleRegistration(reg);
+    Assert.assertEquals(RegistrationStatus.OK, resp.getResponseStatus());
+
+    // the start is sent along with the install
+    HeartBeat hb = new HeartBeat();
+    hb.setResponseId(1);
+    hb.setHostname(label);
+    mockAps.handleHeartBeat(hb);
+    ComponentInstanceState componentStatus =
+        mockAps.getComponentStatuses().get(label);
+    Assert.assertEquals(State.INSTALLING, componentStatus.getState());
+    Assert.assertEquals(Command.START, componentStatus.getPipelinedCommand());
+    Mockito.verify(mockAps, Mockito.times(1)).addInstallCommand(anyString(),
+        anyString(), anyString(), any(HeartBeatResponse.class), anyString(),
+        eq((ComponentCommand)null), Mockito.anyLong(), anyString());
+    Mockito.verify(mockAps, Mockito.times(1)).addStartCommand(anyString(),
+        anyString(), anyString(), any(HeartBeatResponse.class), anyString(),
+        eq((ComponentCommand)null), eq((ComponentCommand)null),
+        Mockito.anyLong(), Matchers.anyBoolean());
+
+    // once the install completes the agent is starting, without another
+    // start being issued
+    hb.setResponseId(2);
+    CommandReport cr = new CommandReport();
+    cr.setRole("HBASE_MASTER");
+    cr.setRoleCommand("INSTALL");
+    cr.setStatus("COMPLETED");
+    hb.setReports(Arrays.asList(cr));
+    HeartBeatResponse hbr = mockAps.handleHeartBeat(hb);
+    Assert.assertEquals(3, hbr.getResponseId());
+    Assert.assertEquals(State.STARTING, componentStatus.getState());
+    Assert.assertNull(componentStatus.getPipelinedCommand());
+    Mockito.verify(mockAps, Mockito.times(1)).addStartCommand(anyString(),
+        anyString(), anyString(), any(HeartBeatResponse.class), anyString(),
+        eq((ComponentCommand)null), eq((ComponentCommand)null),
+        Mockito.anyLong(), Matchers.anyBoolean());
+  }
+
+  @Test
+  public void testDeltaHeartbeatBaseline() throws Exception {
+    AgentProviderService aps = createAgentProviderService(new Configuration());
+    ComponentInstanceState state = new ComponentInstanceState("HBASE_MASTER",
+        new MockContainerId(1), "AID_001");
+    Map<String, Map<String, String>> configs =
+        new HashMap<String, Map<String, String>>();
+    configs.put("hbase-site", Collections.singletonMap("a", "b"));
+
+    // a full heartbeat with configurations sets the baseline
+    HeartBeat hb = deltaHeartBeat(0, false, configs, "digest1");
+    HeartBeatResponse hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertFalse(hbr.isFullHeartbeatRequired());
+
+    // a delta heartbeat has its configurations restored from the digest
+    hb = deltaHeartBeat(1, true, null, "digest1");
+    hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertFalse(hbr.isFullHeartbeatRequired());
+    assertEquals(configs, hb.getComponentStatus().get(0).getConfigs());
+
+    // a resent heartbeat is still in sequence
+    hb = deltaHeartBeat(1, true, null, null);
+    hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertFalse(hbr.isFullHeartbeatRequired());
+
+    // an unknown digest needs a full heartbeat
+    hb = deltaHeartBeat(2, true, null, "digest2");
+    hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertTrue(hbr.isFullHeartbeatRequired());
+    Assert.assertNull(hb.getComponentStatus().get(0).getConfigs());
+
+    // so does a heartbeat out of sequence
+    hb = deltaHeartBeat(5, true, null, null);
+    hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertTrue(hbr.isFullHeartbeatRequired());
+
+    // and any delta heartbeat after re-registration
+    state.resetHeartbeatBaseline();
+    hb = deltaHeartBeat(6, true, null, null);
+    hbr = new HeartBeatResponse();
+    aps.applyHeartbeatBaseline(hb, state, hbr);
+    Assert.assertTrue(hbr.isFullHeartbeatRequired());
+    Assert.assertNull(state.getReportedConfigs("digest1"));
+  }
+
+  @Test
+  public void testUnchangedDeltaHeartbeatNotRepublished() throws Exception {
+    AgentProviderService aps = createAgentProviderService(new Configuration());
+    ComponentInstanceState state = new ComponentInstanceState("HBASE_MASTER",
+        new MockContainerId(1), "AID_001");
+    Map<String, Map<String, String>> configs =
+        new HashMap<String, Map<String, String>>();
+    configs.put("hbase-site", Collections.singletonMap("a", "b"));
+
+    // configurations received in full are published
+    HeartBeat hb = deltaHeartBeat(0, false, configs, "digest1");
+    Assert.assertTrue(aps.applyHeartbeatBaseline(hb, state,
+        new HeartBeatResponse()));
+    state.setConfigReported(true);
+
+    // but not when restored from the published baseline
+    hb = deltaHeartBeat(1, true, null, "digest1");
+    Assert.assertFalse(aps.applyHeartbeatBaseline(hb, state,
+        new HeartBeatResponse()));
+    hb = deltaHeartBeat(2, true, null, "digest1");
+    Assert.assertFalse(aps.applyHeartbeatBaseline(hb, state,
+        new HeartBeatResponse()));
+
+    // nor when the same configurations are resent in full
+    hb = deltaHeartBeat(3, false, configs, "digest1");
+    Assert.assertFalse(aps.applyHeartbeatBaseline(hb, state,
+        new HeartBeatResponse()));
+
+    // changed configurations are published again
+    Map<String, Map<String, String>> changed =
+        new HashMap<String, Map<String, String>>();
+    changed.put("hbase-site", Collections.singletonMap("a", "c"));
+    hb = deltaHeartBeat(4, false, changed, "digest2");
+    Assert.assertTrue(aps.applyHeartbeatBaseline(hb, state,
+        new HeartBeatResponse()));
+  }
+
+  private HeartBeat deltaHeartBeat(long id, boolean delta,
+      Map<String, Map<String, String>> configs, String digest) {
+    HeartBeat hb = new HeartBeat();
+    hb.setResponseId(id);
+    hb.setHostname("mockcontainer_1___HBASE_MASTER");
+    hb.setDelta(delta);
+    if (digest != null) {
+      ComponentStatus status = new ComponentStatus();
+      status.setComponentName("HBASE_MASTER");
+      status.setRoleCommand("GET_CONFIG");
+      status.setConfigs(configs);
+      status.setConfigsDigest(digest);
+      hb.getComponentStatus().add(status);
+    }
+    return hb;
+  }
 }
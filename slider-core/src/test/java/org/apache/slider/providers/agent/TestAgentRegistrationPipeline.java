@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.providers.agent;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestAgentRegistrationPipeline {
+
+  private final AgentRegistrationPipeline pipeline =
+      new AgentRegistrationPipeline(1, 2, 1000);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @After
+  public void teardown() {
+    release.countDown();
+    pipeline.stop();
+  }
+
+  private Runnable blocked(final CountDownLatch done) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }
+    };
+  }
+
+  @Test
+  public void testAdmissionBounded() throws Exception {
+    CountDownLatch done = new CountDownLatch(2);
+    Assert.assertTrue(pipeline.submit("c1", blocked(done)));
+    Assert.assertTrue(pipeline.submit("c2", blocked(done)));
+    Assert.assertFalse(pipeline.submit("c3", blocked(done)));
+    Assert.assertFalse(pipeline.isPending("c3"));
+    Assert.assertEquals(2, pipeline.getPendingCount());
+    Assert.assertEquals(1, ((Counter) pipeline.getMetrics()
+        .get(MetricsConstants.AGENT_REGISTRATIONS_REJECTED)).getCount());
+
+    // a container already in the pipeline may always re-register
+    Assert.assertTrue(pipeline.submit("c1", blocked(done)));
+
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    waitForIdle();
+    Assert.assertFalse(pipeline.isPending("c1"));
+    Assert.assertTrue(pipeline.submit("c3", blocked(new CountDownLatch(1))));
+  }
+
+  @Test
+  public void testPendingUntilProcessed() throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    Assert.assertTrue(pipeline.submit("c1", blocked(done)));
+    Assert.assertTrue(pipeline.isPending("c1"));
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    waitForIdle();
+    Timer latency = (Timer) pipeline.getMetrics()
+        .get(MetricsConstants.AGENT_REGISTRATION_LATENCY);
+    Assert.assertEquals(1, latency.getCount());
+  }
+
+  @Test
+  public void testFailedRegistrationNotLeftPending() throws Exception {
+    pipeline.submit("c1", new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException("failed");
+      }
+    });
+    waitForIdle();
+  }
+
+  @Test
+  public void testBackoffJittered() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      long backoff = pipeline.getBackoffInterval();
+      Assert.assertTrue(backoff >= 1000 && backoff < 2000);
+    }
+  }
+
+  private void waitForIdle() throws InterruptedException {
+    long end = System.currentTimeMillis() + 10000;
+    while (pipeline.getPendingCount() > 0
+           && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(0, pipeline.getPendingCount());
+  }
+}
@@ -115,6 +115,55 @@ public class TestComponentInstanceState {
     assertInState(State.STARTED, componentInstanceState);
   }
 
+  @Test
+  public void validatePipelinedStart() {
+    ComponentInstanceState componentInstanceState = new ComponentInstanceState("HBASE_MASTER", containerId, "AID_001");
+    TestCase.assertFalse(componentInstanceState.hasAddonPackages());
+    componentInstanceState.commandIssued(Command.INSTALL);
+    componentInstanceState.commandPipelined(Command.START);
+    TestCase.assertEquals(Command.START, componentInstanceState.getPipelinedCommand());
+    componentInstanceState.applyCommandResult(CommandResult.IN_PROGRESS, Command.INSTALL);
+    assertInState(State.INSTALLING, componentInstanceState);
+    // the agent moves on to the start as soon as the install completes
+    componentInstanceState.applyCommandResult(CommandResult.COMPLETED, Command.INSTALL);
+    assertInState(State.STARTING, componentInstanceState);
+    TestCase.assertNull(componentInstanceState.getPipelinedCommand());
+    TestCase.assertEquals(Command.NOP, componentInstanceState.getNextCommand());
+    componentInstanceState.applyCommandResult(CommandResult.COMPLETED, Command.START);
+    assertInState(State.STARTED, componentInstanceState);
+  }
+
+  @Test
+  public void validatePipelinedStartDiscardedOnFailure() {
+    ComponentInstanceState componentInstanceState = new ComponentInstanceState("HBASE_MASTER", containerId, "AID_001");
+    componentInstanceState.commandIssued(Command.INSTALL);
+    componentInstanceState.commandPipelined(Command.START);
+    componentInstanceState.applyCommandResult(CommandResult.FAILED, Command.INSTALL);
+    assertInState(State.INSTALL_FAILED, componentInstanceState);
+    TestCase.assertNull(componentInstanceState.getPipelinedCommand());
+    TestCase.assertEquals(Command.INSTALL, componentInstanceState.getNextCommand());
+
+    // nothing can be pipelined while commands can still be issued
+    try {
+      componentInstanceState.commandPipelined(Command.START);
+      TestCase.fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void validatePipelinedStopAfterUpgrade() {
+    ComponentInstanceState componentInstanceState = new ComponentInstanceState("HBASE_MASTER", containerId, "AID_001");
+    componentInstanceState.setState(State.STARTED);
+    componentInstanceState.commandIssued(Command.UPGRADE, true);
+    componentInstanceState.commandPipelined(Command.STOP);
+    // the stop follows whether or not the upgrade succeeds
+    componentInstanceState.applyCommandResult(CommandResult.FAILED, Command.UPGRADE);
+    assertInState(State.STOPPING, componentInstanceState);
+    componentInstanceState.applyCommandResult(CommandResult.COMPLETED, Command.STOP);
+    assertInState(State.STOPPED, componentInstanceState);
+  }
+
   protected void assertInState(State state,
       ComponentInstanceState componentInstanceState) {
     TestCase.assertEquals(state, componentInstanceState.getState());
@@ -17,6 +17,7 @@
 package org.apache.slider.providers.agent;
 
 import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.slider.server.appmaster.management.MetricsConstants;
 import org.apache.slider.server.appmaster.model.mock.MockContainerId;
 import org.junit.Assert;
 import org.junit.Test;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
@@ -132,6 +134,94 @@ public class TestHeartbeatMonitor {
     assertInState(ContainerState.HEARTBEAT_LOST, slaveState, now);
   }
 
+  @Test
+  public void testHeartbeatsRescheduleDeadlines() throws Exception {
+    AgentProviderService provider = createNiceMock(AgentProviderService.class);
+    long now = 100000;
+    int wakeupInterval = 1000;
+    Map<String, ComponentInstanceState> statuses = new HashMap<String, ComponentInstanceState>();
+    expect(provider.getComponentStatuses()).andReturn(statuses).anyTimes();
+    replay(provider);
+    HeartbeatMonitor heartbeatMonitor = new HeartbeatMonitor(provider,
+        wakeupInterval, 3 * wakeupInterval);
+    // nothing tracked yet
+    heartbeatMonitor.doWork(now);
+    Assert.assertEquals(Long.MAX_VALUE, heartbeatMonitor.timeToNextDeadline(now));
+
+    ComponentInstanceState[] states = new ComponentInstanceState[100];
+    for (int i = 0; i < states.length; i++) {
+      states[i] = new ComponentInstanceState("HBASE_REGIONSERVER",
+          new MockContainerId(i), "Aid1");
+      states[i].heartbeat(now);
+      String label = "label_" + i;
+      statuses.put(label, states[i]);
+      heartbeatMonitor.track(label, states[i]);
+    }
+    Assert.assertEquals(states.length, heartbeatMonitor.getMonitoredContainerCount());
+    Assert.assertEquals(wakeupInterval + 1, heartbeatMonitor.timeToNextDeadline(now));
+
+    // all but one keep heartbeating
+    for (int i = 1; i < states.length; i++) {
+      states[i].heartbeat(now + 500);
+    }
+    heartbeatMonitor.doWork(now + wakeupInterval + 1);
+    assertInState(ContainerState.UNHEALTHY, states[0], now);
+    for (int i = 1; i < states.length; i++) {
+      assertInState(ContainerState.HEALTHY, states[i], now);
+    }
+    Assert.assertEquals(1, heartbeatMonitor.timeToNextDeadline(now + wakeupInterval + 500));
+
+    // a heartbeat restores the container and moves its deadline on
+    states[0].heartbeat(now + 1200);
+    assertInState(ContainerState.HEALTHY, states[0], now);
+    heartbeatMonitor.doWork(now + 3 * wakeupInterval + 1);
+    for (ComponentInstanceState state : states) {
+      assertInState(ContainerState.UNHEALTHY, state, now);
+    }
+
+    // a completed container is no longer checked
+    statuses.remove("label_0");
+    heartbeatMonitor.doWork(now + 10 * wakeupInterval);
+    assertInState(ContainerState.UNHEALTHY, states[0], now);
+    assertInState(ContainerState.HEARTBEAT_LOST, states[1], now);
+    Assert.assertEquals(0, heartbeatMonitor.getMonitoredContainerCount());
+    Assert.assertTrue(heartbeatMonitor.getMetrics().containsKey(
+        MetricsConstants.AGENT_HEARTBEAT_DETECTION_LATENCY));
+  }
+
+  @Test
+  public void testEarlierDeadlineWakesMonitor() throws Exception {
+    AgentProviderService provider = createNiceMock(AgentProviderService.class);
+    Map<String, ComponentInstanceState> statuses =
+        new ConcurrentHashMap<String, ComponentInstanceState>();
+    expect(provider.getComponentStatuses()).andReturn(statuses).anyTimes();
+    replay(provider);
+    // far longer than the test waits for
+    int wakeupInterval = 60 * 1000;
+    HeartbeatMonitor hbm = new HeartbeatMonitor(provider, wakeupInterval,
+        10 * wakeupInterval);
+    hbm.start();
+    try {
+      // let the monitor go to sleep with nothing to monitor
+      Thread.sleep(200);
+      ComponentInstanceState state = new ComponentInstanceState(
+          "HBASE_MASTER", new MockContainerId(1), "Aid");
+      long now = System.currentTimeMillis();
+      state.heartbeat(now - 2 * wakeupInterval);
+      statuses.put("label_1", state);
+      // already past its deadline, so must be checked at once
+      hbm.track("label_1", state);
+      long timeout = now + 10 * 1000;
+      while (state.getContainerState() != ContainerState.UNHEALTHY
+             && System.currentTimeMillis() < timeout) {
+        Thread.sleep(50);
+      }
+      assertInState(ContainerState.UNHEALTHY, state, now);
+    } finally {
+      hbm.shutdown();
+    }
+  }
+
   protected void assertInState(ContainerState expectedState,
       ComponentInstanceState componentInstanceState, long now) {
     ContainerState actualState = componentInstanceState.getContainerState();
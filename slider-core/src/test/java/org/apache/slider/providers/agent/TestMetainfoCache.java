@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.slider.providers.agent;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.slider.common.tools.SliderFileSystem;
+import org.apache.slider.providers.agent.application.metadata.DefaultConfig;
+import org.apache.slider.providers.agent.application.metadata.Metainfo;
+import org.apache.slider.tools.TestUtility;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestMetainfoCache {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SliderFileSystem sliderFileSystem;
+  private String zipFileName;
+
+  @Before
+  public void setup() throws Exception {
+    zipFileName = TestUtility.createAppPackage(
+        folder,
+        "testpkg",
+        "test.zip",
+        "target/test-classes/org/apache/slider/common/tools/test");
+    Configuration configuration = new Configuration();
+    FileSystem fs = FileSystem.getLocal(configuration);
+    sliderFileSystem = new SliderFileSystem(fs, configuration);
+  }
+
+  @Test
+  public void testMetainfoParsedOnce() throws Exception {
+    MetainfoCache cache = new MetainfoCache();
+    Metainfo first = cache.getApplicationMetainfo(sliderFileSystem,
+        zipFileName, false);
+    Assert.assertEquals("STORM", first.getApplication().getName());
+    Assert.assertEquals(1, cache.getMisses());
+
+    // callers get their own copy, so renaming does not leak between them
+    first.getApplication().setName("RENAMED");
+    Metainfo second = cache.getApplicationMetainfo(sliderFileSystem,
+        zipFileName, false);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals("STORM", second.getApplication().getName());
+    Assert.assertEquals(first.getApplication().getComponents().size(),
+        second.getApplication().getComponents().size());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testNewVersionIsReread() throws Exception {
+    MetainfoCache cache = new MetainfoCache();
+    String before = cache.versionKey(sliderFileSystem, zipFileName);
+    cache.getApplicationMetainfo(sliderFileSystem, zipFileName, false);
+
+    // a summary file alongside the package takes precedence
+    File summary = new File(zipFileName + ".metainfo.xml");
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(summary))) {
+      writer.write("<metainfo>\n"
+          + "  <schemaVersion>2.0</schemaVersion>\n"
+          + "  <application>\n"
+          + "    <name>SUMMARY</name>\n"
+          + "    <version>1.0</version>\n"
+          + "  </application>\n"
+          + "</metainfo>");
+    }
+    Assert.assertNotEquals(before,
+        cache.versionKey(sliderFileSystem, zipFileName));
+    Metainfo metainfo = cache.getApplicationMetainfo(sliderFileSystem,
+        zipFileName, false);
+    Assert.assertEquals("SUMMARY", metainfo.getApplication().getName());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testMissingDefaultConfigRemembered() throws Exception {
+    MetainfoCache cache = new MetainfoCache();
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.getDefaultConfig(sliderFileSystem, zipFileName, "missing.xml");
+        Assert.fail("expected a failure to find missing.xml");
+      } catch (IOException expected) {
+        // expected
+      }
+    }
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testReadFailureNotRemembered() throws Exception {
+    final AtomicBoolean fail = new AtomicBoolean(true);
+    MetainfoCache cache = new MetainfoCache() {
+      @Override
+      DefaultConfig readDefaultConfig(SliderFileSystem fileSystem,
+          String appDef, String configFileName) throws IOException {
+        if (fail.getAndSet(false)) {
+          throw new IOException("transient failure");
+        }
+        return super.readDefaultConfig(fileSystem, appDef, configFileName);
+      }
+    };
+    try {
+      cache.getDefaultConfig(sliderFileSystem, zipFileName, "missing.xml");
+      Assert.fail("expected the read to fail");
+    } catch (IOException expected) {
+      Assert.assertEquals("transient failure", expected.getMessage());
+    }
+    // the next call reads the package again, and finds the file absent
+    try {
+      cache.getDefaultConfig(sliderFileSystem, zipFileName, "missing.xml");
+      Assert.fail("expected a failure to find missing.xml");
+    } catch (IOException expected) {
+      Assert.assertNotEquals("transient failure", expected.getMessage());
+    }
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void testCacheDirSharedAcrossInstances() throws Exception {
+    File cacheDir = folder.newFolder("metainfo-cache");
+    MetainfoCache cache = new MetainfoCache(cacheDir);
+    cache.getApplicationMetainfo(sliderFileSystem, zipFileName, false);
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(1, cacheDir.list().length);
+
+    MetainfoCache other = new MetainfoCache(cacheDir);
+    Metainfo metainfo = other.getApplicationMetainfo(sliderFileSystem,
+        zipFileName, false);
+    Assert.assertEquals("STORM", metainfo.getApplication().getName());
+    Assert.assertEquals(0, other.getMisses());
+    Assert.assertEquals(1, other.getHits());
+  }
+}
@@ -23,6 +23,7 @@ import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.json.JSONConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -59,10 +60,13 @@ import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.MediaType;
 import java.io.File;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class TestAMAgentWebServices {
@@ -185,6 +189,42 @@ public class TestAMAgentWebServices {
     assertEquals(response.getResponseId(), 0L);
   }
 
+  @Test
+  public void testGzippedHeartbeat() throws Exception {
+    Client client = createTestClient();
+    // compresses the request and decompresses the response
+    client.addFilter(new GZIPContentEncodingFilter(true));
+    WebResource webResource = client.resource(base_url + "test/heartbeat");
+    HeartBeatResponse response = webResource.type(MediaType.APPLICATION_JSON)
+        .post(HeartBeatResponse.class, createDummyHeartBeat());
+    assertEquals(0L, response.getResponseId());
+  }
+
+  @Test
+  public void testResponseGzippedOnlyWhenAccepted() throws Exception {
+    Client client = createTestClient();
+    WebResource webResource = client.resource(base_url + "test/heartbeat");
+    ClientResponse plain = webResource.type(MediaType.APPLICATION_JSON)
+        .post(ClientResponse.class, createDummyHeartBeat());
+    assertEquals(200, plain.getStatus());
+    assertNull(plain.getHeaders().getFirst("Content-Encoding"));
+    plain.close();
+
+    ClientResponse gzipped = webResource.type(MediaType.APPLICATION_JSON)
+        .header("Accept-Encoding", "gzip")
+        .post(ClientResponse.class, createDummyHeartBeat());
+    assertEquals(200, gzipped.getStatus());
+    assertEquals("gzip", gzipped.getHeaders().getFirst("Content-Encoding"));
+    InputStream in = new GZIPInputStream(gzipped.getEntityInputStream());
+    try {
+      HeartBeatResponse response = AgentObjectMapperProvider
+          .createObjectMapper().readValue(in, HeartBeatResponse.class);
+      assertEquals(0L, response.getResponseId());
+    } finally {
+      in.close();
+    }
+  }
+
   @Test
   public void testHeadURL() throws Exception {
     Client client = createTestClient();
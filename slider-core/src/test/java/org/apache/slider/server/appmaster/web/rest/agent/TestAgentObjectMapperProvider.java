@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.slider.server.appmaster.web.rest.agent;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that the shared agent mapper does not change the wire format
+ */
+public class TestAgentObjectMapperProvider {
+
+  private final ObjectMapper defaultMapper = new ObjectMapper();
+  private final ObjectMapper agentMapper =
+      AgentObjectMapperProvider.createObjectMapper();
+
+  private void assertSameJson(Object message) throws Exception {
+    assertEquals(defaultMapper.writeValueAsString(message),
+        agentMapper.writeValueAsString(message));
+  }
+
+  @Test
+  public void testHeartBeatResponse() throws Exception {
+    ExecutionCommand cmd = new ExecutionCommand(AgentCommandType.EXECUTION_COMMAND);
+    Map<String, String> site = new HashMap<String, String>();
+    site.put("key", "value");
+    site.put("unset", null);
+    Map<String, Map<String, String>> configurations =
+        new HashMap<String, Map<String, String>>();
+    configurations.put("site", site);
+    cmd.setConfigurations(configurations);
+    HeartBeatResponse response = new HeartBeatResponse();
+    response.setResponseId(1);
+    response.addExecutionCommand(cmd);
+    assertSameJson(response);
+
+    // null map values are still sent to the agent
+    String json = agentMapper.writeValueAsString(response);
+    assertTrue(json, json.contains("\"unset\":null"));
+  }
+
+  @Test
+  public void testRegistrationResponse() throws Exception {
+    RegistrationResponse response = new RegistrationResponse();
+    response.setResponseStatus(RegistrationStatus.OK);
+    response.setResponseId(0);
+    assertSameJson(response);
+  }
+
+  @Test
+  public void testHeartBeat() throws Exception {
+    HeartBeat heartBeat = new HeartBeat();
+    heartBeat.setResponseId(2);
+    heartBeat.setHostname("host");
+    assertSameJson(heartBeat);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.slider.server.appmaster.web.rest.agent;
+
+import org.apache.slider.core.conf.MapOperations;
+import org.apache.slider.providers.agent.AgentKeys;
+import org.junit.Test;
+import org.mortbay.jetty.security.SslSelectChannelConnector;
+import org.mortbay.thread.QueuedThreadPool;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the tuning of the agent REST endpoint from the AM configuration
+ */
+public class TestAgentWebAppTuning {
+
+  @Test
+  public void testDefaults() throws Exception {
+    MapOperations configs = new MapOperations();
+    QueuedThreadPool pool = AgentWebApp.createThreadPool(configs);
+    assertEquals(AgentKeys.DEFAULT_AGENT_THREADPOOL_SIZE_MAX,
+        pool.getMaxThreads());
+    assertEquals(AgentKeys.DEFAULT_AGENT_THREADPOOL_SIZE_MIN,
+        pool.getMinThreads());
+
+    SslSelectChannelConnector connector = new SslSelectChannelConnector();
+    AgentWebApp.configureConnector(connector, configs);
+    assertEquals(AgentKeys.DEFAULT_AGENT_CONNECTOR_ACCEPTORS,
+        connector.getAcceptors());
+    assertEquals(AgentKeys.DEFAULT_AGENT_CONNECTOR_MAX_IDLE_TIME,
+        connector.getMaxIdleTime());
+  }
+
+  @Test
+  public void testConfiguredValues() throws Exception {
+    Map<String, String> options = new HashMap<String, String>();
+    options.put(AgentKeys.KEY_AGENT_THREADPOOL_SIZE_MAX, "100");
+    options.put(AgentKeys.KEY_AGENT_THREADPOOL_SIZE_MIN, "200");
+    options.put(AgentKeys.KEY_AGENT_CONNECTOR_ACCEPTORS, "4");
+    options.put(AgentKeys.KEY_AGENT_CONNECTOR_ACCEPT_QUEUE_SIZE, "512");
+    options.put(AgentKeys.KEY_AGENT_CONNECTOR_MAX_IDLE_TIME, "5000");
+    MapOperations configs = new MapOperations("slider-appmaster", options);
+
+    QueuedThreadPool pool = AgentWebApp.createThreadPool(configs);
+    assertEquals(100, pool.getMaxThreads());
+    // the minimum is capped at the maximum
+    assertEquals(100, pool.getMinThreads());
+
+    SslSelectChannelConnector connector = new SslSelectChannelConnector();
+    AgentWebApp.configureConnector(connector, configs);
+    assertEquals(4, connector.getAcceptors());
+    assertEquals(512, connector.getAcceptQueueSize());
+    assertEquals(5000, connector.getMaxIdleTime());
+    assertEquals(5000, connector.getLowResourceMaxIdleTime());
+  }
+
+  @Test
+  public void testSessionCacheTuning() throws Exception {
+    SSLContext context = SSLContext.getInstance("TLS");
+    context.init(null, null, null);
+    SSLSessionContext sessions = context.getServerSessionContext();
+    int size = sessions.getSessionCacheSize();
+    int timeout = sessions.getSessionTimeout();
+
+    // negative values keep the defaults
+    AgentWebApp.tuneSessionContext(sessions, -1, -1);
+    assertEquals(size, sessions.getSessionCacheSize());
+    assertEquals(timeout, sessions.getSessionTimeout());
+
+    AgentWebApp.tuneSessionContext(sessions, 4096, 3600);
+    assertEquals(4096, sessions.getSessionCacheSize());
+    assertEquals(3600, sessions.getSessionTimeout());
+  }
+}